@@ -0,0 +1,87 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandTreeBenchmark {
+
+  // 100 commands * (1 literal + 9 subcommands * (1 literal + 10 arguments)) = 10,000 nodes
+  static final int COMMANDS = 100;
+  static final int SUBCOMMANDS = 9;
+  static final int ARGUMENTS = 10;
+
+  private CommandManager manager;
+
+  @Setup
+  public void setup() {
+    this.manager = Stubs.commandManager();
+  }
+
+  @Benchmark
+  public RootCommandNode<CommandSource> buildTree() {
+    return buildTree(this.manager);
+  }
+
+  static RootCommandNode<CommandSource> buildTree(final CommandManager manager) {
+    final RootCommandNode<CommandSource> root = new RootCommandNode<>();
+    int parserIndex = 0;
+    for (int command = 0; command < COMMANDS; command++) {
+      final LiteralCommandNode<CommandSource> literal = LiteralArgumentBuilder
+          .<CommandSource>literal("command" + command)
+          .build();
+      for (int subcommand = 0; subcommand < SUBCOMMANDS; subcommand++) {
+        final LiteralCommandNode<CommandSource> subLiteral = LiteralArgumentBuilder
+            .<CommandSource>literal("sub" + subcommand)
+            .build();
+        CommandNode<CommandSource> parent = subLiteral;
+        for (int argument = 0; argument < ARGUMENTS; argument++) {
+          final OpaqueArgumentType type = argumentType(manager, parserIndex++);
+          final ArgumentCommandNode<CommandSource, ?> node = argument("arg" + argument, type);
+          parent.addChild(node);
+          parent = node;
+        }
+        literal.addChild(subLiteral);
+      }
+      root.addChild(literal);
+    }
+    return root;
+  }
+
+  private static <T> ArgumentCommandNode<CommandSource, T> argument(final String name,
+                                                                    final ArgumentType<T> type) {
+    return RequiredArgumentBuilder.<CommandSource, T>argument(name, type).build();
+  }
+
+  private static OpaqueArgumentType argumentType(final CommandManager manager, final int index) {
+    final ArgumentParser parser = ArgumentParser.byOrdinal(index % ArgumentParser.count());
+    if (parser.hasProperties()) {
+      return OpaqueArgumentTypes.entity(manager, (index & 1) != 0, (index & 2) != 0);
+    }
+    return OpaqueArgumentTypes.argumentType(manager, parser);
+  }
+}
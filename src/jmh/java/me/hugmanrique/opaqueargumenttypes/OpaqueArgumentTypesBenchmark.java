@@ -0,0 +1,107 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import net.kyori.adventure.key.Key;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpaqueArgumentTypesBenchmark {
+
+  private static final Key REGISTRY = Key.key("worldgen/biome");
+  private static final Map<ArgumentParser, Function<CommandManager, OpaqueArgumentType>>
+      FACTORIES = new EnumMap<>(ArgumentParser.class);
+
+  static {
+    FACTORIES.put(ArgumentParser.ENTITY,
+        manager -> OpaqueArgumentTypes.entity(manager, true, true));
+    FACTORIES.put(ArgumentParser.GAME_PROFILE, OpaqueArgumentTypes::gameProfile);
+    FACTORIES.put(ArgumentParser.BLOCK_POS, OpaqueArgumentTypes::blockPos);
+    FACTORIES.put(ArgumentParser.COLUMN_POS, OpaqueArgumentTypes::columnPos);
+    FACTORIES.put(ArgumentParser.VEC3, OpaqueArgumentTypes::vec3);
+    FACTORIES.put(ArgumentParser.VEC2, OpaqueArgumentTypes::vec2);
+    FACTORIES.put(ArgumentParser.BLOCK_STATE, OpaqueArgumentTypes::blockState);
+    FACTORIES.put(ArgumentParser.BLOCK_PREDICATE, OpaqueArgumentTypes::blockPredicate);
+    FACTORIES.put(ArgumentParser.ITEM_STACK, OpaqueArgumentTypes::itemStack);
+    FACTORIES.put(ArgumentParser.ITEM_PREDICATE, OpaqueArgumentTypes::itemPredicate);
+    FACTORIES.put(ArgumentParser.COLOR, OpaqueArgumentTypes::color);
+    FACTORIES.put(ArgumentParser.COMPONENT, OpaqueArgumentTypes::component);
+    FACTORIES.put(ArgumentParser.MESSAGE, OpaqueArgumentTypes::message);
+    FACTORIES.put(ArgumentParser.NBT, OpaqueArgumentTypes::nbt);
+    FACTORIES.put(ArgumentParser.NBT_TAG, OpaqueArgumentTypes::nbtTag);
+    FACTORIES.put(ArgumentParser.NBT_PATH, OpaqueArgumentTypes::nbtPath);
+    FACTORIES.put(ArgumentParser.OBJECTIVE, OpaqueArgumentTypes::objective);
+    FACTORIES.put(ArgumentParser.OBJECTIVE_CRITERIA, OpaqueArgumentTypes::objectiveCriteria);
+    FACTORIES.put(ArgumentParser.OPERATION, OpaqueArgumentTypes::operation);
+    FACTORIES.put(ArgumentParser.PARTICLE, OpaqueArgumentTypes::particle);
+    FACTORIES.put(ArgumentParser.ANGLE, OpaqueArgumentTypes::angle);
+    FACTORIES.put(ArgumentParser.ROTATION, OpaqueArgumentTypes::rotation);
+    FACTORIES.put(ArgumentParser.SCOREBOARD_SLOT, OpaqueArgumentTypes::scoreboardSlot);
+    FACTORIES.put(ArgumentParser.SCORE_HOLDER,
+        manager -> OpaqueArgumentTypes.scoreHolder(manager, true));
+    FACTORIES.put(ArgumentParser.SWIZZLE, OpaqueArgumentTypes::swizzle);
+    FACTORIES.put(ArgumentParser.TEAM, OpaqueArgumentTypes::team);
+    FACTORIES.put(ArgumentParser.ITEM_SLOT, OpaqueArgumentTypes::itemSlot);
+    FACTORIES.put(ArgumentParser.RESOURCE_LOCATION, OpaqueArgumentTypes::resourceLocation);
+    FACTORIES.put(ArgumentParser.MOB_EFFECT, OpaqueArgumentTypes::mobEffect);
+    FACTORIES.put(ArgumentParser.FUNCTION, OpaqueArgumentTypes::function);
+    FACTORIES.put(ArgumentParser.ENTITY_ANCHOR, OpaqueArgumentTypes::entityAnchor);
+    FACTORIES.put(ArgumentParser.RANGE, manager -> OpaqueArgumentTypes.range(manager, true));
+    FACTORIES.put(ArgumentParser.INT_RANGE, OpaqueArgumentTypes::intRange);
+    FACTORIES.put(ArgumentParser.FLOAT_RANGE, OpaqueArgumentTypes::floatRange);
+    FACTORIES.put(ArgumentParser.ITEM_ENCHANTMENT, OpaqueArgumentTypes::itemEnchantment);
+    FACTORIES.put(ArgumentParser.ENTITY_SUMMON, OpaqueArgumentTypes::entitySummon);
+    FACTORIES.put(ArgumentParser.DIMENSION, OpaqueArgumentTypes::dimension);
+    FACTORIES.put(ArgumentParser.GAME_MODE, OpaqueArgumentTypes::gameMode);
+    FACTORIES.put(ArgumentParser.NBT_COMPOUND_TAG, OpaqueArgumentTypes::nbtCompoundTag);
+    FACTORIES.put(ArgumentParser.TIME, OpaqueArgumentTypes::time);
+    FACTORIES.put(ArgumentParser.RESOURCE_OR_TAG,
+        manager -> OpaqueArgumentTypes.resourceOrTag(manager, REGISTRY));
+    FACTORIES.put(ArgumentParser.RESOURCE_OR_TAG_KEY,
+        manager -> OpaqueArgumentTypes.resourceOrTagKey(manager, REGISTRY));
+    FACTORIES.put(ArgumentParser.RESOURCE,
+        manager -> OpaqueArgumentTypes.resource(manager, REGISTRY));
+    FACTORIES.put(ArgumentParser.RESOURCE_KEY,
+        manager -> OpaqueArgumentTypes.resourceKey(manager, REGISTRY));
+    FACTORIES.put(ArgumentParser.TEMPLATE_MIRROR, OpaqueArgumentTypes::templateMirror);
+    FACTORIES.put(ArgumentParser.TEMPLATE_ROTATION, OpaqueArgumentTypes::templateRotation);
+    FACTORIES.put(ArgumentParser.UUID, OpaqueArgumentTypes::uuid);
+  }
+
+  /** Every parser is benchmarked through its dedicated factory method. */
+  @Param
+  public ArgumentParser parser;
+
+  private CommandManager manager;
+  private Function<CommandManager, OpaqueArgumentType> factory;
+
+  @Setup
+  public void setup() {
+    this.manager = Stubs.commandManager();
+    this.factory = FACTORIES.get(this.parser);
+  }
+
+  @Benchmark
+  public OpaqueArgumentType factory() {
+    return this.factory.apply(this.manager);
+  }
+}
@@ -0,0 +1,99 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import java.util.concurrent.TimeUnit;
+import net.kyori.adventure.key.Key;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolUtilsBenchmark {
+
+  @State(Scope.Thread)
+  public static class VarIntState {
+
+    /** The number of bytes occupied by the encoded VarInt. */
+    @Param({ "1", "2", "3", "4", "5" })
+    public int bytes;
+
+    int value;
+    final byte[] dest = new byte[5];
+
+    @Setup
+    public void setup() {
+      // The smallest value of each length bucket
+      this.value = this.bytes == 1 ? 1 : 1 << (7 * (this.bytes - 1));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class IdentifierState {
+
+    @Param({ "short", "long" })
+    public String length;
+
+    Key identifier;
+
+    @Setup
+    public void setup() {
+      this.identifier = this.length.equals("short")
+          ? Key.key("item")
+          : Key.key("example_plugin", "worldgen/configured_structure_feature/very_long_name");
+    }
+  }
+
+  @Benchmark
+  public int varIntLength(final VarIntState state) {
+    return ProtocolUtils.varIntLength(state.value);
+  }
+
+  @Benchmark
+  public byte[] encodeVarInt(final VarIntState state) {
+    ProtocolUtils.encodeVarInt(state.value, state.dest, 0);
+    return state.dest;
+  }
+
+  @Benchmark
+  public int decodeVarInt(final VarIntState state) {
+    ProtocolUtils.encodeVarInt(state.value, state.dest, 0);
+    return ProtocolUtils.decodeVarInt(state.dest, 0);
+  }
+
+  @Benchmark
+  public int legacyVarIntLength(final VarIntState state) {
+    return (31 - Integer.numberOfLeadingZeros(state.value)) / 7 + 1;
+  }
+
+  @Benchmark
+  public byte[] legacyEncodeVarInt(final VarIntState state) {
+    // The loop-based algorithm used before encodeVarInt was unrolled
+    int value = state.value;
+    int offset = 0;
+    do {
+      byte current = (byte) (value & 0x7F);
+      value >>>= 7;
+      if (value != 0) {
+        current |= 0x80;
+      }
+      state.dest[offset++] = current;
+    } while (value != 0);
+    return state.dest;
+  }
+
+  @Benchmark
+  public byte[] encodeIdentifier(final IdentifierState state) {
+    return ProtocolUtils.encodeIdentifier(state.identifier);
+  }
+}
@@ -0,0 +1,363 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import net.kyori.adventure.key.Key;
+
+/**
+ * Describes an opaque argument type by its {@link ArgumentParser parser} and
+ * its decoded properties.
+ *
+ * <p>Descriptors are immutable, and equal descriptors describe argument
+ * types with equal properties. The subclasses of this class correspond to the
+ * factory methods in {@link OpaqueArgumentTypes} that accept properties.
+ */
+public abstract class ArgumentDescriptor {
+
+  private final ArgumentParser parser;
+
+  ArgumentDescriptor(final ArgumentParser parser) {
+    this.parser = parser;
+  }
+
+  /**
+   * Decodes the identifier and properties of the given argument type.
+   *
+   * @param type the argument type.
+   * @return the descriptor of the argument type.
+   * @throws IllegalArgumentException if the parser is unknown, or the
+   *     properties are malformed.
+   */
+  public static ArgumentDescriptor decode(final OpaqueArgumentType type) {
+    return decode(type.getIdentifier(), type.getProperties());
+  }
+
+  /**
+   * Decodes the given parser identifier and properties.
+   *
+   * @param identifier the parser identifier.
+   * @param properties the encoded properties, or {@code null} if none.
+   * @return the descriptor.
+   * @throws IllegalArgumentException if the parser is unknown, or the
+   *     properties are malformed or truncated.
+   */
+  public static ArgumentDescriptor decode(final Key identifier, final byte[] properties) {
+    final ArgumentParser parser = ArgumentParser.fromKey(identifier);
+    if (parser == null) {
+      throw new IllegalArgumentException("Unknown parser " + identifier.asString());
+    }
+    final ByteBuffer src = ByteBuffer.wrap(properties != null ? properties : new byte[0]);
+    final ArgumentDescriptor descriptor;
+    try {
+      descriptor = read(parser, src);
+    } catch (final BufferUnderflowException e) {
+      throw new IllegalArgumentException("The properties of " + identifier.asString()
+          + " are truncated", e);
+    }
+    if (src.hasRemaining()) {
+      throw new IllegalArgumentException("The properties of " + identifier.asString()
+          + " have " + src.remaining() + " trailing bytes");
+    }
+    return descriptor;
+  }
+
+  /**
+   * Reads the properties of the given parser, starting at the position of the
+   * given buffer. The position is advanced past the read properties.
+   *
+   * @param parser the argument parser.
+   * @param src the buffer containing the encoded properties.
+   * @return the descriptor.
+   * @throws IllegalArgumentException if the properties are malformed.
+   * @throws java.nio.BufferUnderflowException if the properties are truncated.
+   */
+  public static ArgumentDescriptor read(final ArgumentParser parser, final ByteBuffer src) {
+    switch (parser) {
+      case ENTITY:
+        final byte flags = src.get();
+        if ((flags & ~0x3) != 0) {
+          throw new IllegalArgumentException("Unknown entity flags " + flags);
+        }
+        return new Entity((flags & 0x1) != 0, (flags & 0x2) != 0);
+      case SCORE_HOLDER:
+        return new ScoreHolder(readBoolean(src));
+      case RANGE:
+        return new Range(readBoolean(src));
+      case RESOURCE_OR_TAG:
+      case RESOURCE_OR_TAG_KEY:
+      case RESOURCE:
+      case RESOURCE_KEY:
+        return new Resource(parser, ProtocolUtils.readIdentifier(src));
+      default:
+        return new Simple(parser);
+    }
+  }
+
+  private static boolean readBoolean(final ByteBuffer src) {
+    final byte value = src.get();
+    if (value != 0x0 && value != 0x1) {
+      throw new IllegalArgumentException("Invalid boolean " + value);
+    }
+    return value == 0x1;
+  }
+
+  /**
+   * Returns the parser of the described argument type.
+   *
+   * @return the argument parser.
+   */
+  public ArgumentParser parser() {
+    return this.parser;
+  }
+
+  /**
+   * Returns the described argument type for the given command manager.
+   *
+   * @param manager the command manager.
+   * @return the argument type.
+   */
+  public abstract OpaqueArgumentType toArgumentType(CommandManager manager);
+
+  /**
+   * Describes an argument type whose parser has no properties.
+   */
+  public static final class Simple extends ArgumentDescriptor {
+
+    Simple(final ArgumentParser parser) {
+      super(parser);
+    }
+
+    @Override
+    public OpaqueArgumentType toArgumentType(final CommandManager manager) {
+      return OpaqueArgumentTypes.argumentType(manager, parser());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof Simple && ((Simple) obj).parser() == parser();
+    }
+
+    @Override
+    public int hashCode() {
+      return parser().hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "Simple{parser=" + parser().key().asString() + '}';
+    }
+  }
+
+  /**
+   * Describes an argument type for the {@code minecraft:entity} parser.
+   *
+   * @see OpaqueArgumentTypes#entity(CommandManager, boolean, boolean)
+   */
+  public static final class Entity extends ArgumentDescriptor {
+
+    private final boolean single;
+    private final boolean onlyPlayers;
+
+    Entity(final boolean single, final boolean onlyPlayers) {
+      super(ArgumentParser.ENTITY);
+      this.single = single;
+      this.onlyPlayers = onlyPlayers;
+    }
+
+    /**
+     * Returns whether only a single entity is allowed.
+     *
+     * @return {@code true} if only a single entity is allowed.
+     */
+    public boolean single() {
+      return this.single;
+    }
+
+    /**
+     * Returns whether only players are allowed.
+     *
+     * @return {@code true} if only players are allowed.
+     */
+    public boolean onlyPlayers() {
+      return this.onlyPlayers;
+    }
+
+    @Override
+    public OpaqueArgumentType toArgumentType(final CommandManager manager) {
+      return OpaqueArgumentTypes.entity(manager, this.single, this.onlyPlayers);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Entity)) {
+        return false;
+      }
+      final Entity other = (Entity) obj;
+      return this.single == other.single && this.onlyPlayers == other.onlyPlayers;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.single, this.onlyPlayers);
+    }
+
+    @Override
+    public String toString() {
+      return "Entity{single=" + this.single + ", onlyPlayers=" + this.onlyPlayers + '}';
+    }
+  }
+
+  /**
+   * Describes an argument type for the {@code minecraft:score_holder} parser.
+   *
+   * @see OpaqueArgumentTypes#scoreHolder(CommandManager, boolean)
+   */
+  public static final class ScoreHolder extends ArgumentDescriptor {
+
+    private final boolean multiple;
+
+    ScoreHolder(final boolean multiple) {
+      super(ArgumentParser.SCORE_HOLDER);
+      this.multiple = multiple;
+    }
+
+    /**
+     * Returns whether multiple score holders are allowed.
+     *
+     * @return {@code true} if multiple score holders are allowed.
+     */
+    public boolean multiple() {
+      return this.multiple;
+    }
+
+    @Override
+    public OpaqueArgumentType toArgumentType(final CommandManager manager) {
+      return OpaqueArgumentTypes.scoreHolder(manager, this.multiple);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof ScoreHolder && ((ScoreHolder) obj).multiple == this.multiple;
+    }
+
+    @Override
+    public int hashCode() {
+      return Boolean.hashCode(this.multiple);
+    }
+
+    @Override
+    public String toString() {
+      return "ScoreHolder{multiple=" + this.multiple + '}';
+    }
+  }
+
+  /**
+   * Describes an argument type for the {@code minecraft:range} parser.
+   *
+   * @see OpaqueArgumentTypes#range(CommandManager, boolean)
+   */
+  public static final class Range extends ArgumentDescriptor {
+
+    private final boolean decimals;
+
+    Range(final boolean decimals) {
+      super(ArgumentParser.RANGE);
+      this.decimals = decimals;
+    }
+
+    /**
+     * Returns whether decimal values are allowed.
+     *
+     * @return {@code true} if decimal values are allowed.
+     */
+    public boolean decimals() {
+      return this.decimals;
+    }
+
+    @Override
+    public OpaqueArgumentType toArgumentType(final CommandManager manager) {
+      return OpaqueArgumentTypes.range(manager, this.decimals);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof Range && ((Range) obj).decimals == this.decimals;
+    }
+
+    @Override
+    public int hashCode() {
+      return Boolean.hashCode(this.decimals);
+    }
+
+    @Override
+    public String toString() {
+      return "Range{decimals=" + this.decimals + '}';
+    }
+  }
+
+  /**
+   * Describes an argument type for the {@code minecraft:resource},
+   * {@code minecraft:resource_key}, {@code minecraft:resource_or_tag} or
+   * {@code minecraft:resource_or_tag_key} parsers.
+   *
+   * @see OpaqueArgumentTypes#resource(CommandManager, Key)
+   * @see OpaqueArgumentTypes#resourceKey(CommandManager, Key)
+   * @see OpaqueArgumentTypes#resourceOrTag(CommandManager, Key)
+   * @see OpaqueArgumentTypes#resourceOrTagKey(CommandManager, Key)
+   */
+  public static final class Resource extends ArgumentDescriptor {
+
+    private final Key registry;
+
+    Resource(final ArgumentParser parser, final Key registry) {
+      super(parser);
+      this.registry = registry;
+    }
+
+    /**
+     * Returns the registry from which the suggestions are sourced from.
+     *
+     * @return the registry.
+     */
+    public Key registry() {
+      return this.registry;
+    }
+
+    @Override
+    public OpaqueArgumentType toArgumentType(final CommandManager manager) {
+      switch (parser()) {
+        case RESOURCE_OR_TAG:
+          return OpaqueArgumentTypes.resourceOrTag(manager, this.registry);
+        case RESOURCE_OR_TAG_KEY:
+          return OpaqueArgumentTypes.resourceOrTagKey(manager, this.registry);
+        case RESOURCE:
+          return OpaqueArgumentTypes.resource(manager, this.registry);
+        default:
+          return OpaqueArgumentTypes.resourceKey(manager, this.registry);
+      }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Resource)) {
+        return false;
+      }
+      final Resource other = (Resource) obj;
+      return parser() == other.parser() && this.registry.equals(other.registry);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * parser().hashCode() + this.registry.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "Resource{parser=" + parser().key().asString()
+          + ", registry=" + this.registry.asString() + '}';
+    }
+  }
+}
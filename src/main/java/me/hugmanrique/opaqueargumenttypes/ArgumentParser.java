@@ -0,0 +1,492 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_13;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_14;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_16;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_16_2;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_18_2;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19_3;
+
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import com.velocitypowered.api.network.ProtocolVersion;
+import java.util.Arrays;
+import net.kyori.adventure.key.Key;
+
+/**
+ * Enumerates the argument parsers known by the vanilla client for which
+ * {@link OpaqueArgumentTypes} provides a factory method.
+ *
+ * <p>Each constant holds a pre-built {@link Key identifier}, so creating
+ * an argument type never needs to parse or validate a key. New parsers are
+ * only ever appended, so the {@link #ordinal() ordinal} of a parser is stable
+ * and can be used as a compact index.
+ */
+public enum ArgumentParser {
+
+  /**
+   * The {@code minecraft:entity} parser.
+   *
+   * @see OpaqueArgumentTypes#entity(CommandManager, boolean, boolean)
+   */
+  ENTITY("entity", true, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:game_profile} parser.
+   *
+   * @see OpaqueArgumentTypes#gameProfile(CommandManager)
+   */
+  GAME_PROFILE("game_profile", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:block_pos} parser.
+   *
+   * @see OpaqueArgumentTypes#blockPos(CommandManager)
+   */
+  BLOCK_POS("block_pos", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:column_pos} parser.
+   *
+   * @see OpaqueArgumentTypes#columnPos(CommandManager)
+   */
+  COLUMN_POS("column_pos", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:vec3} parser.
+   *
+   * @see OpaqueArgumentTypes#vec3(CommandManager)
+   */
+  VEC3("vec3", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:vec2} parser.
+   *
+   * @see OpaqueArgumentTypes#vec2(CommandManager)
+   */
+  VEC2("vec2", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:block_state} parser.
+   *
+   * @see OpaqueArgumentTypes#blockState(CommandManager)
+   */
+  BLOCK_STATE("block_state", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:block_predicate} parser.
+   *
+   * @see OpaqueArgumentTypes#blockPredicate(CommandManager)
+   */
+  BLOCK_PREDICATE("block_predicate", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:item_stack} parser.
+   *
+   * @see OpaqueArgumentTypes#itemStack(CommandManager)
+   */
+  ITEM_STACK("item_stack", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:item_predicate} parser.
+   *
+   * @see OpaqueArgumentTypes#itemPredicate(CommandManager)
+   */
+  ITEM_PREDICATE("item_predicate", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:color} parser.
+   *
+   * @see OpaqueArgumentTypes#color(CommandManager)
+   */
+  COLOR("color", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:component} parser.
+   *
+   * @see OpaqueArgumentTypes#component(CommandManager)
+   */
+  COMPONENT("component", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:message} parser.
+   *
+   * @see OpaqueArgumentTypes#message(CommandManager)
+   */
+  MESSAGE("message", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:nbt} parser.
+   *
+   * @see OpaqueArgumentTypes#nbt(CommandManager)
+   */
+  NBT("nbt", false, MINECRAFT_1_13, MINECRAFT_1_14),
+
+  /**
+   * The {@code minecraft:nbt_tag} parser.
+   *
+   * @see OpaqueArgumentTypes#nbtTag(CommandManager)
+   */
+  NBT_TAG("nbt_tag", false, MINECRAFT_1_14, null),
+
+  /**
+   * The {@code minecraft:nbt_path} parser.
+   *
+   * @see OpaqueArgumentTypes#nbtPath(CommandManager)
+   */
+  NBT_PATH("nbt_path", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:objective} parser.
+   *
+   * @see OpaqueArgumentTypes#objective(CommandManager)
+   */
+  OBJECTIVE("objective", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:objective_criteria} parser.
+   *
+   * @see OpaqueArgumentTypes#objectiveCriteria(CommandManager)
+   */
+  OBJECTIVE_CRITERIA("objective_criteria", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:operation} parser.
+   *
+   * @see OpaqueArgumentTypes#operation(CommandManager)
+   */
+  OPERATION("operation", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:particle} parser.
+   *
+   * @see OpaqueArgumentTypes#particle(CommandManager)
+   */
+  PARTICLE("particle", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:angle} parser.
+   *
+   * @see OpaqueArgumentTypes#angle(CommandManager)
+   */
+  ANGLE("angle", false, MINECRAFT_1_16_2, null),
+
+  /**
+   * The {@code minecraft:rotation} parser.
+   *
+   * @see OpaqueArgumentTypes#rotation(CommandManager)
+   */
+  ROTATION("rotation", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:scoreboard_slot} parser.
+   *
+   * @see OpaqueArgumentTypes#scoreboardSlot(CommandManager)
+   */
+  SCOREBOARD_SLOT("scoreboard_slot", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:score_holder} parser.
+   *
+   * @see OpaqueArgumentTypes#scoreHolder(CommandManager, boolean)
+   */
+  SCORE_HOLDER("score_holder", true, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:swizzle} parser.
+   *
+   * @see OpaqueArgumentTypes#swizzle(CommandManager)
+   */
+  SWIZZLE("swizzle", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:team} parser.
+   *
+   * @see OpaqueArgumentTypes#team(CommandManager)
+   */
+  TEAM("team", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:item_slot} parser.
+   *
+   * @see OpaqueArgumentTypes#itemSlot(CommandManager)
+   */
+  ITEM_SLOT("item_slot", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:resource_location} parser.
+   *
+   * @see OpaqueArgumentTypes#resourceLocation(CommandManager)
+   */
+  RESOURCE_LOCATION("resource_location", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:mob_effect} parser.
+   *
+   * @see OpaqueArgumentTypes#mobEffect(CommandManager)
+   */
+  MOB_EFFECT("mob_effect", false, MINECRAFT_1_13, MINECRAFT_1_19_3),
+
+  /**
+   * The {@code minecraft:function} parser.
+   *
+   * @see OpaqueArgumentTypes#function(CommandManager)
+   */
+  FUNCTION("function", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:entity_anchor} parser.
+   *
+   * @see OpaqueArgumentTypes#entityAnchor(CommandManager)
+   */
+  ENTITY_ANCHOR("entity_anchor", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:range} parser.
+   *
+   * @see OpaqueArgumentTypes#range(CommandManager, boolean)
+   */
+  RANGE("range", true, MINECRAFT_1_13, MINECRAFT_1_19),
+
+  /**
+   * The {@code minecraft:int_range} parser.
+   *
+   * @see OpaqueArgumentTypes#intRange(CommandManager)
+   */
+  INT_RANGE("int_range", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:float_range} parser.
+   *
+   * @see OpaqueArgumentTypes#floatRange(CommandManager)
+   */
+  FLOAT_RANGE("float_range", false, MINECRAFT_1_13, null),
+
+  /**
+   * The {@code minecraft:item_enchantment} parser.
+   *
+   * @see OpaqueArgumentTypes#itemEnchantment(CommandManager)
+   */
+  ITEM_ENCHANTMENT("item_enchantment", false, MINECRAFT_1_13, MINECRAFT_1_19_3),
+
+  /**
+   * The {@code minecraft:entity_summon} parser.
+   *
+   * @see OpaqueArgumentTypes#entitySummon(CommandManager)
+   */
+  ENTITY_SUMMON("entity_summon", false, MINECRAFT_1_13, MINECRAFT_1_19_3),
+
+  /**
+   * The {@code minecraft:dimension} parser.
+   *
+   * @see OpaqueArgumentTypes#dimension(CommandManager)
+   */
+  DIMENSION("dimension", false, MINECRAFT_1_14, null),
+
+  /**
+   * The {@code minecraft:gamemode} parser.
+   *
+   * @see OpaqueArgumentTypes#gameMode(CommandManager)
+   */
+  GAME_MODE("gamemode", false, MINECRAFT_1_19_3, null),
+
+  /**
+   * The {@code minecraft:nbt_compound_tag} parser.
+   *
+   * @see OpaqueArgumentTypes#nbtCompoundTag(CommandManager)
+   */
+  NBT_COMPOUND_TAG("nbt_compound_tag", false, MINECRAFT_1_14, null),
+
+  /**
+   * The {@code minecraft:time} parser.
+   *
+   * @see OpaqueArgumentTypes#time(CommandManager)
+   */
+  TIME("time", false, MINECRAFT_1_14, null),
+
+  /**
+   * The {@code minecraft:resource_or_tag} parser.
+   *
+   * @see OpaqueArgumentTypes#resourceOrTag(CommandManager, Key)
+   */
+  RESOURCE_OR_TAG("resource_or_tag", true, MINECRAFT_1_18_2, null),
+
+  /**
+   * The {@code minecraft:resource_or_tag_key} parser.
+   *
+   * @see OpaqueArgumentTypes#resourceOrTagKey(CommandManager, Key)
+   */
+  RESOURCE_OR_TAG_KEY("resource_or_tag_key", true, MINECRAFT_1_19_3, null),
+
+  /**
+   * The {@code minecraft:resource} parser.
+   *
+   * @see OpaqueArgumentTypes#resource(CommandManager, Key)
+   */
+  RESOURCE("resource", true, MINECRAFT_1_18_2, null),
+
+  /**
+   * The {@code minecraft:resource_key} parser.
+   *
+   * @see OpaqueArgumentTypes#resourceKey(CommandManager, Key)
+   */
+  RESOURCE_KEY("resource_key", true, MINECRAFT_1_19_3, null),
+
+  /**
+   * The {@code minecraft:template_mirror} parser.
+   *
+   * @see OpaqueArgumentTypes#templateMirror(CommandManager)
+   */
+  TEMPLATE_MIRROR("template_mirror", false, MINECRAFT_1_19, null),
+
+  /**
+   * The {@code minecraft:template_rotation} parser.
+   *
+   * @see OpaqueArgumentTypes#templateRotation(CommandManager)
+   */
+  TEMPLATE_ROTATION("template_rotation", false, MINECRAFT_1_19, null),
+
+  /**
+   * The {@code minecraft:uuid} parser.
+   *
+   * @see OpaqueArgumentTypes#uuid(CommandManager)
+   */
+  UUID("uuid", false, MINECRAFT_1_16, null);
+
+  private static final ArgumentParser[] VALUES = values();
+
+  // Perfect hash table of the parsers indexed by the hash code of their key value,
+  // scrambled by a multiplier for which no two parsers share a slot.
+  private static final int HASH_SHIFT;
+  private static final int HASH_MULTIPLIER;
+  private static final ArgumentParser[] BY_HASH;
+
+  static {
+    // A table 4 times larger than the parser count makes collision-free multipliers common
+    final int bits = Integer.SIZE - Integer.numberOfLeadingZeros(VALUES.length - 1) + 2;
+    final ArgumentParser[] table = new ArgumentParser[1 << bits];
+    int multiplier = 0x9E3779B9;
+    search:
+    for (int attempt = 0; ; attempt++) {
+      if (attempt == 1 << 16) {
+        throw new AssertionError("Cannot find a perfect hash for " + VALUES.length + " parsers");
+      }
+      Arrays.fill(table, null);
+      for (final ArgumentParser parser : VALUES) {
+        final int slot = (parser.key.value().hashCode() * multiplier) >>> (Integer.SIZE - bits);
+        if (table[slot] != null) {
+          multiplier += 0x6A09E668; // keeps the multiplier odd
+          continue search;
+        }
+        table[slot] = parser;
+      }
+      break;
+    }
+    HASH_SHIFT = Integer.SIZE - bits;
+    HASH_MULTIPLIER = multiplier;
+    BY_HASH = table;
+  }
+
+  private final Key key;
+  private final boolean hasProperties;
+  private final ProtocolVersion addedIn;
+  private final ProtocolVersion removedIn;
+
+  ArgumentParser(final String value, final boolean hasProperties,
+                 final ProtocolVersion addedIn, final ProtocolVersion removedIn) {
+    this.key = Key.key(value);
+    this.hasProperties = hasProperties;
+    this.addedIn = addedIn;
+    this.removedIn = removedIn;
+  }
+
+  /**
+   * Returns the parser with the given ordinal.
+   *
+   * @param ordinal the ordinal of the parser.
+   * @return the parser.
+   * @throws IndexOutOfBoundsException if no parser has the given ordinal.
+   */
+  public static ArgumentParser byOrdinal(final int ordinal) {
+    return VALUES[ordinal];
+  }
+
+  /**
+   * Returns the parser with the given identifier.
+   *
+   * @param key the parser identifier.
+   * @return the parser, or {@code null} if no known parser has the given identifier.
+   */
+  public static ArgumentParser fromKey(final Key key) {
+    if (!Key.MINECRAFT_NAMESPACE.equals(key.namespace())) {
+      return null;
+    }
+    final String value = key.value();
+    final ArgumentParser parser = BY_HASH[(value.hashCode() * HASH_MULTIPLIER) >>> HASH_SHIFT];
+    return parser != null && parser.key.value().equals(value) ? parser : null;
+  }
+
+  /**
+   * Returns the parser of the given argument type.
+   *
+   * @param type the argument type.
+   * @return the parser, or {@code null} if the type isn't an opaque type of a known parser.
+   */
+  static ArgumentParser of(final ArgumentType<?> type) {
+    if (!(type instanceof OpaqueArgumentType)) {
+      return null;
+    }
+    return fromKey(((OpaqueArgumentType) type).getIdentifier());
+  }
+
+  /**
+   * Returns the number of known parsers.
+   *
+   * @return the parser count.
+   */
+  public static int count() {
+    return VALUES.length;
+  }
+
+  /**
+   * Returns the identifier of this parser.
+   *
+   * @return the parser identifier.
+   */
+  public Key key() {
+    return this.key;
+  }
+
+  /**
+   * Returns whether argument types for this parser need properties, which
+   * are encoded by the dedicated factory method in {@link OpaqueArgumentTypes}.
+   *
+   * @return {@code true} if this parser has properties.
+   */
+  public boolean hasProperties() {
+    return this.hasProperties;
+  }
+
+  /**
+   * Returns the first protocol version whose client knows this parser.
+   *
+   * @return the protocol version this parser was added in.
+   * @see ParserAvailability#isSupported(ArgumentParser, ProtocolVersion)
+   */
+  public ProtocolVersion addedIn() {
+    return this.addedIn;
+  }
+
+  /**
+   * Returns the first protocol version whose client no longer knows this parser.
+   *
+   * @return the protocol version this parser was removed in,
+   *     or {@code null} if the latest version still supports it.
+   * @see ParserAvailability#isSupported(ArgumentParser, ProtocolVersion)
+   */
+  public ProtocolVersion removedIn() {
+    return this.removedIn;
+  }
+}
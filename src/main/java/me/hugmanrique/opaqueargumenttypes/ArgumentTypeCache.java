@@ -0,0 +1,146 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Interns the argument types built by a {@link CommandManager}, so that
+ * every distinct (parser, properties) combination is only built once per
+ * command manager.
+ */
+final class ArgumentTypeCache {
+
+  // A proxy usually has a single command manager, so a copy-on-write array
+  // scanned by identity is cheaper than a weak identity map. Reads never lock.
+  private static volatile ManagerTypes[] managers = new ManagerTypes[0];
+
+  static OpaqueArgumentType get(final CommandManager manager, final ArgumentParser parser) {
+    final Object event = FlightRecorderSupport.beginArgumentType();
+    final AtomicReferenceArray<OpaqueArgumentType> types = typesOf(manager).withoutProperties;
+    final int index = parser.ordinal();
+    final OpaqueArgumentType cached = types.get(index);
+    if (cached != null) {
+      ArgumentTypeMetrics.record(event, manager, parser, null, true);
+      return cached;
+    }
+
+    final OpaqueArgumentType type = manager.opaqueArgumentTypeBuilder(parser.key()).build();
+    final boolean published = types.compareAndSet(index, null, type);
+    ArgumentTypeMetrics.record(event, manager, parser, null, !published);
+    return published ? type : types.get(index);
+  }
+
+  static OpaqueArgumentType get(final CommandManager manager, final ArgumentParser parser,
+                                final byte[] properties) {
+    final Object event = FlightRecorderSupport.beginArgumentType();
+    final ConcurrentMap<TypeKey, OpaqueArgumentType> types = typesOf(manager).withProperties;
+    final TypeKey key = new TypeKey(parser, properties);
+    final OpaqueArgumentType cached = types.get(key);
+    if (cached != null) {
+      ArgumentTypeMetrics.record(event, manager, parser, properties, true);
+      return cached;
+    }
+
+    // Build outside the map to avoid calling into the manager while holding a bin lock.
+    // Two racing threads may both build a type, but only one of them is ever published.
+    final OpaqueArgumentType type = manager.opaqueArgumentTypeBuilder(parser.key())
+        .withProperties(properties)
+        .build();
+    final OpaqueArgumentType existing = types.putIfAbsent(key, type);
+    ArgumentTypeMetrics.record(event, manager, parser, properties, existing != null);
+    return existing != null ? existing : type;
+  }
+
+  private static ManagerTypes typesOf(final CommandManager manager) {
+    for (final ManagerTypes entry : managers) {
+      if (entry.get() == manager) {
+        return entry;
+      }
+    }
+    return register(manager);
+  }
+
+  private static synchronized ManagerTypes register(final CommandManager manager) {
+    final ManagerTypes[] current = managers;
+    int live = 0;
+    for (final ManagerTypes entry : current) {
+      final CommandManager referent = entry.get();
+      if (referent == manager) {
+        return entry; // registered by another thread
+      } else if (referent != null) {
+        live++;
+      }
+    }
+
+    // Expunge the entries of collected managers (e.g. after a proxy reload)
+    final ManagerTypes[] updated = new ManagerTypes[live + 1];
+    int i = 0;
+    for (final ManagerTypes entry : current) {
+      if (entry.get() != null) {
+        updated[i++] = entry;
+      }
+    }
+    final ManagerTypes created = new ManagerTypes(manager);
+    updated[i] = created;
+    managers = updated;
+    return created;
+  }
+
+  // The number of registered managers, including collected ones not yet expunged
+  static int managerCount() {
+    return managers.length;
+  }
+
+  private static final class ManagerTypes extends WeakReference<CommandManager> {
+
+    // Assumes the built types don't strongly reference their manager, which
+    // would otherwise keep it reachable from these tables.
+    final AtomicReferenceArray<OpaqueArgumentType> withoutProperties =
+        new AtomicReferenceArray<>(ArgumentParser.count());
+    final ConcurrentMap<TypeKey, OpaqueArgumentType> withProperties = new ConcurrentHashMap<>();
+
+    ManagerTypes(final CommandManager manager) {
+      super(manager);
+    }
+  }
+
+  private static final class TypeKey {
+
+    private final ArgumentParser parser;
+    private final byte[] properties;
+    private final int hash;
+
+    TypeKey(final ArgumentParser parser, final byte[] properties) {
+      this.parser = parser;
+      this.properties = properties;
+      this.hash = 31 * parser.ordinal() + Arrays.hashCode(properties);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof TypeKey)) {
+        return false;
+      }
+      final TypeKey other = (TypeKey) obj;
+      return this.parser == other.parser
+          && Arrays.equals(this.properties, other.properties);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  private ArgumentTypeCache() {
+    throw new AssertionError();
+  }
+}
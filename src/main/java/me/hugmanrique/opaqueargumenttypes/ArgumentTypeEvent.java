@@ -0,0 +1,53 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event emitted when an argument type is requested from
+ * {@link OpaqueArgumentTypes}. Disabled by default.
+ *
+ * <p>Only loaded through {@link FlightRecorderEvents}.
+ */
+@Name("me.hugmanrique.opaqueargumenttypes.ArgumentType")
+@Label("Opaque Argument Type")
+@Description("An argument type requested from OpaqueArgumentTypes")
+@Category({ "Velocity", "Opaque Argument Types" })
+@Enabled(false)
+@StackTrace(false)
+final class ArgumentTypeEvent extends Event {
+
+  // Null if Flight Recorder is disabled in the JVM
+  private static final EventType TYPE = FlightRecorderEvents.eventType(ArgumentTypeEvent.class);
+
+  @Label("Parser")
+  String parser;
+
+  @Label("Properties Length")
+  @Description("The length of the encoded properties in bytes")
+  int propertiesLength;
+
+  @Label("Cached")
+  @Description("Whether the type was found in the cache of the command manager")
+  boolean cached;
+
+  /**
+   * Begins a new event if the event type is enabled.
+   *
+   * @return the event, or {@code null} if the event type is disabled.
+   */
+  static ArgumentTypeEvent beginIfEnabled() {
+    if (TYPE == null || !TYPE.isEnabled()) {
+      return null;
+    }
+    final ArgumentTypeEvent event = new ArgumentTypeEvent();
+    event.begin();
+    return event;
+  }
+}
@@ -0,0 +1,226 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.ProtocolUtils.encodeBoolean;
+import static me.hugmanrique.opaqueargumenttypes.ProtocolUtils.encodeIdentifier;
+
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.util.Arrays;
+import net.kyori.adventure.key.Key;
+
+/**
+ * A lightweight reference to an opaque argument type that is only built when
+ * the argument node to register is built.
+ *
+ * <p>A handle holds the ordinal of its {@link ArgumentParser parser} and its
+ * encoded properties, but no {@link CommandManager}. Handles can thus be
+ * created in static initializers, e.g. for commands that are only registered
+ * if a feature is enabled, without building any argument type. A handle is
+ * {@linkplain #resolve(CommandManager) resolved} through the interned types of
+ * {@link OpaqueArgumentTypes}, so equal handles resolve to the same instance.
+ *
+ * <p>Handles are immutable and can be shared between threads.
+ */
+public final class ArgumentTypeHandle {
+
+  private static final ArgumentTypeHandle[] WITHOUT_PROPERTIES =
+      new ArgumentTypeHandle[ArgumentParser.count()];
+
+  static {
+    for (int ordinal = 0; ordinal < WITHOUT_PROPERTIES.length; ordinal++) {
+      if (!ArgumentParser.byOrdinal(ordinal).hasProperties()) {
+        WITHOUT_PROPERTIES[ordinal] = new ArgumentTypeHandle(ordinal, null);
+      }
+    }
+  }
+
+  private final int ordinal;
+  private final byte[] properties;
+
+  private ArgumentTypeHandle(final int ordinal, final byte[] properties) {
+    this.ordinal = ordinal;
+    this.properties = properties;
+  }
+
+  /**
+   * Returns the handle of the argument type for the given parser, which must
+   * not have {@link ArgumentParser#hasProperties() properties}.
+   *
+   * @param parser the argument parser.
+   * @return the handle.
+   * @throws IllegalArgumentException if the parser has properties.
+   * @see OpaqueArgumentTypes#argumentType(CommandManager, ArgumentParser)
+   */
+  public static ArgumentTypeHandle of(final ArgumentParser parser) {
+    final ArgumentTypeHandle handle = WITHOUT_PROPERTIES[parser.ordinal()];
+    if (handle == null) {
+      throw new IllegalArgumentException("The " + parser.key().asString()
+          + " parser has properties, use its dedicated factory method");
+    }
+    return handle;
+  }
+
+  /**
+   * Returns a handle of an argument type for the {@code minecraft:entity} parser.
+   *
+   * @param single if set, only allows a single entity.
+   * @param onlyPlayers if set, only allows players.
+   * @return the handle.
+   * @see OpaqueArgumentTypes#entity(CommandManager, boolean, boolean)
+   */
+  public static ArgumentTypeHandle entity(final boolean single, final boolean onlyPlayers) {
+    return new ArgumentTypeHandle(ArgumentParser.ENTITY.ordinal(),
+        OpaqueArgumentTypes.entityProperties(single, onlyPlayers));
+  }
+
+  /**
+   * Returns a handle of an argument type for the {@code minecraft:score_holder} parser.
+   *
+   * @param multiple whether multiple score holders are allowed.
+   * @return the handle.
+   * @see OpaqueArgumentTypes#scoreHolder(CommandManager, boolean)
+   */
+  public static ArgumentTypeHandle scoreHolder(final boolean multiple) {
+    return new ArgumentTypeHandle(ArgumentParser.SCORE_HOLDER.ordinal(), encodeBoolean(multiple));
+  }
+
+  /**
+   * Returns a handle of an argument type for the {@code minecraft:range} parser.
+   *
+   * @param decimals whether decimal values are allowed.
+   * @return the handle.
+   * @see OpaqueArgumentTypes#range(CommandManager, boolean)
+   */
+  public static ArgumentTypeHandle range(final boolean decimals) {
+    return new ArgumentTypeHandle(ArgumentParser.RANGE.ordinal(), encodeBoolean(decimals));
+  }
+
+  /**
+   * Returns a handle of an argument type for the {@code minecraft:resource_or_tag} parser.
+   *
+   * @param registry the registry from which the suggestions are sourced from.
+   * @return the handle.
+   * @see OpaqueArgumentTypes#resourceOrTag(CommandManager, Key)
+   */
+  public static ArgumentTypeHandle resourceOrTag(final Key registry) {
+    return resource(ArgumentParser.RESOURCE_OR_TAG, registry);
+  }
+
+  /**
+   * Returns a handle of an argument type for the {@code minecraft:resource_or_tag_key}
+   * parser.
+   *
+   * @param registry the registry from which the suggestions are sourced from.
+   * @return the handle.
+   * @see OpaqueArgumentTypes#resourceOrTagKey(CommandManager, Key)
+   */
+  public static ArgumentTypeHandle resourceOrTagKey(final Key registry) {
+    return resource(ArgumentParser.RESOURCE_OR_TAG_KEY, registry);
+  }
+
+  /**
+   * Returns a handle of an argument type for the {@code minecraft:resource} parser.
+   *
+   * @param registry the registry from which the suggestions are sourced from.
+   * @return the handle.
+   * @see OpaqueArgumentTypes#resource(CommandManager, Key)
+   */
+  public static ArgumentTypeHandle resource(final Key registry) {
+    return resource(ArgumentParser.RESOURCE, registry);
+  }
+
+  /**
+   * Returns a handle of an argument type for the {@code minecraft:resource_key} parser.
+   *
+   * @param registry the registry from which the suggestions are sourced from.
+   * @return the handle.
+   * @see OpaqueArgumentTypes#resourceKey(CommandManager, Key)
+   */
+  public static ArgumentTypeHandle resourceKey(final Key registry) {
+    return resource(ArgumentParser.RESOURCE_KEY, registry);
+  }
+
+  private static ArgumentTypeHandle resource(final ArgumentParser parser, final Key registry) {
+    return new ArgumentTypeHandle(parser.ordinal(), encodeIdentifier(registry));
+  }
+
+  // The properties must be null if and only if the parser has no properties
+  static ArgumentTypeHandle of(final ArgumentParser parser, final byte[] properties) {
+    return properties == null ? of(parser) : new ArgumentTypeHandle(parser.ordinal(), properties);
+  }
+
+  /**
+   * Returns the parser of the referenced argument type.
+   *
+   * @return the argument parser.
+   */
+  public ArgumentParser parser() {
+    return ArgumentParser.byOrdinal(this.ordinal);
+  }
+
+  /**
+   * Returns a copy of the encoded properties of the referenced argument type.
+   *
+   * @return the encoded properties, or {@code null} if the parser has none.
+   */
+  public byte[] properties() {
+    return this.properties != null ? this.properties.clone() : null;
+  }
+
+  /**
+   * Returns the referenced argument type for the given command manager,
+   * building it if no equal type was requested before.
+   *
+   * @param manager the command manager.
+   * @return the argument type.
+   */
+  public OpaqueArgumentType resolve(final CommandManager manager) {
+    final ArgumentParser parser = ArgumentParser.byOrdinal(this.ordinal);
+    return this.properties == null
+        ? ArgumentTypeCache.get(manager, parser)
+        : ArgumentTypeCache.get(manager, parser, this.properties);
+  }
+
+  /**
+   * Creates a new argument node builder with the given name, whose type is
+   * the referenced argument type for the given command manager.
+   *
+   * <p>Brigadier builders hold their argument type, so the type is
+   * {@linkplain #resolve(CommandManager) resolved} when this method is called.
+   * Call it while building the command to register, and keep the handle
+   * rather than the builder in static fields.
+   *
+   * @param manager the command manager.
+   * @param name the name of the argument.
+   * @param <S> the type of the command source.
+   * @return the argument node builder.
+   */
+  public <S> RequiredArgumentBuilder<S, Void> argument(final CommandManager manager,
+                                                       final String name) {
+    return RequiredArgumentBuilder.argument(name, resolve(manager));
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ArgumentTypeHandle)) {
+      return false;
+    }
+    final ArgumentTypeHandle other = (ArgumentTypeHandle) obj;
+    return this.ordinal == other.ordinal && Arrays.equals(this.properties, other.properties);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.ordinal + Arrays.hashCode(this.properties);
+  }
+
+  @Override
+  public String toString() {
+    return "ArgumentTypeHandle{parser=" + parser().key().asString()
+        + ", properties=" + Arrays.toString(this.properties) + '}';
+  }
+}
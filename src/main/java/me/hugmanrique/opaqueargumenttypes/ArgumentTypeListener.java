@@ -0,0 +1,29 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.velocitypowered.api.command.CommandManager;
+
+/**
+ * Listens to the argument types requested from {@link OpaqueArgumentTypes}.
+ *
+ * <p>Listeners are {@linkplain ArgumentTypeMetrics#register(ArgumentTypeListener)
+ * registered} globally, and are called synchronously on the thread that requests
+ * the type, so they should be fast and thread-safe.
+ *
+ * @see CountingArgumentTypeListener
+ */
+@FunctionalInterface
+public interface ArgumentTypeListener {
+
+  /**
+   * Called after an argument type is requested.
+   *
+   * @param manager the command manager that builds the type.
+   * @param parser the parser of the type.
+   * @param propertiesLength the length of the encoded properties in bytes,
+   *     or {@code 0} if the parser has no properties.
+   * @param created {@code true} if the type was built by this request, or
+   *     {@code false} if it was found in the cache of the command manager.
+   */
+  void typeRequested(CommandManager manager, ArgumentParser parser, int propertiesLength,
+                     boolean created);
+}
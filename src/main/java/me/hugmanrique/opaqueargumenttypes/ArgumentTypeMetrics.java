@@ -0,0 +1,77 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.velocitypowered.api.command.CommandManager;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reports the argument types requested from {@link OpaqueArgumentTypes} to the
+ * registered {@link ArgumentTypeListener listeners} and to Flight Recorder.
+ *
+ * <p>The {@code me.hugmanrique.opaqueargumenttypes.ArgumentType} and
+ * {@code me.hugmanrique.opaqueargumenttypes.PropertyEncode} Flight Recorder events
+ * are disabled by default, and can be enabled in a recording configuration.
+ * When no listeners are registered and the events are disabled, reporting a
+ * request costs a couple of field reads.
+ */
+public final class ArgumentTypeMetrics {
+
+  private static final ArgumentTypeListener[] NO_LISTENERS = new ArgumentTypeListener[0];
+
+  // Listeners are rarely registered, so a copy-on-write array keeps reads lock-free
+  private static volatile ArgumentTypeListener[] listeners = NO_LISTENERS;
+
+  /**
+   * Registers the given listener.
+   *
+   * @param listener the listener.
+   */
+  public static synchronized void register(final ArgumentTypeListener listener) {
+    Objects.requireNonNull(listener);
+    final ArgumentTypeListener[] current = listeners;
+    final ArgumentTypeListener[] updated = Arrays.copyOf(current, current.length + 1);
+    updated[current.length] = listener;
+    listeners = updated;
+  }
+
+  /**
+   * Unregisters the given listener, if registered.
+   *
+   * @param listener the listener.
+   */
+  public static synchronized void unregister(final ArgumentTypeListener listener) {
+    final ArgumentTypeListener[] current = listeners;
+    for (int i = 0; i < current.length; i++) {
+      if (current[i] == listener) {
+        final ArgumentTypeListener[] updated = new ArgumentTypeListener[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, i);
+        System.arraycopy(current, i + 1, updated, i, updated.length - i);
+        listeners = updated;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Commits the given event, if not {@code null}, and notifies the registered listeners.
+   *
+   * @param event the event returned by {@link FlightRecorderSupport#beginArgumentType()}.
+   * @param manager the command manager.
+   * @param parser the parser of the type.
+   * @param properties the encoded properties, or {@code null} if the parser has none.
+   * @param cached whether the type was found in the cache.
+   */
+  static void record(final Object event, final CommandManager manager,
+                     final ArgumentParser parser, final byte[] properties,
+                     final boolean cached) {
+    final int propertiesLength = properties == null ? 0 : properties.length;
+    FlightRecorderSupport.commitArgumentType(event, parser, propertiesLength, cached);
+    for (final ArgumentTypeListener listener : listeners) {
+      listener.typeRequested(manager, parser, propertiesLength, !cached);
+    }
+  }
+
+  private ArgumentTypeMetrics() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,212 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.velocitypowered.api.command.BrigadierCommand;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * Builds many {@link CommandSpec command specifications} into Brigadier
+ * commands at once.
+ *
+ * <p>Building a batch first resolves every distinct {@link ArgumentTypeHandle}
+ * of the specifications once, and then builds the commands on a
+ * {@link ForkJoinPool}. Commands, and the children of large subtrees, are built
+ * by separate tasks, so the construction of a large command set is spread
+ * across the threads of the pool.
+ *
+ * <p>Batches aren't thread-safe, but the commands of a batch can be built
+ * multiple times, e.g. once per command manager.
+ */
+public final class CommandBatch {
+
+  // Subtrees with at most this many nodes are built by a single task
+  private static final int SEQUENTIAL_THRESHOLD = 64;
+  private static final Predicate<CommandSource> ALWAYS = source -> true;
+
+  private final ForkJoinPool pool;
+  private final List<CommandSpec> commands = new ArrayList<>();
+
+  /**
+   * Constructs an empty batch whose commands are built on the common pool.
+   */
+  public CommandBatch() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs an empty batch whose commands are built on the given pool.
+   *
+   * @param pool the pool.
+   */
+  public CommandBatch(final ForkJoinPool pool) {
+    this.pool = Objects.requireNonNull(pool);
+  }
+
+  /**
+   * Adds the given command to this batch.
+   *
+   * @param command the specification of the literal node of the command.
+   * @return this batch.
+   * @throws IllegalArgumentException if the specification isn't of a literal node.
+   */
+  public CommandBatch add(final CommandSpec command) {
+    if (!command.isLiteral()) {
+      throw new IllegalArgumentException("The " + command.name() + " command isn't a literal");
+    }
+    this.commands.add(command);
+    return this;
+  }
+
+  /**
+   * Returns the number of commands in this batch.
+   *
+   * @return the number of commands.
+   */
+  public int size() {
+    return this.commands.size();
+  }
+
+  /**
+   * Builds the commands of this batch for the given command manager,
+   * without registering them.
+   *
+   * @param manager the command manager.
+   * @return the built commands, in the order they were added.
+   */
+  public List<BrigadierCommand> build(final CommandManager manager) {
+    final Context context = new Context();
+    for (final CommandSpec command : this.commands) {
+      context.collect(command);
+    }
+    // Resolve on the calling thread, so the manager is only called by a single thread
+    for (final Map.Entry<ArgumentTypeHandle, OpaqueArgumentType> entry
+        : context.types.entrySet()) {
+      entry.setValue(entry.getKey().resolve(manager));
+    }
+
+    final List<BuildTask> tasks = new ArrayList<>(this.commands.size());
+    for (final CommandSpec command : this.commands) {
+      tasks.add(new BuildTask(context, command));
+    }
+    this.pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+    final List<BrigadierCommand> built = new ArrayList<>(tasks.size());
+    for (final BuildTask task : tasks) {
+      built.add(new BrigadierCommand((LiteralCommandNode<CommandSource>) task.join()));
+    }
+    return built;
+  }
+
+  /**
+   * Builds the commands of this batch and registers them to the given command
+   * manager, replacing the registered commands with the same names.
+   *
+   * @param manager the command manager.
+   * @return the registered commands, in the order they were added.
+   */
+  public List<BrigadierCommand> register(final CommandManager manager) {
+    final List<BrigadierCommand> built = build(manager);
+    for (final BrigadierCommand command : built) {
+      manager.register(command);
+    }
+    return built;
+  }
+
+  private static final class Context {
+
+    // Only read by the build tasks, which are forked after these maps are filled
+    final Map<ArgumentTypeHandle, OpaqueArgumentType> types = new HashMap<>();
+    final Map<CommandSpec, Integer> sizes = new IdentityHashMap<>();
+
+    // Returns the number of nodes in the subtree of the given specification
+    int collect(final CommandSpec spec) {
+      final Integer known = this.sizes.get(spec);
+      if (known != null) {
+        return known;
+      }
+      if (spec.handle() != null) {
+        this.types.putIfAbsent(spec.handle(), null);
+      }
+      int size = 1;
+      for (final CommandSpec child : spec.children()) {
+        size += collect(child);
+      }
+      this.sizes.put(spec, size);
+      return size;
+    }
+
+    CommandNode<CommandSource> buildTree(final CommandSpec spec) {
+      final CommandNode<CommandSource> node = buildNode(spec);
+      for (final CommandSpec child : spec.children()) {
+        node.addChild(buildTree(child));
+      }
+      return node;
+    }
+
+    CommandNode<CommandSource> buildNode(final CommandSpec spec) {
+      final Predicate<CommandSource> requirement =
+          spec.requirement() != null ? spec.requirement() : ALWAYS;
+      if (spec.isLiteral()) {
+        return new LiteralCommandNode<>(spec.name(), spec.command(), requirement,
+            null, null, false);
+      }
+      final ArgumentType<?> type = spec.handle() != null
+          ? this.types.get(spec.handle())
+          : spec.type();
+      return argumentNode(spec, type, requirement);
+    }
+
+    private static <T> ArgumentCommandNode<CommandSource, T> argumentNode(
+        final CommandSpec spec, final ArgumentType<T> type,
+        final Predicate<CommandSource> requirement) {
+      return new ArgumentCommandNode<>(spec.name(), type, spec.command(), requirement,
+          null, null, false, spec.suggestions());
+    }
+  }
+
+  private static final class BuildTask extends RecursiveTask<CommandNode<CommandSource>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Context context;
+    private final transient CommandSpec spec;
+
+    BuildTask(final Context context, final CommandSpec spec) {
+      this.context = context;
+      this.spec = spec;
+    }
+
+    @Override
+    protected CommandNode<CommandSource> compute() {
+      if (this.context.sizes.get(this.spec) <= SEQUENTIAL_THRESHOLD) {
+        return this.context.buildTree(this.spec);
+      }
+      final List<BuildTask> children = new ArrayList<>(this.spec.children().size());
+      for (final CommandSpec child : this.spec.children()) {
+        children.add(new BuildTask(this.context, child));
+      }
+      invokeAll(children);
+
+      final CommandNode<CommandSource> node = this.context.buildNode(this.spec);
+      for (final BuildTask child : children) {
+        node.addChild(child.join());
+      }
+      return node;
+    }
+  }
+}
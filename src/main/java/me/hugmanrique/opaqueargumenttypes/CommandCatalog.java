@@ -0,0 +1,489 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.FLAG_EXECUTABLE;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.FLAG_REDIRECT;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.TYPE_ARGUMENT;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.TYPE_LITERAL;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.TYPE_MASK;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.TYPE_ROOT;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import net.kyori.adventure.key.InvalidKeyException;
+import net.kyori.adventure.key.Key;
+
+/**
+ * A command tree whose argument nodes have opaque argument types, stored in
+ * a compact binary format.
+ *
+ * <p>A catalog is written once from a built command tree, and can then be
+ * {@linkplain #open(Path) memory-mapped} and
+ * {@linkplain #load(CommandManager, Command, Function) loaded} by other proxies
+ * without running the code that built the tree. Catalogs only store the
+ * structure of the tree: the literals, the argument names and types, which
+ * nodes are executable, and the targets of redirects. The commands,
+ * requirements, suggestion providers and redirect modifiers of the nodes aren't
+ * stored: the command and requirements are given when loading the catalog.
+ *
+ * <p>A catalog starts with a 16-byte header containing the {@code OATC} magic
+ * number, the format version, the length of the body and its CRC32 checksum.
+ * The body contains a string pool, a table of the distinct argument types, and
+ * a node table whose first entry is the root node. Strings and properties are
+ * stored as byte arrays prefixed by their VarInt length, and all indices as
+ * VarInts. Parsers are stored by identifier, so catalogs remain readable after
+ * new parsers are added to {@link ArgumentParser}.
+ */
+public final class CommandCatalog {
+
+  static final int MAGIC = 0x4F415443; // "OATC"
+  static final int VERSION = 1;
+  static final int HEADER_LENGTH = 16;
+
+  private final ByteBuffer body;
+
+  private CommandCatalog(final ByteBuffer body) {
+    this.body = body;
+  }
+
+  /**
+   * Encodes the given command tree into a new catalog.
+   *
+   * @param root the root node of the command tree.
+   * @param <S> the type of the command source.
+   * @return a buffer containing the catalog.
+   * @throws IllegalArgumentException if an argument node doesn't have an opaque
+   *     argument type with a known parser.
+   */
+  public static <S> ByteBuffer encode(final RootCommandNode<S> root) {
+    return new Writer<>(root).write();
+  }
+
+  /**
+   * Encodes the given command tree into a catalog, and writes it to the given file.
+   *
+   * @param root the root node of the command tree.
+   * @param path the path of the file, which is replaced if it exists.
+   * @param <S> the type of the command source.
+   * @throws IOException if an I/O error occurs.
+   * @throws IllegalArgumentException if an argument node doesn't have an opaque
+   *     argument type with a known parser.
+   */
+  public static <S> void write(final RootCommandNode<S> root, final Path path)
+      throws IOException {
+    final ByteBuffer catalog = encode(root);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      while (catalog.hasRemaining()) {
+        channel.write(catalog);
+      }
+    }
+  }
+
+  /**
+   * Memory-maps the catalog in the given file, and validates its header
+   * and checksum.
+   *
+   * @param path the path of the file.
+   * @return the catalog.
+   * @throws IOException if an I/O error occurs.
+   * @throws IllegalArgumentException if the file isn't a valid catalog.
+   */
+  public static CommandCatalog open(final Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Catalog of " + size + " bytes is too large");
+      }
+      // The mapping remains valid after the channel is closed
+      return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+  }
+
+  /**
+   * Validates the header and checksum of the catalog between the position
+   * and the limit of the given buffer. The buffer contents must not be
+   * modified afterwards.
+   *
+   * @param buffer the buffer containing the catalog.
+   * @return the catalog.
+   * @throws IllegalArgumentException if the buffer doesn't contain a valid catalog.
+   */
+  public static CommandCatalog wrap(final ByteBuffer buffer) {
+    final ByteBuffer src = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    if (src.remaining() < HEADER_LENGTH) {
+      throw new IllegalArgumentException("Catalog is truncated");
+    }
+    final int start = src.position();
+    if (src.getInt(start) != MAGIC) {
+      throw new IllegalArgumentException("Not a command catalog");
+    }
+    final int version = src.getShort(start + 4);
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported catalog version " + version);
+    }
+    final int length = src.getInt(start + 8);
+    if (length != src.remaining() - HEADER_LENGTH) {
+      throw new IllegalArgumentException("Catalog body has " + (src.remaining() - HEADER_LENGTH)
+          + " bytes, expected " + length);
+    }
+    src.position(start + HEADER_LENGTH);
+    final ByteBuffer body = src.slice().asReadOnlyBuffer();
+    if ((int) checksum(body) != src.getInt(start + 12)) {
+      throw new IllegalArgumentException("Catalog checksum mismatch");
+    }
+    return new CommandCatalog(body);
+  }
+
+  private static long checksum(final ByteBuffer body) {
+    final CRC32 crc = new CRC32();
+    crc.update(body.duplicate());
+    return crc.getValue();
+  }
+
+  /**
+   * Returns the size of this catalog in bytes, including its header.
+   *
+   * @return the size of the catalog.
+   */
+  public int size() {
+    return HEADER_LENGTH + this.body.capacity();
+  }
+
+  /**
+   * Builds the command tree stored in this catalog. The argument types are
+   * interned like those returned by {@link OpaqueArgumentTypes}.
+   *
+   * <p>Since requirements aren't stored, the requirement of each node is
+   * returned by the given function from the path of the node, i.e. the names of
+   * the nodes from a child of the root node to the node, such as
+   * {@code ["gamemode", "mode"]}. A node that is the child of several nodes
+   * uses the first path in breadth-first order. The function is required:
+   * return a predicate that accepts every source for the nodes anyone may use,
+   * since otherwise commands restricted on the server that wrote the catalog
+   * would be usable by everyone.
+   *
+   * @param manager the command manager.
+   * @param command the command executed by the executable nodes, e.g. a command
+   *     that forwards the input to the backend server.
+   * @param requirements the function returning the requirement of a node given
+   *     its path, which must not return {@code null}.
+   * @param <S> the type of the command source.
+   * @return the root node of the command tree.
+   * @throws IllegalArgumentException if the catalog is malformed, or contains
+   *     an unknown parser.
+   */
+  public <S> RootCommandNode<S> load(final CommandManager manager, final Command<S> command,
+                                     final Function<List<String>, Predicate<S>> requirements) {
+    Objects.requireNonNull(requirements);
+    return new Reader<>(this.body.duplicate(), manager, command, requirements).read();
+  }
+
+  private static final class Writer<S> {
+
+    private final List<CommandNode<S>> nodes = new ArrayList<>();
+    private final Map<CommandNode<S>, Integer> nodeIndices = new IdentityHashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+    private final List<ArgumentTypeHandle> types = new ArrayList<>();
+    private final Map<ArgumentTypeHandle, Integer> typeIndices = new HashMap<>();
+    private final List<Integer> parserIndices = new ArrayList<>(); // indexed by type index
+    private final List<Integer> nodeTypeIndices = new ArrayList<>(); // indexed by node index
+
+    Writer(final RootCommandNode<S> root) {
+      final Queue<CommandNode<S>> pending = new ArrayDeque<>();
+      nodeIndex(root, pending);
+      while (!pending.isEmpty()) {
+        final CommandNode<S> node = pending.poll();
+        for (final CommandNode<S> child : node.getChildren()) {
+          nodeIndex(child, pending);
+        }
+        if (node.getRedirect() != null) {
+          nodeIndex(node.getRedirect(), pending);
+        }
+        if (node instanceof LiteralCommandNode || node instanceof ArgumentCommandNode) {
+          stringIndex(node.getName());
+        } else if (node != root) {
+          throw new IllegalArgumentException("Unsupported node " + node);
+        }
+        // Nodes are polled in index order
+        this.nodeTypeIndices.add(node instanceof ArgumentCommandNode
+            ? typeIndex((ArgumentCommandNode<S, ?>) node)
+            : -1);
+      }
+    }
+
+    private int nodeIndex(final CommandNode<S> node, final Queue<CommandNode<S>> pending) {
+      Integer index = this.nodeIndices.get(node);
+      if (index == null) {
+        index = this.nodes.size();
+        this.nodes.add(node);
+        this.nodeIndices.put(node, index);
+        pending.add(node);
+      }
+      return index;
+    }
+
+    private int stringIndex(final String value) {
+      Integer index = this.stringIndices.get(value);
+      if (index == null) {
+        index = this.strings.size();
+        this.strings.add(value.getBytes(StandardCharsets.UTF_8));
+        this.stringIndices.put(value, index);
+      }
+      return index;
+    }
+
+    private int typeIndex(final ArgumentCommandNode<S, ?> node) {
+      if (!(node.getType() instanceof OpaqueArgumentType)) {
+        throw new IllegalArgumentException("The " + node.getName()
+            + " argument node doesn't have an opaque argument type");
+      }
+      final OpaqueArgumentType type = (OpaqueArgumentType) node.getType();
+      final ArgumentParser parser = ArgumentParser.fromKey(type.getIdentifier());
+      if (parser == null) {
+        throw new IllegalArgumentException("Unknown parser " + type.getIdentifier().asString());
+      }
+      byte[] properties = null;
+      if (parser.hasProperties()) {
+        properties = type.getProperties();
+        if (properties == null || properties.length == 0) {
+          throw new IllegalArgumentException("The " + node.getName()
+              + " argument node is missing the properties of its parser");
+        }
+      }
+      final ArgumentTypeHandle handle = ArgumentTypeHandle.of(parser, properties);
+      Integer index = this.typeIndices.get(handle);
+      if (index == null) {
+        index = this.types.size();
+        this.types.add(handle);
+        this.typeIndices.put(handle, index);
+        this.parserIndices.add(stringIndex(parser.key().asString()));
+      }
+      return index;
+    }
+
+    ByteBuffer write() {
+      int length = ProtocolUtils.varIntLength(this.strings.size());
+      for (final byte[] value : this.strings) {
+        length += ProtocolUtils.byteArrayLength(value);
+      }
+      length += ProtocolUtils.varIntLength(this.types.size());
+      for (int i = 0; i < this.types.size(); i++) {
+        length += ProtocolUtils.varIntLength(this.parserIndices.get(i))
+            + propertiesLength(this.types.get(i));
+      }
+      length += ProtocolUtils.varIntLength(this.nodes.size());
+      for (int i = 0; i < this.nodes.size(); i++) {
+        length += nodeLength(this.nodes.get(i), this.nodeTypeIndices.get(i));
+      }
+
+      final ByteBuffer dest = ByteBuffer.allocate(HEADER_LENGTH + length);
+      int index = ProtocolUtils.writeVarInt(dest, HEADER_LENGTH, this.strings.size());
+      for (final byte[] value : this.strings) {
+        index = ProtocolUtils.writeByteArray(dest, index, value);
+      }
+      index = ProtocolUtils.writeVarInt(dest, index, this.types.size());
+      for (int i = 0; i < this.types.size(); i++) {
+        index = ProtocolUtils.writeVarInt(dest, index, this.parserIndices.get(i));
+        index = writeProperties(dest, index, this.types.get(i));
+      }
+      index = ProtocolUtils.writeVarInt(dest, index, this.nodes.size());
+      for (int i = 0; i < this.nodes.size(); i++) {
+        index = writeNode(dest, index, this.nodes.get(i), this.nodeTypeIndices.get(i));
+      }
+
+      dest.putInt(0, MAGIC);
+      dest.putShort(4, (short) VERSION);
+      dest.putShort(6, (short) 0); // reserved
+      dest.putInt(8, length);
+      dest.position(HEADER_LENGTH);
+      dest.putInt(12, (int) checksum(dest.slice()));
+      dest.position(0);
+      return dest;
+    }
+
+    private static int propertiesLength(final ArgumentTypeHandle type) {
+      final byte[] properties = type.properties();
+      return properties != null ? ProtocolUtils.byteArrayLength(properties) : 1;
+    }
+
+    private static int writeProperties(final ByteBuffer dest, final int index,
+                                       final ArgumentTypeHandle type) {
+      final byte[] properties = type.properties();
+      return properties != null
+          ? ProtocolUtils.writeByteArray(dest, index, properties)
+          : ProtocolUtils.writeVarInt(dest, index, 0);
+    }
+
+    private int nodeLength(final CommandNode<S> node, final int typeIndex) {
+      int length = 1 + ProtocolUtils.varIntLength(node.getChildren().size());
+      for (final CommandNode<S> child : node.getChildren()) {
+        length += ProtocolUtils.varIntLength(this.nodeIndices.get(child));
+      }
+      if (node.getRedirect() != null) {
+        length += ProtocolUtils.varIntLength(this.nodeIndices.get(node.getRedirect()));
+      }
+      if (!(node instanceof RootCommandNode)) {
+        length += ProtocolUtils.varIntLength(this.stringIndices.get(node.getName()));
+      }
+      if (typeIndex != -1) {
+        length += ProtocolUtils.varIntLength(typeIndex);
+      }
+      return length;
+    }
+
+    private int writeNode(final ByteBuffer dest, int index, final CommandNode<S> node,
+                          final int typeIndex) {
+      int flags = node instanceof LiteralCommandNode ? TYPE_LITERAL
+          : node instanceof ArgumentCommandNode ? TYPE_ARGUMENT
+          : TYPE_ROOT;
+      if (node.getCommand() != null) {
+        flags |= FLAG_EXECUTABLE;
+      }
+      if (node.getRedirect() != null) {
+        flags |= FLAG_REDIRECT;
+      }
+      index = ProtocolUtils.writeFlags(dest, index, flags);
+      index = ProtocolUtils.writeVarInt(dest, index, node.getChildren().size());
+      for (final CommandNode<S> child : node.getChildren()) {
+        index = ProtocolUtils.writeVarInt(dest, index, this.nodeIndices.get(child));
+      }
+      if (node.getRedirect() != null) {
+        index = ProtocolUtils.writeVarInt(dest, index, this.nodeIndices.get(node.getRedirect()));
+      }
+      if (!(node instanceof RootCommandNode)) {
+        index = ProtocolUtils.writeVarInt(dest, index, this.stringIndices.get(node.getName()));
+      }
+      if (typeIndex != -1) {
+        index = ProtocolUtils.writeVarInt(dest, index, typeIndex);
+      }
+      return index;
+    }
+  }
+
+  private static final class Reader<S> {
+
+    private final ByteBuffer src;
+    private final CommandManager manager;
+    private final Command<S> command;
+    private final Function<List<String>, Predicate<S>> requirements;
+
+    Reader(final ByteBuffer src, final CommandManager manager, final Command<S> command,
+           final Function<List<String>, Predicate<S>> requirements) {
+      this.src = src;
+      this.manager = manager;
+      this.command = command;
+      this.requirements = requirements;
+    }
+
+    RootCommandNode<S> read() {
+      final NodeTable<S> table;
+      try {
+        table = readTable();
+      } catch (final BufferUnderflowException e) {
+        throw new IllegalArgumentException("Catalog body is truncated", e);
+      }
+      return table.build(0, this.command, null, this.requirements);
+    }
+
+    private NodeTable<S> readTable() {
+      final String[] strings = new String[readCount()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = new String(ProtocolUtils.readByteArray(this.src), StandardCharsets.UTF_8);
+      }
+      final OpaqueArgumentType[] types = new OpaqueArgumentType[readCount()];
+      for (int i = 0; i < types.length; i++) {
+        types[i] = readType(strings[readIndex(strings.length)]);
+      }
+
+      final int count = readCount();
+      if (count == 0) {
+        throw new IllegalArgumentException("Catalog has no root node");
+      }
+      final NodeTable<S> table = new NodeTable<>(count);
+      for (int i = 0; i < count; i++) {
+        final int flags = this.src.get() & 0xFF;
+        if ((flags & ~(TYPE_MASK | FLAG_EXECUTABLE | FLAG_REDIRECT)) != 0) {
+          throw new IllegalArgumentException("Node " + i + " has invalid flags " + flags);
+        }
+        final int[] children = new int[readCount()];
+        for (int j = 0; j < children.length; j++) {
+          children[j] = readIndex(count);
+        }
+        final int redirect = (flags & FLAG_REDIRECT) != 0 ? readIndex(count) : -1;
+        final int type = flags & TYPE_MASK;
+        final String name = type != TYPE_ROOT ? strings[readIndex(strings.length)] : null;
+        final OpaqueArgumentType argumentType = type == TYPE_ARGUMENT
+            ? types[readIndex(types.length)]
+            : null;
+        table.set(i, flags, children, redirect, name, argumentType);
+      }
+      if (this.src.hasRemaining()) {
+        throw new IllegalArgumentException("Catalog has " + this.src.remaining()
+            + " trailing bytes");
+      }
+      return table;
+    }
+
+    private OpaqueArgumentType readType(final String identifier) {
+      final Key key;
+      try {
+        key = Key.key(identifier);
+      } catch (final InvalidKeyException e) {
+        throw new IllegalArgumentException("Invalid parser identifier " + identifier, e);
+      }
+      final ArgumentParser parser = ArgumentParser.fromKey(key);
+      if (parser == null) {
+        throw new IllegalArgumentException("Unknown parser " + identifier);
+      }
+      final byte[] properties = ProtocolUtils.readByteArray(this.src);
+      if (parser.hasProperties() == (properties.length == 0)) {
+        throw new IllegalArgumentException("Invalid properties for the " + identifier + " parser");
+      }
+      return ArgumentTypeHandle.of(parser, parser.hasProperties() ? properties : null)
+          .resolve(this.manager);
+    }
+
+    private int readCount() {
+      final int count = ProtocolUtils.readVarInt(this.src);
+      // Every entry occupies at least one byte
+      if (count < 0 || count > this.src.remaining()) {
+        throw new IllegalArgumentException("Count " + count + " exceeds the "
+            + this.src.remaining() + " remaining bytes");
+      }
+      return count;
+    }
+
+    private int readIndex(final int bound) {
+      final int index = ProtocolUtils.readVarInt(this.src);
+      if (index < 0 || index >= bound) {
+        throw new IllegalArgumentException("Index " + index + " is out of bounds for " + bound);
+      }
+      return index;
+    }
+  }
+}
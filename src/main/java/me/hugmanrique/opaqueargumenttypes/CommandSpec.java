@@ -0,0 +1,176 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.velocitypowered.api.command.CommandSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Describes a command node and its children, which is built into a
+ * Brigadier node by a {@link CommandBatch}.
+ *
+ * <p>Unlike a Brigadier builder, a specification doesn't build any node or
+ * argument type when its children are added. The argument types of opaque
+ * argument nodes are given as {@link ArgumentTypeHandle handles}, which the
+ * batch resolves once per distinct handle.
+ *
+ * <p>Specifications are mutable, and must not be modified while a batch
+ * containing them is built. A specification may be the child of multiple
+ * nodes, but must not be one of its own descendants.
+ */
+public final class CommandSpec {
+
+  private final String name;
+  private final ArgumentTypeHandle handle;
+  private final ArgumentType<?> type;
+  private final List<CommandSpec> children = new ArrayList<>();
+  private Command<CommandSource> command;
+  private Predicate<CommandSource> requirement;
+  private SuggestionProvider<CommandSource> suggestions;
+
+  private CommandSpec(final String name, final ArgumentTypeHandle handle,
+                      final ArgumentType<?> type) {
+    this.name = Objects.requireNonNull(name);
+    this.handle = handle;
+    this.type = type;
+  }
+
+  /**
+   * Creates the specification of a literal node.
+   *
+   * @param literal the literal.
+   * @return the specification.
+   */
+  public static CommandSpec literal(final String literal) {
+    return new CommandSpec(literal, null, null);
+  }
+
+  /**
+   * Creates the specification of an argument node with an opaque argument type.
+   *
+   * @param name the name of the argument.
+   * @param handle the handle of the argument type.
+   * @return the specification.
+   */
+  public static CommandSpec argument(final String name, final ArgumentTypeHandle handle) {
+    return new CommandSpec(name, Objects.requireNonNull(handle), null);
+  }
+
+  /**
+   * Creates the specification of an argument node with the given argument type,
+   * e.g. one of the Brigadier argument types.
+   *
+   * @param name the name of the argument.
+   * @param type the argument type.
+   * @return the specification.
+   */
+  public static CommandSpec argument(final String name, final ArgumentType<?> type) {
+    return new CommandSpec(name, null, Objects.requireNonNull(type));
+  }
+
+  /**
+   * Adds the given child specification.
+   *
+   * @param child the child specification.
+   * @return this specification.
+   */
+  public CommandSpec then(final CommandSpec child) {
+    this.children.add(Objects.requireNonNull(child));
+    return this;
+  }
+
+  /**
+   * Sets the command executed by the node.
+   *
+   * @param command the command.
+   * @return this specification.
+   */
+  public CommandSpec executes(final Command<CommandSource> command) {
+    this.command = command;
+    return this;
+  }
+
+  /**
+   * Sets the requirement a command source must meet to use the node.
+   *
+   * @param requirement the requirement.
+   * @return this specification.
+   */
+  public CommandSpec requires(final Predicate<CommandSource> requirement) {
+    this.requirement = requirement;
+    return this;
+  }
+
+  /**
+   * Sets the suggestion provider of the argument node.
+   *
+   * @param suggestions the suggestion provider.
+   * @return this specification.
+   * @throws IllegalStateException if this is the specification of a literal node.
+   */
+  public CommandSpec suggests(final SuggestionProvider<CommandSource> suggestions) {
+    if (isLiteral()) {
+      throw new IllegalStateException("Literal nodes don't have suggestion providers");
+    }
+    this.suggestions = suggestions;
+    return this;
+  }
+
+  /**
+   * Returns the literal or the argument name of the node.
+   *
+   * @return the name.
+   */
+  public String name() {
+    return this.name;
+  }
+
+  /**
+   * Returns whether this is the specification of a literal node.
+   *
+   * @return {@code true} if the node is a literal.
+   */
+  public boolean isLiteral() {
+    return this.handle == null && this.type == null;
+  }
+
+  /**
+   * Returns the handle of the opaque argument type of the node.
+   *
+   * @return the handle, or {@code null} if the node is a literal or has
+   *     a non-opaque argument type.
+   */
+  public ArgumentTypeHandle handle() {
+    return this.handle;
+  }
+
+  /**
+   * Returns the child specifications.
+   *
+   * @return an unmodifiable view of the children.
+   */
+  public List<CommandSpec> children() {
+    return Collections.unmodifiableList(this.children);
+  }
+
+  ArgumentType<?> type() {
+    return this.type;
+  }
+
+  Command<CommandSource> command() {
+    return this.command;
+  }
+
+  Predicate<CommandSource> requirement() {
+    return this.requirement;
+  }
+
+  SuggestionProvider<CommandSource> suggestions() {
+    return this.suggestions;
+  }
+}
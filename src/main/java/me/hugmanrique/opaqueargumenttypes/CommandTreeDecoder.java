@@ -0,0 +1,230 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.FLAG_EXECUTABLE;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.FLAG_REDIRECT;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.FLAG_SUGGESTIONS;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.TYPE_ARGUMENT;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.TYPE_MASK;
+import static me.hugmanrique.opaqueargumenttypes.NodeTable.TYPE_ROOT;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.DoubleArgumentType;
+import com.mojang.brigadier.arguments.FloatArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.LongArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.network.ProtocolVersion;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import net.kyori.adventure.key.Key;
+
+/**
+ * Decodes the payload of a Declare Commands packet sent by a backend server
+ * into a command tree, whose argument nodes are given the matching Brigadier
+ * or opaque argument types.
+ *
+ * <p>The payload is read in a single pass, and each node of the packet is
+ * built once, even if multiple nodes reference it as a child or redirect
+ * target. The opaque argument types are built through the factories of
+ * {@link OpaqueArgumentTypes}, so they're interned per command manager.
+ *
+ * <p>Decoded trees mirror the structure of the backend tree: every executable
+ * node runs a single given command, e.g. one that forwards the input to the
+ * backend server, and the argument nodes with custom suggestions use a single
+ * given suggestion provider. The nodes don't have requirements, since the
+ * backend server only sends the nodes the player can use.
+ */
+public final class CommandTreeDecoder {
+
+  // The Brigadier parsers, in registry ID order
+  private static final String[] BRIGADIER_PARSERS = {
+    "bool", "float", "double", "integer", "long", "string"
+  };
+  private static final int BOOL = 0;
+  private static final int FLOAT = 1;
+  private static final int DOUBLE = 2;
+  private static final int INTEGER = 3;
+  private static final int LONG = 4;
+  private static final int STRING = 5;
+
+  private static final int HAS_MINIMUM = 0x1;
+  private static final int HAS_MAXIMUM = 0x2;
+
+  // Packet strings are at most 32767 chars, each encoded in at most 3 bytes
+  private static final int MAXIMUM_NAME_LENGTH = 32767 * 3;
+
+  /**
+   * Decodes the command tree in the given packet payload, starting at the
+   * position of the buffer. The position is advanced past the payload.
+   *
+   * @param src the buffer containing the packet payload, without the packet ID.
+   * @param version the protocol version of the backend connection.
+   * @param manager the command manager.
+   * @param command the command executed by the executable nodes.
+   * @param suggestions the suggestion provider of the argument nodes with
+   *     custom suggestions, or {@code null} to use the suggestions of their types.
+   * @param <S> the type of the command source.
+   * @return the root node of the command tree.
+   * @throws IllegalArgumentException if the version doesn't support Brigadier or is newer
+   *     than {@link ParserIds#LATEST_VERSION}, the payload is malformed or truncated,
+   *     or an argument node has an unknown parser.
+   */
+  public static <S> RootCommandNode<S> decode(final ByteBuffer src,
+                                              final ProtocolVersion version,
+                                              final CommandManager manager,
+                                              final Command<S> command,
+                                              final SuggestionProvider<S> suggestions) {
+    if (version.compareTo(ProtocolVersion.MINECRAFT_1_13) < 0) {
+      throw new IllegalArgumentException("Command trees aren't sent to " + version + " clients");
+    }
+    try {
+      return readTree(src, version, manager, command, suggestions);
+    } catch (final BufferUnderflowException e) {
+      throw new IllegalArgumentException("Command tree payload is truncated", e);
+    }
+  }
+
+  private static <S> RootCommandNode<S> readTree(final ByteBuffer src,
+                                                 final ProtocolVersion version,
+                                                 final CommandManager manager,
+                                                 final Command<S> command,
+                                                 final SuggestionProvider<S> suggestions) {
+    final int count = readCount(src);
+    final NodeTable<S> table = new NodeTable<>(count);
+    for (int i = 0; i < count; i++) {
+      final int flags = src.get() & 0xFF;
+      if ((flags & ~(TYPE_MASK | FLAG_EXECUTABLE | FLAG_REDIRECT | FLAG_SUGGESTIONS)) != 0) {
+        throw new IllegalArgumentException("Node " + i + " has invalid flags " + flags);
+      }
+      final int[] children = new int[readCount(src)];
+      for (int j = 0; j < children.length; j++) {
+        children[j] = readIndex(src, count);
+      }
+      final int redirect = (flags & FLAG_REDIRECT) != 0 ? readIndex(src, count) : -1;
+
+      final int type = flags & TYPE_MASK;
+      String name = null;
+      ArgumentType<?> argumentType = null;
+      if (type != TYPE_ROOT) {
+        name = readName(src);
+      }
+      if (type == TYPE_ARGUMENT) {
+        argumentType = readArgumentType(src, version, manager);
+        if ((flags & FLAG_SUGGESTIONS) != 0) {
+          ProtocolUtils.readIdentifier(src); // every suggestion type is answered by the backend
+        }
+      }
+      table.set(i, flags, children, redirect, name, argumentType);
+    }
+    return table.build(readIndex(src, count), command, suggestions, null);
+  }
+
+  private static String readName(final ByteBuffer src) {
+    final byte[] name = ProtocolUtils.readByteArray(src);
+    if (name.length > MAXIMUM_NAME_LENGTH) {
+      throw new IllegalArgumentException("Node name of " + name.length + " bytes is too long");
+    }
+    return new String(name, StandardCharsets.UTF_8);
+  }
+
+  private static ArgumentType<?> readArgumentType(final ByteBuffer src,
+                                                  final ProtocolVersion version,
+                                                  final CommandManager manager) {
+    final ArgumentParser parser;
+    if (ParserIds.usesIds(version)) {
+      final int id = ProtocolUtils.readVarInt(src);
+      if (id >= 0 && id < ParserIds.BRIGADIER_PARSER_COUNT) {
+        return readBrigadierType(src, id);
+      }
+      parser = ParserIds.byId(id, version);
+      if (parser == null) {
+        throw new IllegalArgumentException("Unknown parser ID " + id + " in " + version);
+      }
+    } else {
+      final Key identifier = ProtocolUtils.readIdentifier(src);
+      if (identifier.namespace().equals("brigadier")) {
+        for (int i = 0; i < BRIGADIER_PARSERS.length; i++) {
+          if (BRIGADIER_PARSERS[i].equals(identifier.value())) {
+            return readBrigadierType(src, i);
+          }
+        }
+      }
+      parser = ArgumentParser.fromKey(identifier);
+      if (parser == null) {
+        throw new IllegalArgumentException("Unknown parser " + identifier.asString());
+      }
+    }
+    return ArgumentDescriptor.read(parser, src).toArgumentType(manager);
+  }
+
+  private static ArgumentType<?> readBrigadierType(final ByteBuffer src, final int id) {
+    if (id == BOOL) {
+      return BoolArgumentType.bool();
+    } else if (id == STRING) {
+      final int stringType = ProtocolUtils.readVarInt(src);
+      switch (stringType) {
+        case 0:
+          return StringArgumentType.word();
+        case 1:
+          return StringArgumentType.string();
+        case 2:
+          return StringArgumentType.greedyString();
+        default:
+          throw new IllegalArgumentException("Unknown string type " + stringType);
+      }
+    }
+
+    final int flags = src.get();
+    if ((flags & ~(HAS_MINIMUM | HAS_MAXIMUM)) != 0) {
+      throw new IllegalArgumentException("Unknown number flags " + flags);
+    }
+    final boolean hasMinimum = (flags & HAS_MINIMUM) != 0;
+    final boolean hasMaximum = (flags & HAS_MAXIMUM) != 0;
+    switch (id) {
+      case FLOAT:
+        return FloatArgumentType.floatArg(
+            hasMinimum ? src.getFloat() : -Float.MAX_VALUE,
+            hasMaximum ? src.getFloat() : Float.MAX_VALUE);
+      case DOUBLE:
+        return DoubleArgumentType.doubleArg(
+            hasMinimum ? src.getDouble() : -Double.MAX_VALUE,
+            hasMaximum ? src.getDouble() : Double.MAX_VALUE);
+      case INTEGER:
+        return IntegerArgumentType.integer(
+            hasMinimum ? src.getInt() : Integer.MIN_VALUE,
+            hasMaximum ? src.getInt() : Integer.MAX_VALUE);
+      default:
+        return LongArgumentType.longArg(
+            hasMinimum ? src.getLong() : Long.MIN_VALUE,
+            hasMaximum ? src.getLong() : Long.MAX_VALUE);
+    }
+  }
+
+  private static int readCount(final ByteBuffer src) {
+    final int count = ProtocolUtils.readVarInt(src);
+    // Every entry occupies at least one byte
+    if (count < 0 || count > src.remaining()) {
+      throw new IllegalArgumentException("Count " + count + " exceeds the "
+          + src.remaining() + " remaining bytes");
+    }
+    return count;
+  }
+
+  private static int readIndex(final ByteBuffer src, final int bound) {
+    final int index = ProtocolUtils.readVarInt(src);
+    if (index < 0 || index >= bound) {
+      throw new IllegalArgumentException("Index " + index + " is out of bounds for " + bound);
+    }
+    return index;
+  }
+
+  private CommandTreeDecoder() {
+    throw new AssertionError();
+  }
+}
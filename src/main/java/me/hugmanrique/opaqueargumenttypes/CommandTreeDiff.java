@@ -0,0 +1,426 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.DoubleArgumentType;
+import com.mojang.brigadier.arguments.FloatArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.LongArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The structural differences between two versions of a command tree, e.g.
+ * before and after a backend server or plugin reloads its commands.
+ *
+ * <p>Two nodes are equal if they have the same name and type, their argument
+ * types have the same parser key and properties, or the same Brigadier type
+ * and parameters, their redirects target the node at the same path, they fork
+ * alike, and their children are equal.
+ * By default, only whether nodes have a command and custom suggestions is
+ * compared, since rebuilding a tree usually creates new lambdas for the same
+ * behavior. If behavior is {@linkplain #compute(RootCommandNode, RootCommandNode, boolean)
+ * compared}, commands, requirements, suggestion providers and redirect
+ * modifiers are compared with {@link Object#equals(Object)} instead, so nodes
+ * whose behavior changed aren't kept.
+ *
+ * <p>Each subtree is hashed once, from the leaves up, so unchanged subtrees
+ * are skipped without visiting their descendants. The differences consist of
+ * the fewest operations that turn the previous tree into the next one: nodes
+ * that only differ in their children are descended into instead of replaced,
+ * so unchanged subtrees keep their identity.
+ *
+ * @param <S> the type of the command source.
+ */
+public final class CommandTreeDiff<S> {
+
+  private final List<Operation<S>> operations;
+
+  private CommandTreeDiff(final List<Operation<S>> operations) {
+    this.operations = operations;
+  }
+
+  /**
+   * Computes the structural differences between the given command trees,
+   * ignoring the behavior of the nodes.
+   *
+   * @param previous the root node of the previous command tree.
+   * @param next the root node of the next command tree.
+   * @param <S> the type of the command source.
+   * @return the differences.
+   */
+  public static <S> CommandTreeDiff<S> compute(final RootCommandNode<S> previous,
+                                               final RootCommandNode<S> next) {
+    return compute(previous, next, false);
+  }
+
+  /**
+   * Computes the differences between the given command trees.
+   *
+   * @param previous the root node of the previous command tree.
+   * @param next the root node of the next command tree.
+   * @param compareBehavior whether to compare the commands, requirements,
+   *     suggestion providers and redirect modifiers of the nodes.
+   * @param <S> the type of the command source.
+   * @return the differences.
+   */
+  public static <S> CommandTreeDiff<S> compute(final RootCommandNode<S> previous,
+                                               final RootCommandNode<S> next,
+                                               final boolean compareBehavior) {
+    final List<Operation<S>> operations = new ArrayList<>();
+    final Differ<S> differ = new Differ<>(new Tree<>(previous, compareBehavior),
+        new Tree<>(next, compareBehavior), operations);
+    differ.diffChildren(previous, next, new ArrayDeque<>());
+    return new CommandTreeDiff<>(Collections.unmodifiableList(operations));
+  }
+
+  /**
+   * Returns the operations that turn the previous tree into the next one,
+   * in depth-first order.
+   *
+   * @return the operations.
+   */
+  public List<Operation<S>> operations() {
+    return this.operations;
+  }
+
+  /**
+   * Returns whether the trees are equal.
+   *
+   * @return {@code true} if there are no operations.
+   */
+  public boolean isEmpty() {
+    return this.operations.isEmpty();
+  }
+
+  /**
+   * Returns the names of the top-level commands that contain a difference,
+   * which must be re-registered to reflect the next tree.
+   *
+   * @return the changed command names, in operation order.
+   */
+  public Set<String> changedCommands() {
+    final Set<String> names = new LinkedHashSet<>();
+    for (final Operation<S> operation : this.operations) {
+      names.add(operation.path().get(0));
+    }
+    return Collections.unmodifiableSet(names);
+  }
+
+  @Override
+  public String toString() {
+    return "CommandTreeDiff" + this.operations;
+  }
+
+  private static final class Differ<S> {
+
+    private final Tree<S> previous;
+    private final Tree<S> next;
+    private final List<Operation<S>> operations;
+
+    Differ(final Tree<S> previous, final Tree<S> next, final List<Operation<S>> operations) {
+      this.previous = previous;
+      this.next = next;
+      this.operations = operations;
+    }
+
+    void diffChildren(final CommandNode<S> previousNode, final CommandNode<S> nextNode,
+                      final Deque<String> path) {
+      for (final CommandNode<S> previousChild : previousNode.getChildren()) {
+        final CommandNode<S> nextChild = nextNode.getChild(previousChild.getName());
+        path.addLast(previousChild.getName());
+        if (nextChild == null) {
+          this.operations.add(new Operation<>(Type.REMOVE, path, previousChild, null));
+        } else if (!this.previous.localEquals(previousChild, this.next, nextChild)) {
+          this.operations.add(new Operation<>(Type.REPLACE, path, previousChild, nextChild));
+        } else if (this.previous.hash(previousChild) != this.next.hash(nextChild)) {
+          diffChildren(previousChild, nextChild, path);
+        }
+        path.removeLast();
+      }
+      for (final CommandNode<S> nextChild : nextNode.getChildren()) {
+        if (previousNode.getChild(nextChild.getName()) == null) {
+          path.addLast(nextChild.getName());
+          this.operations.add(new Operation<>(Type.ADD, path, null, nextChild));
+          path.removeLast();
+        }
+      }
+    }
+  }
+
+  // Caches the subtree hashes and node paths of a command tree
+  private static final class Tree<S> {
+
+    private static final long LITERAL = 0x1;
+    private static final long ARGUMENT = 0x2;
+
+    private final boolean compareBehavior;
+    private final Map<CommandNode<S>, Long> hashes = new IdentityHashMap<>();
+    private final Map<CommandNode<S>, String> paths = new IdentityHashMap<>();
+
+    Tree(final RootCommandNode<S> root, final boolean compareBehavior) {
+      this.compareBehavior = compareBehavior;
+      // Assign each node the path through which it's first reached
+      final Deque<CommandNode<S>> queue = new ArrayDeque<>();
+      this.paths.put(root, "");
+      queue.add(root);
+      while (!queue.isEmpty()) {
+        final CommandNode<S> node = queue.poll();
+        final String path = this.paths.get(node);
+        for (final CommandNode<S> child : node.getChildren()) {
+          if (!this.paths.containsKey(child)) {
+            this.paths.put(child, path.isEmpty() ? child.getName() : path + ' ' + child.getName());
+            queue.add(child);
+          }
+        }
+      }
+    }
+
+    long hash(final CommandNode<S> node) {
+      final Long cached = this.hashes.get(node);
+      if (cached != null) {
+        return cached;
+      }
+      // Sum the child hashes, since the order of the children doesn't matter
+      long childrenHash = 0;
+      for (final CommandNode<S> child : node.getChildren()) {
+        childrenHash += hash(child);
+      }
+      final long hash = mix(localHash(node) * 31 + childrenHash);
+      this.hashes.put(node, hash);
+      return hash;
+    }
+
+    private long localHash(final CommandNode<S> node) {
+      long hash = node instanceof LiteralCommandNode ? LITERAL
+          : node instanceof ArgumentCommandNode ? ARGUMENT : 0;
+      hash = hash * 31 + node.getName().hashCode();
+      if (node instanceof ArgumentCommandNode) {
+        final ArgumentCommandNode<S, ?> argument = (ArgumentCommandNode<S, ?>) node;
+        hash = hash * 31 + typeHash(argument.getType());
+        hash = hash * 31 + (this.compareBehavior
+            ? Objects.hashCode(argument.getCustomSuggestions())
+            : Boolean.hashCode(argument.getCustomSuggestions() != null));
+      }
+      hash = hash * 31 + Objects.hashCode(redirectKey(node));
+      if (this.compareBehavior) {
+        hash = hash * 31 + Objects.hashCode(node.getCommand());
+        hash = hash * 31 + Objects.hashCode(node.getRequirement());
+        hash = hash * 31 + Objects.hashCode(node.getRedirectModifier());
+      } else {
+        hash = hash * 31 + Boolean.hashCode(node.getCommand() != null);
+      }
+      return hash * 31 + Boolean.hashCode(node.isFork());
+    }
+
+    // Compares the nodes of this and another tree, without their children
+    boolean localEquals(final CommandNode<S> node, final Tree<S> other,
+                        final CommandNode<S> otherNode) {
+      if (node.getClass() != otherNode.getClass()
+          || !Objects.equals(redirectKey(node), other.redirectKey(otherNode))
+          || !behaviorEquals(node.getCommand(), otherNode.getCommand())
+          || node.isFork() != otherNode.isFork()) {
+        return false;
+      }
+      if (this.compareBehavior
+          && (!Objects.equals(node.getRequirement(), otherNode.getRequirement())
+          || !Objects.equals(node.getRedirectModifier(), otherNode.getRedirectModifier()))) {
+        return false;
+      }
+      if (node instanceof ArgumentCommandNode) {
+        final ArgumentCommandNode<S, ?> argument = (ArgumentCommandNode<S, ?>) node;
+        final ArgumentCommandNode<S, ?> otherArgument = (ArgumentCommandNode<S, ?>) otherNode;
+        return typeEquals(argument.getType(), otherArgument.getType())
+            && behaviorEquals(argument.getCustomSuggestions(),
+                otherArgument.getCustomSuggestions());
+      }
+      return true;
+    }
+
+    // Without comparing behavior, only the presence of an optional behavior matters
+    private boolean behaviorEquals(final Object behavior, final Object other) {
+      return this.compareBehavior
+          ? Objects.equals(behavior, other)
+          : (behavior == null) == (other == null);
+    }
+
+    // Redirect targets outside the tree are compared by identity
+    private Object redirectKey(final CommandNode<S> node) {
+      final CommandNode<S> redirect = node.getRedirect();
+      if (redirect == null) {
+        return null;
+      }
+      final String path = this.paths.get(redirect);
+      return path != null ? path : redirect;
+    }
+
+    // Brigadier's string and bool types don't override equals and hashCode, so
+    // built-in types are compared by their class and parameters instead
+    private static long typeHash(final ArgumentType<?> type) {
+      final long hash = type.getClass().getName().hashCode() * 31L;
+      if (type instanceof OpaqueArgumentType) {
+        final OpaqueArgumentType opaque = (OpaqueArgumentType) type;
+        return opaque.getIdentifier().hashCode() * 31L + Arrays.hashCode(opaque.getProperties());
+      } else if (type instanceof BoolArgumentType) {
+        return hash;
+      } else if (type instanceof StringArgumentType) {
+        return hash + ((StringArgumentType) type).getType().ordinal();
+      } else if (type instanceof IntegerArgumentType) {
+        final IntegerArgumentType integer = (IntegerArgumentType) type;
+        return (hash + integer.getMinimum()) * 31L + integer.getMaximum();
+      } else if (type instanceof LongArgumentType) {
+        final LongArgumentType longType = (LongArgumentType) type;
+        return (hash + longType.getMinimum()) * 31L + longType.getMaximum();
+      } else if (type instanceof FloatArgumentType) {
+        final FloatArgumentType floatType = (FloatArgumentType) type;
+        return (hash + Float.hashCode(floatType.getMinimum())) * 31L
+            + Float.hashCode(floatType.getMaximum());
+      } else if (type instanceof DoubleArgumentType) {
+        final DoubleArgumentType doubleType = (DoubleArgumentType) type;
+        return (hash + Double.hashCode(doubleType.getMinimum())) * 31L
+            + Double.hashCode(doubleType.getMaximum());
+      }
+      return type.hashCode();
+    }
+
+    private static boolean typeEquals(final ArgumentType<?> type, final ArgumentType<?> other) {
+      if (type.getClass() != other.getClass()) {
+        return false;
+      }
+      if (type instanceof OpaqueArgumentType) {
+        final OpaqueArgumentType opaque = (OpaqueArgumentType) type;
+        final OpaqueArgumentType otherOpaque = (OpaqueArgumentType) other;
+        return opaque.getIdentifier().equals(otherOpaque.getIdentifier())
+            && Arrays.equals(opaque.getProperties(), otherOpaque.getProperties());
+      } else if (type instanceof BoolArgumentType) {
+        return true;
+      } else if (type instanceof StringArgumentType) {
+        return ((StringArgumentType) type).getType() == ((StringArgumentType) other).getType();
+      } else if (type instanceof IntegerArgumentType) {
+        final IntegerArgumentType integer = (IntegerArgumentType) type;
+        final IntegerArgumentType otherInteger = (IntegerArgumentType) other;
+        return integer.getMinimum() == otherInteger.getMinimum()
+            && integer.getMaximum() == otherInteger.getMaximum();
+      } else if (type instanceof LongArgumentType) {
+        final LongArgumentType longType = (LongArgumentType) type;
+        final LongArgumentType otherLong = (LongArgumentType) other;
+        return longType.getMinimum() == otherLong.getMinimum()
+            && longType.getMaximum() == otherLong.getMaximum();
+      } else if (type instanceof FloatArgumentType) {
+        final FloatArgumentType floatType = (FloatArgumentType) type;
+        final FloatArgumentType otherFloat = (FloatArgumentType) other;
+        return Float.compare(floatType.getMinimum(), otherFloat.getMinimum()) == 0
+            && Float.compare(floatType.getMaximum(), otherFloat.getMaximum()) == 0;
+      } else if (type instanceof DoubleArgumentType) {
+        final DoubleArgumentType doubleType = (DoubleArgumentType) type;
+        final DoubleArgumentType otherDouble = (DoubleArgumentType) other;
+        return Double.compare(doubleType.getMinimum(), otherDouble.getMinimum()) == 0
+            && Double.compare(doubleType.getMaximum(), otherDouble.getMaximum()) == 0;
+      }
+      return type.equals(other);
+    }
+
+    // The SplitMix64 finalizer, which spreads the summed child hashes
+    private static long mix(final long value) {
+      long mixed = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+      mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+      return mixed ^ (mixed >>> 31);
+    }
+  }
+
+  /**
+   * The type of an {@link Operation}.
+   */
+  public enum Type {
+    /**
+     * A node that is only present in the next tree.
+     */
+    ADD,
+    /**
+     * A node that is only present in the previous tree.
+     */
+    REMOVE,
+    /**
+     * A node whose attributes differ, which is replaced along with its children.
+     */
+    REPLACE
+  }
+
+  /**
+   * An operation on a node of the previous tree.
+   *
+   * @param <S> the type of the command source.
+   */
+  public static final class Operation<S> {
+
+    private final Type type;
+    private final List<String> path;
+    private final CommandNode<S> previous;
+    private final CommandNode<S> next;
+
+    Operation(final Type type, final Deque<String> path, final CommandNode<S> previous,
+              final CommandNode<S> next) {
+      this.type = type;
+      this.path = Collections.unmodifiableList(new ArrayList<>(path));
+      this.previous = previous;
+      this.next = next;
+    }
+
+    /**
+     * Returns the type of the operation.
+     *
+     * @return the operation type.
+     */
+    public Type type() {
+      return this.type;
+    }
+
+    /**
+     * Returns the names of the nodes from the root node to the changed node,
+     * which starts with the name of its top-level command.
+     *
+     * @return the path of the changed node.
+     */
+    public List<String> path() {
+      return this.path;
+    }
+
+    /**
+     * Returns the node of the previous tree.
+     *
+     * @return the previous node, or {@code null} if the node was added.
+     */
+    public CommandNode<S> previous() {
+      return this.previous;
+    }
+
+    /**
+     * Returns the node of the next tree.
+     *
+     * @return the next node, or {@code null} if the node was removed.
+     */
+    public CommandNode<S> next() {
+      return this.next;
+    }
+
+    @Override
+    public String toString() {
+      return this.type + " " + String.join(" ", this.path);
+    }
+  }
+}
@@ -0,0 +1,306 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.ProtocolUtils.stringLength;
+import static me.hugmanrique.opaqueargumenttypes.ProtocolUtils.varIntLength;
+
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.DoubleArgumentType;
+import com.mojang.brigadier.arguments.FloatArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.LongArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import com.velocitypowered.api.network.ProtocolVersion;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import net.kyori.adventure.key.Key;
+
+/**
+ * Computes the encoded size of the Declare Commands packet that contains
+ * a command tree, as sent to clients of a given {@link ProtocolVersion protocol version}.
+ *
+ * <p>The size is computed without encoding the packet, by following the same
+ * breadth-first node order used by Velocity. It excludes the packet ID and
+ * any framing or compression.
+ */
+public final class CommandTreeSize {
+
+  /**
+   * The largest uncompressed packet accepted by the client, whose length
+   * (including the packet ID) must fit in a 3-byte VarInt.
+   */
+  public static final int MAXIMUM_PACKET_LENGTH = (1 << 21) - 1;
+
+  private static final Key ASK_SERVER = Key.key("ask_server");
+  private static final int ASK_SERVER_LENGTH = ProtocolUtils.identifierLength(ASK_SERVER);
+
+  private final int totalBytes;
+  private final int nodeCount;
+  private final List<Subtree> subtrees;
+
+  private CommandTreeSize(final int totalBytes, final int nodeCount,
+                          final List<Subtree> subtrees) {
+    this.totalBytes = totalBytes;
+    this.nodeCount = nodeCount;
+    this.subtrees = subtrees;
+  }
+
+  /**
+   * Computes the encoded size of the given command tree.
+   *
+   * @param root the root node of the command tree.
+   * @param version the protocol version of the client.
+   * @param <S> the type of the command source.
+   * @return the encoded size.
+   * @throws IllegalArgumentException if the version doesn't support Brigadier or is newer
+   *     than {@link ParserIds#LATEST_VERSION},
+   *     or the tree contains an argument type that cannot be serialized.
+   */
+  public static <S> CommandTreeSize of(final RootCommandNode<S> root,
+                                       final ProtocolVersion version) {
+    if (version.compareTo(ProtocolVersion.MINECRAFT_1_13) < 0) {
+      throw new IllegalArgumentException("Command trees aren't sent to " + version + " clients");
+    }
+
+    // Assign indices in the same order as the packet encoder, attributing
+    // each node to the first top-level command that reaches it.
+    final Map<CommandNode<S>, Integer> indices = new IdentityHashMap<>();
+    final List<CommandNode<S>> nodes = new ArrayList<>();
+    final List<CommandNode<S>> owners = new ArrayList<>();
+    final Deque<CommandNode<S>> queue = new ArrayDeque<>();
+    final Deque<CommandNode<S>> queueOwners = new ArrayDeque<>();
+    queue.add(root);
+    queueOwners.add(root);
+    while (!queue.isEmpty()) {
+      final CommandNode<S> node = queue.poll();
+      final CommandNode<S> owner = queueOwners.poll();
+      if (indices.containsKey(node)) {
+        continue;
+      }
+      indices.put(node, nodes.size());
+      nodes.add(node);
+      owners.add(owner);
+      for (final CommandNode<S> child : node.getChildren()) {
+        queue.add(child);
+        queueOwners.add(node == root ? child : owner);
+      }
+      if (node.getRedirect() != null) {
+        queue.add(node.getRedirect());
+        queueOwners.add(owner);
+      }
+    }
+
+    int total = varIntLength(nodes.size()) + varIntLength(0); // node count and root index
+    final Map<CommandNode<S>, int[]> subtreeBytes = new IdentityHashMap<>();
+    for (int i = 0; i < nodes.size(); i++) {
+      final int bytes = nodeLength(nodes.get(i), indices, version);
+      total += bytes;
+      subtreeBytes.computeIfAbsent(owners.get(i), owner -> new int[1])[0] += bytes;
+    }
+
+    final List<Subtree> subtrees = new ArrayList<>(subtreeBytes.size());
+    for (final Map.Entry<CommandNode<S>, int[]> entry : subtreeBytes.entrySet()) {
+      if (entry.getKey() != root) {
+        subtrees.add(new Subtree(entry.getKey().getName(), entry.getValue()[0]));
+      }
+    }
+    subtrees.sort(Comparator.comparingInt(Subtree::bytes).reversed());
+    return new CommandTreeSize(total, nodes.size(), Collections.unmodifiableList(subtrees));
+  }
+
+  private static <S> int nodeLength(final CommandNode<S> node,
+                                    final Map<CommandNode<S>, Integer> indices,
+                                    final ProtocolVersion version) {
+    int length = 1; // flags
+    length += varIntLength(node.getChildren().size());
+    for (final CommandNode<S> child : node.getChildren()) {
+      length += varIntLength(indices.get(child));
+    }
+    if (node.getRedirect() != null) {
+      length += varIntLength(indices.get(node.getRedirect()));
+    }
+    if (node instanceof RootCommandNode) {
+      return length;
+    }
+
+    length += stringLength(node.getName());
+    if (node instanceof ArgumentCommandNode) {
+      final ArgumentCommandNode<S, ?> argument = (ArgumentCommandNode<S, ?>) node;
+      length += argumentTypeLength(argument.getType(), version);
+      if (argument.getCustomSuggestions() != null) {
+        length += ASK_SERVER_LENGTH;
+      }
+    }
+    return length;
+  }
+
+  private static int argumentTypeLength(final ArgumentType<?> type,
+                                        final ProtocolVersion version) {
+    if (type instanceof OpaqueArgumentType) {
+      final OpaqueArgumentType opaque = (OpaqueArgumentType) type;
+      final byte[] properties = opaque.getProperties();
+      final int propertiesLength = properties != null ? properties.length : 0;
+      return parserLength(opaque.getIdentifier(), version) + propertiesLength;
+    }
+
+    final String name;
+    final int propertiesLength;
+    if (type instanceof BoolArgumentType) {
+      name = "bool";
+      propertiesLength = 0;
+    } else if (type instanceof IntegerArgumentType) {
+      final IntegerArgumentType integer = (IntegerArgumentType) type;
+      name = "integer";
+      propertiesLength = rangeLength(integer.getMinimum() != Integer.MIN_VALUE,
+          integer.getMaximum() != Integer.MAX_VALUE, Integer.BYTES);
+    } else if (type instanceof LongArgumentType) {
+      final LongArgumentType longType = (LongArgumentType) type;
+      name = "long";
+      propertiesLength = rangeLength(longType.getMinimum() != Long.MIN_VALUE,
+          longType.getMaximum() != Long.MAX_VALUE, Long.BYTES);
+    } else if (type instanceof FloatArgumentType) {
+      final FloatArgumentType floatType = (FloatArgumentType) type;
+      name = "float";
+      propertiesLength = rangeLength(floatType.getMinimum() != -Float.MAX_VALUE,
+          floatType.getMaximum() != Float.MAX_VALUE, Float.BYTES);
+    } else if (type instanceof DoubleArgumentType) {
+      final DoubleArgumentType doubleType = (DoubleArgumentType) type;
+      name = "double";
+      propertiesLength = rangeLength(doubleType.getMinimum() != -Double.MAX_VALUE,
+          doubleType.getMaximum() != Double.MAX_VALUE, Double.BYTES);
+    } else if (type instanceof StringArgumentType) {
+      name = "string";
+      propertiesLength = 1; // VarInt-encoded string type ordinal
+    } else {
+      throw new IllegalArgumentException("Cannot compute the size of argument type "
+          + type.getClass().getName());
+    }
+
+    // Brigadier parsers occupy the first registry IDs, all encoded in a single byte
+    final int parserLength = ParserIds.usesIds(version) ? 1 : ProtocolUtils.identifierLength(
+        Key.key("brigadier", name));
+    return parserLength + propertiesLength;
+  }
+
+  private static int parserLength(final Key identifier, final ProtocolVersion version) {
+    if (!ParserIds.usesIds(version)) {
+      return ProtocolUtils.identifierLength(identifier);
+    }
+    final ArgumentParser parser = ArgumentParser.fromKey(identifier);
+    final int id = parser != null ? ParserIds.id(parser, version) : -1;
+    if (id == -1) {
+      throw new IllegalArgumentException("Parser " + identifier.asString()
+          + " has no registry ID in " + version);
+    }
+    return varIntLength(id);
+  }
+
+  private static int rangeLength(final boolean hasMinimum, final boolean hasMaximum,
+                                 final int valueLength) {
+    return 1 + (hasMinimum ? valueLength : 0) + (hasMaximum ? valueLength : 0);
+  }
+
+  /**
+   * Returns the encoded size of the packet payload.
+   *
+   * @return the size in bytes.
+   */
+  public int totalBytes() {
+    return this.totalBytes;
+  }
+
+  /**
+   * Returns the number of nodes in the packet.
+   *
+   * @return the node count.
+   */
+  public int nodeCount() {
+    return this.nodeCount;
+  }
+
+  /**
+   * Returns whether the packet, prefixed by its VarInt packet ID,
+   * exceeds the given budget.
+   *
+   * @param budget the maximum packet length in bytes,
+   *     e.g. {@link #MAXIMUM_PACKET_LENGTH}.
+   * @return {@code true} if the packet exceeds the budget.
+   */
+  public boolean exceeds(final int budget) {
+    // Every Declare Commands packet ID fits in a single byte
+    return this.totalBytes + 1 > budget;
+  }
+
+  /**
+   * Returns the bytes contributed by each top-level command, sorted
+   * from the largest to the smallest. Nodes reachable from multiple
+   * commands are attributed to the first command that reaches them.
+   *
+   * @return the top-level command subtrees.
+   */
+  public List<Subtree> subtrees() {
+    return this.subtrees;
+  }
+
+  /**
+   * Returns the top-level command subtrees with the largest contribution.
+   *
+   * @param limit the maximum number of subtrees to return.
+   * @return the largest subtrees, sorted from the largest to the smallest.
+   */
+  public List<Subtree> largestSubtrees(final int limit) {
+    return this.subtrees.subList(0, Math.min(limit, this.subtrees.size()));
+  }
+
+  @Override
+  public String toString() {
+    return "CommandTreeSize{totalBytes=" + this.totalBytes + ", nodeCount=" + this.nodeCount + '}';
+  }
+
+  /**
+   * The bytes contributed by a top-level command.
+   */
+  public static final class Subtree {
+
+    private final String name;
+    private final int bytes;
+
+    Subtree(final String name, final int bytes) {
+      this.name = name;
+      this.bytes = bytes;
+    }
+
+    /**
+     * Returns the name of the top-level command.
+     *
+     * @return the command name.
+     */
+    public String name() {
+      return this.name;
+    }
+
+    /**
+     * Returns the bytes contributed by the nodes of the command.
+     *
+     * @return the size in bytes.
+     */
+    public int bytes() {
+      return this.bytes;
+    }
+
+    @Override
+    public String toString() {
+      return this.name + '=' + this.bytes;
+    }
+  }
+}
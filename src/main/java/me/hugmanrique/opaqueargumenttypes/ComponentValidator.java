@@ -0,0 +1,566 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.StringReader;
+import com.velocitypowered.api.command.CommandManager;
+
+/**
+ * Validates the input of the {@code minecraft:component} parser on the proxy,
+ * so malformed or pathological text components can be rejected without
+ * forwarding them to the backend server.
+ *
+ * <p>The validator scans the JSON input once without building a tree, and
+ * checks both the strict JSON syntax read by the vanilla parser and the
+ * structure of a text component: a primitive, a non-empty array of components,
+ * or an object with a content key ({@code text}, {@code translate},
+ * {@code score}, {@code selector}, {@code keybind} or {@code nbt}) whose
+ * {@code extra} array contains components. Like the vanilla parser, only the
+ * first present content key in that order is checked, and the others are
+ * ignored. The {@code with} array must contain components only if that key is
+ * {@code translate}, and the {@code separator} must be a component only if it
+ * is {@code selector} or {@code nbt}. Style properties are only checked to be
+ * valid JSON.
+ *
+ * <p>Validators are immutable and can be shared between threads.
+ *
+ * @see OpaqueArgumentTypes#component(CommandManager)
+ */
+public final class ComponentValidator {
+
+  /**
+   * A validator with limits suitable for the input of a command.
+   */
+  public static final ComponentValidator DEFAULT = new ComponentValidator(64, 32767, 4096);
+
+  /**
+   * The result of a validation.
+   */
+  public enum Result {
+    /** The input is a valid text component. */
+    VALID,
+    /** The input isn't valid JSON, or doesn't describe a text component. */
+    MALFORMED,
+    /** The input nests objects and arrays deeper than the depth limit. */
+    TOO_DEEP,
+    /** The input contains a string longer than the string length limit. */
+    STRING_TOO_LONG,
+    /** The input contains more JSON values than the node limit. */
+    TOO_MANY_NODES
+  }
+
+  private final int maxDepth;
+  private final int maxStringLength;
+  private final int maxNodes;
+
+  /**
+   * Constructs a validator with the given limits.
+   *
+   * @param maxDepth the maximum number of nested objects and arrays.
+   * @param maxStringLength the maximum number of characters of a string or key.
+   * @param maxNodes the maximum number of JSON values in the input.
+   * @throws IllegalArgumentException if a limit isn't positive.
+   */
+  public ComponentValidator(final int maxDepth, final int maxStringLength, final int maxNodes) {
+    if (maxDepth <= 0 || maxStringLength <= 0 || maxNodes <= 0) {
+      throw new IllegalArgumentException("Limits must be positive");
+    }
+    this.maxDepth = maxDepth;
+    this.maxStringLength = maxStringLength;
+    this.maxNodes = maxNodes;
+  }
+
+  /**
+   * Validates the text component starting at the cursor of the given reader.
+   * The component must be followed by a space or the end of the string.
+   *
+   * <p>If the component is valid, the cursor is moved past it.
+   * Otherwise, the cursor is left unchanged.
+   *
+   * @param reader the reader.
+   * @return the validation result.
+   */
+  public Result validate(final StringReader reader) {
+    final Scanner scanner = new Scanner(reader.getString(), reader.getCursor());
+    try {
+      scanner.component(0);
+      scanner.argumentEnd();
+    } catch (final Failure failure) {
+      return failure.result;
+    }
+    reader.setCursor(scanner.pos);
+    return Result.VALID;
+  }
+
+  /**
+   * Validates the given string, which must only contain a text component.
+   *
+   * @param input the input string.
+   * @return the validation result.
+   * @see #validate(StringReader)
+   */
+  public Result validate(final String input) {
+    final StringReader reader = new StringReader(input);
+    final Result result = validate(reader);
+    if (result == Result.VALID && reader.canRead()) {
+      return Result.MALFORMED;
+    }
+    return result;
+  }
+
+  // Thrown without a stack trace to unwind the recursive descent
+  private static final class Failure extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Failure MALFORMED = new Failure(Result.MALFORMED);
+    private static final Failure TOO_DEEP = new Failure(Result.TOO_DEEP);
+    private static final Failure STRING_TOO_LONG = new Failure(Result.STRING_TOO_LONG);
+    private static final Failure TOO_MANY_NODES = new Failure(Result.TOO_MANY_NODES);
+
+    final Result result;
+
+    private Failure(final Result result) {
+      super(null, null, false, false);
+      this.result = result;
+    }
+  }
+
+  // Value kinds returned by the scanner
+  private static final int PRIMITIVE = 0;
+  private static final int OBJECT = 1;
+  private static final int ARRAY = 2;
+  private static final int NULL = 3;
+
+  // The content keys of a component object, in the order the vanilla parser looks for them
+  private static final String[] CONTENT_KEYS = {
+    "text", "translate", "score", "selector", "keybind", "nbt"
+  };
+  private static final int TRANSLATE = 1;
+  private static final int SCORE = 2;
+  private static final int SELECTOR = 3;
+  private static final int NBT = 5;
+
+  private final class Scanner {
+
+    private final String input;
+    int pos;
+    private int nodes;
+
+    Scanner(final String input, final int start) {
+      this.input = input;
+      this.pos = start;
+    }
+
+    private char peek() {
+      if (this.pos >= this.input.length()) {
+        throw Failure.MALFORMED;
+      }
+      return this.input.charAt(this.pos);
+    }
+
+    private void expect(final char c) {
+      if (peek() != c) {
+        throw Failure.MALFORMED;
+      }
+      this.pos++;
+    }
+
+    private void skipWhitespace() {
+      while (this.pos < this.input.length()) {
+        final char c = this.input.charAt(this.pos);
+        if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+          return;
+        }
+        this.pos++;
+      }
+    }
+
+    private void countNode() {
+      if (++this.nodes > ComponentValidator.this.maxNodes) {
+        throw Failure.TOO_MANY_NODES;
+      }
+    }
+
+    private int nest(final int depth) {
+      if (depth >= ComponentValidator.this.maxDepth) {
+        throw Failure.TOO_DEEP;
+      }
+      return depth + 1;
+    }
+
+    void argumentEnd() {
+      if (this.pos < this.input.length() && this.input.charAt(this.pos) != ' ') {
+        throw Failure.MALFORMED;
+      }
+    }
+
+    void component(final int depth) {
+      skipWhitespace();
+      final char c = peek();
+      if (c == '{') {
+        componentObject(depth);
+      } else if (c == '[') {
+        componentArray(depth, false);
+      } else if (value(depth) == NULL) {
+        throw Failure.MALFORMED;
+      }
+    }
+
+    private void componentArray(final int depth, final boolean allowEmpty) {
+      countNode();
+      final int inner = nest(depth);
+      expect('[');
+      skipWhitespace();
+      if (peek() == ']') {
+        if (!allowEmpty) {
+          throw Failure.MALFORMED; // empty array of components
+        }
+        this.pos++;
+        return;
+      }
+      while (true) {
+        component(inner);
+        skipWhitespace();
+        if (peek() == ']') {
+          this.pos++;
+          return;
+        }
+        expect(',');
+      }
+    }
+
+    private void componentObject(final int depth) {
+      countNode();
+      final int inner = nest(depth);
+      expect('{');
+      skipWhitespace();
+      // Only the first content key in vanilla order is read, the others are ignored
+      int content = CONTENT_KEYS.length;
+      boolean validContent = false;
+      boolean nbtSource = false;
+      // Whether the with and separator values, if present, are valid for the content
+      boolean validWith = true;
+      boolean validSeparator = true;
+      if (peek() != '}') {
+        while (true) {
+          skipWhitespace();
+          final int keyStart = this.pos + 1;
+          final int keyEnd = string();
+          skipWhitespace();
+          expect(':');
+          skipWhitespace();
+
+          final int contentKey = contentKey(keyStart, keyEnd);
+          if (contentKey != -1) {
+            final boolean valid = contentKey == SCORE ? score(inner) : value(inner) == PRIMITIVE;
+            // Like a JSON object, the last of duplicate keys wins
+            if (contentKey <= content) {
+              content = contentKey;
+              validContent = valid;
+            }
+          } else if (isKey(keyStart, keyEnd, "extra")) {
+            componentArray(inner, false);
+          } else if (isKey(keyStart, keyEnd, "with")) {
+            validWith = tryComponent(inner, true);
+          } else if (isKey(keyStart, keyEnd, "separator")) {
+            validSeparator = tryComponent(inner, false);
+          } else {
+            if (isKey(keyStart, keyEnd, "block") || isKey(keyStart, keyEnd, "entity")
+                || isKey(keyStart, keyEnd, "storage")) {
+              nbtSource = true;
+            }
+            value(inner);
+          }
+
+          skipWhitespace();
+          if (peek() == '}') {
+            break;
+          }
+          expect(',');
+        }
+      }
+      this.pos++;
+      if (!validContent || (content == NBT && !nbtSource)
+          || (content == TRANSLATE && !validWith)
+          || ((content == SELECTOR || content == NBT) && !validSeparator)) {
+        throw Failure.MALFORMED; // not a text component
+      }
+    }
+
+    // Scans a component, or an array of components if array is true, and returns whether
+    // it is valid. The content key it depends on may follow it, so an invalid component
+    // is scanned again as any JSON value. The nodes of the first scan are discarded.
+    private boolean tryComponent(final int depth, final boolean array) {
+      final int start = this.pos;
+      final int nodes = this.nodes;
+      try {
+        if (array) {
+          componentArray(depth, true);
+        } else {
+          component(depth);
+        }
+        return true;
+      } catch (final Failure failure) {
+        if (failure != Failure.MALFORMED) {
+          throw failure;
+        }
+      }
+      this.pos = start;
+      this.nodes = nodes;
+      value(depth);
+      return false;
+    }
+
+    private int contentKey(final int start, final int end) {
+      for (int i = 0; i < CONTENT_KEYS.length; i++) {
+        if (isKey(start, end, CONTENT_KEYS[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    // Returns whether the value is a score with a name and an objective
+    private boolean score(final int depth) {
+      if (peek() != '{') {
+        value(depth);
+        return false;
+      }
+      countNode();
+      final int inner = nest(depth);
+      this.pos++;
+      skipWhitespace();
+      boolean name = false;
+      boolean objective = false;
+      if (peek() != '}') {
+        while (true) {
+          skipWhitespace();
+          final int keyStart = this.pos + 1;
+          final int keyEnd = string();
+          skipWhitespace();
+          expect(':');
+          skipWhitespace();
+          if (isKey(keyStart, keyEnd, "name")) {
+            name = value(inner) == PRIMITIVE;
+          } else if (isKey(keyStart, keyEnd, "objective")) {
+            objective = value(inner) == PRIMITIVE;
+          } else {
+            value(inner);
+          }
+          skipWhitespace();
+          if (peek() == '}') {
+            break;
+          }
+          expect(',');
+        }
+      }
+      this.pos++;
+      return name && objective;
+    }
+
+    private boolean isKey(final int start, final int end, final String key) {
+      // Keys with escape sequences are never recognized, which only makes validation stricter
+      return end - start == key.length() && this.input.startsWith(key, start);
+    }
+
+    private int value(final int depth) {
+      final char c = peek();
+      switch (c) {
+        case '{':
+          object(depth);
+          return OBJECT;
+        case '[':
+          array(depth);
+          return ARRAY;
+        case '"':
+          countNode();
+          string();
+          return PRIMITIVE;
+        case 't':
+          countNode();
+          literal("true");
+          return PRIMITIVE;
+        case 'f':
+          countNode();
+          literal("false");
+          return PRIMITIVE;
+        case 'n':
+          countNode();
+          literal("null");
+          return NULL;
+        default:
+          countNode();
+          number();
+          return PRIMITIVE;
+      }
+    }
+
+    private void object(final int depth) {
+      countNode();
+      final int inner = nest(depth);
+      this.pos++;
+      skipWhitespace();
+      if (peek() == '}') {
+        this.pos++;
+        return;
+      }
+      while (true) {
+        skipWhitespace();
+        string();
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+        value(inner);
+        skipWhitespace();
+        if (peek() == '}') {
+          this.pos++;
+          return;
+        }
+        expect(',');
+      }
+    }
+
+    private void array(final int depth) {
+      countNode();
+      final int inner = nest(depth);
+      this.pos++;
+      skipWhitespace();
+      if (peek() == ']') {
+        this.pos++;
+        return;
+      }
+      while (true) {
+        skipWhitespace();
+        value(inner);
+        skipWhitespace();
+        if (peek() == ']') {
+          this.pos++;
+          return;
+        }
+        expect(',');
+      }
+    }
+
+    /**
+     * Scans a string, and returns the index of its closing quote.
+     */
+    private int string() {
+      expect('"');
+      int length = 0;
+      while (true) {
+        final char c = peek();
+        if (c == '"') {
+          return this.pos++;
+        }
+        if (++length > ComponentValidator.this.maxStringLength) {
+          throw Failure.STRING_TOO_LONG;
+        }
+        this.pos++;
+        if (c == '\\') {
+          escape();
+        }
+      }
+    }
+
+    private void escape() {
+      final char c = peek();
+      this.pos++;
+      switch (c) {
+        case '"':
+        case '\\':
+        case '/':
+        case 'b':
+        case 'f':
+        case 'n':
+        case 'r':
+        case 't':
+          return;
+        case 'u':
+          for (int i = 0; i < 4; i++) {
+            if (Character.digit(peek(), 16) == -1) {
+              throw Failure.MALFORMED;
+            }
+            this.pos++;
+          }
+          return;
+        default:
+          throw Failure.MALFORMED;
+      }
+    }
+
+    private void literal(final String literal) {
+      if (!this.input.startsWith(literal, this.pos)) {
+        throw Failure.MALFORMED;
+      }
+      this.pos += literal.length();
+      if (this.pos < this.input.length() && isLiteralChar(this.input.charAt(this.pos))) {
+        throw Failure.MALFORMED;
+      }
+    }
+
+    // Matches -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][-+]?[0-9]+)?
+    private void number() {
+      if (peek() == '-') {
+        this.pos++;
+      }
+      if (peek() == '0') {
+        this.pos++;
+      } else {
+        digits();
+      }
+      if (this.pos < this.input.length() && this.input.charAt(this.pos) == '.') {
+        this.pos++;
+        digits();
+      }
+      if (this.pos < this.input.length()
+          && (this.input.charAt(this.pos) == 'e' || this.input.charAt(this.pos) == 'E')) {
+        this.pos++;
+        if (peek() == '-' || peek() == '+') {
+          this.pos++;
+        }
+        digits();
+      }
+      if (this.pos < this.input.length() && isLiteralChar(this.input.charAt(this.pos))) {
+        throw Failure.MALFORMED;
+      }
+    }
+
+    private void digits() {
+      final int start = this.pos;
+      while (this.pos < this.input.length() && isDigit(this.input.charAt(this.pos))) {
+        this.pos++;
+      }
+      if (this.pos == start) {
+        throw Failure.MALFORMED;
+      }
+    }
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  // Characters that would continue an unquoted literal in the JSON reader
+  private static boolean isLiteralChar(final char c) {
+    switch (c) {
+      case '/':
+      case '\\':
+      case ';':
+      case '#':
+      case '=':
+      case '{':
+      case '}':
+      case '[':
+      case ']':
+      case ':':
+      case ',':
+      case ' ':
+      case '\t':
+      case '\f':
+      case '\r':
+      case '\n':
+        return false;
+      default:
+        return true;
+    }
+  }
+}
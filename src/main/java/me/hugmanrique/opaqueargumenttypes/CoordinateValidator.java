@@ -0,0 +1,215 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.NumberScanner.isDouble;
+import static me.hugmanrique.opaqueargumenttypes.NumberScanner.isInt;
+import static me.hugmanrique.opaqueargumenttypes.NumberScanner.scanNumber;
+
+import com.mojang.brigadier.StringReader;
+import com.velocitypowered.api.command.CommandManager;
+
+/**
+ * Validates the input of the coordinate parsers on the proxy, so malformed
+ * input can be rejected without a round trip to the backend server.
+ *
+ * <p>Each coordinate is either absolute ({@code 5}), relative to the
+ * executor position ({@code ~} or {@code ~-1.5}), or local to the executor
+ * rotation ({@code ^} or {@code ^2}). Local coordinates can only be mixed with
+ * other local coordinates, and are only accepted by {@link #BLOCK_POS} and {@link #VEC3}.
+ * The absolute coordinates of integer parsers must be integers, while relative
+ * offsets can always have decimals. The accepted input matches that of the
+ * vanilla parsers.
+ *
+ * <p>Validation runs directly over the reader string and doesn't allocate.
+ */
+public enum CoordinateValidator {
+
+  /**
+   * Validates the input of the {@code minecraft:block_pos} parser.
+   *
+   * @see OpaqueArgumentTypes#blockPos(CommandManager)
+   */
+  BLOCK_POS(ArgumentParser.BLOCK_POS, 3, false, true),
+
+  /**
+   * Validates the input of the {@code minecraft:column_pos} parser.
+   *
+   * @see OpaqueArgumentTypes#columnPos(CommandManager)
+   */
+  COLUMN_POS(ArgumentParser.COLUMN_POS, 2, false, false),
+
+  /**
+   * Validates the input of the {@code minecraft:vec3} parser.
+   *
+   * @see OpaqueArgumentTypes#vec3(CommandManager)
+   */
+  VEC3(ArgumentParser.VEC3, 3, true, true),
+
+  /**
+   * Validates the input of the {@code minecraft:vec2} parser.
+   *
+   * @see OpaqueArgumentTypes#vec2(CommandManager)
+   */
+  VEC2(ArgumentParser.VEC2, 2, true, false),
+
+  /**
+   * Validates the input of the {@code minecraft:rotation} parser.
+   *
+   * @see OpaqueArgumentTypes#rotation(CommandManager)
+   */
+  ROTATION(ArgumentParser.ROTATION, 2, true, false);
+
+  private static final int INVALID = -1;
+
+  private final ArgumentParser parser;
+  private final int coordinates;
+  private final boolean decimals;
+  private final boolean local;
+
+  CoordinateValidator(final ArgumentParser parser, final int coordinates,
+                      final boolean decimals, final boolean local) {
+    this.parser = parser;
+    this.coordinates = coordinates;
+    this.decimals = decimals;
+    this.local = local;
+  }
+
+  /**
+   * Returns the validator for the given parser.
+   *
+   * @param parser the argument parser.
+   * @return the validator, or {@code null} if the parser doesn't read coordinates.
+   */
+  public static CoordinateValidator forParser(final ArgumentParser parser) {
+    switch (parser) {
+      case BLOCK_POS:
+        return BLOCK_POS;
+      case COLUMN_POS:
+        return COLUMN_POS;
+      case VEC3:
+        return VEC3;
+      case VEC2:
+        return VEC2;
+      case ROTATION:
+        return ROTATION;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Returns the parser whose input this validator checks.
+   *
+   * @return the argument parser.
+   */
+  public ArgumentParser parser() {
+    return this.parser;
+  }
+
+  /**
+   * Validates the coordinates starting at the cursor of the given reader.
+   * The coordinates must be followed by a space or the end of the input.
+   *
+   * <p>If the coordinates are valid, the cursor is moved past them.
+   * Otherwise, the cursor is left unchanged.
+   *
+   * @param reader the reader.
+   * @return {@code true} if the coordinates are valid.
+   */
+  public boolean validate(final StringReader reader) {
+    final String input = reader.getString();
+    final int end = scan(input, reader.getCursor());
+    if (end == INVALID) {
+      return false;
+    }
+    reader.setCursor(end);
+    return true;
+  }
+
+  /**
+   * Returns whether the given string only contains valid coordinates.
+   *
+   * @param input the input string.
+   * @return {@code true} if the coordinates are valid.
+   */
+  public boolean isValid(final String input) {
+    return scan(input, 0) == input.length();
+  }
+
+  private int scan(final String input, final int start) {
+    final int end;
+    if (this.local && start < input.length() && input.charAt(start) == '^') {
+      end = scanLocal(input, start);
+    } else {
+      end = scanWorld(input, start);
+    }
+    // The dispatcher expects a separator after each argument
+    if (end != INVALID && end < input.length() && input.charAt(end) != ' ') {
+      return INVALID;
+    }
+    return end;
+  }
+
+  private int scanLocal(final String input, int index) {
+    for (int i = 0; i < this.coordinates; i++) {
+      if (i > 0) {
+        index = skipSeparator(input, index);
+        if (index == INVALID) {
+          return INVALID;
+        }
+      }
+      if (index >= input.length() || input.charAt(index) != '^') {
+        return INVALID; // missing or mixed coordinate
+      }
+      index = scanOffset(input, index + 1);
+      if (index == INVALID) {
+        return INVALID;
+      }
+    }
+    return index;
+  }
+
+  private int scanWorld(final String input, int index) {
+    for (int i = 0; i < this.coordinates; i++) {
+      if (i > 0) {
+        index = skipSeparator(input, index);
+        if (index == INVALID) {
+          return INVALID;
+        }
+      }
+      if (index >= input.length() || input.charAt(index) == '^') {
+        return INVALID; // missing or mixed coordinate
+      }
+      if (input.charAt(index) == '~') {
+        index = scanOffset(input, index + 1);
+      } else {
+        index = scanAbsolute(input, index);
+      }
+      if (index == INVALID) {
+        return INVALID;
+      }
+    }
+    return index;
+  }
+
+  private static int skipSeparator(final String input, final int index) {
+    return index < input.length() && input.charAt(index) == ' ' ? index + 1 : INVALID;
+  }
+
+  // Relative and local offsets are optional, and always accept decimals
+  private static int scanOffset(final String input, final int start) {
+    if (start >= input.length() || input.charAt(start) == ' ') {
+      return start;
+    }
+    final int end = scanNumber(input, start);
+    return isDouble(input, start, end) ? end : INVALID;
+  }
+
+  private int scanAbsolute(final String input, final int start) {
+    if (input.charAt(start) == ' ') {
+      return start; // vanilla reads an empty absolute coordinate as 0
+    }
+    final int end = scanNumber(input, start);
+    final boolean valid = this.decimals ? isDouble(input, start, end) : isInt(input, start, end);
+    return valid ? end : INVALID;
+  }
+}
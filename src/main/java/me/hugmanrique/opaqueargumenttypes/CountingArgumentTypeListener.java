@@ -0,0 +1,93 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.google.common.collect.MapMaker;
+import com.velocitypowered.api.command.CommandManager;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link ArgumentTypeListener} that counts the argument types created per
+ * parser, the total length of their properties, and the requests per command
+ * manager.
+ *
+ * <p>Command managers are weakly referenced, so counting doesn't prevent the
+ * command manager of a reloaded proxy from being collected.
+ */
+public final class CountingArgumentTypeListener implements ArgumentTypeListener {
+
+  private final AtomicLongArray created = new AtomicLongArray(ArgumentParser.count());
+  private final LongAdder propertyBytes = new LongAdder();
+  // Weak keys are compared by identity, like command managers
+  private final ConcurrentMap<CommandManager, LongAdder> requests =
+      new MapMaker().weakKeys().makeMap();
+
+  @Override
+  public void typeRequested(final CommandManager manager, final ArgumentParser parser,
+                            final int propertiesLength, final boolean created) {
+    if (created) {
+      this.created.incrementAndGet(parser.ordinal());
+      this.propertyBytes.add(propertiesLength);
+    }
+    LongAdder counter = this.requests.get(manager);
+    if (counter == null) {
+      counter = this.requests.computeIfAbsent(manager, key -> new LongAdder());
+    }
+    counter.increment();
+  }
+
+  /**
+   * Returns the number of argument types created for the given parser.
+   *
+   * @param parser the argument parser.
+   * @return the number of created types.
+   */
+  public long typesCreated(final ArgumentParser parser) {
+    return this.created.get(parser.ordinal());
+  }
+
+  /**
+   * Returns the number of argument types created for every parser.
+   *
+   * @return the number of created types.
+   */
+  public long typesCreated() {
+    long total = 0;
+    for (int i = 0; i < this.created.length(); i++) {
+      total += this.created.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * Returns the total length in bytes of the properties of the created argument types.
+   *
+   * @return the number of property bytes.
+   */
+  public long propertyBytes() {
+    return this.propertyBytes.sum();
+  }
+
+  /**
+   * Returns the number of argument types requested from the given command manager,
+   * including the types found in its cache.
+   *
+   * @param manager the command manager.
+   * @return the number of requests.
+   */
+  public long requests(final CommandManager manager) {
+    final LongAdder counter = this.requests.get(manager);
+    return counter == null ? 0 : counter.sum();
+  }
+
+  /**
+   * Resets every counter to zero.
+   */
+  public void reset() {
+    for (int i = 0; i < this.created.length(); i++) {
+      this.created.set(i, 0);
+    }
+    this.propertyBytes.reset();
+    this.requests.clear();
+  }
+}
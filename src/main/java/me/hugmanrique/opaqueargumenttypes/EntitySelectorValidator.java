@@ -0,0 +1,760 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.StringReader;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import java.util.Optional;
+
+/**
+ * Validates the input of the {@code minecraft:entity} parser on the proxy,
+ * so selectors that the node would reject can be caught without forwarding
+ * them to the backend server.
+ *
+ * <p>The validator accepts the same input as the vanilla parser: a player name,
+ * a UUID, or a selector ({@code @p}, {@code @a}, {@code @r}, {@code @s} or
+ * {@code @e}) optionally followed by a bracketed list of options. As in vanilla,
+ * the {@code limit} option determines whether a selector targets a single entity,
+ * and a non-inverted {@code type=player} option, or a {@code level},
+ * {@code gamemode} or {@code advancements} option, limits {@code @e} to players.
+ * Options that vanilla only applies once, such as {@code distance} or
+ * {@code sort}, are rejected when repeated.
+ * Input selecting more than one entity is rejected on {@code single} nodes,
+ * and input that may select non-player entities is rejected on
+ * {@code onlyPlayers} nodes, except for {@code @s}.
+ *
+ * <p>Option values are checked syntactically; the number of options in a
+ * selector is bounded. Validators are immutable and can be shared between threads.
+ *
+ * @see OpaqueArgumentTypes#entity(CommandManager, boolean, boolean)
+ */
+public final class EntitySelectorValidator {
+
+  /**
+   * The default maximum number of options in a selector.
+   */
+  public static final int DEFAULT_MAX_OPTIONS = 16;
+
+  private static final EntitySelectorValidator[] BY_FLAGS = {
+      new EntitySelectorValidator(false, false, DEFAULT_MAX_OPTIONS),
+      new EntitySelectorValidator(false, true, DEFAULT_MAX_OPTIONS),
+      new EntitySelectorValidator(true, false, DEFAULT_MAX_OPTIONS),
+      new EntitySelectorValidator(true, true, DEFAULT_MAX_OPTIONS)
+  };
+
+  // Matches the maximum length checked by EntitySelectorParser.parseNameOrUUID
+  private static final int MAX_NAME_LENGTH = 16;
+  private static final int MAX_UUID_LENGTH = 36;
+
+  private static final String[] OPTIONS = {
+      "name", "distance", "level", "x", "y", "z", "dx", "dy", "dz", "x_rotation",
+      "y_rotation", "limit", "sort", "gamemode", "team", "type", "tag", "nbt",
+      "scores", "advancements", "predicate"
+  };
+  private static final String[] SORTS = { "nearest", "furthest", "random", "arbitrary" };
+  private static final String[] GAME_MODES = { "survival", "creative", "adventure", "spectator" };
+
+  /**
+   * The result of a validation.
+   */
+  public enum Result {
+    /** The input is accepted by the node. */
+    VALID,
+    /** The input isn't a valid player name, UUID or selector. */
+    MALFORMED,
+    /** The input may select more than one entity, but the node requires a single one. */
+    NOT_SINGLE,
+    /** The input may select non-player entities, but the node only allows players. */
+    NOT_PLAYERS,
+    /** The selector contains more options than the option limit. */
+    TOO_MANY_OPTIONS
+  }
+
+  private final boolean single;
+  private final boolean onlyPlayers;
+  private final int maxOptions;
+
+  /**
+   * Constructs a validator for an entity node with the given flags.
+   *
+   * @param single whether the node only allows a single entity.
+   * @param onlyPlayers whether the node only allows players.
+   * @param maxOptions the maximum number of options in a selector.
+   * @throws IllegalArgumentException if {@code maxOptions} is negative.
+   */
+  public EntitySelectorValidator(final boolean single, final boolean onlyPlayers,
+                                 final int maxOptions) {
+    if (maxOptions < 0) {
+      throw new IllegalArgumentException("Option limit must be non-negative");
+    }
+    this.single = single;
+    this.onlyPlayers = onlyPlayers;
+    this.maxOptions = maxOptions;
+  }
+
+  /**
+   * Returns a validator for an entity node with the given flags,
+   * allowing {@link #DEFAULT_MAX_OPTIONS} options in a selector.
+   *
+   * @param single whether the node only allows a single entity.
+   * @param onlyPlayers whether the node only allows players.
+   * @return the validator.
+   */
+  public static EntitySelectorValidator forFlags(final boolean single, final boolean onlyPlayers) {
+    return BY_FLAGS[(single ? 2 : 0) | (onlyPlayers ? 1 : 0)];
+  }
+
+  /**
+   * Returns a validator for the given entity argument,
+   * allowing {@link #DEFAULT_MAX_OPTIONS} options in a selector.
+   *
+   * @param descriptor the entity argument descriptor.
+   * @return the validator.
+   */
+  public static EntitySelectorValidator forDescriptor(final ArgumentDescriptor.Entity descriptor) {
+    return forFlags(descriptor.single(), descriptor.onlyPlayers());
+  }
+
+  /**
+   * Returns whether the validated node only allows a single entity.
+   *
+   * @return {@code true} if only a single entity is allowed.
+   */
+  public boolean single() {
+    return this.single;
+  }
+
+  /**
+   * Returns whether the validated node only allows players.
+   *
+   * @return {@code true} if only players are allowed.
+   */
+  public boolean onlyPlayers() {
+    return this.onlyPlayers;
+  }
+
+  /**
+   * Validates the entity argument starting at the cursor of the given reader.
+   * The argument must be followed by a space or the end of the string.
+   *
+   * <p>If the argument is valid, the cursor is moved past it.
+   * Otherwise, the cursor is left unchanged.
+   *
+   * @param reader the reader.
+   * @return the validation result.
+   */
+  public Result validate(final StringReader reader) {
+    final Scanner scanner = new Scanner(reader.getString(), reader.getCursor());
+    try {
+      scanner.argument();
+      scanner.argumentEnd();
+    } catch (final Failure failure) {
+      return failure.result;
+    }
+    if (this.single && scanner.maxResults > 1) {
+      return Result.NOT_SINGLE;
+    }
+    if (this.onlyPlayers && scanner.includesEntities && !scanner.self) {
+      return Result.NOT_PLAYERS;
+    }
+    reader.setCursor(scanner.pos);
+    return Result.VALID;
+  }
+
+  /**
+   * Validates the given string, which must only contain an entity argument.
+   *
+   * @param input the input string.
+   * @return the validation result.
+   * @see #validate(StringReader)
+   */
+  public Result validate(final String input) {
+    final StringReader reader = new StringReader(input);
+    final Result result = validate(reader);
+    if (result == Result.VALID && reader.canRead()) {
+      return Result.MALFORMED;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the online player named by the given entity argument.
+   *
+   * <p>The lookup is a single query to the player map of the proxy, and is only
+   * performed if the argument is a plain player name, which every entity node
+   * accepts. Selectors and UUIDs are never resolved.
+   *
+   * @param proxy the proxy server.
+   * @param input the entity argument.
+   * @return the player, or an empty optional if the argument isn't a player name
+   *     or the player isn't connected to the proxy.
+   */
+  public static Optional<Player> resolvePlayer(final ProxyServer proxy, final String input) {
+    final int length = input.length();
+    if (length == 0 || length > MAX_NAME_LENGTH || isUuid(input, 0, length)) {
+      return Optional.empty();
+    }
+    for (int i = 0; i < length; i++) {
+      if (!StringReader.isAllowedInUnquotedString(input.charAt(i))) {
+        return Optional.empty();
+      }
+    }
+    return proxy.getPlayer(input);
+  }
+
+  // Mirrors UUID.fromString: five groups of hex digits separated by dashes, each fitting a long
+  private static boolean isUuid(final CharSequence input, final int start, final int end) {
+    if (end - start > MAX_UUID_LENGTH) {
+      return false;
+    }
+    int groups = 0;
+    int i = start;
+    while (true) {
+      if (i < end && input.charAt(i) == '+') {
+        i++; // accepted by Long.parseLong
+      }
+      int digits = 0;
+      int significant = 0;
+      char first = '0';
+      for (; i < end && input.charAt(i) != '-'; i++) {
+        final char c = input.charAt(i);
+        if (Character.digit(c, 16) < 0) {
+          return false;
+        }
+        digits++;
+        if (significant > 0 || c != '0') {
+          if (significant++ == 0) {
+            first = c;
+          }
+        }
+      }
+      if (digits == 0 || significant > 16
+          || (significant == 16 && Character.digit(first, 16) > 7)) {
+        return false;
+      }
+      groups++;
+      if (i == end) {
+        return groups == 5;
+      }
+      i++; // dash
+    }
+  }
+
+  private static boolean isAllowedInResourceLocation(final char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z')
+        || c == '_' || c == ':' || c == '/' || c == '.' || c == '-';
+  }
+
+  // Thrown without a stack trace to unwind the option parser
+  private static final class Failure extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Failure MALFORMED = new Failure(Result.MALFORMED);
+    private static final Failure TOO_MANY_OPTIONS = new Failure(Result.TOO_MANY_OPTIONS);
+
+    final Result result;
+
+    private Failure(final Result result) {
+      super(null, null, false, false);
+      this.result = result;
+    }
+  }
+
+  private final class Scanner {
+
+    private final String input;
+    int pos;
+    private int options;
+
+    // Mirrors the state of EntitySelectorParser
+    int maxResults;
+    boolean includesEntities;
+    boolean self;
+    private boolean limited;
+    private boolean typeLimited;
+    private boolean typeLimitedInversely;
+    // Bit sets of the options that were given, and given inverted
+    private int given;
+    private int givenInverted;
+    private PrimitiveValue bounds;
+
+    Scanner(final String input, final int start) {
+      this.input = input;
+      this.pos = start;
+    }
+
+    private boolean canRead() {
+      return this.pos < this.input.length();
+    }
+
+    private char peek() {
+      if (this.pos >= this.input.length()) {
+        throw Failure.MALFORMED;
+      }
+      return this.input.charAt(this.pos);
+    }
+
+    private void expect(final char c) {
+      if (peek() != c) {
+        throw Failure.MALFORMED;
+      }
+      this.pos++;
+    }
+
+    private void skipWhitespace() {
+      while (canRead() && Character.isWhitespace(this.input.charAt(this.pos))) {
+        this.pos++;
+      }
+    }
+
+    void argumentEnd() {
+      if (canRead() && this.input.charAt(this.pos) != ' ') {
+        throw Failure.MALFORMED;
+      }
+    }
+
+    void argument() {
+      if (canRead() && this.input.charAt(this.pos) == '@') {
+        this.pos++;
+        selector();
+      } else {
+        nameOrUuid();
+      }
+    }
+
+    private void nameOrUuid() {
+      final int start = this.pos;
+      final int length = string();
+      final boolean quoted = this.pos > start
+          && StringReader.isQuotedStringStart(this.input.charAt(start));
+      final int contentStart = quoted ? start + 1 : start;
+      final int contentEnd = quoted ? this.pos - 1 : this.pos;
+      if (isUuid(this.input, contentStart, contentEnd)) {
+        this.includesEntities = true;
+      } else if (length == 0 || length > MAX_NAME_LENGTH) {
+        throw Failure.MALFORMED;
+      }
+      this.maxResults = 1;
+    }
+
+    private void selector() {
+      switch (peek()) {
+        case 'p':
+        case 'r':
+          this.maxResults = 1;
+          this.typeLimited = true;
+          break;
+        case 'a':
+          this.maxResults = Integer.MAX_VALUE;
+          this.typeLimited = true;
+          break;
+        case 'e':
+          this.maxResults = Integer.MAX_VALUE;
+          this.includesEntities = true;
+          break;
+        case 's':
+          this.maxResults = 1;
+          this.includesEntities = true;
+          this.self = true;
+          break;
+        default:
+          throw Failure.MALFORMED;
+      }
+      this.pos++;
+      if (canRead() && this.input.charAt(this.pos) == '[') {
+        this.pos++;
+        options();
+      }
+    }
+
+    // Matches EntitySelectorParser.parseOptions
+    private void options() {
+      skipWhitespace();
+      while (canRead() && this.input.charAt(this.pos) != ']') {
+        if (++this.options > EntitySelectorValidator.this.maxOptions) {
+          throw Failure.TOO_MANY_OPTIONS;
+        }
+        skipWhitespace();
+        final int keyStart = this.pos;
+        string();
+        final int option = option(keyStart, this.pos);
+        skipWhitespace();
+        expect('=');
+        skipWhitespace();
+        optionValue(option);
+        skipWhitespace();
+        if (canRead() && this.input.charAt(this.pos) == ',') {
+          this.pos++;
+          continue;
+        }
+        if (peek() != ']') {
+          throw Failure.MALFORMED;
+        }
+        break;
+      }
+      expect(']');
+    }
+
+    private int option(final int start, final int end) {
+      int keyStart = start;
+      int keyEnd = end;
+      if (end > start && StringReader.isQuotedStringStart(this.input.charAt(start))) {
+        keyStart++;
+        keyEnd--;
+      }
+      final int index = indexOf(OPTIONS, keyStart, keyEnd);
+      if (index < 0) {
+        throw Failure.MALFORMED;
+      }
+      return index;
+    }
+
+    private int indexOf(final String[] values, final int start, final int end) {
+      final int length = end - start;
+      for (int i = 0; i < values.length; i++) {
+        final String value = values[i];
+        if (value.length() == length && this.input.regionMatches(start, value, 0, length)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void optionValue(final int option) {
+      switch (OPTIONS[option]) {
+        case "name":
+          negatable(option);
+          string();
+          break;
+        case "distance":
+          once(option);
+          nonNegativeRange(true);
+          break;
+        case "x_rotation":
+        case "y_rotation":
+          once(option);
+          range(true);
+          break;
+        case "level":
+          once(option);
+          nonNegativeRange(false);
+          this.includesEntities = false;
+          break;
+        case "x":
+        case "y":
+        case "z":
+        case "dx":
+        case "dy":
+        case "dz":
+          once(option);
+          number(true);
+          break;
+        case "limit":
+          limit();
+          break;
+        case "sort":
+          if (this.self) {
+            throw Failure.MALFORMED;
+          }
+          once(option);
+          keyword(SORTS);
+          break;
+        case "gamemode":
+          negatable(option);
+          keyword(GAME_MODES);
+          this.includesEntities = false;
+          break;
+        case "team":
+          negatable(option);
+          unquotedString();
+          break;
+        case "tag":
+          inverted();
+          unquotedString();
+          break;
+        case "type":
+          type();
+          break;
+        case "nbt":
+          inverted();
+          compound();
+          break;
+        case "scores":
+          scores();
+          break;
+        case "advancements":
+          advancements();
+          this.includesEntities = false;
+          break;
+        case "predicate":
+          inverted();
+          resourceLocation();
+          break;
+        default:
+          throw new AssertionError();
+      }
+    }
+
+    // Rejects an option that vanilla only applies once
+    private void once(final int option) {
+      if ((this.given & 1 << option) != 0) {
+        throw Failure.MALFORMED; // inapplicable option
+      }
+      this.given |= 1 << option;
+    }
+
+    // Reads the inversion of an option that can be repeated only if inverted,
+    // such as name, gamemode and team
+    private void negatable(final int option) {
+      final int bit = 1 << option;
+      if ((this.given & bit) != 0) {
+        throw Failure.MALFORMED; // inapplicable option
+      }
+      if (inverted()) {
+        this.givenInverted |= bit;
+      } else if ((this.givenInverted & bit) != 0) {
+        throw Failure.MALFORMED; // inapplicable option
+      } else {
+        this.given |= bit;
+      }
+    }
+
+    // Matches EntitySelectorParser.shouldInvertValue
+    private boolean inverted() {
+      skipWhitespace();
+      if (canRead() && this.input.charAt(this.pos) == '!') {
+        this.pos++;
+        skipWhitespace();
+        return true;
+      }
+      return false;
+    }
+
+    private void limit() {
+      if (this.self || this.limited) {
+        throw Failure.MALFORMED; // inapplicable option
+      }
+      final int start = this.pos;
+      number(false);
+      if (this.input.charAt(start) == '-') {
+        throw Failure.MALFORMED; // limit must be at least 1
+      }
+      int first = start;
+      while (first < this.pos && this.input.charAt(first) == '0') {
+        first++;
+      }
+      if (first == this.pos) {
+        throw Failure.MALFORMED; // limit must be at least 1
+      }
+      this.limited = true;
+      this.maxResults = first == this.pos - 1 && this.input.charAt(first) == '1'
+          ? 1 : Integer.MAX_VALUE;
+    }
+
+    private void type() {
+      if (this.typeLimited) {
+        throw Failure.MALFORMED; // inapplicable option
+      }
+      final boolean inverted = inverted();
+      if (this.typeLimitedInversely && !inverted) {
+        throw Failure.MALFORMED; // inapplicable option
+      }
+      if (inverted) {
+        this.typeLimitedInversely = true;
+      }
+      if (canRead() && this.input.charAt(this.pos) == '#') {
+        // A tag doesn't limit the type, so other type options still apply
+        this.pos++;
+        skipWhitespace();
+        resourceLocation();
+      } else {
+        final int start = this.pos;
+        resourceLocation();
+        final int length = this.pos - start;
+        if (!inverted) {
+          this.typeLimited = true;
+          if (length == 6 && this.input.regionMatches(start, "player", 0, 6)
+              || length == 16 && this.input.regionMatches(start, "minecraft:player", 0, 16)) {
+            this.includesEntities = false;
+          }
+        }
+      }
+    }
+
+    private void range(final boolean decimals) {
+      final int end = PrimitiveParser.scanRange(this.input, this.pos, decimals, null);
+      if (end < 0) {
+        throw Failure.MALFORMED;
+      }
+      this.pos = end;
+    }
+
+    // Matches the distance and level options, whose bounds can't be negative
+    private void nonNegativeRange(final boolean decimals) {
+      if (this.bounds == null) {
+        this.bounds = new PrimitiveValue();
+      }
+      final int end = PrimitiveParser.scanRange(this.input, this.pos, decimals, this.bounds);
+      if (end < 0 || this.bounds.hasMin() && this.bounds.min() < 0
+          || this.bounds.hasMax() && this.bounds.max() < 0) {
+        throw Failure.MALFORMED;
+      }
+      this.pos = end;
+    }
+
+    private boolean isNumber(final int start, final int end, final boolean decimals) {
+      return decimals
+          ? NumberScanner.isDouble(this.input, start, end)
+          : NumberScanner.isInt(this.input, start, end);
+    }
+
+    private void number(final boolean decimals) {
+      final int start = this.pos;
+      final int end = NumberScanner.scanNumber(this.input, start);
+      if (!isNumber(start, end, decimals)) {
+        throw Failure.MALFORMED;
+      }
+      this.pos = end;
+    }
+
+    private void keyword(final String[] values) {
+      final int start = this.pos;
+      unquotedString();
+      if (indexOf(values, start, this.pos) < 0) {
+        throw Failure.MALFORMED;
+      }
+    }
+
+    private void compound() {
+      final int end = SnbtValidator.DEFAULT.scanCompound(this.input, this.pos);
+      if (end < 0) {
+        throw Failure.MALFORMED;
+      }
+      this.pos = end;
+    }
+
+    // Matches the scores option: {objective=range,...}
+    private void scores() {
+      expect('{');
+      skipWhitespace();
+      while (canRead() && this.input.charAt(this.pos) != '}') {
+        skipWhitespace();
+        unquotedString();
+        skipWhitespace();
+        expect('=');
+        skipWhitespace();
+        range(false);
+        skipWhitespace();
+        if (canRead() && this.input.charAt(this.pos) == ',') {
+          this.pos++;
+        }
+      }
+      expect('}');
+    }
+
+    // Matches the advancements option: {advancement=bool|{criterion=bool,...},...}
+    private void advancements() {
+      expect('{');
+      skipWhitespace();
+      while (canRead() && this.input.charAt(this.pos) != '}') {
+        skipWhitespace();
+        resourceLocation();
+        skipWhitespace();
+        expect('=');
+        skipWhitespace();
+        if (canRead() && this.input.charAt(this.pos) == '{') {
+          this.pos++;
+          skipWhitespace();
+          while (canRead() && this.input.charAt(this.pos) != '}') {
+            skipWhitespace();
+            unquotedString();
+            skipWhitespace();
+            expect('=');
+            skipWhitespace();
+            bool();
+            skipWhitespace();
+            if (canRead() && this.input.charAt(this.pos) == ',') {
+              this.pos++;
+            }
+          }
+          expect('}');
+        } else {
+          bool();
+        }
+        skipWhitespace();
+        if (canRead() && this.input.charAt(this.pos) == ',') {
+          this.pos++;
+        }
+      }
+      expect('}');
+    }
+
+    private void bool() {
+      final int start = this.pos;
+      string();
+      final int length = this.pos - start;
+      if (!(length == 4 && this.input.regionMatches(start, "true", 0, 4))
+          && !(length == 5 && this.input.regionMatches(start, "false", 0, 5))) {
+        throw Failure.MALFORMED;
+      }
+    }
+
+    // Matches ResourceLocation.read, which requires at most one namespace separator
+    private void resourceLocation() {
+      final int start = this.pos;
+      boolean separator = false;
+      while (canRead() && isAllowedInResourceLocation(this.input.charAt(this.pos))) {
+        if (this.input.charAt(this.pos) == ':') {
+          if (separator) {
+            throw Failure.MALFORMED;
+          }
+          separator = true;
+        }
+        this.pos++;
+      }
+      if (this.pos == start) {
+        throw Failure.MALFORMED;
+      }
+    }
+
+    private void unquotedString() {
+      while (canRead() && StringReader.isAllowedInUnquotedString(this.input.charAt(this.pos))) {
+        this.pos++;
+      }
+    }
+
+    /**
+     * Scans a quoted or unquoted string, like {@link StringReader#readString()}.
+     *
+     * @return the number of characters in the read string.
+     */
+    private int string() {
+      if (!canRead()) {
+        return 0;
+      }
+      final char quote = this.input.charAt(this.pos);
+      if (!StringReader.isQuotedStringStart(quote)) {
+        final int start = this.pos;
+        unquotedString();
+        return this.pos - start;
+      }
+      this.pos++;
+      int length = 0;
+      while (true) {
+        final char c = peek();
+        this.pos++;
+        if (c == quote) {
+          return length;
+        } else if (c == '\\') {
+          final char escaped = peek();
+          if (escaped != quote && escaped != '\\') {
+            throw Failure.MALFORMED;
+          }
+          this.pos++;
+        }
+        length++;
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+
+/**
+ * Begins and commits the Flight Recorder events of this library.
+ *
+ * <p>This class refers to the {@code jdk.jfr} module, so it must only be used
+ * through {@link FlightRecorderSupport}, once the module is known to be present.
+ */
+final class FlightRecorderEvents {
+
+  /**
+   * Returns the type of the given event class.
+   *
+   * @param eventClass the event class.
+   * @return the event type, or {@code null} if Flight Recorder is disabled in the JVM.
+   */
+  static EventType eventType(final Class<? extends Event> eventClass) {
+    try {
+      return EventType.getEventType(eventClass);
+    } catch (final InternalError | LinkageError e) {
+      return null;
+    }
+  }
+
+  static Object beginArgumentType() {
+    return ArgumentTypeEvent.beginIfEnabled();
+  }
+
+  static void commitArgumentType(final Object event, final ArgumentParser parser,
+                                 final int propertiesLength, final boolean cached) {
+    final ArgumentTypeEvent argumentType = (ArgumentTypeEvent) event;
+    argumentType.parser = parser.key().asString();
+    argumentType.propertiesLength = propertiesLength;
+    argumentType.cached = cached;
+    argumentType.commit();
+  }
+
+  static Object beginPropertyEncode() {
+    return PropertyEncodeEvent.beginIfEnabled();
+  }
+
+  static void commitPropertyEncode(final Object event, final String kind, final int length) {
+    final PropertyEncodeEvent propertyEncode = (PropertyEncodeEvent) event;
+    propertyEncode.kind = kind;
+    propertyEncode.length = length;
+    propertyEncode.commit();
+  }
+
+  private FlightRecorderEvents() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,78 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+/**
+ * Emits the Flight Recorder events of this library, if the JVM provides the
+ * {@code jdk.jfr} module.
+ *
+ * <p>This class doesn't refer to any Flight Recorder type, and events are
+ * passed around as plain objects: the event classes are only loaded through
+ * {@link FlightRecorderEvents} once the module is known to be present, so the
+ * library works on runtimes without it. Events check whether their type is
+ * enabled before being allocated, which costs a field read when Flight
+ * Recorder isn't recording them.
+ */
+final class FlightRecorderSupport {
+
+  private static final boolean AVAILABLE = detect();
+
+  private static boolean detect() {
+    try {
+      Class.forName("jdk.jfr.Event", false, FlightRecorderSupport.class.getClassLoader());
+      return true;
+    } catch (final ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Begins a new argument type event if Flight Recorder is available and the
+   * event type is enabled.
+   *
+   * @return the event, or {@code null} if the event isn't recorded.
+   */
+  static Object beginArgumentType() {
+    return AVAILABLE ? FlightRecorderEvents.beginArgumentType() : null;
+  }
+
+  /**
+   * Commits the given argument type event, if not {@code null}.
+   *
+   * @param event the event returned by {@link #beginArgumentType()}.
+   * @param parser the parser of the type.
+   * @param propertiesLength the length of the encoded properties.
+   * @param cached whether the type was found in the cache.
+   */
+  static void commitArgumentType(final Object event, final ArgumentParser parser,
+                                 final int propertiesLength, final boolean cached) {
+    if (event != null) {
+      FlightRecorderEvents.commitArgumentType(event, parser, propertiesLength, cached);
+    }
+  }
+
+  /**
+   * Begins a new property encode event if Flight Recorder is available and the
+   * event type is enabled.
+   *
+   * @return the event, or {@code null} if the event isn't recorded.
+   */
+  static Object beginPropertyEncode() {
+    return AVAILABLE ? FlightRecorderEvents.beginPropertyEncode() : null;
+  }
+
+  /**
+   * Commits the given property encode event, if not {@code null}.
+   *
+   * @param event the event returned by {@link #beginPropertyEncode()}.
+   * @param kind the encoded data type.
+   * @param length the number of encoded bytes.
+   */
+  static void commitPropertyEncode(final Object event, final String kind, final int length) {
+    if (event != null) {
+      FlightRecorderEvents.commitPropertyEncode(event, kind, length);
+    }
+  }
+
+  private FlightRecorderSupport() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,241 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.StringReader;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.api.proxy.Player;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Completes the input of the parsers with a closed vocabulary on the proxy,
+ * without asking the backend server for suggestions.
+ *
+ * <p>Local suggestions are opt-in, and only apply to argument nodes that the
+ * proxy parses itself, as described in the
+ * {@linkplain me.hugmanrique.opaqueargumenttypes package documentation}.
+ * Instead of an opaque type, the argument is declared with a Brigadier type,
+ * such as the single word nodes built by {@link #argument(String, ArgumentParser)},
+ * and its suggestion provider is set to a {@link #provider(ArgumentParser) local
+ * provider}. This replaces the backend round trip by a lookup in a sorted array
+ * of the vocabulary of the parser.
+ *
+ * <p>The vocabulary of a parser is only suggested to clients whose
+ * {@link ProtocolVersion protocol version} {@link ParserAvailability#isSupported(ArgumentParser,
+ * ProtocolVersion) supports} the parser.
+ */
+public final class LocalSuggestions {
+
+  private static final String[] COLORS = {
+    "black", "dark_blue", "dark_green", "dark_aqua", "dark_red", "dark_purple", "gold", "gray",
+    "dark_gray", "blue", "green", "aqua", "red", "light_purple", "yellow", "white"
+  };
+
+  // Vocabularies indexed by parser ordinal, null if the parser has an open vocabulary
+  private static final Vocabulary[] VOCABULARIES = new Vocabulary[ArgumentParser.count()];
+  // Vocabularies indexed by protocol version ordinal and parser ordinal,
+  // null if the parser is unsupported by the version
+  private static final Vocabulary[][] BY_VERSION;
+
+  static {
+    vocabulary(ArgumentParser.GAME_MODE, "survival", "creative", "adventure", "spectator");
+    final String[] colors = Arrays.copyOf(COLORS, COLORS.length + 1);
+    colors[COLORS.length] = "reset";
+    vocabulary(ArgumentParser.COLOR, colors);
+    vocabulary(ArgumentParser.ENTITY_ANCHOR, "eyes", "feet");
+    vocabulary(ArgumentParser.TEMPLATE_MIRROR, "none", "front_back", "left_right");
+    vocabulary(ArgumentParser.TEMPLATE_ROTATION,
+        "none", "clockwise_90", "180", "counterclockwise_90");
+    final String[] slots = new String[3 + COLORS.length];
+    slots[0] = "list";
+    slots[1] = "sidebar";
+    slots[2] = "belowName";
+    for (int i = 0; i < COLORS.length; i++) {
+      slots[3 + i] = "sidebar.team." + COLORS[i];
+    }
+    vocabulary(ArgumentParser.SCOREBOARD_SLOT, slots);
+    vocabulary(ArgumentParser.SWIZZLE, "x", "y", "z", "xy", "xz", "yx", "yz", "zx", "zy",
+        "xyz", "xzy", "yxz", "yzx", "zxy", "zyx");
+    vocabulary(ArgumentParser.OPERATION, "=", "+=", "-=", "*=", "/=", "%=", "<", ">", "><");
+
+    final ProtocolVersion[] versions = ProtocolVersion.values();
+    BY_VERSION = new Vocabulary[versions.length][];
+    for (final ProtocolVersion version : versions) {
+      final Vocabulary[] vocabularies = new Vocabulary[VOCABULARIES.length];
+      for (int i = 0; i < vocabularies.length; i++) {
+        if (ParserAvailability.isSupported(ArgumentParser.byOrdinal(i), version)) {
+          vocabularies[i] = VOCABULARIES[i];
+        }
+      }
+      BY_VERSION[version.ordinal()] = vocabularies;
+    }
+  }
+
+  private static void vocabulary(final ArgumentParser parser, final String... words) {
+    VOCABULARIES[parser.ordinal()] = new Vocabulary(words);
+  }
+
+  /**
+   * Returns whether the given parser has a vocabulary that can be suggested locally.
+   *
+   * @param parser the argument parser.
+   * @return {@code true} if the parser can be completed locally.
+   */
+  public static boolean supports(final ArgumentParser parser) {
+    return VOCABULARIES[parser.ordinal()] != null;
+  }
+
+  /**
+   * Returns the vocabulary of the given parser known by the client with
+   * the given protocol version.
+   *
+   * @param parser the argument parser.
+   * @param version the protocol version.
+   * @return an unmodifiable sorted list of the words, or an empty list if the
+   *     parser has an open vocabulary or the version doesn't support it.
+   */
+  public static List<String> vocabulary(final ArgumentParser parser,
+                                        final ProtocolVersion version) {
+    final Vocabulary vocabulary = BY_VERSION[version.ordinal()][parser.ordinal()];
+    return vocabulary != null
+        ? Collections.unmodifiableList(Arrays.asList(vocabulary.words))
+        : Collections.emptyList();
+  }
+
+  /**
+   * Suggests the words of the vocabulary of the given parser that start
+   * with the remaining input of the given builder, ignoring case.
+   *
+   * @param parser the argument parser.
+   * @param version the protocol version of the client.
+   * @param builder the suggestions builder.
+   * @return the suggestions.
+   */
+  public static CompletableFuture<Suggestions> suggest(final ArgumentParser parser,
+                                                       final ProtocolVersion version,
+                                                       final SuggestionsBuilder builder) {
+    final Vocabulary vocabulary = BY_VERSION[version.ordinal()][parser.ordinal()];
+    if (vocabulary != null) {
+      vocabulary.suggest(builder);
+    }
+    return builder.buildFuture();
+  }
+
+  /**
+   * Returns a builder of an argument node that reads a single word, and completes
+   * the vocabulary of the given parser on the proxy for the protocol version of
+   * the player executing the command.
+   *
+   * <p>Unlike an opaque argument type, the word isn't validated by the client,
+   * so the command should check that it belongs to the vocabulary.
+   *
+   * @param name the name of the argument.
+   * @param parser the argument parser.
+   * @return the argument builder.
+   * @throws IllegalArgumentException if the parser has an open vocabulary, or a
+   *     word of its vocabulary isn't a valid unquoted string, e.g. the
+   *     operations of {@link ArgumentParser#OPERATION}.
+   * @see #provider(ArgumentParser)
+   */
+  public static RequiredArgumentBuilder<CommandSource, String> argument(
+      final String name, final ArgumentParser parser) {
+    final SuggestionProvider<CommandSource> provider = provider(parser);
+    for (final String word : VOCABULARIES[parser.ordinal()].words) {
+      for (int i = 0; i < word.length(); i++) {
+        if (!StringReader.isAllowedInUnquotedString(word.charAt(i))) {
+          throw new IllegalArgumentException("The vocabulary of parser "
+              + parser.key().asString() + " contains the non-word " + word);
+        }
+      }
+    }
+    return RequiredArgumentBuilder.<CommandSource, String>argument(name,
+        StringArgumentType.word()).suggests(provider);
+  }
+
+  /**
+   * Returns a suggestion provider that completes the vocabulary of the given parser
+   * for the protocol version of the player executing the command. Other command
+   * sources are given the suggestions for the latest protocol version.
+   *
+   * @param parser the argument parser.
+   * @return the suggestion provider.
+   * @throws IllegalArgumentException if the parser has an open vocabulary.
+   */
+  public static SuggestionProvider<CommandSource> provider(final ArgumentParser parser) {
+    return provider(parser, source -> source instanceof Player
+        ? ((Player) source).getProtocolVersion()
+        : ProtocolVersion.MAXIMUM_VERSION);
+  }
+
+  /**
+   * Returns a suggestion provider that completes the vocabulary of the given parser.
+   *
+   * @param parser the argument parser.
+   * @param versionFunction returns the protocol version of the client of a command source.
+   * @param <S> the type of the command source.
+   * @return the suggestion provider.
+   * @throws IllegalArgumentException if the parser has an open vocabulary.
+   */
+  public static <S> SuggestionProvider<S> provider(
+      final ArgumentParser parser, final Function<S, ProtocolVersion> versionFunction) {
+    if (!supports(parser)) {
+      throw new IllegalArgumentException("Parser " + parser.key().asString()
+          + " has an open vocabulary");
+    }
+    return (context, builder) -> suggest(parser, versionFunction.apply(context.getSource()),
+        builder);
+  }
+
+  private static final class Vocabulary {
+
+    // Lowercase keys in ascending order, and the word with each key
+    private final String[] keys;
+    private final String[] words;
+
+    Vocabulary(final String[] words) {
+      final String[] sorted = words.clone();
+      Arrays.sort(sorted, Comparator.comparing(Vocabulary::key));
+      this.words = sorted;
+      this.keys = new String[sorted.length];
+      for (int i = 0; i < sorted.length; i++) {
+        this.keys[i] = key(sorted[i]);
+      }
+    }
+
+    private static String key(final String word) {
+      return word.toLowerCase(Locale.ROOT);
+    }
+
+    void suggest(final SuggestionsBuilder builder) {
+      final String prefix = builder.getRemainingLowerCase();
+      // Words with the prefix are contiguous, starting at the first key not below it
+      int low = 0;
+      int high = this.keys.length;
+      while (low < high) {
+        final int mid = (low + high) >>> 1;
+        if (this.keys[mid].compareTo(prefix) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      for (int i = low; i < this.keys.length && this.keys[i].startsWith(prefix); i++) {
+        builder.suggest(this.words[i]);
+      }
+    }
+  }
+
+  private LocalSuggestions() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,197 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Builds the Brigadier nodes of a command tree stored as a node table, in which
+ * nodes reference their children and redirect target by index, as in the
+ * Declare Commands packet.
+ *
+ * @param <S> the type of the command source.
+ */
+final class NodeTable<S> {
+
+  static final int TYPE_MASK = 0x3;
+  static final int TYPE_ROOT = 0x0;
+  static final int TYPE_LITERAL = 0x1;
+  static final int TYPE_ARGUMENT = 0x2;
+  static final int FLAG_EXECUTABLE = 0x4;
+  static final int FLAG_REDIRECT = 0x8;
+  static final int FLAG_SUGGESTIONS = 0x10;
+
+  private static final Predicate<Object> ALWAYS = source -> true;
+
+  private final int[] flags;
+  private final int[][] children;
+  private final int[] redirects;
+  private final String[] names;
+  private final ArgumentType<?>[] types;
+  private final CommandNode<S>[] nodes;
+  private final boolean[] building;
+
+  @SuppressWarnings("unchecked")
+  NodeTable(final int count) {
+    this.flags = new int[count];
+    this.children = new int[count][];
+    this.redirects = new int[count];
+    this.names = new String[count];
+    this.types = new ArgumentType<?>[count];
+    this.nodes = (CommandNode<S>[]) new CommandNode<?>[count];
+    this.building = new boolean[count];
+  }
+
+  int size() {
+    return this.flags.length;
+  }
+
+  // The redirect is -1 if the node isn't redirected, and the name and type are null if absent
+  void set(final int index, final int flags, final int[] children, final int redirect,
+           final String name, final ArgumentType<?> type) {
+    if ((flags & TYPE_MASK) == TYPE_MASK) {
+      throw new IllegalArgumentException("Node " + index + " has an unknown type");
+    }
+    this.flags[index] = flags;
+    this.children[index] = children;
+    this.redirects[index] = redirect;
+    this.names[index] = name;
+    this.types[index] = type;
+  }
+
+  /**
+   * Builds the nodes of the table.
+   *
+   * @param rootIndex the index of the root node, the only node of the root type.
+   * @param command the command of the executable nodes.
+   * @param suggestions the suggestion provider of the argument nodes whose
+   *     suggestions are requested from the server, or {@code null}.
+   * @param requirements the function returning the requirement of a node given
+   *     its {@linkplain #paths(int) path}, or {@code null} if every node is usable.
+   * @return the root node.
+   * @throws IllegalArgumentException if the table has multiple root nodes,
+   *     a node has the root node as a child, or the redirects form a cycle.
+   */
+  @SuppressWarnings("unchecked")
+  RootCommandNode<S> build(final int rootIndex, final Command<S> command,
+                           final SuggestionProvider<S> suggestions,
+                           final Function<List<String>, Predicate<S>> requirements) {
+    for (int i = 0; i < size(); i++) {
+      if (((this.flags[i] & TYPE_MASK) == TYPE_ROOT) != (i == rootIndex)) {
+        throw new IllegalArgumentException("Node " + i + " has an invalid type");
+      }
+    }
+    final Predicate<S>[] nodeRequirements = (Predicate<S>[]) new Predicate<?>[size()];
+    if (requirements != null) {
+      final List<String>[] paths = paths(rootIndex);
+      for (int i = 0; i < size(); i++) {
+        if (i != rootIndex) {
+          nodeRequirements[i] = Objects.requireNonNull(requirements.apply(paths[i]),
+              "requirement");
+        }
+      }
+    }
+    this.nodes[rootIndex] = new RootCommandNode<>();
+    for (int i = 0; i < size(); i++) {
+      buildNode(i, command, suggestions, nodeRequirements);
+    }
+    // Add the children once every node is built, since redirects may target ancestors
+    for (int i = 0; i < size(); i++) {
+      for (final int child : this.children[i]) {
+        if (child == rootIndex) {
+          throw new IllegalArgumentException("Node " + i + " has the root node as a child");
+        }
+        this.nodes[i].addChild(this.nodes[child]);
+      }
+    }
+    return (RootCommandNode<S>) this.nodes[rootIndex];
+  }
+
+  /**
+   * Returns the path of each node, i.e. the names of the nodes from a child of
+   * the root node to the node, following the first parent reached from the root
+   * in breadth-first order. Nodes that aren't the child of any reachable node,
+   * e.g. those only targeted by redirects, have their own name as path.
+   *
+   * @param rootIndex the index of the root node.
+   * @return the unmodifiable paths, indexed by node.
+   */
+  @SuppressWarnings("unchecked")
+  private List<String>[] paths(final int rootIndex) {
+    final List<String>[] paths = (List<String>[]) new List<?>[size()];
+    paths[rootIndex] = List.of();
+    final int[] queue = new int[size()];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = rootIndex;
+    while (head < tail) {
+      final int parent = queue[head++];
+      for (final int child : this.children[parent]) {
+        if (paths[child] == null) {
+          final List<String> path = new ArrayList<>(paths[parent].size() + 1);
+          path.addAll(paths[parent]);
+          path.add(this.names[child]);
+          paths[child] = List.copyOf(path);
+          queue[tail++] = child;
+        }
+      }
+    }
+    for (int i = 0; i < size(); i++) {
+      if (paths[i] == null) {
+        paths[i] = List.of(this.names[i]);
+      }
+    }
+    return paths;
+  }
+
+  private CommandNode<S> buildNode(final int index, final Command<S> command,
+                                   final SuggestionProvider<S> suggestions,
+                                   final Predicate<S>[] requirements) {
+    if (this.nodes[index] != null) {
+      return this.nodes[index];
+    } else if (this.building[index]) {
+      throw new IllegalArgumentException("Node " + index + " is part of a redirect cycle");
+    }
+    this.building[index] = true;
+    final int nodeFlags = this.flags[index];
+    final CommandNode<S> redirect = this.redirects[index] != -1
+        ? buildNode(this.redirects[index], command, suggestions, requirements)
+        : null;
+    final Command<S> nodeCommand = (nodeFlags & FLAG_EXECUTABLE) != 0 ? command : null;
+    final Predicate<S> requirement = requirements[index] != null
+        ? requirements[index]
+        : always();
+    final CommandNode<S> node;
+    if ((nodeFlags & TYPE_MASK) == TYPE_LITERAL) {
+      node = new LiteralCommandNode<>(this.names[index], nodeCommand, requirement, redirect,
+          null, false);
+    } else {
+      node = argumentNode(this.names[index], this.types[index], nodeCommand, requirement,
+          redirect, (nodeFlags & FLAG_SUGGESTIONS) != 0 ? suggestions : null);
+    }
+    this.nodes[index] = node;
+    return node;
+  }
+
+  private static <S, T> ArgumentCommandNode<S, T> argumentNode(
+      final String name, final ArgumentType<T> type, final Command<S> command,
+      final Predicate<S> requirement, final CommandNode<S> redirect,
+      final SuggestionProvider<S> suggestions) {
+    return new ArgumentCommandNode<>(name, type, command, requirement, redirect,
+        null, false, suggestions);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <S> Predicate<S> always() {
+    return (Predicate<S>) ALWAYS;
+  }
+}
@@ -0,0 +1,217 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+/**
+ * Scans the numbers accepted by Brigadier's {@code StringReader} without
+ * allocating substrings.
+ *
+ * <p>Brigadier reads a number by consuming every character that
+ * {@code StringReader.isAllowedNumber} accepts ({@code 0-9}, {@code .} and {@code -}),
+ * and then parsing them with {@link Integer#parseInt(String)} or
+ * {@link Double#parseDouble(String)}. The {@code scan*} methods find the end of
+ * these characters, and the {@code is*} methods check whether the parse would succeed.
+ */
+final class NumberScanner {
+
+  static boolean isAllowedNumber(final char c) {
+    return (c >= '0' && c <= '9') || c == '.' || c == '-';
+  }
+
+  /**
+   * Returns the index following the number characters starting at the given index.
+   *
+   * @param input the input string.
+   * @param start the index of the first character.
+   * @return the end index (exclusive), equal to {@code start} if there are no number characters.
+   */
+  static int scanNumber(final CharSequence input, final int start) {
+    int end = start;
+    while (end < input.length() && isAllowedNumber(input.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * Returns whether {@link Integer#parseInt(String)} accepts the given range of characters.
+   *
+   * @param input the input string.
+   * @param start the start index (inclusive).
+   * @param end the end index (exclusive).
+   * @return {@code true} if the characters form a valid 32-bit integer.
+   */
+  static boolean isInt(final CharSequence input, final int start, final int end) {
+    int i = start;
+    final boolean negative = i < end && input.charAt(i) == '-';
+    if (negative) {
+      i++;
+    }
+    if (i == end) {
+      return false;
+    }
+    // Accumulate negatively, since the magnitude of MIN_VALUE exceeds MAX_VALUE
+    final long limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+    long value = 0;
+    for (; i < end; i++) {
+      final char c = input.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+      value = value * 10 - (c - '0');
+      if (value < limit) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether {@link Double#parseDouble(String)} accepts the given range of
+   * characters, which must only contain {@linkplain #isAllowedNumber(char) number characters}.
+   *
+   * @param input the input string.
+   * @param start the start index (inclusive).
+   * @param end the end index (exclusive).
+   * @return {@code true} if the characters form a valid decimal number.
+   */
+  static boolean isDouble(final CharSequence input, final int start, final int end) {
+    int i = start;
+    if (i < end && input.charAt(i) == '-') {
+      i++;
+    }
+    boolean digits = false;
+    boolean point = false;
+    for (; i < end; i++) {
+      final char c = input.charAt(i);
+      if (c == '.') {
+        if (point) {
+          return false;
+        }
+        point = true;
+      } else if (c >= '0' && c <= '9') {
+        digits = true;
+      } else {
+        return false;
+      }
+    }
+    return digits;
+  }
+
+  /**
+   * Parses the given range of characters, which must form a
+   * {@linkplain #isInt(CharSequence, int, int) valid integer}.
+   *
+   * @param input the input string.
+   * @param start the start index (inclusive).
+   * @param end the end index (exclusive).
+   * @return the integer value.
+   */
+  static int parseInt(final CharSequence input, final int start, final int end) {
+    int i = start;
+    final boolean negative = input.charAt(i) == '-';
+    if (negative) {
+      i++;
+    }
+    int value = 0;
+    for (; i < end; i++) {
+      value = value * 10 - (input.charAt(i) - '0');
+    }
+    return negative ? value : -value;
+  }
+
+  // Powers of ten that are exactly representable
+  private static final double[] DOUBLE_POWERS = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  private static final float[] FLOAT_POWERS = {
+      1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+  };
+
+  // The number of significant digits that are exactly representable
+  private static final int DOUBLE_DIGITS = 15;
+  private static final int FLOAT_DIGITS = 7;
+
+  /**
+   * Parses the given range of characters, which must form a
+   * {@linkplain #isDouble(CharSequence, int, int) valid decimal number},
+   * like {@link Double#parseDouble(String)}.
+   *
+   * @param input the input string.
+   * @param start the start index (inclusive).
+   * @param end the end index (exclusive).
+   * @return the decimal value.
+   */
+  static double parseDouble(final CharSequence input, final int start, final int end) {
+    final long decimal = scanDecimal(input, start, end, DOUBLE_DIGITS, DOUBLE_POWERS.length - 1);
+    if (decimal == INEXACT) {
+      return Double.parseDouble(input.subSequence(start, end).toString());
+    }
+    final double value = (decimal >>> 8) / DOUBLE_POWERS[(int) decimal & 0x7F];
+    return (decimal & NEGATIVE) != 0 ? -value : value;
+  }
+
+  /**
+   * Parses the given range of characters, which must form a
+   * {@linkplain #isDouble(CharSequence, int, int) valid decimal number},
+   * like {@link Float#parseFloat(String)}.
+   *
+   * @param input the input string.
+   * @param start the start index (inclusive).
+   * @param end the end index (exclusive).
+   * @return the decimal value.
+   */
+  static float parseFloat(final CharSequence input, final int start, final int end) {
+    final long decimal = scanDecimal(input, start, end, FLOAT_DIGITS, FLOAT_POWERS.length - 1);
+    if (decimal == INEXACT) {
+      return Float.parseFloat(input.subSequence(start, end).toString());
+    }
+    final float value = (decimal >>> 8) / FLOAT_POWERS[(int) decimal & 0x7F];
+    return (decimal & NEGATIVE) != 0 ? -value : value;
+  }
+
+  private static final long INEXACT = -1;
+  private static final long NEGATIVE = 0x80;
+
+  /**
+   * Packs the significand, the sign and the number of fractional digits of a decimal
+   * number, or returns {@link #INEXACT} if dividing the significand by a power of ten
+   * wouldn't be correctly rounded. Both operands of the division are then exact, so
+   * the quotient is the closest representable value to the decimal number.
+   */
+  private static long scanDecimal(final CharSequence input, final int start, final int end,
+                                  final int maxDigits, final int maxScale) {
+    int i = start;
+    final boolean negative = input.charAt(i) == '-';
+    if (negative) {
+      i++;
+    }
+    long significand = 0;
+    int digits = 0;
+    int scale = 0;
+    boolean point = false;
+    for (; i < end; i++) {
+      final char c = input.charAt(i);
+      if (c == '.') {
+        point = true;
+        continue;
+      }
+      if (point) {
+        scale++;
+      }
+      if (significand != 0 || c != '0') {
+        if (++digits > maxDigits) {
+          return INEXACT;
+        }
+        significand = significand * 10 + (c - '0');
+      }
+    }
+    if (scale > maxScale) {
+      return INEXACT;
+    }
+    return significand << 8 | (negative ? NEGATIVE : 0) | scale;
+  }
+
+  private NumberScanner() {
+    throw new AssertionError();
+  }
+}
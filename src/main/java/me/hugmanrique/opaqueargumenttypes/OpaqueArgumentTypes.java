@@ -1,6 +1,7 @@
 package me.hugmanrique.opaqueargumenttypes;
 
 import static me.hugmanrique.opaqueargumenttypes.ProtocolUtils.encodeBoolean;
+import static me.hugmanrique.opaqueargumenttypes.ProtocolUtils.encodeFlags;
 import static me.hugmanrique.opaqueargumenttypes.ProtocolUtils.encodeIdentifier;
 
 import com.velocitypowered.api.command.CommandManager;
@@ -16,6 +17,13 @@ import net.kyori.adventure.key.Key;
  * <a href="https://wiki.vg/Command_Data#Parsers">wiki.vg Command Data</a> page,
  * licensed under the <a href="https://creativecommons.org/licenses/by-sa/3.0/">CC BY-SA 3.0</a>
  * license.
+ *
+ * <p>The returned argument types are interned per {@link CommandManager}: calling
+ * a factory method twice with equal arguments returns the same instance. The
+ * interned types don't prevent the command manager from being garbage collected.
+ *
+ * @see ParserAvailability
+ * @see ArgumentTypeHandle
  */
 public final class OpaqueArgumentTypes {
 
@@ -30,14 +38,8 @@ public final class OpaqueArgumentTypes {
    */
   public static OpaqueArgumentType entity(final CommandManager manager,
                                           final boolean single, final boolean onlyPlayers) {
-    byte[] properties = encodeBoolean(single);
-    if (onlyPlayers) {
-      properties[0] |= 0x2;
-    }
-
-    return manager.opaqueArgumentTypeBuilder(Key.key("entity"))
-        .withProperties(properties)
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.ENTITY,
+        entityProperties(single, onlyPlayers));
   }
 
   /**
@@ -49,8 +51,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType gameProfile(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("game_profile"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.GAME_PROFILE);
   }
 
   /**
@@ -62,8 +63,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType blockPos(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("block_pos"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.BLOCK_POS);
   }
 
   /**
@@ -75,8 +75,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType columnPos(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("column_pos"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.COLUMN_POS);
   }
 
   /**
@@ -89,8 +88,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType vec3(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("vec3"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.VEC3);
   }
 
   /**
@@ -103,8 +101,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType vec2(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("vec2"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.VEC2);
   }
 
   /**
@@ -115,8 +112,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType blockState(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("block_state"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.BLOCK_STATE);
   }
 
   /**
@@ -127,8 +123,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType blockPredicate(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("block_predicate"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.BLOCK_PREDICATE);
   }
 
   /**
@@ -139,8 +134,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType itemStack(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("item_stack"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.ITEM_STACK);
   }
 
   /**
@@ -151,8 +145,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType itemPredicate(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("item_predicate"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.ITEM_PREDICATE);
   }
 
   /**
@@ -163,8 +156,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType color(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("color"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.COLOR);
   }
 
   /**
@@ -175,8 +167,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType component(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("component"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.COMPONENT);
   }
 
   /**
@@ -187,20 +178,20 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType message(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("message"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.MESSAGE);
   }
 
   /**
    * Returns an argument type for the {@code minecraft:nbt} parser.
    * Used to specify an NBT value, parsed using JSON-NBT rules.
    *
+   * <p>Removed in {@link ProtocolVersion#MINECRAFT_1_14}, see {@link #nbtCompoundTag(CommandManager)}.
+   *
    * @param manager the command manager.
    * @return the argument type.
    */
   public static OpaqueArgumentType nbt(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("nbt"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.NBT);
   }
 
   /**
@@ -211,8 +202,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType nbtTag(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("nbt_tag"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.NBT_TAG);
   }
 
   /**
@@ -224,8 +214,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType nbtPath(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("nbt_path"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.NBT_PATH);
   }
 
   /**
@@ -236,8 +225,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType objective(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("objective"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.OBJECTIVE);
   }
 
   /**
@@ -248,8 +236,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType objectiveCriteria(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("objective_criteria"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.OBJECTIVE_CRITERIA);
   }
 
   /**
@@ -260,8 +247,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType operation(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("operation"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.OPERATION);
   }
 
   /**
@@ -273,8 +259,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType particle(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("particle"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.PARTICLE);
   }
 
   /**
@@ -285,8 +270,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType angle(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("angle"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.ANGLE);
   }
 
   /**
@@ -298,8 +282,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType rotation(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("rotation"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.ROTATION);
   }
 
   /**
@@ -310,8 +293,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType scoreboardSlot(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("scoreboard_slot"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.SCOREBOARD_SLOT);
   }
 
   /**
@@ -324,9 +306,8 @@ public final class OpaqueArgumentTypes {
    */
   public static OpaqueArgumentType scoreHolder(final CommandManager manager,
                                                final boolean multiple) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("score_holder"))
-        .withProperties(encodeBoolean(multiple))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.SCORE_HOLDER,
+        encodeBoolean(multiple));
   }
 
   /**
@@ -337,8 +318,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType swizzle(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("swizzle"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.SWIZZLE);
   }
 
   /**
@@ -349,8 +329,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType team(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("team"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.TEAM);
   }
 
   /**
@@ -361,8 +340,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType itemSlot(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("item_slot"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.ITEM_SLOT);
   }
 
   /**
@@ -373,8 +351,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType resourceLocation(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("resource_location"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.RESOURCE_LOCATION);
   }
 
   /**
@@ -387,8 +364,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType mobEffect(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("mob_effect"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.MOB_EFFECT);
   }
 
   /**
@@ -399,8 +375,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType function(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("function"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.FUNCTION);
   }
 
   /**
@@ -412,8 +387,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType entityAnchor(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("entity_anchor"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.ENTITY_ANCHOR);
   }
 
   /**
@@ -429,9 +403,8 @@ public final class OpaqueArgumentTypes {
    */
   public static OpaqueArgumentType range(final CommandManager manager,
                                          final boolean decimals) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("range"))
-        .withProperties(encodeBoolean(decimals))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.RANGE,
+        encodeBoolean(decimals));
   }
 
   /**
@@ -443,8 +416,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType intRange(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("int_range"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.INT_RANGE);
   }
 
   /**
@@ -456,8 +428,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType floatRange(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("float_range"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.FLOAT_RANGE);
   }
 
   /**
@@ -470,8 +441,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType itemEnchantment(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("item_enchantment"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.ITEM_ENCHANTMENT);
   }
 
   /**
@@ -484,8 +454,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType entitySummon(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("entity_summon"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.ENTITY_SUMMON);
   }
 
   /**
@@ -496,8 +465,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType dimension(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("dimension"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.DIMENSION);
   }
 
   /**
@@ -508,22 +476,20 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType gameMode(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("gamemode"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.GAME_MODE);
   }
 
   /**
    * Returns an argument type for the {@code minecraft:nbt_compound_tag} parser.
    * Used to specify a full NBT tag.
    *
-   * <p>Removed in {@link ProtocolVersion#MINECRAFT_1_19}.
+   * <p>Added in {@link ProtocolVersion#MINECRAFT_1_14}.
    *
    * @param manager the command manager.
    * @return the argument type.
    */
   public static OpaqueArgumentType nbtCompoundTag(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("nbt_compound_tag"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.NBT_COMPOUND_TAG);
   }
 
   /**
@@ -534,8 +500,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType time(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("time"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.TIME);
   }
 
   /**
@@ -548,9 +513,8 @@ public final class OpaqueArgumentTypes {
    */
   public static OpaqueArgumentType resourceOrTag(final CommandManager manager,
                                                  final Key registry) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("resource_or_tag"))
-        .withProperties(encodeIdentifier(registry))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.RESOURCE_OR_TAG,
+        encodeIdentifier(registry));
   }
 
   /**
@@ -563,9 +527,8 @@ public final class OpaqueArgumentTypes {
    */
   public static OpaqueArgumentType resourceOrTagKey(final CommandManager manager,
                                                     final Key registry) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("resource_or_tag_key"))
-        .withProperties(encodeIdentifier(registry))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.RESOURCE_OR_TAG_KEY,
+        encodeIdentifier(registry));
   }
 
   /**
@@ -578,9 +541,8 @@ public final class OpaqueArgumentTypes {
    */
   public static OpaqueArgumentType resource(final CommandManager manager,
                                             final Key registry) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("resource"))
-        .withProperties(encodeIdentifier(registry))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.RESOURCE,
+        encodeIdentifier(registry));
   }
 
   /**
@@ -593,9 +555,8 @@ public final class OpaqueArgumentTypes {
    */
   public static OpaqueArgumentType resourceKey(final CommandManager manager,
                                                final Key registry) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("resource_key"))
-        .withProperties(encodeIdentifier(registry))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.RESOURCE_KEY,
+        encodeIdentifier(registry));
   }
 
   /**
@@ -606,8 +567,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType templateMirror(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("template_mirror"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.TEMPLATE_MIRROR);
   }
 
   /**
@@ -618,8 +578,7 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType templateRotation(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("template_rotation"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.TEMPLATE_ROTATION);
   }
 
   /**
@@ -630,8 +589,31 @@ public final class OpaqueArgumentTypes {
    * @return the argument type.
    */
   public static OpaqueArgumentType uuid(final CommandManager manager) {
-    return manager.opaqueArgumentTypeBuilder(Key.key("uuid"))
-        .build();
+    return ArgumentTypeCache.get(manager, ArgumentParser.UUID);
+  }
+
+  /**
+   * Returns an argument type for the given parser, which must not have
+   * {@link ArgumentParser#hasProperties() properties}. Once created, the type
+   * is looked up by the parser ordinal in constant time.
+   *
+   * @param manager the command manager.
+   * @param parser the argument parser.
+   * @return the argument type.
+   * @throws IllegalArgumentException if the parser has properties.
+   */
+  public static OpaqueArgumentType argumentType(final CommandManager manager,
+                                                final ArgumentParser parser) {
+    if (parser.hasProperties()) {
+      throw new IllegalArgumentException("The " + parser.key().asString()
+          + " parser has properties, use its dedicated factory method");
+    }
+    return ArgumentTypeCache.get(manager, parser);
+  }
+
+  // Encodes the flags of the minecraft:entity parser
+  static byte[] entityProperties(final boolean single, final boolean onlyPlayers) {
+    return encodeFlags((single ? 0x1 : 0x0) | (onlyPlayers ? 0x2 : 0x0));
   }
 
   // todo: Forge parsers?
@@ -0,0 +1,77 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Provides the set of argument parsers known by the vanilla client in each
+ * {@link ProtocolVersion protocol version}.
+ *
+ * <p>The availability of every parser is stored as a bitset per protocol version,
+ * indexed by the {@link ArgumentParser#ordinal() parser ordinal}, so queries take
+ * constant time.
+ */
+public final class ParserAvailability {
+
+  private static final ProtocolVersion[] VERSIONS = ProtocolVersion.values();
+  private static final long[] SUPPORTED = new long[VERSIONS.length];
+
+  static {
+    if (ArgumentParser.count() > Long.SIZE) {
+      throw new AssertionError("Parser bitsets must be widened to hold "
+          + ArgumentParser.count() + " parsers");
+    }
+
+    for (final ArgumentParser parser : ArgumentParser.values()) {
+      final ProtocolVersion removedIn = parser.removedIn();
+      final int from = parser.addedIn().ordinal();
+      final int to = removedIn != null ? removedIn.ordinal() : VERSIONS.length;
+      for (int i = from; i < to; i++) {
+        SUPPORTED[i] |= 1L << parser.ordinal();
+      }
+    }
+  }
+
+  /**
+   * Returns whether the client with the given protocol version knows the given parser.
+   *
+   * @param parser the argument parser.
+   * @param version the protocol version.
+   * @return {@code true} if the parser is supported by the version.
+   */
+  public static boolean isSupported(final ArgumentParser parser, final ProtocolVersion version) {
+    return (SUPPORTED[version.ordinal()] & (1L << parser.ordinal())) != 0;
+  }
+
+  /**
+   * Returns the parsers known by the client with the given protocol version.
+   *
+   * @param version the protocol version.
+   * @return a new set containing the supported parsers.
+   */
+  public static Set<ArgumentParser> supportedParsers(final ProtocolVersion version) {
+    final Set<ArgumentParser> parsers = EnumSet.noneOf(ArgumentParser.class);
+    long mask = SUPPORTED[version.ordinal()];
+    while (mask != 0) {
+      parsers.add(ArgumentParser.byOrdinal(Long.numberOfTrailingZeros(mask)));
+      mask &= mask - 1; // clear lowest set bit
+    }
+    return parsers;
+  }
+
+  /**
+   * Returns the bitset of parsers known by the client with the given protocol
+   * version. Versions with equal bitsets understand exactly the same parsers.
+   *
+   * @param version the protocol version.
+   * @return the supported parsers bitset.
+   */
+  static long supportedMask(final ProtocolVersion version) {
+    return SUPPORTED[version.ordinal()];
+  }
+
+  private ParserAvailability() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,194 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.ANGLE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.BLOCK_POS;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.BLOCK_PREDICATE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.BLOCK_STATE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.COLOR;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.COLUMN_POS;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.COMPONENT;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.DIMENSION;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.ENTITY;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.ENTITY_ANCHOR;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.ENTITY_SUMMON;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.FLOAT_RANGE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.FUNCTION;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.GAME_MODE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.GAME_PROFILE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.INT_RANGE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.ITEM_ENCHANTMENT;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.ITEM_PREDICATE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.ITEM_SLOT;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.ITEM_STACK;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.MESSAGE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.MOB_EFFECT;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.NBT_COMPOUND_TAG;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.NBT_PATH;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.NBT_TAG;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.OBJECTIVE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.OBJECTIVE_CRITERIA;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.OPERATION;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.PARTICLE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.RESOURCE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.RESOURCE_KEY;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.RESOURCE_LOCATION;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.RESOURCE_OR_TAG;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.RESOURCE_OR_TAG_KEY;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.ROTATION;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.SCOREBOARD_SLOT;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.SCORE_HOLDER;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.SWIZZLE;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.TEAM;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.TEMPLATE_MIRROR;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.TEMPLATE_ROTATION;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.TIME;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.UUID;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.VEC2;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.VEC3;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import java.util.Arrays;
+
+/**
+ * Provides the registry IDs that identify argument parsers in the
+ * Declare Commands packet sent to clients of a given {@link ProtocolVersion protocol version}.
+ *
+ * <p>Since {@link ProtocolVersion#MINECRAFT_1_19}, parsers are sent as VarInt
+ * registry IDs instead of identifiers, and the IDs may change between versions.
+ * The IDs are stored in arrays indexed by the {@link ArgumentParser#ordinal() parser ordinal}
+ * and by the ID respectively, so lookups in both directions take constant time.
+ * The IDs of versions newer than {@link #LATEST_VERSION} are unknown, so
+ * these versions are rejected instead of assuming an outdated registry.
+ */
+public final class ParserIds {
+
+  /**
+   * The number of registry IDs taken by the Brigadier parsers
+   * ({@code brigadier:bool}, {@code brigadier:float}, etc.), which precede
+   * every parser in {@link ArgumentParser}.
+   */
+  public static final int BRIGADIER_PARSER_COUNT = 6;
+
+  /**
+   * The newest protocol version whose parser registry IDs are known.
+   */
+  public static final ProtocolVersion LATEST_VERSION = ProtocolVersion.MINECRAFT_1_19_3;
+
+  private static final ProtocolVersion[] VERSIONS = ProtocolVersion.values();
+
+  // Registry entries following the Brigadier parsers, in ID order
+  private static final ArgumentParser[][] REGISTRIES = {
+    { // 1.19 and 1.19.1
+      ENTITY, GAME_PROFILE, BLOCK_POS, COLUMN_POS, VEC3, VEC2, BLOCK_STATE, BLOCK_PREDICATE,
+      ITEM_STACK, ITEM_PREDICATE, COLOR, COMPONENT, MESSAGE, NBT_COMPOUND_TAG, NBT_TAG, NBT_PATH,
+      OBJECTIVE, OBJECTIVE_CRITERIA, OPERATION, PARTICLE, ANGLE, ROTATION, SCOREBOARD_SLOT,
+      SCORE_HOLDER, SWIZZLE, TEAM, ITEM_SLOT, RESOURCE_LOCATION, MOB_EFFECT, FUNCTION,
+      ENTITY_ANCHOR, INT_RANGE, FLOAT_RANGE, ITEM_ENCHANTMENT, ENTITY_SUMMON, DIMENSION, TIME,
+      RESOURCE_OR_TAG, RESOURCE, TEMPLATE_MIRROR, TEMPLATE_ROTATION, UUID
+    },
+    { // 1.19.3
+      ENTITY, GAME_PROFILE, BLOCK_POS, COLUMN_POS, VEC3, VEC2, BLOCK_STATE, BLOCK_PREDICATE,
+      ITEM_STACK, ITEM_PREDICATE, COLOR, COMPONENT, MESSAGE, NBT_COMPOUND_TAG, NBT_TAG, NBT_PATH,
+      OBJECTIVE, OBJECTIVE_CRITERIA, OPERATION, PARTICLE, ANGLE, ROTATION, SCOREBOARD_SLOT,
+      SCORE_HOLDER, SWIZZLE, TEAM, ITEM_SLOT, RESOURCE_LOCATION, FUNCTION, ENTITY_ANCHOR,
+      INT_RANGE, FLOAT_RANGE, DIMENSION, GAME_MODE, TIME, RESOURCE_OR_TAG, RESOURCE_OR_TAG_KEY,
+      RESOURCE, RESOURCE_KEY, TEMPLATE_MIRROR, TEMPLATE_ROTATION, UUID
+    }
+  };
+  private static final ProtocolVersion[] REGISTRY_VERSIONS = {
+    ProtocolVersion.MINECRAFT_1_19,
+    LATEST_VERSION
+  };
+
+  // Registry IDs indexed by parser ordinal, -1 if absent
+  private static final int[][] IDS = new int[REGISTRIES.length][];
+  // Registry index of each version, -1 if the version sends identifiers
+  // and UNKNOWN_REGISTRY if its registry isn't known
+  private static final int[] REGISTRY_INDICES = new int[VERSIONS.length];
+  private static final int UNKNOWN_REGISTRY = -2;
+
+  static {
+    for (int i = 0; i < REGISTRIES.length; i++) {
+      final int[] ids = new int[ArgumentParser.count()];
+      Arrays.fill(ids, -1);
+      final ArgumentParser[] registry = REGISTRIES[i];
+      for (int j = 0; j < registry.length; j++) {
+        ids[registry[j].ordinal()] = BRIGADIER_PARSER_COUNT + j;
+      }
+      IDS[i] = ids;
+    }
+
+    // Versions without a dedicated registry use the registry of the latest preceding version
+    int registry = -1;
+    for (final ProtocolVersion version : VERSIONS) {
+      if (version.compareTo(LATEST_VERSION) > 0) {
+        REGISTRY_INDICES[version.ordinal()] = UNKNOWN_REGISTRY;
+        continue;
+      }
+      if (registry + 1 < REGISTRY_VERSIONS.length
+          && version.compareTo(REGISTRY_VERSIONS[registry + 1]) >= 0) {
+        registry++;
+      }
+      REGISTRY_INDICES[version.ordinal()] = registry;
+    }
+  }
+
+  /**
+   * Returns whether the client with the given protocol version identifies
+   * parsers by their registry ID.
+   *
+   * @param version the protocol version.
+   * @return {@code true} if parsers are sent as registry IDs,
+   *     or {@code false} if they are sent as identifiers.
+   * @throws IllegalArgumentException if the version is newer than {@link #LATEST_VERSION}.
+   */
+  public static boolean usesIds(final ProtocolVersion version) {
+    return registry(version) != -1;
+  }
+
+  /**
+   * Returns the registry ID of the given parser for the given protocol version.
+   *
+   * @param parser the argument parser.
+   * @param version the protocol version.
+   * @return the registry ID, or {@code -1} if the version sends identifiers
+   *     or doesn't know the parser.
+   * @throws IllegalArgumentException if the version is newer than {@link #LATEST_VERSION}.
+   */
+  public static int id(final ArgumentParser parser, final ProtocolVersion version) {
+    final int registry = registry(version);
+    return registry != -1 ? IDS[registry][parser.ordinal()] : -1;
+  }
+
+  /**
+   * Returns the parser with the given registry ID for the given protocol version.
+   *
+   * @param id the registry ID.
+   * @param version the protocol version.
+   * @return the parser, or {@code null} if the version sends identifiers,
+   *     or the ID belongs to a Brigadier parser or is unknown.
+   * @throws IllegalArgumentException if the version is newer than {@link #LATEST_VERSION}.
+   */
+  public static ArgumentParser byId(final int id, final ProtocolVersion version) {
+    final int registry = registry(version);
+    if (registry == -1) {
+      return null;
+    }
+    final int index = id - BRIGADIER_PARSER_COUNT;
+    final ArgumentParser[] parsers = REGISTRIES[registry];
+    return index >= 0 && index < parsers.length ? parsers[index] : null;
+  }
+
+  private static int registry(final ProtocolVersion version) {
+    final int registry = REGISTRY_INDICES[version.ordinal()];
+    if (registry == UNKNOWN_REGISTRY) {
+      throw new IllegalArgumentException("The parser registry IDs of " + version
+          + " are unknown");
+    }
+    return registry;
+  }
+
+  private ParserIds() {
+    throw new AssertionError();
+  }
+}
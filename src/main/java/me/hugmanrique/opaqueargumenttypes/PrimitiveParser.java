@@ -0,0 +1,410 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.NumberScanner.isDouble;
+import static me.hugmanrique.opaqueargumenttypes.NumberScanner.isInt;
+import static me.hugmanrique.opaqueargumenttypes.NumberScanner.parseDouble;
+import static me.hugmanrique.opaqueargumenttypes.NumberScanner.parseFloat;
+import static me.hugmanrique.opaqueargumenttypes.NumberScanner.parseInt;
+import static me.hugmanrique.opaqueargumenttypes.NumberScanner.scanNumber;
+
+import com.mojang.brigadier.StringReader;
+import com.velocitypowered.api.command.CommandManager;
+
+/**
+ * Parses the input of the parsers with small, fixed grammars on the proxy,
+ * so plugins can reject malformed input and act on the values without a
+ * round trip to the backend server.
+ *
+ * <p>Parsers read directly from the reader string and store their result in a
+ * reusable {@link PrimitiveValue}, so parsing doesn't allocate. Decimal numbers
+ * are parsed exactly without allocating unless they have more significant
+ * digits than the floating-point type can represent. The accepted input and
+ * the parsed values match those of the vanilla parsers.
+ */
+public enum PrimitiveParser {
+
+  /**
+   * Parses the input of the {@code minecraft:uuid} parser, a hyphenated
+   * hexadecimal UUID such as {@code f81d4fae-7dec-11d0-a765-00a0c91e6bf6}.
+   * As in vanilla, the groups may have fewer digits than usual.
+   *
+   * @see OpaqueArgumentTypes#uuid(CommandManager)
+   */
+  UUID(ArgumentParser.UUID),
+
+  /**
+   * Parses the input of the {@code minecraft:time} parser, a non-negative
+   * duration followed by an optional unit: {@code d} (days), {@code s} (seconds)
+   * or {@code t} (ticks, the default). The duration is rounded to ticks.
+   *
+   * @see OpaqueArgumentTypes#time(CommandManager)
+   */
+  TIME(ArgumentParser.TIME),
+
+  /**
+   * Parses the input of the {@code minecraft:angle} parser, an angle in
+   * degrees that may be relative ({@code ~} or {@code ~-10}).
+   *
+   * @see OpaqueArgumentTypes#angle(CommandManager)
+   */
+  ANGLE(ArgumentParser.ANGLE),
+
+  /**
+   * Parses the input of the {@code minecraft:int_range} parser, and of the
+   * {@code minecraft:range} parser without decimals: an exact value ({@code 5})
+   * or a range with at least one inclusive bound ({@code 1..5}, {@code ..5} or {@code 1..}).
+   *
+   * @see OpaqueArgumentTypes#intRange(CommandManager)
+   * @see OpaqueArgumentTypes#range(CommandManager, boolean)
+   */
+  INT_RANGE(ArgumentParser.INT_RANGE),
+
+  /**
+   * Parses the input of the {@code minecraft:float_range} parser, and of the
+   * {@code minecraft:range} parser with decimals, which have the same grammar as
+   * {@link #INT_RANGE} but allow decimal bounds.
+   *
+   * @see OpaqueArgumentTypes#floatRange(CommandManager)
+   * @see OpaqueArgumentTypes#range(CommandManager, boolean)
+   */
+  FLOAT_RANGE(ArgumentParser.FLOAT_RANGE);
+
+  private static final int INVALID = -1;
+
+  // Matches the length limit of UUID.fromString
+  private static final int MAX_UUID_LENGTH = 36;
+
+  private static final int TICKS_PER_DAY = 24000;
+  private static final int TICKS_PER_SECOND = 20;
+
+  private final ArgumentParser parser;
+
+  PrimitiveParser(final ArgumentParser parser) {
+    this.parser = parser;
+  }
+
+  /**
+   * Returns the primitive parser for the given parser.
+   *
+   * @param parser the argument parser.
+   * @return the primitive parser, or {@code null} if the parser doesn't have a
+   *     primitive grammar. Use {@link #forRange(boolean)} for {@code minecraft:range}.
+   */
+  public static PrimitiveParser forParser(final ArgumentParser parser) {
+    switch (parser) {
+      case UUID:
+        return UUID;
+      case TIME:
+        return TIME;
+      case ANGLE:
+        return ANGLE;
+      case INT_RANGE:
+        return INT_RANGE;
+      case FLOAT_RANGE:
+        return FLOAT_RANGE;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Returns the primitive parser for the {@code minecraft:range} parser.
+   *
+   * @param decimals whether decimal values are allowed.
+   * @return {@link #FLOAT_RANGE} if decimal values are allowed, {@link #INT_RANGE} otherwise.
+   * @see ArgumentDescriptor.Range#decimals()
+   */
+  public static PrimitiveParser forRange(final boolean decimals) {
+    return decimals ? FLOAT_RANGE : INT_RANGE;
+  }
+
+  /**
+   * Returns the parser whose input this primitive parser reads.
+   *
+   * @return the argument parser.
+   */
+  public ArgumentParser parser() {
+    return this.parser;
+  }
+
+  /**
+   * Parses the argument starting at the cursor of the given reader.
+   * The argument must be followed by a space or the end of the input.
+   *
+   * <p>If the argument is valid, the parsed value is stored in the given holder
+   * and the cursor is moved past it. Otherwise, the holder and the cursor are
+   * left unchanged.
+   *
+   * @param reader the reader.
+   * @param value the holder of the parsed value.
+   * @return {@code true} if the argument is valid.
+   */
+  public boolean parse(final StringReader reader, final PrimitiveValue value) {
+    final int end = scan(reader.getString(), reader.getCursor(), value);
+    if (end == INVALID) {
+      return false;
+    }
+    reader.setCursor(end);
+    return true;
+  }
+
+  /**
+   * Parses the given string, which must only contain the argument.
+   *
+   * @param input the input string.
+   * @param value the holder of the parsed value.
+   * @return {@code true} if the argument is valid.
+   * @see #parse(StringReader, PrimitiveValue)
+   */
+  public boolean parse(final String input, final PrimitiveValue value) {
+    // Check for trailing input first, so the holder is left unchanged on failure
+    return input.indexOf(' ') < 0 && scan(input, 0, value) == input.length();
+  }
+
+  /**
+   * Returns whether the given string only contains a valid argument.
+   *
+   * @param input the input string.
+   * @return {@code true} if the argument is valid.
+   */
+  public boolean isValid(final String input) {
+    return scan(input, 0, null) == input.length();
+  }
+
+  private int scan(final String input, final int start, final PrimitiveValue value) {
+    final int end;
+    switch (this) {
+      case UUID:
+        end = scanUuid(input, start, value);
+        break;
+      case TIME:
+        end = scanTime(input, start, value);
+        break;
+      case ANGLE:
+        end = scanAngle(input, start, value);
+        break;
+      case INT_RANGE:
+        end = scanRange(input, start, false, true, value);
+        break;
+      case FLOAT_RANGE:
+        end = scanRange(input, start, true, true, value);
+        break;
+      default:
+        throw new AssertionError();
+    }
+    return end;
+  }
+
+  // The dispatcher expects a separator after each argument, which is
+  // checked before storing the value so the holder is left unchanged on failure
+  private static boolean isArgumentEnd(final String input, final int end) {
+    return end == input.length() || input.charAt(end) == ' ';
+  }
+
+  // Matches UuidArgument, which reads [-0-9A-Fa-f]+ and passes it to UUID.fromString
+  private static int scanUuid(final String input, final int start, final PrimitiveValue value) {
+    int end = start;
+    while (end < input.length() && (input.charAt(end) == '-' || isHexDigit(input.charAt(end)))) {
+      end++;
+    }
+    if (end == start || end - start > MAX_UUID_LENGTH) {
+      return INVALID;
+    }
+    // Parse the five groups, each of which must fit in a long
+    long most = 0;
+    long least = 0;
+    int index = start;
+    for (int group = 0; group < 5; group++) {
+      if (group > 0) {
+        if (index == end) {
+          return INVALID; // missing group
+        }
+        index++; // dash
+      }
+      final int groupStart = index;
+      long bits = 0;
+      while (index < end && input.charAt(index) != '-') {
+        if ((bits & 0xF800000000000000L) != 0) {
+          return INVALID; // overflow
+        }
+        bits = bits << 4 | Character.digit(input.charAt(index), 16);
+        index++;
+      }
+      if (index == groupStart) {
+        return INVALID; // empty group
+      }
+      switch (group) {
+        case 0:
+          most = (bits & 0xFFFFFFFFL) << 32;
+          break;
+        case 1:
+          most |= (bits & 0xFFFFL) << 16;
+          break;
+        case 2:
+          most |= bits & 0xFFFFL;
+          break;
+        case 3:
+          least = (bits & 0xFFFFL) << 48;
+          break;
+        default:
+          least |= bits & 0xFFFFFFFFFFFFL;
+          break;
+      }
+    }
+    if (index != end || !isArgumentEnd(input, end)) {
+      return INVALID; // extra group
+    }
+    if (value != null) {
+      value.setUuid(most, least);
+    }
+    return end;
+  }
+
+  private static boolean isHexDigit(final char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  // Matches TimeArgument, which reads a float followed by an unquoted unit
+  private static int scanTime(final String input, final int start, final PrimitiveValue value) {
+    final int numberEnd = scanNumber(input, start);
+    if (!isDouble(input, start, numberEnd)) {
+      return INVALID;
+    }
+    int end = numberEnd;
+    while (end < input.length() && StringReader.isAllowedInUnquotedString(input.charAt(end))) {
+      end++;
+    }
+    final int multiplier;
+    if (end == numberEnd) {
+      multiplier = 1;
+    } else if (end - numberEnd > 1) {
+      return INVALID;
+    } else {
+      switch (input.charAt(numberEnd)) {
+        case 'd':
+          multiplier = TICKS_PER_DAY;
+          break;
+        case 's':
+          multiplier = TICKS_PER_SECOND;
+          break;
+        case 't':
+          multiplier = 1;
+          break;
+        default:
+          return INVALID;
+      }
+    }
+    final int ticks = Math.round(parseFloat(input, start, numberEnd) * (float) multiplier);
+    if (ticks < 0 || !isArgumentEnd(input, end)) {
+      return INVALID;
+    }
+    if (value != null) {
+      value.setTicks(ticks);
+    }
+    return end;
+  }
+
+  // Matches AngleArgument, which reads an optional '~' followed by a finite float
+  private static int scanAngle(final String input, final int start, final PrimitiveValue value) {
+    if (start >= input.length()) {
+      return INVALID;
+    }
+    final boolean relative = input.charAt(start) == '~';
+    final int numberStart = relative ? start + 1 : start;
+    if (relative && isArgumentEnd(input, numberStart)) {
+      if (value != null) {
+        value.setAngle(0.0F, true);
+      }
+      return numberStart;
+    }
+    final int end = scanNumber(input, numberStart);
+    if (!isDouble(input, numberStart, end)) {
+      return INVALID;
+    }
+    final float angle = parseFloat(input, numberStart, end);
+    if (Float.isNaN(angle) || Float.isInfinite(angle) || !isArgumentEnd(input, end)) {
+      return INVALID;
+    }
+    if (value != null) {
+      value.setAngle(angle, relative);
+    }
+    return end;
+  }
+
+  /**
+   * Scans a range of values, as read by {@code MinMaxBounds.fromReader}.
+   * Unlike {@link #parse(StringReader, PrimitiveValue)}, the range may be
+   * followed by any character, such as in the options of an entity selector.
+   *
+   * @param input the input string.
+   * @param start the index of the first character.
+   * @param decimals whether decimal bounds are allowed.
+   * @param value receives the bounds of the range, or {@code null}.
+   * @return the index following the range, or {@code -1} if it isn't valid.
+   */
+  static int scanRange(final String input, final int start, final boolean decimals,
+                       final PrimitiveValue value) {
+    return scanRange(input, start, decimals, false, value);
+  }
+
+  private static int scanRange(final String input, final int start, final boolean decimals,
+                               final boolean argument, final PrimitiveValue value) {
+    final int minEnd = scanBound(input, start);
+    final boolean hasMin = minEnd > start;
+    if (hasMin && !isBound(input, start, minEnd, decimals)) {
+      return INVALID;
+    }
+    final double min = hasMin ? parseBound(input, start, minEnd, decimals) : 0;
+    if (!input.startsWith("..", minEnd)) {
+      if (!hasMin) {
+        return INVALID; // empty range
+      }
+      if (argument && !isArgumentEnd(input, minEnd)) {
+        return INVALID;
+      }
+      if (value != null) {
+        value.setRange(true, min, true, min);
+      }
+      return minEnd;
+    }
+    final int maxStart = minEnd + 2;
+    final int maxEnd = scanBound(input, maxStart);
+    final boolean hasMax = maxEnd > maxStart;
+    if (hasMax && !isBound(input, maxStart, maxEnd, decimals)) {
+      return INVALID;
+    }
+    final double max = hasMax ? parseBound(input, maxStart, maxEnd, decimals) : 0;
+    if (!hasMin && !hasMax || hasMin && hasMax && min > max) {
+      return INVALID; // empty or swapped range
+    }
+    if (argument && !isArgumentEnd(input, maxEnd)) {
+      return INVALID;
+    }
+    if (value != null) {
+      value.setRange(hasMin, min, hasMax, max);
+    }
+    return maxEnd;
+  }
+  // Matches MinMaxBounds.isAllowedInputChat, which stops before ".."
+  private static int scanBound(final String input, final int start) {
+    int end = start;
+    while (end < input.length()) {
+      final char c = input.charAt(end);
+      if ((c < '0' || c > '9') && c != '-' && (c != '.' || input.startsWith("..", end))) {
+        break;
+      }
+      end++;
+    }
+    return end;
+  }
+
+  private static boolean isBound(final String input, final int start, final int end,
+                                 final boolean decimals) {
+    return decimals ? isDouble(input, start, end) : isInt(input, start, end);
+  }
+
+  private static double parseBound(final String input, final int start, final int end,
+                                   final boolean decimals) {
+    return decimals ? parseDouble(input, start, end) : parseInt(input, start, end);
+  }
+}
@@ -0,0 +1,161 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import java.util.UUID;
+
+/**
+ * A reusable holder of the value read by a {@link PrimitiveParser}.
+ *
+ * <p>Parsers store their result in primitive fields, so a single holder can be
+ * reused to read many arguments without allocating. Only the accessors of the
+ * last parser that succeeded return meaningful values.
+ *
+ * <p>Instances are mutable and must not be shared between threads.
+ */
+public final class PrimitiveValue {
+
+  private long mostSignificantBits;
+  private long leastSignificantBits;
+  private int ticks;
+  private float angle;
+  private boolean relative;
+  private boolean hasMin;
+  private boolean hasMax;
+  private double min;
+  private double max;
+
+  /**
+   * Returns the most significant 64 bits of the UUID read by {@link PrimitiveParser#UUID}.
+   *
+   * @return the most significant bits.
+   */
+  public long mostSignificantBits() {
+    return this.mostSignificantBits;
+  }
+
+  /**
+   * Returns the least significant 64 bits of the UUID read by {@link PrimitiveParser#UUID}.
+   *
+   * @return the least significant bits.
+   */
+  public long leastSignificantBits() {
+    return this.leastSignificantBits;
+  }
+
+  /**
+   * Returns the UUID read by {@link PrimitiveParser#UUID}.
+   * This method allocates a new {@link UUID} on each call.
+   *
+   * @return the UUID.
+   */
+  public UUID toUuid() {
+    return new UUID(this.mostSignificantBits, this.leastSignificantBits);
+  }
+
+  /**
+   * Returns the number of ticks read by {@link PrimitiveParser#TIME}.
+   *
+   * @return the non-negative number of ticks.
+   */
+  public int ticks() {
+    return this.ticks;
+  }
+
+  /**
+   * Returns the angle in degrees read by {@link PrimitiveParser#ANGLE}.
+   * If the angle is {@linkplain #relative() relative}, it's an offset
+   * from the rotation of the executor.
+   *
+   * @return the angle.
+   */
+  public float angle() {
+    return this.angle;
+  }
+
+  /**
+   * Returns whether the angle read by {@link PrimitiveParser#ANGLE} is relative.
+   *
+   * @return {@code true} if the angle is relative.
+   */
+  public boolean relative() {
+    return this.relative;
+  }
+
+  /**
+   * Returns whether the range read by {@link PrimitiveParser#INT_RANGE} or
+   * {@link PrimitiveParser#FLOAT_RANGE} has a lower bound.
+   *
+   * @return {@code true} if the range has a lower bound.
+   */
+  public boolean hasMin() {
+    return this.hasMin;
+  }
+
+  /**
+   * Returns whether the range read by {@link PrimitiveParser#INT_RANGE} or
+   * {@link PrimitiveParser#FLOAT_RANGE} has an upper bound.
+   *
+   * @return {@code true} if the range has an upper bound.
+   */
+  public boolean hasMax() {
+    return this.hasMax;
+  }
+
+  /**
+   * Returns the inclusive lower bound of the range, if {@linkplain #hasMin() present}.
+   *
+   * @return the lower bound.
+   */
+  public double min() {
+    return this.min;
+  }
+
+  /**
+   * Returns the inclusive upper bound of the range, if {@linkplain #hasMax() present}.
+   *
+   * @return the upper bound.
+   */
+  public double max() {
+    return this.max;
+  }
+
+  /**
+   * Returns the inclusive lower bound of the range read by {@link PrimitiveParser#INT_RANGE},
+   * if {@linkplain #hasMin() present}.
+   *
+   * @return the lower bound.
+   */
+  public int minInt() {
+    return (int) this.min;
+  }
+
+  /**
+   * Returns the inclusive upper bound of the range read by {@link PrimitiveParser#INT_RANGE},
+   * if {@linkplain #hasMax() present}.
+   *
+   * @return the upper bound.
+   */
+  public int maxInt() {
+    return (int) this.max;
+  }
+
+  void setUuid(final long mostSignificantBits, final long leastSignificantBits) {
+    this.mostSignificantBits = mostSignificantBits;
+    this.leastSignificantBits = leastSignificantBits;
+  }
+
+  void setTicks(final int ticks) {
+    this.ticks = ticks;
+  }
+
+  void setAngle(final float angle, final boolean relative) {
+    this.angle = angle;
+    this.relative = relative;
+  }
+
+  void setRange(final boolean hasMin, final double min, final boolean hasMax, final double max) {
+    this.hasMin = hasMin;
+    this.min = min;
+    this.hasMax = hasMax;
+    this.max = max;
+  }
+}
@@ -0,0 +1,51 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event emitted when {@link ProtocolUtils} encodes the
+ * properties of an argument type. Disabled by default.
+ *
+ * <p>Only loaded through {@link FlightRecorderEvents}.
+ */
+@Name("me.hugmanrique.opaqueargumenttypes.PropertyEncode")
+@Label("Argument Property Encode")
+@Description("The properties of an argument type encoded by ProtocolUtils")
+@Category({ "Velocity", "Opaque Argument Types" })
+@Enabled(false)
+@StackTrace(false)
+final class PropertyEncodeEvent extends Event {
+
+  // Null if Flight Recorder is disabled in the JVM
+  private static final EventType TYPE = FlightRecorderEvents.eventType(PropertyEncodeEvent.class);
+
+  @Label("Kind")
+  @Description("The encoded data type")
+  String kind;
+
+  @Label("Length")
+  @DataAmount
+  int length;
+
+  /**
+   * Begins a new event if the event type is enabled.
+   *
+   * @return the event, or {@code null} if the event type is disabled.
+   */
+  static PropertyEncodeEvent beginIfEnabled() {
+    if (TYPE == null || !TYPE.isEnabled()) {
+      return null;
+    }
+    final PropertyEncodeEvent event = new PropertyEncodeEvent();
+    event.begin();
+    return event;
+  }
+}
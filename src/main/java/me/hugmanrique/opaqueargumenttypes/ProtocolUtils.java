@@ -1,48 +1,295 @@
 package me.hugmanrique.opaqueargumenttypes;
 
+import java.nio.ByteBuffer;
+import net.kyori.adventure.key.InvalidKeyException;
 import net.kyori.adventure.key.Key;
 
 /**
  * Provides utilities for encoding some data types in the Minecraft protocol.
+ *
+ * <p>The {@code write*} methods encode a value into a caller-supplied
+ * {@link ByteBuffer} (either heap or direct) at the given index, without
+ * modifying its position, and return the index following the written bytes.
+ * Together with the {@code *Length} methods, this allows computing the size
+ * of a structure first and then writing it into a single buffer.
  */
 final class ProtocolUtils {
 
-  // These methods aren't called that frequently, so VarInt encoding doesn't need
-  // to be extremely efficient. Thus, we use the standard algorithm.
+  static final int BOOLEAN_LENGTH = 1;
+
+  // VarInt lengths indexed by the number of leading zeros of the value
+  private static final byte[] VAR_INT_LENGTHS = varLengths(Integer.SIZE);
+  private static final byte[] VAR_LONG_LENGTHS = varLengths(Long.SIZE);
+
+  private static byte[] varLengths(final int size) {
+    final byte[] lengths = new byte[size + 1];
+    for (int leadingZeros = 0; leadingZeros <= size; leadingZeros++) {
+      final int bits = size - leadingZeros;
+      lengths[leadingZeros] = (byte) (bits == 0 ? 1 : (bits + 6) / 7);
+    }
+    return lengths;
+  }
 
   static int varIntLength(final int value) {
-    return (31 - Integer.numberOfLeadingZeros(value)) / 7 + 1;
+    return VAR_INT_LENGTHS[Integer.numberOfLeadingZeros(value)];
+  }
+
+  static int varLongLength(final long value) {
+    return VAR_LONG_LENGTHS[Long.numberOfLeadingZeros(value)];
+  }
+
+  static void encodeVarInt(final int value, final byte[] dest, final int offset) {
+    writeVarInt(ByteBuffer.wrap(dest), offset, value);
+  }
+
+  static int writeVarInt(final ByteBuffer dest, final int index, final int value) {
+    // Each length bucket writes its bytes with a fixed sequence of stores
+    if ((value & (-1 << 7)) == 0) {
+      dest.put(index, (byte) value);
+      return index + 1;
+    } else if ((value & (-1 << 14)) == 0) {
+      dest.put(index, (byte) (value | 0x80));
+      dest.put(index + 1, (byte) (value >>> 7));
+      return index + 2;
+    } else if ((value & (-1 << 21)) == 0) {
+      dest.put(index, (byte) (value | 0x80));
+      dest.put(index + 1, (byte) ((value >>> 7) | 0x80));
+      dest.put(index + 2, (byte) (value >>> 14));
+      return index + 3;
+    } else if ((value & (-1 << 28)) == 0) {
+      dest.put(index, (byte) (value | 0x80));
+      dest.put(index + 1, (byte) ((value >>> 7) | 0x80));
+      dest.put(index + 2, (byte) ((value >>> 14) | 0x80));
+      dest.put(index + 3, (byte) (value >>> 21));
+      return index + 4;
+    } else {
+      dest.put(index, (byte) (value | 0x80));
+      dest.put(index + 1, (byte) ((value >>> 7) | 0x80));
+      dest.put(index + 2, (byte) ((value >>> 14) | 0x80));
+      dest.put(index + 3, (byte) ((value >>> 21) | 0x80));
+      dest.put(index + 4, (byte) (value >>> 28));
+      return index + 5;
+    }
+  }
+
+  static void encodeVarLong(final long value, final byte[] dest, final int offset) {
+    writeVarLong(ByteBuffer.wrap(dest), offset, value);
   }
 
-  static void encodeVarInt(int value, final byte[] dest, int offset) {
-    do {
-      byte current = (byte) (value & 0x7F);
+  static int writeVarLong(final ByteBuffer dest, int index, long value) {
+    while ((value & ~0x7FL) != 0) {
+      dest.put(index++, (byte) (value | 0x80));
       value >>>= 7;
-      if (value != 0) {
-        current |= 0x80; // set continuation bit
+    }
+    dest.put(index, (byte) value);
+    return index + 1;
+  }
+
+  // The decoders only accept the shortest encoding of each value, so the number
+  // of bytes read from an array is always varIntLength (or varLongLength) of the result.
+
+  static int decodeVarInt(final byte[] src, int offset) {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      if (offset >= src.length) {
+        throw new IndexOutOfBoundsException("VarInt extends past the end of the array");
+      }
+      final byte current = src[offset++];
+      value |= (current & 0x7F) << shift;
+      if (current >= 0) { // no continuation bit
+        checkVarIntEnd(current, shift);
+        return value;
       }
-      dest[offset++] = current;
-    } while (value != 0);
+    }
+    throw new IllegalArgumentException("VarInt is longer than 5 bytes");
   }
 
-  private static byte[] encodeAsciiString(final String value) {
-    final int varIntLen = varIntLength(value.length());
-    final int bufLen = varIntLen + value.length(); // in ASCII, each character occupies a single byte.
-    byte[] encoded = new byte[bufLen];
+  static int readVarInt(final ByteBuffer src) {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      final byte current = src.get(); // throws BufferUnderflowException if truncated
+      value |= (current & 0x7F) << shift;
+      if (current >= 0) {
+        checkVarIntEnd(current, shift);
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("VarInt is longer than 5 bytes");
+  }
+
+  private static void checkVarIntEnd(final byte last, final int shift) {
+    if (last == 0 && shift != 0) {
+      throw new IllegalArgumentException("VarInt has an overlong encoding");
+    } else if (shift == 28 && (last & 0xF0) != 0) {
+      throw new IllegalArgumentException("VarInt doesn't fit in 32 bits");
+    }
+  }
+
+  static long decodeVarLong(final byte[] src, int offset) {
+    long value = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      if (offset >= src.length) {
+        throw new IndexOutOfBoundsException("VarLong extends past the end of the array");
+      }
+      final byte current = src[offset++];
+      value |= (long) (current & 0x7F) << shift;
+      if (current >= 0) {
+        checkVarLongEnd(current, shift);
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("VarLong is longer than 10 bytes");
+  }
+
+  static long readVarLong(final ByteBuffer src) {
+    long value = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      final byte current = src.get();
+      value |= (long) (current & 0x7F) << shift;
+      if (current >= 0) {
+        checkVarLongEnd(current, shift);
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("VarLong is longer than 10 bytes");
+  }
+
+  private static void checkVarLongEnd(final byte last, final int shift) {
+    if (last == 0 && shift != 0) {
+      throw new IllegalArgumentException("VarLong has an overlong encoding");
+    } else if (shift == 63 && (last & 0xFE) != 0) {
+      throw new IllegalArgumentException("VarLong doesn't fit in 64 bits");
+    }
+  }
+
+  static int asciiStringLength(final String value) {
+    // in ASCII, each character occupies a single byte.
+    return varIntLength(value.length()) + value.length();
+  }
 
-    encodeVarInt(value.length(), encoded, 0);
+  static int utf8Length(final String value) {
+    int length = value.length();
     for (int i = 0; i < value.length(); i++) {
-      encoded[varIntLen + i] = (byte) value.charAt(i);
+      final char c = value.charAt(i);
+      if (c >= 0x800) {
+        // Surrogate pairs occupy 4 bytes, 2 for each of their chars
+        length += Character.isSurrogate(c) ? 1 : 2;
+      } else if (c >= 0x80) {
+        length++;
+      }
     }
-    return encoded;
+    return length;
+  }
+
+  static int stringLength(final String value) {
+    final int length = utf8Length(value);
+    return varIntLength(length) + length;
+  }
+
+  static int writeAsciiString(final ByteBuffer dest, final int index, final String value) {
+    return writeAsciiChars(dest, writeVarInt(dest, index, value.length()), value);
+  }
+
+  private static int writeAsciiChars(final ByteBuffer dest, int index, final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      dest.put(index++, (byte) value.charAt(i));
+    }
+    return index;
+  }
+
+  static String readAsciiString(final ByteBuffer src) {
+    final int length = readVarInt(src);
+    if (length < 0 || length > src.remaining()) {
+      throw new IllegalArgumentException("String length " + length + " exceeds the "
+          + src.remaining() + " remaining bytes");
+    }
+    final char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      final byte current = src.get();
+      if (current < 0) {
+        throw new IllegalArgumentException("String contains a non-ASCII character");
+      }
+      chars[i] = (char) current;
+    }
+    return new String(chars);
+  }
+
+  static int byteArrayLength(final byte[] value) {
+    return varIntLength(value.length) + value.length;
+  }
+
+  static int writeByteArray(final ByteBuffer dest, final int index, final byte[] value) {
+    final int start = writeVarInt(dest, index, value.length);
+    dest.duplicate().position(start).put(value);
+    return start + value.length;
+  }
+
+  static byte[] readByteArray(final ByteBuffer src) {
+    final int length = readVarInt(src);
+    if (length < 0 || length > src.remaining()) {
+      throw new IllegalArgumentException("Byte array length " + length + " exceeds the "
+          + src.remaining() + " remaining bytes");
+    }
+    final byte[] value = new byte[length];
+    src.get(value);
+    return value;
+  }
+
+  static Key readIdentifier(final ByteBuffer src) {
+    final String identifier = readAsciiString(src);
+    try {
+      return Key.key(identifier);
+    } catch (final InvalidKeyException e) {
+      throw new IllegalArgumentException("Malformed identifier " + identifier, e);
+    }
+  }
+
+  static int identifierLength(final Key identifier) {
+    // Equal to asciiStringLength(identifier.asString()), without concatenating the parts.
+    final int length = identifier.namespace().length() + 1 + identifier.value().length();
+    return varIntLength(length) + length;
+  }
+
+  static int writeIdentifier(final ByteBuffer dest, int index, final Key identifier) {
+    final String namespace = identifier.namespace();
+    final String value = identifier.value();
+    index = writeVarInt(dest, index, namespace.length() + 1 + value.length());
+    index = writeAsciiChars(dest, index, namespace);
+    dest.put(index++, (byte) ':');
+    return writeAsciiChars(dest, index, value);
+  }
+
+  static int writeBoolean(final ByteBuffer dest, final int index, final boolean value) {
+    return writeFlags(dest, index, value ? 0x1 : 0x0);
+  }
+
+  static int writeFlags(final ByteBuffer dest, final int index, final int flags) {
+    dest.put(index, (byte) flags);
+    return index + 1;
   }
 
   static byte[] encodeIdentifier(final Key identifier) {
-    return encodeAsciiString(identifier.asString());
+    final Object event = FlightRecorderSupport.beginPropertyEncode();
+    final byte[] encoded = new byte[identifierLength(identifier)];
+    writeIdentifier(ByteBuffer.wrap(encoded), 0, identifier);
+    FlightRecorderSupport.commitPropertyEncode(event, "identifier", encoded.length);
+    return encoded;
   }
 
   static byte[] encodeBoolean(final boolean value) {
-    return new byte[] { value ? (byte) 0x1 : (byte) 0x0 };
+    final Object event = FlightRecorderSupport.beginPropertyEncode();
+    final byte[] encoded = new byte[BOOLEAN_LENGTH];
+    writeBoolean(ByteBuffer.wrap(encoded), 0, value);
+    FlightRecorderSupport.commitPropertyEncode(event, "boolean", encoded.length);
+    return encoded;
+  }
+
+  static byte[] encodeFlags(final int flags) {
+    final Object event = FlightRecorderSupport.beginPropertyEncode();
+    final byte[] encoded = new byte[1];
+    writeFlags(ByteBuffer.wrap(encoded), 0, flags);
+    FlightRecorderSupport.commitPropertyEncode(event, "flags", encoded.length);
+    return encoded;
   }
 
   private ProtocolUtils() {
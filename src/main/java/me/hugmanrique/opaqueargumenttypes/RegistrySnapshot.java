@@ -0,0 +1,371 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import net.kyori.adventure.key.InvalidKeyException;
+import net.kyori.adventure.key.Key;
+
+/**
+ * An immutable snapshot of the entries and tags of the registries known
+ * by a backend server, indexed for prefix completion.
+ *
+ * <p>Snapshots are built with a {@link Builder}, typically from the
+ * {@code registries.json} report of the vanilla data generator and the tags
+ * of a data pack. The identifiers of each registry are grouped by namespace,
+ * which is stored once, and the paths of each namespace are stored in a
+ * {@link RegistryTrie radix tree}, so completing a prefix takes time
+ * proportional to the prefix length and the number of completions.
+ *
+ * @see RegistrySuggestions
+ */
+public final class RegistrySnapshot {
+
+  private static final RegistrySnapshot EMPTY = new RegistrySnapshot(Collections.emptyMap());
+
+  // Data packs store the tags of these registries in plural directories
+  private static final Map<String, String> LEGACY_TAG_DIRECTORIES = Map.of(
+      "block", "blocks",
+      "entity_type", "entity_types",
+      "fluid", "fluids",
+      "game_event", "game_events",
+      "item", "items");
+
+  private final Map<Key, Registry> registries;
+
+  private RegistrySnapshot(final Map<Key, Registry> registries) {
+    this.registries = registries;
+  }
+
+  /**
+   * Returns a snapshot without registries.
+   *
+   * @return the empty snapshot.
+   */
+  public static RegistrySnapshot empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a new builder.
+   *
+   * @return the builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the identifiers of the registries in this snapshot.
+   *
+   * @return an unmodifiable set of registry identifiers.
+   */
+  public Set<Key> registries() {
+    return Collections.unmodifiableSet(this.registries.keySet());
+  }
+
+  /**
+   * Returns whether the given registry contains the given entry.
+   *
+   * @param registry the registry identifier.
+   * @param entry the entry identifier.
+   * @return {@code true} if the entry is present.
+   */
+  public boolean containsEntry(final Key registry, final Key entry) {
+    final Registry contents = this.registries.get(registry);
+    return contents != null && contents.entries.contains(entry);
+  }
+
+  /**
+   * Returns whether the given registry contains the given tag.
+   *
+   * @param registry the registry identifier.
+   * @param tag the tag identifier, without the leading {@code #}.
+   * @return {@code true} if the tag is present.
+   */
+  public boolean containsTag(final Key registry, final Key tag) {
+    final Registry contents = this.registries.get(registry);
+    return contents != null && contents.tags.contains(tag);
+  }
+
+  /**
+   * Adds the completions of the remaining input of the given builder to it.
+   *
+   * <p>Like the vanilla client, an input without a namespace matches the
+   * identifiers whose namespace starts with it, and the paths of the
+   * identifiers in the {@code minecraft} namespace. If tags are included,
+   * an input starting with {@code #} completes tags.
+   *
+   * @param registry the registry identifier.
+   * @param includeTags whether to complete tags.
+   * @param builder the suggestions builder.
+   */
+  public void suggest(final Key registry, final boolean includeTags,
+                      final SuggestionsBuilder builder) {
+    final Registry contents = this.registries.get(registry);
+    if (contents == null) {
+      return;
+    }
+    final String remaining = builder.getRemainingLowerCase();
+    if (includeTags && remaining.startsWith("#")) {
+      contents.tags.suggest(remaining.substring(1), "#", builder);
+    } else {
+      if (includeTags && "#".startsWith(remaining)) {
+        contents.tags.suggest("", "#", builder);
+      }
+      contents.entries.suggest(remaining, "", builder);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RegistrySnapshot{registries=" + this.registries.size() + '}';
+  }
+
+  private static final class Registry {
+
+    final Identifiers entries;
+    final Identifiers tags;
+
+    Registry(final Identifiers entries, final Identifiers tags) {
+      this.entries = entries;
+      this.tags = tags;
+    }
+  }
+
+  // The identifiers of a registry, grouped by namespace
+  private static final class Identifiers {
+
+    static final Identifiers EMPTY = of(Collections.emptyList());
+
+    // Namespaces in ascending order, and the paths in each namespace
+    private final String[] namespaces;
+    private final RegistryTrie[] paths;
+
+    private Identifiers(final String[] namespaces, final RegistryTrie[] paths) {
+      this.namespaces = namespaces;
+      this.paths = paths;
+    }
+
+    static Identifiers of(final Collection<Key> ids) {
+      final Map<String, List<String>> byNamespace = new TreeMap<>();
+      for (final Key id : ids) {
+        byNamespace.computeIfAbsent(id.namespace(), key -> new ArrayList<>()).add(id.value());
+      }
+      final String[] namespaces = new String[byNamespace.size()];
+      final RegistryTrie[] paths = new RegistryTrie[namespaces.length];
+      int i = 0;
+      for (final Map.Entry<String, List<String>> namespace : byNamespace.entrySet()) {
+        namespaces[i] = namespace.getKey();
+        paths[i++] = RegistryTrie.of(namespace.getValue());
+      }
+      return new Identifiers(namespaces, paths);
+    }
+
+    boolean contains(final Key id) {
+      final int namespace = Arrays.binarySearch(this.namespaces, id.namespace());
+      return namespace >= 0 && this.paths[namespace].contains(id.value());
+    }
+
+    void suggest(final String input, final String prefix, final SuggestionsBuilder builder) {
+      final int colon = input.indexOf(':');
+      if (colon != -1) {
+        final int namespace = Arrays.binarySearch(this.namespaces, input.substring(0, colon));
+        if (namespace >= 0) {
+          suggestRange(namespace, input.substring(colon + 1), prefix, builder);
+        }
+        return;
+      }
+      // The namespaces starting with the input are contiguous
+      final int first = Arrays.binarySearch(this.namespaces, input);
+      for (int namespace = first >= 0 ? first : -first - 1;
+          namespace < this.namespaces.length && this.namespaces[namespace].startsWith(input);
+          namespace++) {
+        suggestRange(namespace, "", prefix, builder);
+      }
+      // Entries in the default namespace also match their path, unless already matched
+      if (!Key.MINECRAFT_NAMESPACE.startsWith(input)) {
+        final int minecraft = Arrays.binarySearch(this.namespaces, Key.MINECRAFT_NAMESPACE);
+        if (minecraft >= 0) {
+          suggestRange(minecraft, input, prefix, builder);
+        }
+      }
+    }
+
+    private void suggestRange(final int namespace, final String path, final String prefix,
+                              final SuggestionsBuilder builder) {
+      final RegistryTrie trie = this.paths[namespace];
+      final String idPrefix = prefix + this.namespaces[namespace] + ':';
+      final long range = trie.range(path);
+      final int end = RegistryTrie.rangeEnd(range);
+      for (int i = RegistryTrie.rangeStart(range); i < end; i++) {
+        builder.suggest(idPrefix + trie.get(i));
+      }
+    }
+  }
+
+  /**
+   * A builder of {@link RegistrySnapshot registry snapshots}.
+   */
+  public static final class Builder {
+
+    private final Map<Key, List<Key>> entries = new HashMap<>();
+    private final Map<Key, List<Key>> tags = new HashMap<>();
+
+    Builder() {
+    }
+
+    /**
+     * Adds an entry to the given registry.
+     *
+     * @param registry the registry identifier.
+     * @param entry the entry identifier.
+     * @return this builder.
+     */
+    public Builder entry(final Key registry, final Key entry) {
+      this.entries.computeIfAbsent(registry, key -> new ArrayList<>()).add(entry);
+      return this;
+    }
+
+    /**
+     * Adds a tag to the given registry.
+     *
+     * @param registry the registry identifier.
+     * @param tag the tag identifier, without the leading {@code #}.
+     * @return this builder.
+     */
+    public Builder tag(final Key registry, final Key tag) {
+      this.tags.computeIfAbsent(registry, key -> new ArrayList<>()).add(tag);
+      return this;
+    }
+
+    /**
+     * Adds the registries and entries of a {@code registries.json} report,
+     * as generated by the vanilla data generator.
+     *
+     * @param reader the reader of the report.
+     * @return this builder.
+     * @throws IllegalArgumentException if the report is malformed.
+     */
+    public Builder registriesReport(final Reader reader) {
+      try {
+        final JsonElement report = JsonParser.parseReader(reader);
+        if (!report.isJsonObject()) {
+          throw new IllegalArgumentException("Registries report is not an object");
+        }
+        for (final Map.Entry<String, JsonElement> registry
+            : report.getAsJsonObject().entrySet()) {
+          final Key registryKey = Key.key(registry.getKey());
+          this.entries.computeIfAbsent(registryKey, key -> new ArrayList<>());
+          final JsonObject contents = registry.getValue().getAsJsonObject()
+              .getAsJsonObject("entries");
+          if (contents == null) {
+            throw new IllegalArgumentException("Registry " + registry.getKey()
+                + " has no entries");
+          }
+          for (final String entry : contents.keySet()) {
+            entry(registryKey, Key.key(entry));
+          }
+        }
+      } catch (final JsonParseException | IllegalStateException | ClassCastException
+          | InvalidKeyException e) {
+        throw new IllegalArgumentException("Malformed registries report", e);
+      }
+      return this;
+    }
+
+    /**
+     * Adds the tags defined by a data pack to the registries added so far.
+     * As in vanilla, tag files whose name isn't a valid identifier, e.g.
+     * because it contains uppercase letters, are skipped.
+     *
+     * @param dataDirectory the {@code data} directory of the data pack.
+     * @return this builder.
+     * @throws UncheckedIOException if an I/O error occurs while listing the tags.
+     */
+    public Builder dataPackTags(final Path dataDirectory) {
+      try (final Stream<Path> namespaces = Files.list(dataDirectory)) {
+        for (final Path namespace : (Iterable<Path>) namespaces::iterator) {
+          final Path tagsDirectory = namespace.resolve("tags");
+          if (!Files.isDirectory(tagsDirectory)) {
+            continue;
+          }
+          for (final Key registry : this.entries.keySet()) {
+            addTags(registry, namespace.getFileName().toString(),
+                tagsDirectory.resolve(tagDirectory(registry)));
+          }
+        }
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return this;
+    }
+
+    private static String tagDirectory(final Key registry) {
+      if (!Key.MINECRAFT_NAMESPACE.equals(registry.namespace())) {
+        return registry.namespace() + '/' + registry.value();
+      }
+      return LEGACY_TAG_DIRECTORIES.getOrDefault(registry.value(), registry.value());
+    }
+
+    private void addTags(final Key registry, final String namespace, final Path directory)
+        throws IOException {
+      if (!Files.isDirectory(directory)) {
+        return;
+      }
+      try (final Stream<Path> files = Files.walk(directory)) {
+        for (final Path file : (Iterable<Path>) files::iterator) {
+          final String name = file.getFileName().toString();
+          if (!name.endsWith(".json") || !Files.isRegularFile(file)) {
+            continue;
+          }
+          final String path = directory.relativize(file).toString()
+              .replace(file.getFileSystem().getSeparator(), "/");
+          final Key tag;
+          try {
+            tag = Key.key(namespace, path.substring(0, path.length() - ".json".length()));
+          } catch (final InvalidKeyException e) {
+            continue; // vanilla skips files whose name isn't a valid identifier
+          }
+          tag(registry, tag);
+        }
+      }
+    }
+
+    /**
+     * Builds the snapshot.
+     *
+     * @return the snapshot.
+     */
+    public RegistrySnapshot build() {
+      final Map<Key, Registry> registries = new HashMap<>();
+      for (final Map.Entry<Key, List<Key>> registry : this.entries.entrySet()) {
+        final List<Key> tags = this.tags.get(registry.getKey());
+        registries.put(registry.getKey(), new Registry(Identifiers.of(registry.getValue()),
+            tags != null ? Identifiers.of(tags) : Identifiers.EMPTY));
+      }
+      for (final Map.Entry<Key, List<Key>> registry : this.tags.entrySet()) {
+        registries.putIfAbsent(registry.getKey(),
+            new Registry(Identifiers.EMPTY, Identifiers.of(registry.getValue())));
+      }
+      return new RegistrySnapshot(registries);
+    }
+  }
+}
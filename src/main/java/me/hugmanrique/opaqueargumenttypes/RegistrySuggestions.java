@@ -0,0 +1,105 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import java.util.Objects;
+import net.kyori.adventure.key.Key;
+
+/**
+ * Completes the input of the resource parsers on the proxy from the current
+ * {@link RegistrySnapshot registry snapshot}, without asking the backend
+ * server for suggestions.
+ *
+ * <p>The providers must be set on argument nodes that the proxy parses itself,
+ * as described in the {@linkplain me.hugmanrique.opaqueargumenttypes package
+ * documentation}. Since resource identifiers contain
+ * a colon, which isn't allowed in an unquoted string, such a node is typically
+ * a {@link StringArgumentType#greedyString() greedy string} ending the command.
+ *
+ * <p>The snapshot can be replaced at any time, e.g. when the backend servers
+ * reload their data packs. Suggestion requests always see either the
+ * previous or the new snapshot in its entirety.
+ */
+public final class RegistrySuggestions {
+
+  private volatile RegistrySnapshot snapshot;
+
+  /**
+   * Constructs a suggestion source without registries.
+   */
+  public RegistrySuggestions() {
+    this(RegistrySnapshot.empty());
+  }
+
+  /**
+   * Constructs a suggestion source with the given initial snapshot.
+   *
+   * @param snapshot the registry snapshot.
+   */
+  public RegistrySuggestions(final RegistrySnapshot snapshot) {
+    this.snapshot = Objects.requireNonNull(snapshot);
+  }
+
+  /**
+   * Returns the current registry snapshot.
+   *
+   * @return the snapshot.
+   */
+  public RegistrySnapshot snapshot() {
+    return this.snapshot;
+  }
+
+  /**
+   * Replaces the current registry snapshot.
+   *
+   * @param snapshot the new snapshot.
+   */
+  public void update(final RegistrySnapshot snapshot) {
+    this.snapshot = Objects.requireNonNull(snapshot);
+  }
+
+  /**
+   * Returns a suggestion provider that completes the entries of the given registry,
+   * and its tags if the parser accepts them.
+   *
+   * @param parser the resource parser, i.e. {@link ArgumentParser#RESOURCE},
+   *     {@link ArgumentParser#RESOURCE_KEY}, {@link ArgumentParser#RESOURCE_OR_TAG} or
+   *     {@link ArgumentParser#RESOURCE_OR_TAG_KEY}.
+   * @param registry the registry identifier.
+   * @param <S> the type of the command source.
+   * @return the suggestion provider.
+   * @throws IllegalArgumentException if the parser doesn't read registry entries.
+   */
+  public <S> SuggestionProvider<S> provider(final ArgumentParser parser, final Key registry) {
+    final boolean includeTags;
+    switch (parser) {
+      case RESOURCE:
+      case RESOURCE_KEY:
+        includeTags = false;
+        break;
+      case RESOURCE_OR_TAG:
+      case RESOURCE_OR_TAG_KEY:
+        includeTags = true;
+        break;
+      default:
+        throw new IllegalArgumentException("Parser " + parser.key().asString()
+            + " doesn't read registry entries");
+    }
+    return (context, builder) -> {
+      this.snapshot.suggest(registry, includeTags, builder);
+      return builder.buildFuture();
+    };
+  }
+
+  /**
+   * Returns a suggestion provider for the described argument type.
+   *
+   * @param descriptor the descriptor of a resource argument type.
+   * @param <S> the type of the command source.
+   * @return the suggestion provider.
+   * @see #provider(ArgumentParser, Key)
+   */
+  public <S> SuggestionProvider<S> provider(final ArgumentDescriptor.Resource descriptor) {
+    return provider(descriptor.parser(), descriptor.registry());
+  }
+}
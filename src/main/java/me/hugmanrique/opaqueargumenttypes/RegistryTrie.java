@@ -0,0 +1,189 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A radix tree of the paths of the identifiers in a namespace of a registry,
+ * which finds the paths that start with a given prefix.
+ *
+ * <p>The paths are stored once, in ascending order, so the paths with a
+ * common prefix occupy a contiguous range of the array. Each node of the
+ * tree covers the range of the paths that share its label, and its label
+ * is implicitly the first {@code depth} characters of any of them. The nodes are
+ * stored in parallel {@code int} arrays, so the tree takes a few words per node
+ * and a lookup doesn't allocate.
+ */
+final class RegistryTrie {
+
+  private final String[] ids;
+
+  // Node data, indexed by node number. The root is node 0.
+  private final int[] depths;
+  private final int[] firsts;
+  private final int[] ends;
+  private final int[] childOffsets;
+  private final int[] childCounts;
+  // Child node numbers, sorted by their branch character
+  private final int[] children;
+
+  private RegistryTrie(final String[] ids, final Builder builder) {
+    this.ids = ids;
+    this.depths = Arrays.copyOf(builder.depths, builder.nodeCount);
+    this.firsts = Arrays.copyOf(builder.firsts, builder.nodeCount);
+    this.ends = Arrays.copyOf(builder.ends, builder.nodeCount);
+    this.childOffsets = Arrays.copyOf(builder.childOffsets, builder.nodeCount);
+    this.childCounts = Arrays.copyOf(builder.childCounts, builder.nodeCount);
+    this.children = Arrays.copyOf(builder.children, builder.childCount);
+  }
+
+  /**
+   * Creates a trie of the given identifiers.
+   *
+   * @param ids the identifiers, possibly containing duplicates.
+   * @return the trie.
+   */
+  static RegistryTrie of(final Collection<String> ids) {
+    final String[] sorted = ids.stream().distinct().sorted().toArray(String[]::new);
+    final Builder builder = new Builder(sorted);
+    if (sorted.length > 0) {
+      builder.build(0, sorted.length);
+    }
+    return new RegistryTrie(sorted, builder);
+  }
+
+  String get(final int index) {
+    return this.ids[index];
+  }
+
+  boolean contains(final String id) {
+    return Arrays.binarySearch(this.ids, id) >= 0;
+  }
+
+  /**
+   * Returns the range of the identifiers that start with the given prefix.
+   *
+   * @param prefix the prefix.
+   * @return the start index (inclusive) in the high 32 bits and the end index
+   *     (exclusive) in the low 32 bits, both zero if no identifiers match.
+   */
+  long range(final String prefix) {
+    if (this.ids.length == 0) {
+      return 0;
+    }
+    int node = 0;
+    int matched = 0;
+    while (true) {
+      final int depth = this.depths[node];
+      final String label = this.ids[this.firsts[node]];
+      final int length = Math.min(depth, prefix.length()) - matched;
+      if (!prefix.regionMatches(matched, label, matched, length)) {
+        return 0;
+      }
+      if (prefix.length() <= depth) {
+        return ((long) this.firsts[node] << 32) | this.ends[node];
+      }
+      node = child(node, depth, prefix.charAt(depth));
+      if (node == -1) {
+        return 0;
+      }
+      matched = depth;
+    }
+  }
+
+  private int child(final int node, final int depth, final char c) {
+    int low = this.childOffsets[node];
+    int high = low + this.childCounts[node] - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final char branch = this.ids[this.firsts[this.children[mid]]].charAt(depth);
+      if (branch < c) {
+        low = mid + 1;
+      } else if (branch > c) {
+        high = mid - 1;
+      } else {
+        return this.children[mid];
+      }
+    }
+    return -1;
+  }
+
+  static int rangeStart(final long range) {
+    return (int) (range >>> 32);
+  }
+
+  static int rangeEnd(final long range) {
+    return (int) range;
+  }
+
+  private static final class Builder {
+
+    private final String[] ids;
+    int nodeCount;
+    int[] depths = new int[16];
+    int[] firsts = new int[16];
+    int[] ends = new int[16];
+    int[] childOffsets = new int[16];
+    int[] childCounts = new int[16];
+    int childCount;
+    int[] children = new int[16];
+
+    Builder(final String[] ids) {
+      this.ids = ids;
+    }
+
+    int build(final int first, final int end) {
+      final int node = this.nodeCount++;
+      if (node == this.depths.length) {
+        final int capacity = node * 2;
+        this.depths = Arrays.copyOf(this.depths, capacity);
+        this.firsts = Arrays.copyOf(this.firsts, capacity);
+        this.ends = Arrays.copyOf(this.ends, capacity);
+        this.childOffsets = Arrays.copyOf(this.childOffsets, capacity);
+        this.childCounts = Arrays.copyOf(this.childCounts, capacity);
+      }
+
+      // In a sorted range, the common prefix of the first and last IDs is shared by all
+      final int depth = commonPrefixLength(this.ids[first], this.ids[end - 1]);
+      this.depths[node] = depth;
+      this.firsts[node] = first;
+      this.ends[node] = end;
+
+      // An ID equal to the label sorts first, and isn't covered by any child
+      int start = first;
+      if (this.ids[start].length() == depth) {
+        start++;
+      }
+      final int[] nodes = new int[end - start];
+      int count = 0;
+      while (start < end) {
+        final char branch = this.ids[start].charAt(depth);
+        int runEnd = start + 1;
+        while (runEnd < end && this.ids[runEnd].charAt(depth) == branch) {
+          runEnd++;
+        }
+        nodes[count++] = build(start, runEnd);
+        start = runEnd;
+      }
+
+      if (this.childCount + count > this.children.length) {
+        this.children = Arrays.copyOf(this.children,
+            Math.max(this.children.length * 2, this.childCount + count));
+      }
+      System.arraycopy(nodes, 0, this.children, this.childCount, count);
+      this.childOffsets[node] = this.childCount;
+      this.childCounts[node] = count;
+      this.childCount += count;
+      return node;
+    }
+
+    private static int commonPrefixLength(final String a, final String b) {
+      final int length = Math.min(a.length(), b.length());
+      int i = 0;
+      while (i < length && a.charAt(i) == b.charAt(i)) {
+        i++;
+      }
+      return i;
+    }
+  }
+}
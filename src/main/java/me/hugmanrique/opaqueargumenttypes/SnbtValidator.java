@@ -0,0 +1,600 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.StringReader;
+
+/**
+ * Validates the input of the NBT parsers on the proxy, so malformed or
+ * abusive input can be rejected without forwarding it to the backend server.
+ *
+ * <p>The validator accepts the same SNBT and NBT path grammars as the
+ * vanilla parsers, including the rule that the elements of a list or array
+ * must have the same type. It scans the input in a single pass without
+ * building any tags, and stops as soon as the input exceeds one of its limits,
+ * so the work done is bounded by the limits rather than the input size. The
+ * only memory used is one stack frame per nesting level.
+ *
+ * <p>Validators are immutable and can be shared between threads.
+ */
+public final class SnbtValidator {
+
+  /**
+   * A validator with the maximum nesting depth accepted by the vanilla client
+   * when reading NBT, and limits suitable for the input of a command.
+   */
+  public static final SnbtValidator DEFAULT = new SnbtValidator(512, 32767, 4096);
+
+  /**
+   * The result of a validation.
+   */
+  public enum Result {
+    /** The input is valid. */
+    VALID,
+    /** The input doesn't follow the grammar of the parser. */
+    MALFORMED,
+    /** The input nests compounds and lists deeper than the depth limit. */
+    TOO_DEEP,
+    /** The input is longer than the length limit. */
+    TOO_LONG,
+    /** The input contains more tags than the element limit. */
+    TOO_MANY_ELEMENTS
+  }
+
+  // Tag types, which lists and arrays require to be uniform
+  private static final int BYTE = 1;
+  private static final int SHORT = 2;
+  private static final int INT = 3;
+  private static final int LONG = 4;
+  private static final int FLOAT = 5;
+  private static final int DOUBLE = 6;
+  private static final int BYTE_ARRAY = 7;
+  private static final int STRING = 8;
+  private static final int LIST = 9;
+  private static final int COMPOUND = 10;
+  private static final int INT_ARRAY = 11;
+  private static final int LONG_ARRAY = 12;
+
+  private final int maxDepth;
+  private final int maxLength;
+  private final int maxElements;
+
+  /**
+   * Constructs a validator with the given limits.
+   *
+   * @param maxDepth the maximum number of nested compounds, lists and arrays.
+   * @param maxLength the maximum number of characters of the input.
+   * @param maxElements the maximum number of tags in the input.
+   * @throws IllegalArgumentException if a limit isn't positive.
+   */
+  public SnbtValidator(final int maxDepth, final int maxLength, final int maxElements) {
+    if (maxDepth <= 0 || maxLength <= 0 || maxElements <= 0) {
+      throw new IllegalArgumentException("Limits must be positive");
+    }
+    this.maxDepth = maxDepth;
+    this.maxLength = maxLength;
+    this.maxElements = maxElements;
+  }
+
+  /**
+   * Validates the input starting at the cursor of the given reader for the
+   * given parser. The input must be followed by a space or the end of the string.
+   *
+   * <p>If the input is valid, the cursor is moved past it.
+   * Otherwise, the cursor is left unchanged.
+   *
+   * @param parser the parser, i.e. {@link ArgumentParser#NBT},
+   *     {@link ArgumentParser#NBT_COMPOUND_TAG}, {@link ArgumentParser#NBT_TAG} or
+   *     {@link ArgumentParser#NBT_PATH}.
+   * @param reader the reader.
+   * @return the validation result.
+   * @throws IllegalArgumentException if the parser doesn't read NBT.
+   */
+  public Result validate(final ArgumentParser parser, final StringReader reader) {
+    final Scanner scanner = new Scanner(reader.getString(), reader.getCursor());
+    try {
+      switch (parser) {
+        case NBT:
+        case NBT_COMPOUND_TAG:
+          scanner.compound(0);
+          break;
+        case NBT_TAG:
+          scanner.value(0);
+          break;
+        case NBT_PATH:
+          scanner.path();
+          break;
+        default:
+          throw new IllegalArgumentException("Parser " + parser.key().asString()
+              + " doesn't read NBT");
+      }
+      scanner.argumentEnd();
+    } catch (final Failure failure) {
+      return failure.result;
+    }
+    reader.setCursor(scanner.pos);
+    return Result.VALID;
+  }
+
+  /**
+   * Validates the given string, which must only contain the input of the given parser.
+   *
+   * @param parser the parser.
+   * @param input the input string.
+   * @return the validation result.
+   * @throws IllegalArgumentException if the parser doesn't read NBT.
+   * @see #validate(ArgumentParser, StringReader)
+   */
+  public Result validate(final ArgumentParser parser, final String input) {
+    final StringReader reader = new StringReader(input);
+    final Result result = validate(parser, reader);
+    if (result == Result.VALID && reader.canRead()) {
+      return Result.MALFORMED;
+    }
+    return result;
+  }
+
+  /**
+   * Scans the compound tag starting at the given index, which may be followed
+   * by any character, such as the {@code nbt} option of an entity selector.
+   *
+   * @param input the input string.
+   * @param start the index of the opening brace.
+   * @return the index following the compound, or {@code -1} if it isn't valid.
+   */
+  int scanCompound(final String input, final int start) {
+    final Scanner scanner = new Scanner(input, start);
+    try {
+      scanner.compound(0);
+    } catch (final Failure failure) {
+      return -1;
+    }
+    return scanner.pos;
+  }
+
+  // Thrown without a stack trace to unwind the recursive descent
+  private static final class Failure extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Failure MALFORMED = new Failure(Result.MALFORMED);
+    private static final Failure TOO_DEEP = new Failure(Result.TOO_DEEP);
+    private static final Failure TOO_LONG = new Failure(Result.TOO_LONG);
+    private static final Failure TOO_MANY_ELEMENTS = new Failure(Result.TOO_MANY_ELEMENTS);
+
+    final Result result;
+
+    private Failure(final Result result) {
+      super(null, null, false, false);
+      this.result = result;
+    }
+  }
+
+  private final class Scanner {
+
+    private final String input;
+    // The scanner treats the input as ending at the limit
+    private final int limit;
+    private final boolean truncated;
+    int pos;
+    private int elements;
+
+    Scanner(final String input, final int start) {
+      this.input = input;
+      this.limit = (int) Math.min(input.length(), (long) start + SnbtValidator.this.maxLength);
+      this.truncated = this.limit < input.length();
+      this.pos = start;
+    }
+
+    private Failure malformed() {
+      // Running out of input at the limit means that the input is too long
+      return this.truncated && this.pos >= this.limit ? Failure.TOO_LONG : Failure.MALFORMED;
+    }
+
+    private boolean canRead() {
+      return this.pos < this.limit;
+    }
+
+    private char peek() {
+      if (this.pos >= this.limit) {
+        throw malformed();
+      }
+      return this.input.charAt(this.pos);
+    }
+
+    private void skipWhitespace() {
+      while (canRead() && Character.isWhitespace(this.input.charAt(this.pos))) {
+        this.pos++;
+      }
+    }
+
+    private void expect(final char c) {
+      if (peek() != c) {
+        throw malformed();
+      }
+      this.pos++;
+    }
+
+    // Matches TagParser.expect, which skips whitespace first
+    private void expectAfterWhitespace(final char c) {
+      skipWhitespace();
+      expect(c);
+    }
+
+    private void countElement() {
+      if (++this.elements > SnbtValidator.this.maxElements) {
+        throw Failure.TOO_MANY_ELEMENTS;
+      }
+    }
+
+    private int nest(final int depth) {
+      if (depth >= SnbtValidator.this.maxDepth) {
+        throw Failure.TOO_DEEP;
+      }
+      return depth + 1;
+    }
+
+    void argumentEnd() {
+      if (this.pos < this.input.length() && this.input.charAt(this.pos) != ' ') {
+        throw malformed();
+      }
+    }
+
+    int value(final int depth) {
+      skipWhitespace();
+      final char c = peek();
+      if (c == '{') {
+        return compound(depth);
+      } else if (c == '[') {
+        return listOrArray(depth);
+      }
+      return typedValue();
+    }
+
+    int compound(final int depth) {
+      countElement();
+      final int inner = nest(depth);
+      expectAfterWhitespace('{');
+      skipWhitespace();
+      while (canRead() && this.input.charAt(this.pos) != '}') {
+        skipWhitespace();
+        peek(); // expected key
+        if (string() == 0) {
+          throw malformed(); // empty key
+        }
+        expectAfterWhitespace(':');
+        value(inner);
+        if (!elementSeparator()) {
+          break;
+        }
+        if (!canRead()) {
+          throw malformed(); // expected key
+        }
+      }
+      expectAfterWhitespace('}');
+      return COMPOUND;
+    }
+
+    private int listOrArray(final int depth) {
+      if (this.pos + 2 < this.limit && !isQuotedStringStart(this.input.charAt(this.pos + 1))
+          && this.input.charAt(this.pos + 2) == ';') {
+        return array(depth);
+      }
+      return list(depth);
+    }
+
+    private int list(final int depth) {
+      countElement();
+      final int inner = nest(depth);
+      expectAfterWhitespace('[');
+      skipWhitespace();
+      int type = -1;
+      while (peek() != ']') {
+        final int elementType = value(inner);
+        if (type == -1) {
+          type = elementType;
+        } else if (elementType != type) {
+          throw Failure.MALFORMED; // mixed list
+        }
+        if (!elementSeparator()) {
+          break;
+        }
+        peek(); // expected value
+      }
+      expectAfterWhitespace(']');
+      return LIST;
+    }
+
+    private int array(final int depth) {
+      countElement();
+      final int inner = nest(depth);
+      expectAfterWhitespace('[');
+      final char arrayType = peek();
+      this.pos += 2; // type and semicolon
+      skipWhitespace();
+      peek(); // expected value
+      final int elementType;
+      final int type;
+      if (arrayType == 'B') {
+        elementType = BYTE;
+        type = BYTE_ARRAY;
+      } else if (arrayType == 'I') {
+        elementType = INT;
+        type = INT_ARRAY;
+      } else if (arrayType == 'L') {
+        elementType = LONG;
+        type = LONG_ARRAY;
+      } else {
+        throw Failure.MALFORMED; // invalid array type
+      }
+      while (peek() != ']') {
+        if (value(inner) != elementType) {
+          throw Failure.MALFORMED; // mixed array
+        }
+        if (!elementSeparator()) {
+          break;
+        }
+        peek(); // expected value
+      }
+      expectAfterWhitespace(']');
+      return type;
+    }
+
+    private boolean elementSeparator() {
+      skipWhitespace();
+      if (canRead() && this.input.charAt(this.pos) == ',') {
+        this.pos++;
+        skipWhitespace();
+        return true;
+      }
+      return false;
+    }
+
+    private int typedValue() {
+      countElement();
+      skipWhitespace();
+      if (isQuotedStringStart(peek())) {
+        quotedString();
+        return STRING;
+      }
+      final int start = this.pos;
+      unquotedString();
+      if (this.pos == start) {
+        throw malformed(); // expected value
+      }
+      return SnbtTypes.unquotedType(this.input, start, this.pos);
+    }
+
+    /**
+     * Scans a quoted or unquoted string, and returns its length in
+     * characters (excluding quotes and escapes).
+     */
+    private int string() {
+      if (!canRead()) {
+        return 0;
+      }
+      if (isQuotedStringStart(this.input.charAt(this.pos))) {
+        return quotedString();
+      }
+      final int start = this.pos;
+      unquotedString();
+      return this.pos - start;
+    }
+
+    private int quotedString() {
+      final char terminator = this.input.charAt(this.pos++);
+      int length = 0;
+      boolean escaped = false;
+      while (canRead()) {
+        final char c = this.input.charAt(this.pos++);
+        if (escaped) {
+          if (c != terminator && c != '\\') {
+            this.pos--;
+            throw Failure.MALFORMED; // invalid escape sequence
+          }
+          escaped = false;
+          length++;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == terminator) {
+          return length;
+        } else {
+          length++;
+        }
+      }
+      throw malformed(); // expected end of quote
+    }
+
+    private void unquotedString() {
+      while (canRead() && isAllowedInUnquotedString(this.input.charAt(this.pos))) {
+        this.pos++;
+      }
+    }
+
+    void path() {
+      boolean root = true;
+      while (canRead() && this.input.charAt(this.pos) != ' ') {
+        pathNode(root);
+        root = false;
+        if (canRead()) {
+          final char c = this.input.charAt(this.pos);
+          if (c != ' ' && c != '[' && c != '{') {
+            expect('.');
+          }
+        }
+      }
+    }
+
+    private void pathNode(final boolean root) {
+      countElement();
+      final char c = peek();
+      if (isQuotedStringStart(c)) {
+        quotedString();
+        objectNode();
+      } else if (c == '[') {
+        this.pos++;
+        final char next = peek();
+        if (next == '{') {
+          compound(0);
+          expect(']');
+        } else if (next == ']') {
+          this.pos++;
+        } else {
+          final int start = this.pos;
+          this.pos = NumberScanner.scanNumber(this.input, start);
+          if (this.pos > this.limit) {
+            this.pos = this.limit;
+            throw malformed();
+          }
+          if (!NumberScanner.isInt(this.input, start, this.pos)) {
+            throw malformed();
+          }
+          expect(']');
+        }
+      } else if (c == '{') {
+        if (!root) {
+          throw Failure.MALFORMED; // a root compound must come first
+        }
+        compound(0);
+      } else {
+        final int start = this.pos;
+        while (canRead() && isAllowedInUnquotedName(this.input.charAt(this.pos))) {
+          this.pos++;
+        }
+        if (this.pos == start) {
+          throw malformed();
+        }
+        objectNode();
+      }
+    }
+
+    private void objectNode() {
+      if (canRead() && this.input.charAt(this.pos) == '{') {
+        compound(0);
+      }
+    }
+  }
+
+  private static boolean isQuotedStringStart(final char c) {
+    return c == '"' || c == '\'';
+  }
+
+  private static boolean isAllowedInUnquotedString(final char c) {
+    return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')
+        || c == '_' || c == '-' || c == '.' || c == '+';
+  }
+
+  private static boolean isAllowedInUnquotedName(final char c) {
+    return c != ' ' && c != '"' && c != '\'' && c != '[' && c != ']' && c != '.'
+        && c != '{' && c != '}';
+  }
+
+  /**
+   * Classifies unquoted SNBT values like {@code TagParser.type}, which
+   * reads values that look like out-of-range integers as strings.
+   */
+  private static final class SnbtTypes {
+
+    static int unquotedType(final String input, final int start, final int end) {
+      final int length = end - start;
+      if ((length == 4 && input.regionMatches(true, start, "true", 0, 4))
+          || (length == 5 && input.regionMatches(true, start, "false", 0, 5))) {
+        return BYTE;
+      }
+      final char last = Character.toLowerCase(input.charAt(end - 1));
+      switch (last) {
+        case 'b':
+          return integerType(input, start, end - 1, Byte.MIN_VALUE, Byte.MAX_VALUE, BYTE);
+        case 's':
+          return integerType(input, start, end - 1, Short.MIN_VALUE, Short.MAX_VALUE, SHORT);
+        case 'l':
+          return integerType(input, start, end - 1, Long.MIN_VALUE, Long.MAX_VALUE, LONG);
+        case 'f':
+          return isDecimal(input, start, end - 1, false) ? FLOAT : STRING;
+        case 'd':
+          return isDecimal(input, start, end - 1, false) ? DOUBLE : STRING;
+        default:
+          if (isDecimal(input, start, end, true)) {
+            return DOUBLE;
+          }
+          return integerType(input, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE, INT);
+      }
+    }
+
+    // Matches [-+]?(?:0|[1-9][0-9]*) and checks the value is within [min, max]
+    private static int integerType(final String input, int index, final int end,
+                                   final long min, final long max, final int type) {
+      final boolean negative = index < end && input.charAt(index) == '-';
+      if (index < end && (input.charAt(index) == '-' || input.charAt(index) == '+')) {
+        index++;
+      }
+      if (index == end || (input.charAt(index) == '0' && end - index > 1)) {
+        return STRING;
+      }
+      // Accumulate negatively, since the magnitude of the minimum exceeds the maximum
+      final long limit = negative ? min : -max;
+      long value = 0;
+      for (; index < end; index++) {
+        final char c = input.charAt(index);
+        if (c < '0' || c > '9') {
+          return STRING;
+        }
+        final int digit = c - '0';
+        if (value < limit / 10 || value * 10 < limit + digit) {
+          return STRING; // out of range, which the parse method rejects
+        }
+        value = value * 10 - digit;
+      }
+      return type;
+    }
+
+    // Matches [-+]?(?:[0-9]+[.]?|[0-9]*[.][0-9]+)(?:e[-+]?[0-9]+)?, requiring
+    // the dot if there is no type suffix
+    private static boolean isDecimal(final String input, int index, final int end,
+                                     final boolean requireDot) {
+      if (index < end && (input.charAt(index) == '-' || input.charAt(index) == '+')) {
+        index++;
+      }
+      int integerDigits = 0;
+      while (index < end && isDigit(input.charAt(index))) {
+        index++;
+        integerDigits++;
+      }
+      int fractionDigits = 0;
+      final boolean dot = index < end && input.charAt(index) == '.';
+      if (dot) {
+        index++;
+        while (index < end && isDigit(input.charAt(index))) {
+          index++;
+          fractionDigits++;
+        }
+      }
+      if (integerDigits == 0 && fractionDigits == 0) {
+        return false;
+      }
+      if (requireDot && !dot) {
+        return false;
+      }
+      if (index < end && Character.toLowerCase(input.charAt(index)) == 'e') {
+        index++;
+        if (index < end && (input.charAt(index) == '-' || input.charAt(index) == '+')) {
+          index++;
+        }
+        final int exponentStart = index;
+        while (index < end && isDigit(input.charAt(index))) {
+          index++;
+        }
+        if (index == exponentStart) {
+          return false;
+        }
+      }
+      return index == end;
+    }
+
+    private static boolean isDigit(final char c) {
+      return c >= '0' && c <= '9';
+    }
+
+    private SnbtTypes() {
+      throw new AssertionError();
+    }
+  }
+}
@@ -0,0 +1,291 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.mojang.brigadier.context.StringRange;
+import com.mojang.brigadier.suggestion.IntegerSuggestion;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the suggestions of backend servers for arguments whose completions
+ * rarely change, such as those of {@code minecraft:dimension},
+ * {@code minecraft:mob_effect} or {@code minecraft:particle}.
+ *
+ * <p>The {@linkplain #provider(ArgumentParser) provider} must be set on an
+ * argument node the proxy parses itself, as described in the
+ * {@linkplain me.hugmanrique.opaqueargumenttypes package documentation}.
+ *
+ * <p>Suggestions are cached by backend server, client protocol version,
+ * parser and the argument input up to the cursor, so the same entry answers
+ * requests from every command that uses the parser. The ranges of the cached
+ * suggestions are relative to the start of the argument, and are rebased on
+ * each hit. Entries expire a fixed time after they're written, and the least
+ * recently used entries are evicted once the cache is full.
+ *
+ * <p>Misses are forwarded to an {@link SuggestionCoalescer.Upstream}, which may
+ * be a {@link SuggestionCoalescer} to also deduplicate concurrent misses.
+ * Caches can be shared between threads.
+ */
+public final class SuggestionCache {
+
+  private static final Suggestions EMPTY = new Suggestions(StringRange.at(0), List.of());
+
+  private final SuggestionCoalescer.Upstream upstream;
+  private final Cache<Entry, Suggestions> cache;
+
+  private SuggestionCache(final Builder builder) {
+    this.upstream = builder.upstream;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(builder.maximumSize)
+        .expireAfterWrite(builder.expireAfterWrite.toNanos(), TimeUnit.NANOSECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Creates a new builder of a cache that forwards misses to the given upstream.
+   *
+   * @param upstream the upstream.
+   * @return the builder.
+   */
+  public static Builder builder(final SuggestionCoalescer.Upstream upstream) {
+    return new Builder(upstream);
+  }
+
+  /**
+   * Suggests completions for the argument of the given builder, from the cache
+   * or the backend server.
+   *
+   * <p>Suggestions are only cached if they don't replace input before the start
+   * of the argument.
+   *
+   * @param server the backend server.
+   * @param version the protocol version of the client.
+   * @param parser the parser of the argument.
+   * @param builder the suggestions builder.
+   * @return a future completed with the suggestions.
+   */
+  public CompletableFuture<Suggestions> suggest(final RegisteredServer server,
+                                                final ProtocolVersion version,
+                                                final ArgumentParser parser,
+                                                final SuggestionsBuilder builder) {
+    final int start = builder.getStart();
+    final Entry entry = new Entry(server, version, parser, builder.getRemaining());
+    final Suggestions cached = this.cache.getIfPresent(entry);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(shift(cached, start));
+    }
+    return this.upstream.request(server, builder.getInput()).thenApply(suggestions -> {
+      if (suggestions.isEmpty()) {
+        this.cache.put(entry, EMPTY);
+      } else if (suggestions.getRange().getStart() >= start) {
+        this.cache.put(entry, shift(suggestions, -start));
+      }
+      return suggestions;
+    });
+  }
+
+  /**
+   * Returns a suggestion provider for arguments whose input the backend server
+   * completes like the given parser, which answers the requests of players from
+   * the cache. Misses are forwarded to the server the player is connected to.
+   * Other command sources, and players that aren't connected to a server, are
+   * given no suggestions.
+   *
+   * @param parser the parser whose completions are cached.
+   * @return the suggestion provider.
+   */
+  public SuggestionProvider<CommandSource> provider(final ArgumentParser parser) {
+    Objects.requireNonNull(parser);
+    return (context, builder) -> {
+      if (context.getSource() instanceof Player) {
+        final Player player = (Player) context.getSource();
+        final RegisteredServer server = player.getCurrentServer()
+            .map(ServerConnection::getServer)
+            .orElse(null);
+        if (server != null) {
+          return suggest(server, player.getProtocolVersion(), parser, builder);
+        }
+      }
+      return builder.buildFuture();
+    };
+  }
+
+  /**
+   * Discards the cached suggestions of the given backend server,
+   * e.g. after it reloads its data packs.
+   *
+   * @param server the backend server.
+   */
+  public void invalidate(final RegisteredServer server) {
+    this.cache.asMap().keySet().removeIf(entry -> entry.server.equals(server));
+  }
+
+  /**
+   * Discards all the cached suggestions.
+   */
+  public void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * Returns the approximate number of cached entries.
+   *
+   * @return the number of entries.
+   */
+  public long size() {
+    return this.cache.size();
+  }
+
+  /**
+   * Returns the number of requests answered from the cache.
+   *
+   * @return the number of hits.
+   */
+  public long hitCount() {
+    return this.cache.stats().hitCount();
+  }
+
+  /**
+   * Returns the number of requests forwarded to a backend server.
+   *
+   * @return the number of misses.
+   */
+  public long missCount() {
+    return this.cache.stats().missCount();
+  }
+
+  /**
+   * Returns the ratio of requests answered from the cache,
+   * or {@code 1} if there were no requests.
+   *
+   * @return the hit rate.
+   */
+  public double hitRate() {
+    return this.cache.stats().hitRate();
+  }
+
+  // Shifts the ranges of the given suggestions by the given offset
+  private static Suggestions shift(final Suggestions suggestions, final int offset) {
+    if (offset == 0) {
+      return suggestions;
+    }
+    final List<Suggestion> list = suggestions.getList();
+    final List<Suggestion> shifted = new ArrayList<>(list.size());
+    for (final Suggestion suggestion : list) {
+      final StringRange range = shift(suggestion.getRange(), offset);
+      if (suggestion instanceof IntegerSuggestion) {
+        shifted.add(new IntegerSuggestion(range, ((IntegerSuggestion) suggestion).getValue(),
+            suggestion.getTooltip()));
+      } else {
+        shifted.add(new Suggestion(range, suggestion.getText(), suggestion.getTooltip()));
+      }
+    }
+    return new Suggestions(shift(suggestions.getRange(), offset), shifted);
+  }
+
+  private static StringRange shift(final StringRange range, final int offset) {
+    return new StringRange(range.getStart() + offset, range.getEnd() + offset);
+  }
+
+  /**
+   * A builder of {@link SuggestionCache suggestion caches}.
+   */
+  public static final class Builder {
+
+    private final SuggestionCoalescer.Upstream upstream;
+    private long maximumSize = 10_000;
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+    private Builder(final SuggestionCoalescer.Upstream upstream) {
+      this.upstream = Objects.requireNonNull(upstream);
+    }
+
+    /**
+     * Sets the maximum number of cached entries. Defaults to 10,000.
+     *
+     * @param maximumSize the maximum number of entries.
+     * @return this builder.
+     * @throws IllegalArgumentException if the size is negative.
+     */
+    public Builder maximumSize(final long maximumSize) {
+      if (maximumSize < 0) {
+        throw new IllegalArgumentException("Maximum size must be non-negative");
+      }
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * Sets the time after which an entry expires once written. Defaults to 5 minutes.
+     *
+     * @param expireAfterWrite the time to live of an entry.
+     * @return this builder.
+     * @throws IllegalArgumentException if the duration is negative.
+     */
+    public Builder expireAfterWrite(final Duration expireAfterWrite) {
+      if (expireAfterWrite.isNegative()) {
+        throw new IllegalArgumentException("Expiration time must be non-negative");
+      }
+      this.expireAfterWrite = expireAfterWrite;
+      return this;
+    }
+
+    /**
+     * Builds the suggestion cache.
+     *
+     * @return the cache.
+     */
+    public SuggestionCache build() {
+      return new SuggestionCache(this);
+    }
+  }
+
+  private static final class Entry {
+
+    final RegisteredServer server;
+    final ProtocolVersion version;
+    final ArgumentParser parser;
+    final String remaining;
+
+    Entry(final RegisteredServer server, final ProtocolVersion version,
+          final ArgumentParser parser, final String remaining) {
+      this.server = Objects.requireNonNull(server);
+      this.version = Objects.requireNonNull(version);
+      this.parser = parser;
+      this.remaining = remaining;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Entry)) {
+        return false;
+      }
+      final Entry other = (Entry) obj;
+      return this.server.equals(other.server) && this.version == other.version
+          && this.parser == other.parser && this.remaining.equals(other.remaining);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = this.server.hashCode();
+      result = 31 * result + this.version.hashCode();
+      result = 31 * result + this.parser.hashCode();
+      return 31 * result + this.remaining.hashCode();
+    }
+  }
+}
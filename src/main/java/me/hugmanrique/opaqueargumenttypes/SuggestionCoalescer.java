@@ -0,0 +1,176 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Deduplicates concurrent suggestion requests for the same input that are
+ * forwarded to the same backend server.
+ *
+ * <p>Plugins that complete the arguments of their proxy commands with the
+ * suggestions of a backend server send one request per keystroke and player.
+ * When many players type the same command at once, the coalescer sends a single
+ * request to the {@link Upstream} and completes every identical request with its
+ * result. A request is only shared while it's in flight; the result isn't cached.
+ *
+ * <p>Coalescing is opt-in: set the {@linkplain #provider() provider} as the
+ * suggestion provider of each argument node whose suggestions are forwarded,
+ * which must have a type the proxy parses itself, as described in the
+ * {@linkplain me.hugmanrique.opaqueargumenttypes package documentation}.
+ * The in-flight requests are kept in a
+ * {@link ConcurrentHashMap}, so requests from different event loops don't
+ * contend on a single lock.
+ */
+public final class SuggestionCoalescer {
+
+  /**
+   * Forwards a suggestion request to a backend server.
+   */
+  @FunctionalInterface
+  public interface Upstream {
+
+    /**
+     * Requests the suggestions for the given command input from a backend server.
+     * The returned future must eventually complete, since identical requests
+     * wait for it while it's in flight.
+     *
+     * @param server the backend server.
+     * @param input the command input, without a leading slash.
+     * @return a future completed with the suggestions, whose ranges are
+     *     relative to the input.
+     */
+    CompletableFuture<Suggestions> request(RegisteredServer server, String input);
+  }
+
+  private final Upstream upstream;
+  private final ConcurrentHashMap<Request, CompletableFuture<Suggestions>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a coalescer that forwards requests to the given upstream.
+   *
+   * @param upstream the upstream.
+   */
+  public SuggestionCoalescer(final Upstream upstream) {
+    this.upstream = Objects.requireNonNull(upstream);
+  }
+
+  /**
+   * Requests the suggestions for the given command input from a backend server,
+   * sharing the upstream request of an identical request in flight.
+   *
+   * <p>The returned future is distinct for each caller, so completing or
+   * cancelling it doesn't affect the other requests.
+   *
+   * @param server the backend server.
+   * @param input the command input, without a leading slash.
+   * @return a future completed with the suggestions.
+   */
+  public CompletableFuture<Suggestions> request(final RegisteredServer server,
+                                                final String input) {
+    final Request request = new Request(server, input);
+    CompletableFuture<Suggestions> future = this.inFlight.get(request);
+    if (future == null) {
+      final CompletableFuture<Suggestions> created = new CompletableFuture<>();
+      future = this.inFlight.putIfAbsent(request, created);
+      if (future == null) {
+        future = created;
+        forward(request, created);
+      }
+    }
+    return future.copy();
+  }
+
+  private void forward(final Request request, final CompletableFuture<Suggestions> future) {
+    CompletableFuture<Suggestions> response;
+    try {
+      response = this.upstream.request(request.server, request.input);
+    } catch (final RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    response.whenComplete((suggestions, error) -> {
+      // Remove the request first, so later requests aren't completed with stale suggestions
+      this.inFlight.remove(request, future);
+      if (error != null) {
+        future.completeExceptionally(error);
+      } else {
+        future.complete(suggestions);
+      }
+    });
+  }
+
+  /**
+   * Returns the number of upstream requests in flight.
+   *
+   * @return the number of requests in flight.
+   */
+  public int inFlight() {
+    return this.inFlight.size();
+  }
+
+  /**
+   * Returns a suggestion provider that forwards the requests of players to
+   * the server they're connected to. Other command sources, and players
+   * that aren't connected to a server, are given no suggestions.
+   *
+   * @return the suggestion provider.
+   */
+  public SuggestionProvider<CommandSource> provider() {
+    return provider(source -> source instanceof Player
+        ? ((Player) source).getCurrentServer().map(ServerConnection::getServer).orElse(null)
+        : null);
+  }
+
+  /**
+   * Returns a suggestion provider that forwards requests to the backend server
+   * of each command source.
+   *
+   * @param serverFunction returns the backend server of a command source,
+   *     or {@code null} if the source isn't connected to a server.
+   * @param <S> the type of the command source.
+   * @return the suggestion provider.
+   */
+  public <S> SuggestionProvider<S> provider(final Function<S, RegisteredServer> serverFunction) {
+    return (context, builder) -> {
+      final RegisteredServer server = serverFunction.apply(context.getSource());
+      if (server == null) {
+        return builder.buildFuture();
+      }
+      // The builder input is truncated at the cursor, so identical requests have equal inputs
+      return request(server, builder.getInput());
+    };
+  }
+
+  private static final class Request {
+
+    final RegisteredServer server;
+    final String input;
+
+    Request(final RegisteredServer server, final String input) {
+      this.server = Objects.requireNonNull(server);
+      this.input = Objects.requireNonNull(input);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Request)) {
+        return false;
+      }
+      final Request other = (Request) obj;
+      return this.server.equals(other.server) && this.input.equals(other.input);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * this.server.hashCode() + this.input.hashCode();
+    }
+  }
+}
@@ -0,0 +1,375 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.network.ProtocolVersion;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Maintains views of a command tree that only contain the argument nodes
+ * whose parser is known by the client of each {@link ProtocolVersion protocol version}.
+ *
+ * <p>The argument nodes with an opaque type whose parser isn't
+ * {@link ParserAvailability#isSupported(ArgumentParser, ProtocolVersion) supported}
+ * by a version are either given a fallback type, or dropped along with their
+ * children. Literals that end up without children, a command or a redirect
+ * are dropped as well.
+ *
+ * <p>The protocol versions that support the same parsers share a single view,
+ * which is computed on first use. Registering or unregistering a command only
+ * discards the views of that command, while the views of the remaining
+ * commands are reused.
+ *
+ * <p>The returned views share the commands, requirements and suggestion
+ * providers of the registered nodes, and must not be modified.
+ *
+ * @param <S> the type of the command source.
+ */
+public final class VersionedCommandTree<S> {
+
+  private static final int[] BUCKETS;
+  private static final long[] BUCKET_MASKS;
+
+  static {
+    final ProtocolVersion[] versions = ProtocolVersion.values();
+    BUCKETS = new int[versions.length];
+    long[] masks = new long[versions.length];
+    int count = 0;
+    for (final ProtocolVersion version : versions) {
+      final long mask = ParserAvailability.supportedMask(version);
+      int bucket = 0;
+      while (bucket < count && masks[bucket] != mask) {
+        bucket++;
+      }
+      if (bucket == count) {
+        masks[count++] = mask;
+      }
+      BUCKETS[version.ordinal()] = bucket;
+    }
+    BUCKET_MASKS = Arrays.copyOf(masks, count);
+  }
+
+  private final Function<ArgumentParser, ArgumentType<?>> fallback;
+  private final Map<String, Entry<S>> commands = new LinkedHashMap<>(); // guarded by this
+  private final AtomicReferenceArray<RootCommandNode<S>> views =
+      new AtomicReferenceArray<>(BUCKET_MASKS.length);
+
+  /**
+   * Constructs an empty command tree that drops unsupported argument nodes.
+   */
+  public VersionedCommandTree() {
+    this(parser -> null);
+  }
+
+  /**
+   * Constructs an empty command tree.
+   *
+   * @param fallback returns the argument type that replaces the type of an
+   *     argument node whose parser is unsupported, or {@code null} to drop the node.
+   */
+  public VersionedCommandTree(final Function<ArgumentParser, ArgumentType<?>> fallback) {
+    this.fallback = fallback;
+  }
+
+  /**
+   * Returns a view of the given command tree for the given protocol version.
+   * The returned tree is built every time this method is called.
+   *
+   * @param root the root node of the command tree.
+   * @param version the protocol version.
+   * @param <S> the type of the command source.
+   * @return the view of the command tree.
+   */
+  public static <S> RootCommandNode<S> prune(final CommandNode<S> root,
+                                             final ProtocolVersion version) {
+    final RootCommandNode<S> pruned = new RootCommandNode<>();
+    final Pruner<S> pruner = new Pruner<>(
+        ParserAvailability.supportedMask(version), parser -> null, pruned);
+    pruner.addChildren(root, pruned);
+    return pruned;
+  }
+
+  /**
+   * Registers the given command, replacing the command with the same name if present.
+   *
+   * @param command the literal node of the command.
+   */
+  public synchronized void register(final LiteralCommandNode<S> command) {
+    this.commands.put(command.getName(), new Entry<>(command));
+    invalidateViews();
+  }
+
+  /**
+   * Unregisters the command with the given name.
+   *
+   * @param name the command name.
+   * @return {@code true} if a command was unregistered.
+   */
+  public synchronized boolean unregister(final String name) {
+    if (this.commands.remove(name) == null) {
+      return false;
+    }
+    invalidateViews();
+    return true;
+  }
+
+  /**
+   * Returns a view of the registered commands for the given protocol version.
+   *
+   * @param version the protocol version.
+   * @return the root node of the view.
+   */
+  public RootCommandNode<S> forVersion(final ProtocolVersion version) {
+    final int bucket = BUCKETS[version.ordinal()];
+    final RootCommandNode<S> view = this.views.get(bucket);
+    return view != null ? view : assemble(bucket);
+  }
+
+  private synchronized RootCommandNode<S> assemble(final int bucket) {
+    RootCommandNode<S> view = this.views.get(bucket);
+    if (view != null) {
+      return view;
+    }
+
+    view = new RootCommandNode<>();
+    // The views of commands that redirect outside their own subtree (e.g. to the root)
+    // are rebuilt on every assembly, so that they point to the nodes in this view.
+    // Their redirects into other commands target the cached views of those commands.
+    final Pruner<S> shared = new Pruner<>(BUCKET_MASKS[bucket], this.fallback, view);
+    for (final Entry<S> entry : this.commands.values()) {
+      if (entry.selfContained) {
+        shared.include(entry.pruner(bucket, this.fallback));
+      }
+    }
+    for (final Entry<S> entry : this.commands.values()) {
+      final CommandNode<S> pruned = entry.selfContained
+          ? entry.pruner(bucket, this.fallback).copy(entry.command)
+          : shared.copy(entry.command);
+      if (pruned != null) {
+        view.addChild(pruned);
+      }
+    }
+    this.views.set(bucket, view);
+    return view;
+  }
+
+  private void invalidateViews() {
+    for (int i = 0; i < this.views.length(); i++) {
+      this.views.set(i, null);
+    }
+  }
+
+  private static final class Entry<S> {
+
+    final LiteralCommandNode<S> command;
+    final boolean selfContained;
+    private final Pruner<?>[] pruners = new Pruner<?>[BUCKET_MASKS.length];
+
+    Entry(final LiteralCommandNode<S> command) {
+      this.command = command;
+      this.selfContained = redirectsWithin(command, command, Collections.newSetFromMap(
+          new IdentityHashMap<>()));
+    }
+
+    // Returns the pruner that holds the view of this self-contained command
+    @SuppressWarnings("unchecked")
+    Pruner<S> pruner(final int bucket, final Function<ArgumentParser, ArgumentType<?>> fallback) {
+      Pruner<S> pruner = (Pruner<S>) this.pruners[bucket];
+      if (pruner == null) {
+        // The command doesn't redirect to the root, so the pruner doesn't need it
+        pruner = new Pruner<>(BUCKET_MASKS[bucket], fallback, null);
+        pruner.copy(this.command);
+        this.pruners[bucket] = pruner;
+      }
+      return pruner;
+    }
+
+    private static <S> boolean redirectsWithin(final CommandNode<S> node,
+                                               final CommandNode<S> command,
+                                               final Set<CommandNode<S>> visited) {
+      if (!visited.add(node)) {
+        return true;
+      }
+      final CommandNode<S> redirect = node.getRedirect();
+      if (redirect != null && !isDescendant(redirect, command)) {
+        return false;
+      }
+      for (final CommandNode<S> child : node.getChildren()) {
+        if (!redirectsWithin(child, command, visited)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static <S> boolean isDescendant(final CommandNode<S> node,
+                                            final CommandNode<S> ancestor) {
+      if (node == ancestor) {
+        return true;
+      }
+      for (final CommandNode<S> child : ancestor.getChildren()) {
+        // Redirect targets are rarely deep, so a plain search is cheap enough.
+        if (isDescendant(node, child)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class Pruner<S> {
+
+    private final long supported;
+    private final Function<ArgumentParser, ArgumentType<?>> fallback;
+    private final RootCommandNode<S> root;
+    private final Map<CommandNode<S>, Boolean> kept = new IdentityHashMap<>();
+    private final Map<CommandNode<S>, CommandNode<S>> copies = new IdentityHashMap<>();
+    // The nodes whose redirect target is being copied, and the copied parents
+    // waiting for the copy of each of them
+    private final Set<CommandNode<S>> redirecting = Collections.newSetFromMap(
+        new IdentityHashMap<>());
+    private final Map<CommandNode<S>, List<CommandNode<S>>> pendingParents =
+        new IdentityHashMap<>();
+
+    Pruner(final long supported, final Function<ArgumentParser, ArgumentType<?>> fallback,
+           final RootCommandNode<S> root) {
+      this.supported = supported;
+      this.fallback = fallback;
+      this.root = root;
+    }
+
+    // Reuses the copies of another pruner with the same parsers and fallback
+    void include(final Pruner<S> other) {
+      this.kept.putAll(other.kept);
+      this.copies.putAll(other.copies);
+    }
+
+    void addChildren(final CommandNode<S> source, final CommandNode<S> dest) {
+      for (final CommandNode<S> child : source.getChildren()) {
+        if (!keeps(child)) {
+          continue;
+        }
+        final CommandNode<S> copy = copy(child);
+        if (copy != null) {
+          dest.addChild(copy);
+        } else {
+          // The child redirects to an ancestor of this node, so it's added once built
+          this.pendingParents.computeIfAbsent(child, node -> new ArrayList<>()).add(dest);
+        }
+      }
+    }
+
+    // Returns whether the copy of the given node is part of the view. This is decided
+    // before building any copy, so that no copy references a node that is dropped later.
+    // A node is dropped if it's an argument node with an unsupported parser and no
+    // fallback type, or if it has no command and its children and redirect target are
+    // all dropped.
+    private boolean keeps(final CommandNode<S> node) {
+      if (node instanceof RootCommandNode) {
+        return true;
+      }
+      final Boolean cached = this.kept.get(node);
+      if (cached != null) {
+        return cached;
+      }
+      if (unsupportedType(node) && this.fallback.apply(ArgumentParser.of(
+          ((ArgumentCommandNode<S, ?>) node).getType())) == null) {
+        this.kept.put(node, false);
+        return false;
+      }
+
+      // Assume the node is kept while visiting its descendants. Any node found to
+      // be kept along the way also keeps this node, so the assumption holds.
+      this.kept.put(node, true);
+      final CommandNode<S> redirect = node.getRedirect();
+      boolean keeps = node.getCommand() != null
+          || (node.getChildren().isEmpty() && redirect == null)
+          || (redirect != null && keeps(redirect));
+      for (final CommandNode<S> child : node.getChildren()) {
+        // Visit every child to decide the outcome of their subtrees
+        keeps |= keeps(child);
+      }
+      this.kept.put(node, keeps);
+      return keeps;
+    }
+
+    private boolean unsupportedType(final CommandNode<S> node) {
+      if (!(node instanceof ArgumentCommandNode)) {
+        return false;
+      }
+      final ArgumentParser parser = ArgumentParser.of(((ArgumentCommandNode<S, ?>) node).getType());
+      return parser != null && (this.supported & (1L << parser.ordinal())) == 0;
+    }
+
+    // Copies the given node and its kept descendants. Returns null if the node is
+    // dropped, or if its copy is waiting for the copy of its redirect target.
+    CommandNode<S> copy(final CommandNode<S> node) {
+      if (node instanceof RootCommandNode) {
+        return this.root;
+      }
+      if (!keeps(node)) {
+        return null;
+      }
+      final CommandNode<S> existing = this.copies.get(node);
+      if (existing != null || this.redirecting.contains(node)) {
+        return existing;
+      }
+
+      final ArgumentBuilder<S, ?> builder;
+      if (node instanceof ArgumentCommandNode) {
+        final ArgumentCommandNode<S, ?> argument = (ArgumentCommandNode<S, ?>) node;
+        final ArgumentType<?> type = unsupportedType(node)
+            ? this.fallback.apply(ArgumentParser.of(argument.getType()))
+            : argument.getType();
+        builder = argument(argument.getName(), type, argument.getCustomSuggestions());
+      } else if (node instanceof LiteralCommandNode) {
+        builder = LiteralArgumentBuilder.literal(((LiteralCommandNode<S>) node).getLiteral());
+      } else {
+        throw new IllegalArgumentException("Unknown command node type " + node.getClass());
+      }
+      builder.requires(node.getRequirement()).executes(node.getCommand());
+
+      final CommandNode<S> redirect = node.getRedirect();
+      if (redirect != null) {
+        this.redirecting.add(node);
+        final CommandNode<S> target = copy(redirect);
+        this.redirecting.remove(node);
+        if (target != null) {
+          builder.forward(target, node.getRedirectModifier(), node.isFork());
+        }
+      }
+
+      final CommandNode<S> copy = builder.build();
+      this.copies.put(node, copy);
+      final List<CommandNode<S>> parents = this.pendingParents.remove(node);
+      if (parents != null) {
+        for (final CommandNode<S> parent : parents) {
+          parent.addChild(copy);
+        }
+      }
+      addChildren(node, copy);
+      return copy;
+    }
+
+    private static <S, T> RequiredArgumentBuilder<S, T> argument(
+        final String name, final ArgumentType<T> type, final SuggestionProvider<S> suggestions) {
+      return RequiredArgumentBuilder.<S, T>argument(name, type).suggests(suggestions);
+    }
+  }
+}
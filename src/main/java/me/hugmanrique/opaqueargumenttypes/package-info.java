@@ -0,0 +1,18 @@
+/**
+ * Provides the opaque argument types of the parsers known by the vanilla
+ * client, and utilities to validate, complete and transmit their input on
+ * the proxy.
+ *
+ * <h2>Completing on the proxy</h2>
+ *
+ * <p>Velocity forwards any input that contains an argument node with an
+ * opaque type to the backend server, and ignores the command and suggestion
+ * provider of such a node. The suggestion providers of {@link LocalSuggestions},
+ * {@link RegistrySuggestions}, {@link SuggestionCache} and
+ * {@link SuggestionCoalescer} must therefore be set on argument nodes with a
+ * Brigadier type that the proxy parses itself, such as a
+ * {@link com.mojang.brigadier.arguments.StringArgumentType#greedyString() greedy string}.
+ * The client asks the proxy for the suggestions of any node with custom
+ * suggestions, and the proxy completes them through its command dispatcher.
+ */
+package me.hugmanrique.opaqueargumenttypes;
@@ -0,0 +1,100 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.Test;
+
+final class ArgumentDescriptorTests {
+
+  @Test
+  void testDecodeEntity() {
+    final ArgumentDescriptor descriptor = ArgumentDescriptor.decode(
+        ArgumentParser.ENTITY.key(), ProtocolUtils.encodeFlags(0x2));
+    final ArgumentDescriptor.Entity entity = (ArgumentDescriptor.Entity) descriptor;
+
+    assertFalse(entity.single());
+    assertTrue(entity.onlyPlayers());
+    assertThrows(IllegalArgumentException.class, () -> ArgumentDescriptor.decode(
+        ArgumentParser.ENTITY.key(), ProtocolUtils.encodeFlags(0x4)));
+  }
+
+  @Test
+  void testDecodeBooleans() {
+    final ArgumentDescriptor scoreHolder = ArgumentDescriptor.decode(
+        ArgumentParser.SCORE_HOLDER.key(), ProtocolUtils.encodeBoolean(true));
+    assertTrue(((ArgumentDescriptor.ScoreHolder) scoreHolder).multiple());
+
+    final ArgumentDescriptor range = ArgumentDescriptor.decode(
+        ArgumentParser.RANGE.key(), ProtocolUtils.encodeBoolean(false));
+    assertFalse(((ArgumentDescriptor.Range) range).decimals());
+  }
+
+  @Test
+  void testDecodeResource() {
+    final Key registry = Key.key("worldgen/biome");
+    final ArgumentDescriptor descriptor = ArgumentDescriptor.decode(
+        ArgumentParser.RESOURCE_OR_TAG.key(), ProtocolUtils.encodeIdentifier(registry));
+    final ArgumentDescriptor.Resource resource = (ArgumentDescriptor.Resource) descriptor;
+
+    assertEquals(ArgumentParser.RESOURCE_OR_TAG, resource.parser());
+    assertEquals(registry, resource.registry());
+
+    // A length-prefixed identifier with an uppercase character
+    assertThrows(IllegalArgumentException.class, () -> ArgumentDescriptor.decode(
+        ArgumentParser.RESOURCE.key(), new byte[] { 3, 'F', 'o', 'o' }));
+  }
+
+  @Test
+  void testDecodeSimple() {
+    final ArgumentDescriptor descriptor = ArgumentDescriptor.decode(
+        ArgumentParser.ITEM_STACK.key(), null);
+    assertEquals(ArgumentParser.ITEM_STACK, descriptor.parser());
+
+    assertThrows(IllegalArgumentException.class, () -> ArgumentDescriptor.decode(
+        ArgumentParser.ITEM_STACK.key(), new byte[] { 0x1 }));
+    assertThrows(IllegalArgumentException.class, () -> ArgumentDescriptor.decode(
+        Key.key("example", "custom"), null));
+  }
+
+  @Test
+  void testRejectsTruncatedProperties() {
+    final byte[] empty = new byte[0];
+    assertThrows(IllegalArgumentException.class, () -> ArgumentDescriptor.decode(
+        ArgumentParser.ENTITY.key(), null));
+    assertThrows(IllegalArgumentException.class, () -> ArgumentDescriptor.decode(
+        ArgumentParser.SCORE_HOLDER.key(), empty));
+    assertThrows(IllegalArgumentException.class, () -> ArgumentDescriptor.decode(
+        ArgumentParser.RANGE.key(), empty));
+    for (final ArgumentParser parser : new ArgumentParser[] {ArgumentParser.RESOURCE,
+        ArgumentParser.RESOURCE_KEY, ArgumentParser.RESOURCE_OR_TAG,
+        ArgumentParser.RESOURCE_OR_TAG_KEY}) {
+      assertThrows(IllegalArgumentException.class, () -> ArgumentDescriptor.decode(
+          parser.key(), empty));
+    }
+
+    final byte[] identifier = ProtocolUtils.encodeIdentifier(Key.key("item"));
+    assertThrows(IllegalArgumentException.class, () -> ArgumentDescriptor.decode(
+        ArgumentParser.RESOURCE.key(), Arrays.copyOf(identifier, identifier.length - 1)));
+  }
+
+  @Test
+  void testReadAdvancesCursor() {
+    final byte[] identifier = ProtocolUtils.encodeIdentifier(Key.key("item"));
+    final ByteBuffer src = ByteBuffer.allocate(2 + identifier.length);
+    src.put((byte) 0x3).put((byte) 0x1).put(identifier).flip();
+
+    assertEquals(new ArgumentDescriptor.Entity(true, true),
+        ArgumentDescriptor.read(ArgumentParser.ENTITY, src));
+    assertEquals(new ArgumentDescriptor.ScoreHolder(true),
+        ArgumentDescriptor.read(ArgumentParser.SCORE_HOLDER, src));
+    assertEquals(new ArgumentDescriptor.Resource(ArgumentParser.RESOURCE, Key.key("item")),
+        ArgumentDescriptor.read(ArgumentParser.RESOURCE, src));
+    assertFalse(src.hasRemaining());
+  }
+}
@@ -0,0 +1,41 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.Test;
+
+final class ArgumentParserTests {
+
+  @Test
+  void testByOrdinal() {
+    assertEquals(ArgumentParser.values().length, ArgumentParser.count());
+    for (final ArgumentParser parser : ArgumentParser.values()) {
+      assertSame(parser, ArgumentParser.byOrdinal(parser.ordinal()));
+    }
+  }
+
+  @Test
+  void testKeys() {
+    final Set<Key> keys = new HashSet<>();
+    for (final ArgumentParser parser : ArgumentParser.values()) {
+      assertEquals(Key.MINECRAFT_NAMESPACE, parser.key().namespace());
+      assertTrue(keys.add(parser.key()), "duplicate key " + parser.key());
+    }
+    assertEquals(Key.key("gamemode"), ArgumentParser.GAME_MODE.key());
+  }
+
+  @Test
+  void testFromKey() {
+    for (final ArgumentParser parser : ArgumentParser.values()) {
+      assertSame(parser, ArgumentParser.fromKey(parser.key()));
+    }
+    assertNull(ArgumentParser.fromKey(Key.key("unknown")));
+    assertNull(ArgumentParser.fromKey(Key.key("brigadier", "entity")));
+  }
+}
@@ -0,0 +1,69 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.Test;
+
+final class ArgumentTypeCacheTests {
+
+  @Test
+  void testInternsTypesWithoutProperties() {
+    final List<Key> built = new ArrayList<>();
+    final CommandManager manager = Stubs.commandManager(built::add, command -> { });
+    final OpaqueArgumentType type = ArgumentTypeCache.get(manager, ArgumentParser.BLOCK_POS);
+    assertSame(type, ArgumentTypeCache.get(manager, ArgumentParser.BLOCK_POS));
+    assertNotSame(type, ArgumentTypeCache.get(manager, ArgumentParser.VEC3));
+    assertEquals(List.of(ArgumentParser.BLOCK_POS.key(), ArgumentParser.VEC3.key()), built);
+
+    final CommandManager other = Stubs.commandManager();
+    assertNotSame(type, ArgumentTypeCache.get(other, ArgumentParser.BLOCK_POS));
+  }
+
+  @Test
+  void testInternsTypesWithProperties() {
+    final List<Key> built = new ArrayList<>();
+    final CommandManager manager = Stubs.commandManager(built::add, command -> { });
+    final OpaqueArgumentType type =
+        ArgumentTypeCache.get(manager, ArgumentParser.ENTITY, new byte[] { 0x1 });
+    // Equal properties in a distinct array
+    assertSame(type, ArgumentTypeCache.get(manager, ArgumentParser.ENTITY, new byte[] { 0x1 }));
+    assertNotSame(type,
+        ArgumentTypeCache.get(manager, ArgumentParser.ENTITY, new byte[] { 0x2 }));
+    assertNotSame(type,
+        ArgumentTypeCache.get(manager, ArgumentParser.SCORE_HOLDER, new byte[] { 0x1 }));
+    assertEquals(3, built.size());
+  }
+
+  @Test
+  void testExpungesCollectedManagers() throws InterruptedException {
+    final WeakReference<CommandManager> collected = register();
+    for (int i = 0; i < 100 && collected.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(collected.get(), "the manager wasn't collected");
+
+    // Registering a manager expunges the entry of the collected one
+    final int count = ArgumentTypeCache.managerCount();
+    final CommandManager manager = Stubs.commandManager();
+    ArgumentTypeCache.get(manager, ArgumentParser.BLOCK_POS);
+    assertTrue(ArgumentTypeCache.managerCount() <= count);
+  }
+
+  private static WeakReference<CommandManager> register() {
+    final CommandManager manager = Stubs.commandManager();
+    ArgumentTypeCache.get(manager, ArgumentParser.BLOCK_POS);
+    ArgumentTypeCache.get(manager, ArgumentParser.ENTITY, new byte[] { 0x1 });
+    return new WeakReference<>(manager);
+  }
+}
@@ -0,0 +1,84 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.util.ArrayList;
+import java.util.List;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.Test;
+
+final class ArgumentTypeHandleTests {
+
+  @Test
+  void testHandlesAreLazy() {
+    final List<Key> built = new ArrayList<>();
+    final CommandManager manager = Stubs.commandManager(built::add, command -> { });
+    final ArgumentTypeHandle blockPos = ArgumentTypeHandle.of(ArgumentParser.BLOCK_POS);
+    final ArgumentTypeHandle entity = ArgumentTypeHandle.entity(true, true);
+    assertEquals(List.of(), built);
+
+    final OpaqueArgumentType type = blockPos.resolve(manager);
+    assertSame(type, blockPos.resolve(manager));
+    assertSame(type, OpaqueArgumentTypes.blockPos(manager));
+    assertSame(entity.resolve(manager), OpaqueArgumentTypes.entity(manager, true, true));
+    assertEquals(List.of(ArgumentParser.BLOCK_POS.key(), ArgumentParser.ENTITY.key()), built);
+  }
+
+  @Test
+  void testArgumentResolvesType() {
+    final List<Key> built = new ArrayList<>();
+    final CommandManager manager = Stubs.commandManager(built::add, command -> { });
+    final ArgumentTypeHandle angle = ArgumentTypeHandle.of(ArgumentParser.ANGLE);
+
+    final RequiredArgumentBuilder<Object, Void> argument = angle.argument(manager, "angle");
+    assertEquals(List.of(ArgumentParser.ANGLE.key()), built);
+    assertSame(angle.resolve(manager), argument.getType());
+  }
+
+  @Test
+  void testEntityMatchesFactory() {
+    final CommandManager manager = Stubs.commandManager();
+    for (final boolean single : new boolean[] { false, true }) {
+      for (final boolean onlyPlayers : new boolean[] { false, true }) {
+        assertSame(OpaqueArgumentTypes.entity(manager, single, onlyPlayers),
+            ArgumentTypeHandle.entity(single, onlyPlayers).resolve(manager));
+      }
+    }
+  }
+
+  @Test
+  void testEquality() {
+    assertSame(ArgumentTypeHandle.of(ArgumentParser.UUID),
+        ArgumentTypeHandle.of(ArgumentParser.UUID));
+    assertEquals(ArgumentTypeHandle.range(true), ArgumentTypeHandle.range(true));
+    assertNotEquals(ArgumentTypeHandle.range(true), ArgumentTypeHandle.range(false));
+    assertNotEquals(ArgumentTypeHandle.scoreHolder(true), ArgumentTypeHandle.range(true));
+
+    final Key registry = Key.key("worldgen/biome");
+    assertEquals(ArgumentTypeHandle.resource(registry).hashCode(),
+        ArgumentTypeHandle.resource(registry).hashCode());
+    assertNotEquals(ArgumentTypeHandle.resource(registry),
+        ArgumentTypeHandle.resourceKey(registry));
+  }
+
+  @Test
+  void testProperties() {
+    final ArgumentTypeHandle entity = ArgumentTypeHandle.entity(false, true);
+    assertEquals(ArgumentParser.ENTITY, entity.parser());
+    assertArrayEquals(new byte[] { 0x2 }, entity.properties());
+    entity.properties()[0] = 0x3; // returns a copy
+    assertArrayEquals(new byte[] { 0x2 }, entity.properties());
+    assertNull(ArgumentTypeHandle.of(ArgumentParser.TIME).properties());
+
+    assertThrows(IllegalArgumentException.class,
+        () -> ArgumentTypeHandle.of(ArgumentParser.ENTITY));
+  }
+}
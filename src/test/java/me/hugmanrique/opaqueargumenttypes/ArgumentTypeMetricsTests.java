@@ -0,0 +1,112 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.velocitypowered.api.command.CommandManager;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class ArgumentTypeMetricsTests {
+
+  @Test
+  void testCountingListener() {
+    final CountingArgumentTypeListener listener = new CountingArgumentTypeListener();
+    final CommandManager manager = Stubs.commandManager();
+    final CommandManager other = Stubs.commandManager();
+    ArgumentTypeMetrics.register(listener);
+    try {
+      OpaqueArgumentTypes.blockPos(manager);
+      OpaqueArgumentTypes.blockPos(manager); // cached
+      OpaqueArgumentTypes.entity(manager, true, false);
+      OpaqueArgumentTypes.entity(manager, true, false); // cached
+      OpaqueArgumentTypes.entity(other, false, true);
+    } finally {
+      ArgumentTypeMetrics.unregister(listener);
+    }
+    OpaqueArgumentTypes.angle(manager); // not counted
+
+    assertEquals(1, listener.typesCreated(ArgumentParser.BLOCK_POS));
+    assertEquals(2, listener.typesCreated(ArgumentParser.ENTITY));
+    assertEquals(0, listener.typesCreated(ArgumentParser.ANGLE));
+    assertEquals(3, listener.typesCreated());
+    assertEquals(2, listener.propertyBytes()); // one flags byte per entity type
+    assertEquals(4, listener.requests(manager));
+    assertEquals(1, listener.requests(other));
+
+    listener.reset();
+    assertEquals(0, listener.typesCreated());
+    assertEquals(0, listener.requests(manager));
+  }
+
+  @Test
+  void testListenerRegistration() {
+    final List<ArgumentParser> first = new ArrayList<>();
+    final List<ArgumentParser> second = new ArrayList<>();
+    final ArgumentTypeListener firstListener = (manager, parser, length, created) ->
+        first.add(parser);
+    final ArgumentTypeListener secondListener = (manager, parser, length, created) ->
+        second.add(parser);
+    final CommandManager manager = Stubs.commandManager();
+
+    ArgumentTypeMetrics.register(firstListener);
+    ArgumentTypeMetrics.register(secondListener);
+    OpaqueArgumentTypes.vec3(manager);
+    ArgumentTypeMetrics.unregister(firstListener);
+    OpaqueArgumentTypes.vec2(manager);
+    ArgumentTypeMetrics.unregister(secondListener);
+    OpaqueArgumentTypes.uuid(manager);
+
+    assertEquals(List.of(ArgumentParser.VEC3), first);
+    assertEquals(List.of(ArgumentParser.VEC3, ArgumentParser.VEC2), second);
+  }
+
+  @Test
+  void testWithoutFlightRecorder() throws Exception {
+    final URL classes = OpaqueArgumentTypes.class.getProtectionDomain().getCodeSource()
+        .getLocation();
+    try (final URLClassLoader loader = new WithoutFlightRecorderClassLoader(classes)) {
+      final Class<?> types = loader.loadClass(OpaqueArgumentTypes.class.getName());
+      final CommandManager manager = Stubs.commandManager();
+
+      final Method blockPos = types.getMethod("blockPos", CommandManager.class);
+      assertNotNull(blockPos.invoke(null, manager));
+      final Method entity = types.getMethod("entity", CommandManager.class,
+          boolean.class, boolean.class);
+      assertNotNull(entity.invoke(null, manager, true, false));
+    }
+  }
+
+  // Loads the library classes itself, as if the jdk.jfr module was absent
+  private static final class WithoutFlightRecorderClassLoader extends URLClassLoader {
+
+    WithoutFlightRecorderClassLoader(final URL classes) {
+      super(new URL[] { classes }, ArgumentTypeMetricsTests.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> loadClass(final String name, final boolean resolve)
+        throws ClassNotFoundException {
+      if (name.startsWith("jdk.jfr.")) {
+        throw new ClassNotFoundException(name);
+      }
+      if (!name.startsWith(OpaqueArgumentTypes.class.getPackageName() + '.')) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded == null) {
+          loaded = findClass(name);
+        }
+        if (resolve) {
+          resolveClass(loaded);
+        }
+        return loaded;
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.velocitypowered.api.command.BrigadierCommand;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.CommandSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.Test;
+
+final class CommandBatchTests {
+
+  @Test
+  void testBuild() {
+    final List<Key> built = Collections.synchronizedList(new ArrayList<>());
+    final CommandManager manager = Stubs.commandManager(built::add, command -> { });
+    final Command<CommandSource> command = context -> Command.SINGLE_SUCCESS;
+    final CommandBatch batch = new CommandBatch()
+        .add(CommandSpec.literal("tp")
+            .then(CommandSpec.argument("target", ArgumentTypeHandle.entity(true, false))
+                .executes(command)
+                .then(CommandSpec.argument("destination", ArgumentTypeHandle.entity(true, false))
+                    .executes(command))))
+        .add(CommandSpec.literal("kill")
+            .then(CommandSpec.argument("targets", ArgumentTypeHandle.entity(false, false))));
+
+    final List<BrigadierCommand> commands = batch.build(manager);
+    assertEquals(2, commands.size());
+    assertEquals(List.of(ArgumentParser.ENTITY.key(), ArgumentParser.ENTITY.key()), built);
+
+    final CommandNode<CommandSource> tp = commands.get(0).getNode();
+    assertEquals("tp", tp.getName());
+    final ArgumentCommandNode<?, ?> target = (ArgumentCommandNode<?, ?>) tp.getChild("target");
+    final ArgumentCommandNode<?, ?> destination =
+        (ArgumentCommandNode<?, ?>) target.getChild("destination");
+    assertSame(command, target.getCommand());
+    assertSame(target.getType(), destination.getType());
+    assertSame(OpaqueArgumentTypes.entity(manager, true, false), target.getType());
+    assertEquals("kill", commands.get(1).getNode().getName());
+  }
+
+  @Test
+  void testBuildLargeTreeInParallel() {
+    final CommandSpec root = CommandSpec.literal("warp");
+    for (int i = 0; i < 100; i++) {
+      final CommandSpec child = CommandSpec.literal("warp" + i);
+      for (int j = 0; j < 10; j++) {
+        child.then(CommandSpec.argument("arg" + j, ArgumentTypeHandle.of(ArgumentParser.VEC3)));
+      }
+      root.then(child);
+    }
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final List<Key> built = Collections.synchronizedList(new ArrayList<>());
+      final List<BrigadierCommand> commands = new CommandBatch(pool)
+          .add(root)
+          .build(Stubs.commandManager(built::add, command -> { }));
+
+      final CommandNode<CommandSource> warp = commands.get(0).getNode();
+      assertEquals(100, warp.getChildren().size());
+      assertEquals(10, warp.getChild("warp99").getChildren().size());
+      assertTrue(warp.getChild("warp0").getChild("arg9") instanceof ArgumentCommandNode);
+      assertEquals(List.of(ArgumentParser.VEC3.key()), built);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testRegister() {
+    final List<String> registered = new ArrayList<>();
+    final CommandBatch batch = new CommandBatch()
+        .add(CommandSpec.literal("spawn"))
+        .add(CommandSpec.literal("lobby"));
+    batch.register(Stubs.commandManager(identifier -> { },
+        command -> registered.add(command.getNode().getName())));
+    assertEquals(List.of("spawn", "lobby"), registered);
+
+    assertThrows(IllegalArgumentException.class, () -> batch.add(
+        CommandSpec.argument("target", ArgumentTypeHandle.entity(true, true))));
+    assertThrows(IllegalStateException.class, () -> CommandSpec.literal("spawn")
+        .suggests((context, builder) -> builder.buildFuture()));
+  }
+}
@@ -0,0 +1,197 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.Test;
+
+final class CommandCatalogTests {
+
+  private static RootCommandNode<Object> tree(final CommandManager manager) {
+    final Command<Object> command = context -> Command.SINGLE_SUCCESS;
+    final RootCommandNode<Object> root = new RootCommandNode<>();
+    root.addChild(LiteralArgumentBuilder.literal("tp")
+        .then(RequiredArgumentBuilder.argument("target",
+                OpaqueArgumentTypes.entity(manager, true, false))
+            .executes(command)
+            .then(RequiredArgumentBuilder.argument("destination",
+                    OpaqueArgumentTypes.entity(manager, true, false))
+                .executes(command)))
+        .build());
+
+    final LiteralCommandNode<Object> execute =
+        LiteralArgumentBuilder.literal("execute").build();
+    execute.addChild(LiteralArgumentBuilder.literal("run").redirect(root).build());
+    execute.addChild(LiteralArgumentBuilder.literal("as")
+        .then(RequiredArgumentBuilder.argument("targets",
+                OpaqueArgumentTypes.entity(manager, false, false))
+            .redirect(execute))
+        .build());
+    root.addChild(execute);
+
+    root.addChild(LiteralArgumentBuilder.literal("locate")
+        .then(RequiredArgumentBuilder.argument("biome",
+                OpaqueArgumentTypes.resourceOrTag(manager, Key.key("worldgen/biome")))
+            .executes(command))
+        .build());
+    return root;
+  }
+
+  @Test
+  void testRoundTrip() {
+    final ByteBuffer encoded = CommandCatalog.encode(tree(Stubs.commandManager()));
+    final CommandCatalog catalog = CommandCatalog.wrap(encoded);
+    assertEquals(encoded.remaining(), catalog.size());
+
+    final CommandManager manager = Stubs.commandManager();
+    final Command<Object> forward = context -> Command.SINGLE_SUCCESS;
+    final RootCommandNode<Object> root = catalog.load(manager, forward, path -> source -> true);
+    assertEquals(3, root.getChildren().size());
+
+    final CommandNode<Object> target = root.getChild("tp").getChild("target");
+    final CommandNode<Object> destination = target.getChild("destination");
+    assertSame(forward, target.getCommand());
+    assertSame(forward, destination.getCommand());
+    assertNull(root.getChild("tp").getCommand());
+    assertSame(OpaqueArgumentTypes.entity(manager, true, false),
+        ((ArgumentCommandNode<?, ?>) target).getType());
+    assertSame(((ArgumentCommandNode<?, ?>) target).getType(),
+        ((ArgumentCommandNode<?, ?>) destination).getType());
+
+    final CommandNode<Object> execute = root.getChild("execute");
+    assertSame(root, execute.getChild("run").getRedirect());
+    assertSame(execute, execute.getChild("as").getChild("targets").getRedirect());
+
+    final OpaqueArgumentType biome = (OpaqueArgumentType)
+        ((ArgumentCommandNode<?, ?>) root.getChild("locate").getChild("biome")).getType();
+    assertEquals(ArgumentParser.RESOURCE_OR_TAG.key(), biome.getIdentifier());
+    assertArrayEquals(ProtocolUtils.encodeIdentifier(Key.key("worldgen/biome")),
+        biome.getProperties());
+  }
+
+  @Test
+  void testRequirements() {
+    final CommandCatalog catalog = CommandCatalog.wrap(
+        CommandCatalog.encode(tree(Stubs.commandManager())));
+    final List<List<String>> paths = new ArrayList<>();
+    final Predicate<Object> operator = "operator"::equals;
+    final RootCommandNode<Object> root = catalog.load(Stubs.commandManager(),
+        context -> Command.SINGLE_SUCCESS, path -> {
+          paths.add(path);
+          return path.get(0).equals("execute") ? operator : source -> true;
+        });
+
+    assertTrue(paths.contains(List.of("tp", "target", "destination")));
+    assertTrue(paths.contains(List.of("execute", "as", "targets")));
+    final CommandNode<Object> execute = root.getChild("execute");
+    assertSame(operator, execute.getRequirement());
+    assertSame(operator, execute.getChild("as").getChild("targets").getRequirement());
+    assertTrue(root.getChild("tp").getRequirement().test("player"));
+    assertFalse(execute.getRequirement().test("player"));
+
+    assertThrows(NullPointerException.class, () -> catalog.load(Stubs.commandManager(),
+        context -> Command.SINGLE_SUCCESS, null));
+  }
+
+  @Test
+  void testMemoryMappedFile() throws Exception {
+    final Path path = Files.createTempFile("commands", ".catalog");
+    try {
+      CommandCatalog.write(tree(Stubs.commandManager()), path);
+      final RootCommandNode<Object> root = CommandCatalog.open(path)
+          .load(Stubs.commandManager(), context -> Command.SINGLE_SUCCESS,
+              nodePath -> source -> true);
+      assertEquals(3, root.getChildren().size());
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  void testRejectsInvalidCatalogs() {
+    final ByteBuffer encoded = CommandCatalog.encode(tree(Stubs.commandManager()));
+    final ByteBuffer corrupted = ByteBuffer.allocate(encoded.remaining()).put(encoded.duplicate());
+    corrupted.put(corrupted.limit() - 1, (byte) (corrupted.get(corrupted.limit() - 1) ^ 0x1));
+    corrupted.flip();
+    assertThrows(IllegalArgumentException.class, () -> CommandCatalog.wrap(corrupted));
+
+    final ByteBuffer truncated = encoded.duplicate();
+    truncated.limit(truncated.limit() - 1);
+    assertThrows(IllegalArgumentException.class, () -> CommandCatalog.wrap(truncated));
+
+    final ByteBuffer newer = ByteBuffer.allocate(encoded.remaining()).put(encoded.duplicate());
+    newer.putShort(4, (short) (CommandCatalog.VERSION + 1)).flip();
+    assertThrows(IllegalArgumentException.class, () -> CommandCatalog.wrap(newer));
+  }
+
+  @Test
+  void testRejectsMalformedBodies() {
+    final ByteBuffer encoded = CommandCatalog.encode(tree(Stubs.commandManager()));
+    encoded.position(CommandCatalog.HEADER_LENGTH);
+    final byte[] body = new byte[encoded.remaining()];
+    encoded.get(body);
+    final CommandCatalog truncated = CommandCatalog.wrap(
+        catalog(Arrays.copyOf(body, body.length - 1)));
+    assertThrows(IllegalArgumentException.class,
+        () -> truncated.load(Stubs.commandManager(), context -> Command.SINGLE_SUCCESS,
+            path -> source -> true));
+
+    final byte[] name = "Invalid Parser".getBytes(StandardCharsets.UTF_8);
+    final ByteBuffer invalidKey = ByteBuffer.allocate(name.length + 4)
+        .put((byte) 1).put((byte) name.length).put(name) // string pool
+        .put((byte) 1).put((byte) 0); // type table
+    final CommandCatalog invalidParser = CommandCatalog.wrap(catalog(invalidKey.array()));
+    assertThrows(IllegalArgumentException.class,
+        () -> invalidParser.load(Stubs.commandManager(), context -> Command.SINGLE_SUCCESS,
+            path -> source -> true));
+  }
+
+  // Prepends a valid header to the given body
+  private static ByteBuffer catalog(final byte[] body) {
+    final CRC32 crc = new CRC32();
+    crc.update(body);
+    return ByteBuffer.allocate(CommandCatalog.HEADER_LENGTH + body.length)
+        .putInt(CommandCatalog.MAGIC)
+        .putShort((short) CommandCatalog.VERSION)
+        .putShort((short) 0)
+        .putInt(body.length)
+        .putInt((int) crc.getValue())
+        .put(body)
+        .flip();
+  }
+
+  @Test
+  void testRejectsNonOpaqueArguments() {
+    final ArgumentType<Integer> integer = reader -> 0;
+    final RootCommandNode<Object> root = new RootCommandNode<>();
+    root.addChild(LiteralArgumentBuilder.literal("give")
+        .then(RequiredArgumentBuilder.argument("count", integer))
+        .build());
+    assertThrows(IllegalArgumentException.class, () -> CommandCatalog.encode(root));
+  }
+}
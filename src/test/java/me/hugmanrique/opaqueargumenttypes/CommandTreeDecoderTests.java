@@ -0,0 +1,123 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import com.velocitypowered.api.network.ProtocolVersion;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.Test;
+
+final class CommandTreeDecoderTests {
+
+  private static final Command<Object> FORWARD = context -> Command.SINGLE_SUCCESS;
+  private static final SuggestionProvider<Object> ASK_SERVER = (context, builder) -> null;
+
+  // The fixtures contain a subset of the vanilla command tree
+  private static ByteBuffer fixture(final String name) throws IOException {
+    try (InputStream in = CommandTreeDecoderTests.class
+        .getResourceAsStream("/fixtures/declare_commands_" + name + ".bin")) {
+      return ByteBuffer.wrap(in.readAllBytes());
+    }
+  }
+
+  private static void assertFixtureTree(final ByteBuffer src, final ProtocolVersion version) {
+    final CommandManager manager = Stubs.commandManager();
+    final RootCommandNode<Object> root =
+        CommandTreeDecoder.decode(src, version, manager, FORWARD, ASK_SERVER);
+    assertFalse(src.hasRemaining());
+    assertEquals(5, root.getChildren().size());
+
+    final CommandNode<Object> teleport = root.getChild("teleport");
+    final CommandNode<Object> destination = teleport.getChild("destination");
+    assertNull(teleport.getCommand());
+    assertSame(FORWARD, destination.getCommand());
+    assertSame(OpaqueArgumentTypes.entity(manager, true, false),
+        ((ArgumentCommandNode<?, ?>) destination).getType());
+    assertSame(teleport, root.getChild("tp").getRedirect());
+
+    final CommandNode<Object> execute = root.getChild("execute");
+    assertSame(root, execute.getChild("run").getRedirect());
+    final CommandNode<Object> targets = execute.getChild("as").getChild("targets");
+    assertSame(execute, targets.getRedirect());
+    assertSame(OpaqueArgumentTypes.entity(manager, false, false),
+        ((ArgumentCommandNode<?, ?>) targets).getType());
+
+    final CommandNode<Object> item = root.getChild("give").getChild("targets").getChild("item");
+    assertSame(OpaqueArgumentTypes.argumentType(manager, ArgumentParser.ITEM_STACK),
+        ((ArgumentCommandNode<?, ?>) item).getType());
+    final IntegerArgumentType count = (IntegerArgumentType)
+        ((ArgumentCommandNode<?, ?>) item.getChild("count")).getType();
+    assertEquals(1, count.getMinimum());
+    assertEquals(Integer.MAX_VALUE, count.getMaximum());
+    assertNull(((ArgumentCommandNode<?, ?>) item.getChild("count")).getCustomSuggestions());
+
+    final ArgumentCommandNode<?, ?> biome = (ArgumentCommandNode<?, ?>)
+        root.getChild("locate").getChild("biome").getChild("biome");
+    assertSame(ASK_SERVER, biome.getCustomSuggestions());
+    final OpaqueArgumentType biomeType = (OpaqueArgumentType) biome.getType();
+    assertEquals(ArgumentParser.RESOURCE_OR_TAG.key(), biomeType.getIdentifier());
+    assertArrayEquals(ProtocolUtils.encodeIdentifier(Key.key("worldgen/biome")),
+        biomeType.getProperties());
+  }
+
+  @Test
+  void testDecodeParserIds() throws IOException {
+    assertFixtureTree(fixture("1_19"), ProtocolVersion.MINECRAFT_1_19);
+  }
+
+  @Test
+  void testDecodeParserIdentifiers() throws IOException {
+    assertFixtureTree(fixture("1_18_2"), ProtocolVersion.MINECRAFT_1_18_2);
+  }
+
+  @Test
+  void testRejectsUnsupportedVersions() {
+    assertThrows(IllegalArgumentException.class, () -> CommandTreeDecoder.decode(
+        ByteBuffer.allocate(0), ProtocolVersion.MINECRAFT_1_12_2, Stubs.commandManager(),
+        FORWARD, null));
+  }
+
+  @Test
+  void testRejectsMalformedTrees() {
+    // A root node whose child is out of bounds
+    assertMalformed(new byte[] { 1, 0x00, 1, 1, 0 });
+    // A literal redirecting to itself
+    assertMalformed(new byte[] { 2, 0x00, 1, 1, 0x09, 0, 1, 1, 'a', 0 });
+    // Two root nodes
+    assertMalformed(new byte[] { 2, 0x00, 0, 0x00, 0, 0 });
+    // A node with an unknown type
+    assertMalformed(new byte[] { 1, 0x03, 0, 0 });
+    // A string argument with an unknown string type
+    assertMalformed(new byte[] { 2, 0x00, 1, 1, 0x02, 0, 1, 'a', 5, 3, 0 });
+  }
+
+  @Test
+  void testRejectsTruncatedTrees() throws IOException {
+    final byte[] payload = fixture("1_19").array();
+    for (int length = 0; length < payload.length; length++) {
+      assertMalformed(Arrays.copyOf(payload, length));
+    }
+  }
+
+  private static void assertMalformed(final byte[] payload) {
+    assertThrows(IllegalArgumentException.class, () -> CommandTreeDecoder.decode(
+        ByteBuffer.wrap(payload), ProtocolVersion.MINECRAFT_1_19, Stubs.commandManager(),
+        FORWARD, null));
+  }
+}
@@ -0,0 +1,196 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.command.CommandManager;
+import java.util.Arrays;
+import java.util.Set;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.Test;
+
+final class CommandTreeDiffTests {
+
+  private static final Command<Object> COMMAND = context -> Command.SINGLE_SUCCESS;
+
+  // Each call builds new nodes and, with a new manager, new argument types
+  private static RootCommandNode<Object> tree(final CommandManager manager,
+                                              final boolean singleTarget,
+                                              final boolean withLocate) {
+    return tree(manager, singleTarget, withLocate, COMMAND);
+  }
+
+  private static RootCommandNode<Object> tree(final CommandManager manager,
+                                              final boolean singleTarget,
+                                              final boolean withLocate,
+                                              final Command<Object> command) {
+    final RootCommandNode<Object> root = new RootCommandNode<>();
+    root.addChild(LiteralArgumentBuilder.literal("tp")
+        .then(RequiredArgumentBuilder.argument("target",
+                OpaqueArgumentTypes.entity(manager, singleTarget, false))
+            .executes(command)
+            .then(RequiredArgumentBuilder.argument("destination",
+                    OpaqueArgumentTypes.entity(manager, true, false))
+                .executes(command)))
+        .build());
+
+    final LiteralCommandNode<Object> execute =
+        LiteralArgumentBuilder.literal("execute").build();
+    execute.addChild(LiteralArgumentBuilder.literal("run").redirect(root).build());
+    root.addChild(execute);
+
+    if (withLocate) {
+      root.addChild(LiteralArgumentBuilder.literal("locate")
+          .then(RequiredArgumentBuilder.argument("biome",
+                  OpaqueArgumentTypes.resourceOrTag(manager, Key.key("worldgen/biome")))
+              .executes(command))
+          .build());
+    }
+    return root;
+  }
+
+  // Returns a new instance on each call, like a plugin rebuilding its commands
+  private static Command<Object> newCommand() {
+    return new Command<>() {
+      @Override
+      public int run(final CommandContext<Object> context) {
+        return Command.SINGLE_SUCCESS;
+      }
+    };
+  }
+
+  @Test
+  void testEqualTrees() {
+    final CommandTreeDiff<Object> diff = CommandTreeDiff.compute(
+        tree(Stubs.commandManager(), true, true), tree(Stubs.commandManager(), true, true));
+    assertTrue(diff.isEmpty());
+    assertTrue(diff.changedCommands().isEmpty());
+  }
+
+  @Test
+  void testIgnoresBehaviorByDefault() {
+    final Command<Object> command = newCommand();
+    final Command<Object> reloaded = newCommand();
+    assertNotSame(command, reloaded);
+    final RootCommandNode<Object> previous = tree(Stubs.commandManager(), true, true, command);
+    final RootCommandNode<Object> next = tree(Stubs.commandManager(), true, true, reloaded);
+    assertTrue(CommandTreeDiff.compute(previous, next).isEmpty());
+
+    final CommandTreeDiff<Object> diff = CommandTreeDiff.compute(previous, next, true);
+    assertEquals(Set.of("tp", "locate"), diff.changedCommands());
+    assertEquals(Arrays.asList("tp", "target"), diff.operations().get(0).path());
+    assertEquals(CommandTreeDiff.Type.REPLACE, diff.operations().get(0).type());
+  }
+
+  @Test
+  void testComparesExecutability() {
+    final RootCommandNode<Object> previous = tree(Stubs.commandManager(), true, true);
+    final RootCommandNode<Object> next = tree(Stubs.commandManager(), true, true);
+    previous.getChild("execute").addChild(LiteralArgumentBuilder.literal("help")
+        .executes(COMMAND)
+        .build());
+    next.getChild("execute").addChild(LiteralArgumentBuilder.literal("help").build());
+
+    final CommandTreeDiff<Object> diff = CommandTreeDiff.compute(previous, next);
+    assertEquals(1, diff.operations().size());
+    assertEquals(Arrays.asList("execute", "help"), diff.operations().get(0).path());
+    assertEquals(CommandTreeDiff.Type.REPLACE, diff.operations().get(0).type());
+  }
+
+  // Brigadier's string and bool types don't override equals
+  private static RootCommandNode<Object> brigadierTree(final StringArgumentType message) {
+    final RootCommandNode<Object> root = new RootCommandNode<>();
+    root.addChild(LiteralArgumentBuilder.literal("say")
+        .then(RequiredArgumentBuilder.argument("message", message)
+            .executes(COMMAND))
+        .build());
+    root.addChild(LiteralArgumentBuilder.literal("gamerule")
+        .then(RequiredArgumentBuilder.argument("value", BoolArgumentType.bool())
+            .executes(COMMAND))
+        .then(RequiredArgumentBuilder.argument("count", IntegerArgumentType.integer(0, 10))
+            .executes(COMMAND))
+        .build());
+    return root;
+  }
+
+  @Test
+  void testComparesBrigadierTypes() {
+    final RootCommandNode<Object> previous = brigadierTree(StringArgumentType.greedyString());
+    assertTrue(CommandTreeDiff.compute(
+        previous, brigadierTree(StringArgumentType.greedyString())).isEmpty());
+
+    final RootCommandNode<Object> next = brigadierTree(StringArgumentType.word());
+    final CommandTreeDiff<Object> diff = CommandTreeDiff.compute(previous, next);
+    assertEquals(1, diff.operations().size());
+    assertEquals(Arrays.asList("say", "message"), diff.operations().get(0).path());
+    assertEquals(CommandTreeDiff.Type.REPLACE, diff.operations().get(0).type());
+  }
+
+  @Test
+  void testAddAndRemove() {
+    final RootCommandNode<Object> previous = tree(Stubs.commandManager(), true, true);
+    final RootCommandNode<Object> next = tree(Stubs.commandManager(), true, false);
+
+    final CommandTreeDiff<Object> removal = CommandTreeDiff.compute(previous, next);
+    assertEquals(1, removal.operations().size());
+    final CommandTreeDiff.Operation<Object> remove = removal.operations().get(0);
+    assertEquals(CommandTreeDiff.Type.REMOVE, remove.type());
+    assertEquals(Arrays.asList("locate"), remove.path());
+    assertSame(previous.getChild("locate"), remove.previous());
+    assertNull(remove.next());
+
+    final CommandTreeDiff<Object> addition = CommandTreeDiff.compute(next, previous);
+    assertEquals(1, addition.operations().size());
+    assertEquals(CommandTreeDiff.Type.ADD, addition.operations().get(0).type());
+    assertSame(previous.getChild("locate"), addition.operations().get(0).next());
+  }
+
+  @Test
+  void testReplacesChangedProperties() {
+    final RootCommandNode<Object> previous = tree(Stubs.commandManager(), true, true);
+    final RootCommandNode<Object> next = tree(Stubs.commandManager(), false, true);
+    final CommandTreeDiff<Object> diff = CommandTreeDiff.compute(previous, next);
+
+    assertEquals(1, diff.operations().size());
+    final CommandTreeDiff.Operation<Object> replace = diff.operations().get(0);
+    assertEquals(CommandTreeDiff.Type.REPLACE, replace.type());
+    assertEquals(Arrays.asList("tp", "target"), replace.path());
+    assertSame(previous.getChild("tp").getChild("target"), replace.previous());
+    assertSame(next.getChild("tp").getChild("target"), replace.next());
+    assertEquals(Set.of("tp"), diff.changedCommands());
+  }
+
+  @Test
+  void testComparesRedirectsByPath() {
+    final RootCommandNode<Object> previous = tree(Stubs.commandManager(), true, false);
+    final RootCommandNode<Object> next = tree(Stubs.commandManager(), true, false);
+    next.getChild("execute").addChild(LiteralArgumentBuilder.literal("as")
+        .redirect(next.getChild("execute"))
+        .build());
+    final RootCommandNode<Object> redirected = tree(Stubs.commandManager(), true, false);
+    redirected.getChild("execute").addChild(LiteralArgumentBuilder.literal("as")
+        .redirect(redirected)
+        .build());
+
+    final CommandTreeDiff<Object> addition = CommandTreeDiff.compute(previous, next);
+    assertEquals(1, addition.operations().size());
+    assertEquals(Arrays.asList("execute", "as"), addition.operations().get(0).path());
+    assertEquals(CommandTreeDiff.Type.ADD, addition.operations().get(0).type());
+
+    final CommandTreeDiff<Object> diff = CommandTreeDiff.compute(next, redirected);
+    assertEquals(1, diff.operations().size());
+    assertEquals(CommandTreeDiff.Type.REPLACE, diff.operations().get(0).type());
+  }
+}
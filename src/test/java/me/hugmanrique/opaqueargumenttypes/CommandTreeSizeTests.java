@@ -0,0 +1,70 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_12_2;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_18_2;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.tree.RootCommandNode;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class CommandTreeSizeTests {
+
+  private static RootCommandNode<Object> createTree() {
+    final RootCommandNode<Object> root = new RootCommandNode<>();
+    root.addChild(LiteralArgumentBuilder.literal("a")
+        .then(RequiredArgumentBuilder.argument("n", IntegerArgumentType.integer()))
+        .build());
+    root.addChild(LiteralArgumentBuilder.literal("b").executes(context -> 1).build());
+    return root;
+  }
+
+  @Test
+  void testIdentifierParsers() {
+    final CommandTreeSize size = CommandTreeSize.of(createTree(), MINECRAFT_1_18_2);
+
+    // root: flags, 2 children and their indices
+    // a: flags, 1 child and its index, name
+    // b: flags, no children, name
+    // n: flags, no children, name, brigadier:integer, flags
+    assertEquals(4, size.nodeCount());
+    assertEquals(1 + 4 + 5 + 4 + 23 + 1, size.totalBytes());
+
+    final List<CommandTreeSize.Subtree> subtrees = size.subtrees();
+    assertEquals(2, subtrees.size());
+    assertEquals("a", subtrees.get(0).name());
+    assertEquals(5 + 23, subtrees.get(0).bytes());
+    assertEquals("b", subtrees.get(1).name());
+    assertEquals(4, subtrees.get(1).bytes());
+    assertEquals(1, size.largestSubtrees(1).size());
+  }
+
+  @Test
+  void testNumericParsers() {
+    final CommandTreeSize size = CommandTreeSize.of(createTree(), MINECRAFT_1_19);
+
+    assertEquals(1 + 4 + 5 + 4 + 6 + 1, size.totalBytes());
+  }
+
+  @Test
+  void testBudget() {
+    final CommandTreeSize size = CommandTreeSize.of(createTree(), MINECRAFT_1_19);
+
+    assertFalse(size.exceeds(CommandTreeSize.MAXIMUM_PACKET_LENGTH));
+    assertFalse(size.exceeds(size.totalBytes() + 1));
+    assertTrue(size.exceeds(size.totalBytes()));
+  }
+
+  @Test
+  void testPreBrigadierVersions() {
+    assertThrows(IllegalArgumentException.class,
+        () -> CommandTreeSize.of(createTree(), MINECRAFT_1_12_2));
+  }
+}
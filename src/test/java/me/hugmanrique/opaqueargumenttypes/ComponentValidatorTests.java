@@ -0,0 +1,113 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.ComponentValidator.Result.MALFORMED;
+import static me.hugmanrique.opaqueargumenttypes.ComponentValidator.Result.STRING_TOO_LONG;
+import static me.hugmanrique.opaqueargumenttypes.ComponentValidator.Result.TOO_DEEP;
+import static me.hugmanrique.opaqueargumenttypes.ComponentValidator.Result.TOO_MANY_NODES;
+import static me.hugmanrique.opaqueargumenttypes.ComponentValidator.Result.VALID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.mojang.brigadier.StringReader;
+import org.junit.jupiter.api.Test;
+
+final class ComponentValidatorTests {
+
+  private static final ComponentValidator VALIDATOR = ComponentValidator.DEFAULT;
+
+  @Test
+  void testPrimitivesAndArrays() {
+    assertEquals(VALID, VALIDATOR.validate("\"hi\""));
+    assertEquals(VALID, VALIDATOR.validate("-1.5e+3"));
+    assertEquals(VALID, VALIDATOR.validate("true"));
+    assertEquals(VALID, VALIDATOR.validate("[\"a\",{\"text\":\"b\"}]"));
+
+    assertEquals(MALFORMED, VALIDATOR.validate("null"));
+    assertEquals(MALFORMED, VALIDATOR.validate("[]"));
+    assertEquals(MALFORMED, VALIDATOR.validate("01"));
+    assertEquals(MALFORMED, VALIDATOR.validate("truex"));
+  }
+
+  @Test
+  void testComponentObjects() {
+    assertEquals(VALID, VALIDATOR.validate("{ \"text\" : \"a\\u00e9\\n\", \"bold\": true }"));
+    assertEquals(VALID, VALIDATOR.validate("{\"text\":\"a\",\"extra\":[\"b\","
+        + "{\"translate\":\"x\",\"with\":[]}]}"));
+    assertEquals(VALID, VALIDATOR.validate("{\"score\":{\"name\":\"@p\",\"objective\":\"o\"}}"));
+    assertEquals(VALID, VALIDATOR.validate("{\"nbt\":\"a\",\"block\":\"~ ~ ~\"}"));
+    assertEquals(VALID, VALIDATOR.validate("{\"text\":\"a\",\"hoverEvent\":"
+        + "{\"action\":\"show_text\",\"contents\":[1,{\"k\":null}]}}"));
+
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"color\":\"red\"}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"text\":{}}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"text\":\"a\",\"extra\":[]}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"score\":{\"name\":\"@p\"}}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"nbt\":\"a\"}"));
+  }
+
+  @Test
+  void testContentPrecedence() {
+    // Only the first content key in vanilla order is read
+    assertEquals(VALID, VALIDATOR.validate("{\"text\":\"a\",\"nbt\":\"x\"}"));
+    assertEquals(VALID, VALIDATOR.validate("{\"nbt\":\"x\",\"translate\":\"a\"}"));
+    assertEquals(VALID, VALIDATOR.validate("{\"score\":1,\"text\":\"a\"}"));
+    assertEquals(VALID, VALIDATOR.validate("{\"keybind\":\"k\",\"nbt\":{}}"));
+
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"text\":{},\"keybind\":\"k\"}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"selector\":\"@p\",\"score\":1}"));
+  }
+
+  @Test
+  void testContentDependentKeys() {
+    // The with array is only read by translations
+    assertEquals(VALID, VALIDATOR.validate("{\"text\":\"a\",\"with\":5}"));
+    assertEquals(VALID, VALIDATOR.validate("{\"with\":[{}],\"keybind\":\"k\"}"));
+    assertEquals(VALID, VALIDATOR.validate("{\"translate\":\"t\",\"with\":[1,{\"text\":\"a\"}]}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"translate\":\"t\",\"with\":5}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"with\":[{}],\"translate\":\"t\"}"));
+
+    // The separator is only read by selector and NBT components
+    assertEquals(VALID, VALIDATOR.validate("{\"selector\":\"@a\",\"separator\":{\"text\":\"|\"}}"));
+    assertEquals(VALID, VALIDATOR.validate("{\"text\":\"a\",\"separator\":{}}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"selector\":\"@a\",\"separator\":{}}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"separator\":null,\"selector\":\"@a\"}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"nbt\":\"a\",\"entity\":\"@s\","
+        + "\"separator\":[]}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"selector\":\"@a\",\"separator\":{\"a\":}}"));
+  }
+
+  @Test
+  void testStrictSyntax() {
+    assertEquals(MALFORMED, VALIDATOR.validate("{text:\"a\"}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"text\":'a'}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"text\":\"a\",}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"text\":\"a\\x\"}"));
+    assertEquals(MALFORMED, VALIDATOR.validate("{\"text\":\"a\""));
+  }
+
+  @Test
+  void testLimits() {
+    final StringBuilder deep = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      deep.append('[');
+    }
+    assertEquals(TOO_DEEP, VALIDATOR.validate(deep.toString()));
+
+    final ComponentValidator validator = new ComponentValidator(8, 3, 3);
+    assertEquals(STRING_TOO_LONG, validator.validate("\"abcd\""));
+    assertEquals(TOO_MANY_NODES, validator.validate("[1,2,3]"));
+    assertEquals(VALID, validator.validate("[1,2]"));
+  }
+
+  @Test
+  void testReaderCursor() {
+    final StringReader reader = new StringReader("tellraw @a {\"text\":\"a\"} rest");
+    reader.setCursor(11);
+    assertEquals(VALID, VALIDATOR.validate(reader));
+    assertEquals(23, reader.getCursor());
+
+    final StringReader invalid = new StringReader("tellraw @a \"a\"b");
+    invalid.setCursor(11);
+    assertEquals(MALFORMED, VALIDATOR.validate(invalid));
+    assertEquals(11, invalid.getCursor());
+  }
+}
@@ -0,0 +1,80 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.CoordinateValidator.BLOCK_POS;
+import static me.hugmanrique.opaqueargumenttypes.CoordinateValidator.COLUMN_POS;
+import static me.hugmanrique.opaqueargumenttypes.CoordinateValidator.ROTATION;
+import static me.hugmanrique.opaqueargumenttypes.CoordinateValidator.VEC2;
+import static me.hugmanrique.opaqueargumenttypes.CoordinateValidator.VEC3;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.StringReader;
+import org.junit.jupiter.api.Test;
+
+final class CoordinateValidatorTests {
+
+  @Test
+  void testIntegerCoordinates() {
+    assertTrue(BLOCK_POS.isValid("1 2 3"));
+    assertTrue(BLOCK_POS.isValid("~ ~1.5 -3"));
+    assertTrue(BLOCK_POS.isValid("-2147483648 0 2147483647"));
+    assertTrue(COLUMN_POS.isValid("1 ~"));
+
+    assertFalse(BLOCK_POS.isValid("1.5 2 3"));
+    assertFalse(BLOCK_POS.isValid("2147483648 0 0"));
+    assertFalse(BLOCK_POS.isValid("1 2"));
+    assertFalse(BLOCK_POS.isValid("1 2 3x"));
+    assertFalse(BLOCK_POS.isValid("~x ~ ~"));
+    assertFalse(COLUMN_POS.isValid("1.2 ~"));
+  }
+
+  @Test
+  void testDecimalCoordinates() {
+    assertTrue(VEC3.isValid("1.5 .5 -.5"));
+    assertTrue(VEC3.isValid("1. ~ ~-0.25"));
+    assertTrue(VEC2.isValid("~ ~"));
+    assertTrue(ROTATION.isValid("90 ~-10"));
+
+    assertFalse(VEC3.isValid(""));
+    assertFalse(VEC3.isValid("- 2 3"));
+    assertFalse(VEC3.isValid("1..2 2 3"));
+    assertFalse(VEC3.isValid("1-2 2 3"));
+    assertFalse(ROTATION.isValid("90"));
+  }
+
+  @Test
+  void testLocalCoordinates() {
+    assertTrue(BLOCK_POS.isValid("^ ^ ^1"));
+    assertTrue(VEC3.isValid("^1 ^-2 ^.5"));
+
+    assertFalse(BLOCK_POS.isValid("^ ~ ^"));
+    assertFalse(BLOCK_POS.isValid("~ ^ ~"));
+    assertFalse(VEC2.isValid("^ ^"));
+    assertFalse(ROTATION.isValid("^ ^"));
+  }
+
+  @Test
+  void testReaderCursor() {
+    final StringReader reader = new StringReader("tp 1 2 3 rest");
+    reader.setCursor(3);
+    assertTrue(BLOCK_POS.validate(reader));
+    assertEquals(8, reader.getCursor());
+
+    final StringReader invalid = new StringReader("tp 1 2x");
+    invalid.setCursor(3);
+    assertFalse(COLUMN_POS.validate(invalid));
+    assertEquals(3, invalid.getCursor());
+    assertFalse(VEC2.validate(new StringReader("1 x")));
+  }
+
+  @Test
+  void testForParser() {
+    for (final CoordinateValidator validator : CoordinateValidator.values()) {
+      assertSame(validator, CoordinateValidator.forParser(validator.parser()));
+    }
+    assertNull(CoordinateValidator.forParser(ArgumentParser.ENTITY));
+  }
+}
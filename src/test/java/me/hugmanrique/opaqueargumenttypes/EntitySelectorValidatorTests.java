@@ -0,0 +1,200 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.EntitySelectorValidator.Result.MALFORMED;
+import static me.hugmanrique.opaqueargumenttypes.EntitySelectorValidator.Result.NOT_PLAYERS;
+import static me.hugmanrique.opaqueargumenttypes.EntitySelectorValidator.Result.NOT_SINGLE;
+import static me.hugmanrique.opaqueargumenttypes.EntitySelectorValidator.Result.TOO_MANY_OPTIONS;
+import static me.hugmanrique.opaqueargumenttypes.EntitySelectorValidator.Result.VALID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.mojang.brigadier.StringReader;
+import com.velocitypowered.api.proxy.ProxyServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+final class EntitySelectorValidatorTests {
+
+  private static final EntitySelectorValidator ENTITIES = EntitySelectorValidator.forFlags(false, false);
+  private static final EntitySelectorValidator ENTITY = EntitySelectorValidator.forFlags(true, false);
+  private static final EntitySelectorValidator PLAYERS = EntitySelectorValidator.forFlags(false, true);
+  private static final EntitySelectorValidator PLAYER = EntitySelectorValidator.forFlags(true, true);
+
+  @Test
+  void testNamesAndUuids() {
+    assertEquals(VALID, PLAYER.validate("Notch"));
+    assertEquals(VALID, PLAYER.validate("\"Notch\""));
+    assertEquals(VALID, ENTITY.validate("069a79f4-44e9-4726-a5be-fca90e38aaf5"));
+    assertEquals(VALID, ENTITY.validate("1-2-3-4-5"));
+
+    assertEquals(NOT_PLAYERS, PLAYER.validate("069a79f4-44e9-4726-a5be-fca90e38aaf5"));
+    assertEquals(MALFORMED, PLAYER.validate(""));
+    assertEquals(MALFORMED, PLAYER.validate("ABCDEFGHIJKLMNOPQ"));
+    assertEquals(MALFORMED, PLAYER.validate("Not#ch"));
+  }
+
+  @Test
+  void testSelectorTypes() {
+    assertEquals(VALID, PLAYER.validate("@p"));
+    assertEquals(VALID, PLAYER.validate("@r"));
+    assertEquals(VALID, PLAYER.validate("@s"));
+    assertEquals(VALID, PLAYERS.validate("@a"));
+    assertEquals(VALID, ENTITIES.validate("@e"));
+
+    assertEquals(NOT_SINGLE, PLAYER.validate("@a"));
+    assertEquals(NOT_SINGLE, ENTITY.validate("@e"));
+    assertEquals(NOT_PLAYERS, PLAYERS.validate("@e"));
+    assertEquals(MALFORMED, ENTITIES.validate("@"));
+    assertEquals(MALFORMED, ENTITIES.validate("@x"));
+  }
+
+  @Test
+  void testLimitAndType() {
+    assertEquals(VALID, PLAYER.validate("@a[limit=1]"));
+    assertEquals(VALID, ENTITY.validate("@e[limit=01,sort=nearest]"));
+    assertEquals(VALID, PLAYERS.validate("@e[type=player]"));
+    assertEquals(VALID, PLAYER.validate("@e[type=minecraft:player,limit=1]"));
+    // A tag doesn't limit the type
+    assertEquals(VALID, ENTITIES.validate("@e[type=#minecraft:skeletons,type=!minecraft:stray]"));
+    assertEquals(VALID, ENTITIES.validate("@e[type=#skeletons,type=stray]"));
+
+    assertEquals(NOT_SINGLE, PLAYER.validate("@p[limit=2]"));
+    assertEquals(NOT_PLAYERS, PLAYERS.validate("@e[type=!player]"));
+    assertEquals(NOT_PLAYERS, PLAYERS.validate("@e[type=#skeletons]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[limit=0]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[limit=-1]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@s[limit=1]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@a[type=player]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[limit=1,limit=1]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[type=!zombie,type=cow]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[type=stray,type=#skeletons]"));
+  }
+
+  @Test
+  void testOptions() {
+    assertEquals(VALID, ENTITIES.validate("@e[]"));
+    assertEquals(VALID, ENTITIES.validate("@e[ distance = ..5 , x=1.5, dx=-2, tag=,]"));
+    assertEquals(VALID, ENTITIES.validate("@e[name=!\"a b\",level=1..,gamemode=!creative]"));
+    assertEquals(VALID, ENTITIES.validate("@e[nbt={Tags:[\"a\"]},scores={kills=1..5}]"));
+    assertEquals(VALID, ENTITIES.validate("@e[advancements={story/root=true,a={b=false}}]"));
+    assertEquals(VALID, ENTITIES.validate("@e[predicate=pack:test/a,\"team\"=red]"));
+
+    assertEquals(MALFORMED, ENTITIES.validate("@e[unknown=1]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[distance=..]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[level=1.5]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[gamemode=hardcore]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[nbt={a:}]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[tag=a"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[tag=a tag=b]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[tag=a, ]")); // empty option name
+  }
+
+  @Test
+  void testOptionLimit() {
+    final StringBuilder selector = new StringBuilder("@e[");
+    for (int i = 0; i < EntitySelectorValidator.DEFAULT_MAX_OPTIONS; i++) {
+      selector.append("tag=a,");
+    }
+    assertEquals(VALID, ENTITIES.validate(selector + "]"));
+    assertEquals(TOO_MANY_OPTIONS, ENTITIES.validate(selector + "tag=b]"));
+    assertEquals(TOO_MANY_OPTIONS, new EntitySelectorValidator(false, false, 0).validate("@e[tag=a]"));
+  }
+
+  @Test
+  void testReaderCursor() {
+    final StringReader reader = new StringReader("tp @p[limit=1] ~ ~ ~");
+    reader.setCursor(3);
+    assertEquals(VALID, PLAYER.validate(reader));
+    assertEquals(14, reader.getCursor());
+
+    assertCursorUnchanged(NOT_PLAYERS, PLAYERS, "tp @e ~ ~ ~");
+    assertCursorUnchanged(NOT_SINGLE, PLAYER, "tp @a ~ ~ ~");
+    assertCursorUnchanged(MALFORMED, PLAYER, "tp @p[ ~ ~ ~");
+  }
+
+  private static void assertCursorUnchanged(final EntitySelectorValidator.Result expected,
+                                            final EntitySelectorValidator validator,
+                                            final String input) {
+    final StringReader reader = new StringReader(input);
+    reader.setCursor(3);
+    assertEquals(expected, validator.validate(reader));
+    assertEquals(3, reader.getCursor());
+  }
+
+  @Test
+  void testPlayerOnlyOptions() {
+    assertEquals(VALID, PLAYERS.validate("@e[gamemode=survival]"));
+    assertEquals(VALID, PLAYERS.validate("@e[gamemode=!creative]"));
+    assertEquals(VALID, PLAYERS.validate("@e[level=5..]"));
+    assertEquals(VALID, PLAYERS.validate("@e[advancements={story/root=true}]"));
+    assertEquals(NOT_PLAYERS, PLAYERS.validate("@e[tag=a]"));
+  }
+
+  @Test
+  void testRepeatedOptions() {
+    assertEquals(VALID, ENTITIES.validate("@e[name=!a,name=!b]"));
+    assertEquals(VALID, ENTITIES.validate("@e[gamemode=!creative,gamemode=!spectator]"));
+    assertEquals(VALID, ENTITIES.validate("@e[team=!red,team=!blue,tag=a,tag=b]"));
+    assertEquals(VALID, ENTITIES.validate("@e[x=1,y=2,z=3,dx=1,dy=1,dz=1]"));
+
+    assertEquals(MALFORMED, ENTITIES.validate("@e[name=a,name=b]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[name=!a,name=b]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[name=a,name=!b]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[team=a,team=b]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[distance=1,distance=2]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[level=1,level=2]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[x=1,x=2]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[dz=1,dz=2]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[x_rotation=1,x_rotation=2]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[y_rotation=1,y_rotation=2]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[sort=nearest,sort=random]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[gamemode=survival,gamemode=creative]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[gamemode=!survival,gamemode=creative]"));
+  }
+
+  @Test
+  void testNegativeBounds() {
+    assertEquals(VALID, ENTITIES.validate("@e[distance=0..5]"));
+    assertEquals(VALID, ENTITIES.validate("@e[distance=-0.0..1]"));
+    assertEquals(VALID, ENTITIES.validate("@e[x_rotation=-90..0]"));
+    assertEquals(VALID, ENTITIES.validate("@e[scores={a=-5..}]"));
+
+    assertEquals(MALFORMED, ENTITIES.validate("@e[distance=-1..5]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[distance=..-0.5]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[level=-1]"));
+    assertEquals(MALFORMED, ENTITIES.validate("@e[level=-3..-1]"));
+  }
+
+  @Test
+  void testTypeTagWhitespace() {
+    assertEquals(VALID, ENTITIES.validate("@e[type=# skeletons]"));
+    assertEquals(VALID, ENTITIES.validate("@e[type=! # minecraft:skeletons]"));
+  }
+
+  @Test
+  void testForDescriptor() {
+    assertSame(PLAYER, EntitySelectorValidator.forDescriptor(new ArgumentDescriptor.Entity(true, true)));
+    assertSame(ENTITIES, EntitySelectorValidator.forDescriptor(new ArgumentDescriptor.Entity(false, false)));
+  }
+
+  @Test
+  void testResolvePlayer() {
+    final List<String> queries = new ArrayList<>();
+    final ProxyServer proxy = Stubs.proxy(ProxyServer.class, (name, args) -> {
+      if (name.equals("getPlayer") && args[0] instanceof String) {
+        queries.add((String) args[0]);
+        return Optional.empty();
+      }
+      throw new UnsupportedOperationException(name);
+    });
+
+    assertFalse(EntitySelectorValidator.resolvePlayer(proxy, "Notch").isPresent());
+    assertFalse(EntitySelectorValidator.resolvePlayer(proxy, "@p").isPresent());
+    assertFalse(EntitySelectorValidator.resolvePlayer(proxy, "1-2-3-4-5").isPresent());
+    assertFalse(EntitySelectorValidator.resolvePlayer(proxy, "").isPresent());
+    assertEquals(List.of("Notch"), queries);
+  }
+}
@@ -0,0 +1,101 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19_1;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19_3;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.api.proxy.Player;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+final class LocalSuggestionsTests {
+
+  private static List<String> suggest(final ArgumentParser parser, final String input) {
+    final Suggestions suggestions = LocalSuggestions.suggest(parser, MINECRAFT_1_19_3,
+        new SuggestionsBuilder("cmd " + input, 4)).join();
+    return suggestions.getList().stream()
+        .map(Suggestion::getText)
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  // Completes the input through a dispatcher, like the proxy does for its own nodes
+  private static List<String> complete(final CommandDispatcher<CommandSource> dispatcher,
+                                       final ProtocolVersion version, final String input) {
+    final Player player = Stubs.proxy(Player.class, (name, args) -> {
+      if (name.equals("getProtocolVersion")) {
+        return version;
+      }
+      throw new UnsupportedOperationException(name);
+    });
+    return dispatcher.getCompletionSuggestions(dispatcher.parse(input, player)).join()
+        .getList().stream()
+        .map(Suggestion::getText)
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  void testPrefixSuggestions() {
+    assertEquals(Arrays.asList("dark_aqua", "dark_blue", "dark_gray", "dark_green",
+        "dark_purple", "dark_red"), suggest(ArgumentParser.COLOR, "dark_"));
+    assertEquals(Arrays.asList("eyes", "feet"), suggest(ArgumentParser.ENTITY_ANCHOR, ""));
+    assertEquals(Arrays.asList(">", "><"), suggest(ArgumentParser.OPERATION, ">"));
+    assertTrue(suggest(ArgumentParser.GAME_MODE, "hardcore").isEmpty());
+  }
+
+  @Test
+  void testCaseInsensitiveSuggestions() {
+    assertEquals(Arrays.asList("belowName"), suggest(ArgumentParser.SCOREBOARD_SLOT, "BELOWn"));
+    assertEquals(Arrays.asList("creative"), suggest(ArgumentParser.GAME_MODE, "Cr"));
+  }
+
+  @Test
+  void testVersionedVocabularies() {
+    assertTrue(LocalSuggestions.vocabulary(ArgumentParser.GAME_MODE, MINECRAFT_1_19_1).isEmpty());
+    assertEquals(4, LocalSuggestions.vocabulary(ArgumentParser.GAME_MODE, MINECRAFT_1_19_3)
+        .size());
+    assertEquals(3 + 16, LocalSuggestions.vocabulary(ArgumentParser.SCOREBOARD_SLOT,
+        MINECRAFT_1_19_3).size());
+    assertEquals(15, LocalSuggestions.vocabulary(ArgumentParser.SWIZZLE, MINECRAFT_1_19_3)
+        .size());
+  }
+
+  @Test
+  void testOpenVocabularies() {
+    assertFalse(LocalSuggestions.supports(ArgumentParser.ENTITY));
+    assertTrue(LocalSuggestions.vocabulary(ArgumentParser.ENTITY, MINECRAFT_1_19_3).isEmpty());
+    assertThrows(IllegalArgumentException.class,
+        () -> LocalSuggestions.provider(ArgumentParser.ENTITY));
+  }
+
+  @Test
+  void testDispatcherSuggestions() {
+    final CommandDispatcher<CommandSource> dispatcher = new CommandDispatcher<>();
+    dispatcher.register(LiteralArgumentBuilder.<CommandSource>literal("gamemode")
+        .then(LocalSuggestions.argument("mode", ArgumentParser.GAME_MODE)));
+
+    assertEquals(Arrays.asList("spectator", "survival"),
+        complete(dispatcher, MINECRAFT_1_19_3, "gamemode s"));
+    assertEquals(4, complete(dispatcher, MINECRAFT_1_19_3, "gamemode ").size());
+    // The parser is unknown to the client
+    assertTrue(complete(dispatcher, MINECRAFT_1_19_1, "gamemode ").isEmpty());
+
+    assertThrows(IllegalArgumentException.class,
+        () -> LocalSuggestions.argument("operation", ArgumentParser.OPERATION));
+    assertThrows(IllegalArgumentException.class,
+        () -> LocalSuggestions.argument("target", ArgumentParser.ENTITY));
+  }
+}
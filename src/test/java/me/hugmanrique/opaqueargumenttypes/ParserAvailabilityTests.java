@@ -0,0 +1,53 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_12_2;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_13;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_18_2;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19_1;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19_3;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import org.junit.jupiter.api.Test;
+
+final class ParserAvailabilityTests {
+
+  @Test
+  void testRemovedParsers() {
+    assertTrue(ParserAvailability.isSupported(ArgumentParser.RANGE, MINECRAFT_1_18_2));
+    assertFalse(ParserAvailability.isSupported(ArgumentParser.RANGE, MINECRAFT_1_19));
+
+    assertTrue(ParserAvailability.isSupported(ArgumentParser.MOB_EFFECT, MINECRAFT_1_19_1));
+    assertFalse(ParserAvailability.isSupported(ArgumentParser.MOB_EFFECT, MINECRAFT_1_19_3));
+    assertFalse(ParserAvailability.isSupported(ArgumentParser.ITEM_ENCHANTMENT, MINECRAFT_1_19_3));
+    assertFalse(ParserAvailability.isSupported(ArgumentParser.ENTITY_SUMMON, MINECRAFT_1_19_3));
+  }
+
+  @Test
+  void testAddedParsers() {
+    assertFalse(ParserAvailability.isSupported(ArgumentParser.GAME_MODE, MINECRAFT_1_19_1));
+    assertTrue(ParserAvailability.isSupported(ArgumentParser.GAME_MODE, MINECRAFT_1_19_3));
+    assertTrue(ParserAvailability.isSupported(ArgumentParser.ENTITY, MINECRAFT_1_13));
+  }
+
+  @Test
+  void testPreBrigadierVersions() {
+    assertTrue(ParserAvailability.supportedParsers(MINECRAFT_1_12_2).isEmpty());
+    assertTrue(ParserAvailability.supportedParsers(ProtocolVersion.UNKNOWN).isEmpty());
+  }
+
+  @Test
+  void testMatchesParserVersions() {
+    for (final ProtocolVersion version : ProtocolVersion.values()) {
+      for (final ArgumentParser parser : ArgumentParser.values()) {
+        final boolean expected = version.compareTo(parser.addedIn()) >= 0
+            && (parser.removedIn() == null || version.compareTo(parser.removedIn()) < 0);
+        assertEquals(expected, ParserAvailability.isSupported(parser, version));
+        assertEquals(expected, ParserAvailability.supportedParsers(version).contains(parser));
+      }
+    }
+  }
+}
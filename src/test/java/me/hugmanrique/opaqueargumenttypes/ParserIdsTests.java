@@ -0,0 +1,72 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_18_2;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19_1;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19_3;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19_4;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import org.junit.jupiter.api.Test;
+
+final class ParserIdsTests {
+
+  @Test
+  void testIdentifierVersions() {
+    assertFalse(ParserIds.usesIds(MINECRAFT_1_18_2));
+    assertEquals(-1, ParserIds.id(ArgumentParser.ENTITY, MINECRAFT_1_18_2));
+    assertNull(ParserIds.byId(6, MINECRAFT_1_18_2));
+  }
+
+  @Test
+  void testIds() {
+    assertTrue(ParserIds.usesIds(MINECRAFT_1_19));
+    assertEquals(6, ParserIds.id(ArgumentParser.ENTITY, MINECRAFT_1_19));
+    assertEquals(19, ParserIds.id(ArgumentParser.NBT_COMPOUND_TAG, MINECRAFT_1_19));
+    assertEquals(42, ParserIds.id(ArgumentParser.TIME, MINECRAFT_1_19_1));
+    assertEquals(47, ParserIds.id(ArgumentParser.UUID, MINECRAFT_1_19_1));
+
+    assertEquals(39, ParserIds.id(ArgumentParser.GAME_MODE, MINECRAFT_1_19_3));
+    assertEquals(40, ParserIds.id(ArgumentParser.TIME, MINECRAFT_1_19_3));
+    assertEquals(47, ParserIds.id(ArgumentParser.UUID, MINECRAFT_1_19_3));
+    assertEquals(-1, ParserIds.id(ArgumentParser.MOB_EFFECT, MINECRAFT_1_19_3));
+  }
+
+  @Test
+  void testIdsMatchAvailability() {
+    for (final ProtocolVersion version : ProtocolVersion.values()) {
+      if (version.compareTo(ParserIds.LATEST_VERSION) > 0 || !ParserIds.usesIds(version)) {
+        continue;
+      }
+      for (final ArgumentParser parser : ArgumentParser.values()) {
+        final int id = ParserIds.id(parser, version);
+        assertEquals(ParserAvailability.isSupported(parser, version), id != -1,
+            parser + " in " + version);
+        if (id != -1) {
+          assertSame(parser, ParserIds.byId(id, version));
+        }
+      }
+    }
+  }
+
+  @Test
+  void testRejectsNewerVersions() {
+    assertThrows(IllegalArgumentException.class, () -> ParserIds.usesIds(MINECRAFT_1_19_4));
+    assertThrows(IllegalArgumentException.class,
+        () -> ParserIds.id(ArgumentParser.ENTITY, MINECRAFT_1_19_4));
+    assertThrows(IllegalArgumentException.class, () -> ParserIds.byId(6, MINECRAFT_1_19_4));
+  }
+
+  @Test
+  void testBrigadierIds() {
+    assertNull(ParserIds.byId(0, MINECRAFT_1_19_3));
+    assertNull(ParserIds.byId(ParserIds.BRIGADIER_PARSER_COUNT - 1, MINECRAFT_1_19_3));
+    assertNull(ParserIds.byId(48, MINECRAFT_1_19_3));
+  }
+}
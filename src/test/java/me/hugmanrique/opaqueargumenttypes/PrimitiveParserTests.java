@@ -0,0 +1,137 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.PrimitiveParser.ANGLE;
+import static me.hugmanrique.opaqueargumenttypes.PrimitiveParser.FLOAT_RANGE;
+import static me.hugmanrique.opaqueargumenttypes.PrimitiveParser.INT_RANGE;
+import static me.hugmanrique.opaqueargumenttypes.PrimitiveParser.TIME;
+import static me.hugmanrique.opaqueargumenttypes.PrimitiveParser.UUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.StringReader;
+import org.junit.jupiter.api.Test;
+
+final class PrimitiveParserTests {
+
+  @Test
+  void testUuid() {
+    final PrimitiveValue value = new PrimitiveValue();
+    final String uuid = "069a79f4-44e9-4726-a5be-fca90e38aaf5";
+    assertTrue(UUID.parse(uuid, value));
+    assertEquals(java.util.UUID.fromString(uuid), value.toUuid());
+    assertTrue(UUID.parse("1-2-3-4-5", value));
+    assertEquals(java.util.UUID.fromString("1-2-3-4-5"), value.toUuid());
+    assertTrue(UUID.parse("fffffffff-0-0-0-0", value)); // the first group is truncated
+    assertEquals(java.util.UUID.fromString("fffffffff-0-0-0-0"), value.toUuid());
+
+    assertFalse(UUID.isValid(""));
+    assertFalse(UUID.isValid("1-2-3-4"));
+    assertFalse(UUID.isValid("1-2-3-4-5-6"));
+    assertFalse(UUID.isValid("1--3-4-5"));
+    assertFalse(UUID.isValid("80000000000000000-2-3-4-5"));
+    assertFalse(UUID.isValid("069a79f4-44e9-4726-a5be-fca90e38aaf5g"));
+  }
+
+  @Test
+  void testTime() {
+    final PrimitiveValue value = new PrimitiveValue();
+    assertTrue(TIME.parse("20", value));
+    assertEquals(20, value.ticks());
+    assertTrue(TIME.parse("1d", value));
+    assertEquals(24000, value.ticks());
+    assertTrue(TIME.parse("1.5s", value));
+    assertEquals(30, value.ticks());
+    assertTrue(TIME.parse("0.4t", value));
+    assertEquals(0, value.ticks());
+
+    assertFalse(TIME.isValid(""));
+    assertFalse(TIME.isValid("d"));
+    assertFalse(TIME.isValid("-1"));
+    assertFalse(TIME.isValid("1m"));
+    assertFalse(TIME.isValid("1dd"));
+  }
+
+  @Test
+  void testAngle() {
+    final PrimitiveValue value = new PrimitiveValue();
+    assertTrue(ANGLE.parse("-90.5", value));
+    assertEquals(-90.5F, value.angle());
+    assertFalse(value.relative());
+    assertTrue(ANGLE.parse("~", value));
+    assertEquals(0.0F, value.angle());
+    assertTrue(value.relative());
+    assertTrue(ANGLE.parse("~.25", value));
+    assertEquals(0.25F, value.angle());
+
+    assertFalse(ANGLE.isValid(""));
+    assertFalse(ANGLE.isValid("~x"));
+    assertFalse(ANGLE.isValid("1..2"));
+    assertFalse(ANGLE.isValid("9".repeat(40))); // infinite
+  }
+
+  @Test
+  void testIntRange() {
+    final PrimitiveValue value = new PrimitiveValue();
+    assertTrue(INT_RANGE.parse("5", value));
+    assertTrue(value.hasMin() && value.hasMax());
+    assertEquals(5, value.minInt());
+    assertEquals(5, value.maxInt());
+    assertTrue(INT_RANGE.parse("..-3", value));
+    assertFalse(value.hasMin());
+    assertEquals(-3, value.maxInt());
+    assertTrue(INT_RANGE.parse("-2147483648..", value));
+    assertEquals(Integer.MIN_VALUE, value.minInt());
+    assertFalse(value.hasMax());
+
+    assertFalse(INT_RANGE.isValid(""));
+    assertFalse(INT_RANGE.isValid(".."));
+    assertFalse(INT_RANGE.isValid("1.5"));
+    assertFalse(INT_RANGE.isValid("5..1"));
+    assertFalse(INT_RANGE.isValid("1...2"));
+  }
+
+  @Test
+  void testFloatRange() {
+    final PrimitiveValue value = new PrimitiveValue();
+    assertTrue(FLOAT_RANGE.parse("0.1..2.", value));
+    assertEquals(0.1, value.min());
+    assertEquals(2.0, value.max());
+    assertTrue(FLOAT_RANGE.parse("..-.5", value));
+    assertEquals(-0.5, value.max());
+    assertTrue(FLOAT_RANGE.parse("1.00000000000000000001", value)); // too many digits for the exact path
+    assertEquals(1.00000000000000000001, value.min());
+
+    assertFalse(FLOAT_RANGE.isValid("-"));
+    assertTrue(FLOAT_RANGE.isValid("1.5.."));
+    assertFalse(FLOAT_RANGE.isValid("2..1"));
+    assertFalse(FLOAT_RANGE.isValid("1..2x"));
+  }
+
+  @Test
+  void testReaderCursor() {
+    final PrimitiveValue value = new PrimitiveValue();
+    final StringReader reader = new StringReader("test 1..5 rest");
+    reader.setCursor(5);
+    assertTrue(INT_RANGE.parse(reader, value));
+    assertEquals(9, reader.getCursor());
+
+    reader.setCursor(5);
+    assertFalse(TIME.parse(reader, value));
+    assertEquals(5, reader.getCursor());
+    assertEquals(1, value.minInt()); // unchanged
+    assertEquals(5, value.maxInt());
+  }
+
+  @Test
+  void testForParser() {
+    for (final PrimitiveParser parser : PrimitiveParser.values()) {
+      assertSame(parser, PrimitiveParser.forParser(parser.parser()));
+    }
+    assertNull(PrimitiveParser.forParser(ArgumentParser.RANGE));
+    assertSame(INT_RANGE, PrimitiveParser.forRange(false));
+    assertSame(FLOAT_RANGE, PrimitiveParser.forRange(true));
+  }
+}
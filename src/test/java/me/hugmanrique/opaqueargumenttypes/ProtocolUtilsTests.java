@@ -2,9 +2,13 @@ package me.hugmanrique.opaqueargumenttypes;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.stream.IntStream;
 import net.kyori.adventure.key.Key;
 import org.junit.jupiter.api.Test;
 
@@ -62,6 +66,102 @@ final class ProtocolUtilsTests {
     assertVarIntEquals(new byte[] { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x8 }, Integer.MIN_VALUE);
   }
 
+  /** The loop-based algorithm that the unrolled VarInt encoder replaced. */
+  private static int referenceEncodeVarInt(int value, final byte[] dest) {
+    int offset = 0;
+    do {
+      byte current = (byte) (value & 0x7F);
+      value >>>= 7;
+      if (value != 0) {
+        current |= 0x80;
+      }
+      dest[offset++] = current;
+    } while (value != 0);
+    return offset;
+  }
+
+  @Test
+  void testVarIntExhaustive() {
+    // Split the int range in chunks to check them in parallel
+    final int chunks = 256;
+    final long chunkSize = (1L << 32) / chunks;
+    final long mismatches = IntStream.range(0, chunks).parallel().mapToLong(chunk -> {
+      final byte[] expected = new byte[5];
+      final byte[] actual = new byte[5];
+      final ByteBuffer buffer = ByteBuffer.wrap(new byte[5]);
+      long failed = 0;
+      final long start = Integer.MIN_VALUE + chunk * chunkSize;
+      for (long i = start; i < start + chunkSize; i++) {
+        final int value = (int) i;
+        final int length = referenceEncodeVarInt(value, expected);
+        ProtocolUtils.encodeVarInt(value, actual, 0);
+        boolean matches = length == ProtocolUtils.varIntLength(value)
+            && length == ProtocolUtils.writeVarInt(buffer, 0, value)
+            && ProtocolUtils.decodeVarInt(actual, 0) == value;
+        for (int j = 0; j < length; j++) {
+          matches &= expected[j] == actual[j] && expected[j] == buffer.get(j);
+        }
+        if (!matches) {
+          failed++;
+        }
+      }
+      return failed;
+    }).sum();
+    assertEquals(0, mismatches);
+  }
+
+  @Test
+  void testDecodeVarIntBuffer() {
+    final ByteBuffer src = ByteBuffer.wrap(new byte[] { 0x7F, (byte) 0xD2, (byte) 0xE0, 0x3, 0x1 });
+    assertEquals(127, ProtocolUtils.readVarInt(src));
+    assertEquals(61522, ProtocolUtils.readVarInt(src));
+    assertEquals(4, src.position());
+    assertEquals(1, ProtocolUtils.readVarInt(src));
+    assertThrows(BufferUnderflowException.class, () -> ProtocolUtils.readVarInt(src));
+  }
+
+  @Test
+  void testDecodeVarIntRejectsMalformed() {
+    // overlong encoding of 0
+    assertThrows(IllegalArgumentException.class,
+        () -> ProtocolUtils.decodeVarInt(new byte[] { (byte) 0x80, 0x0 }, 0));
+    // value with more than 32 bits
+    assertThrows(IllegalArgumentException.class, () -> ProtocolUtils.decodeVarInt(
+        new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x1F }, 0));
+    // more than 5 bytes
+    assertThrows(IllegalArgumentException.class, () -> ProtocolUtils.decodeVarInt(
+        new byte[] { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x1 }, 0));
+    // truncated
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> ProtocolUtils.decodeVarInt(new byte[] { 0x1, (byte) 0x80 }, 1));
+  }
+
+  @Test
+  void testVarLong() {
+    final long[] values = { 0, 1, 127, 128, 1L << 35, Integer.MAX_VALUE, Integer.MIN_VALUE,
+        (1L << 56) - 1, 1L << 56, 1L << 63, Long.MAX_VALUE, Long.MIN_VALUE, -1 };
+    final byte[] dest = new byte[10];
+    for (final long value : values) {
+      final int length = ProtocolUtils.varLongLength(value);
+      ProtocolUtils.encodeVarLong(value, dest, 0);
+      assertEquals(value, ProtocolUtils.decodeVarLong(dest, 0));
+
+      final ByteBuffer buffer = ByteBuffer.allocate(10);
+      assertEquals(length, ProtocolUtils.writeVarLong(buffer, 0, value));
+      assertEquals(value, ProtocolUtils.readVarLong(buffer));
+      assertEquals(length, buffer.position());
+    }
+    assertEquals(1, ProtocolUtils.varLongLength(0));
+    assertEquals(10, ProtocolUtils.varLongLength(-1));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> ProtocolUtils.decodeVarLong(new byte[] { (byte) 0xFF, 0x0 }, 0));
+    final byte[] tooBig = new byte[10];
+    Arrays.fill(tooBig, (byte) 0xFF);
+    tooBig[9] = 0x3;
+    assertThrows(IllegalArgumentException.class, () -> ProtocolUtils.decodeVarLong(tooBig, 0));
+  }
+
   @Test
   void testEncodeIdentifier() {
     final byte[] encoded = ProtocolUtils.encodeIdentifier(Key.key("test"));
@@ -70,4 +170,53 @@ final class ProtocolUtilsTests {
     assertEquals(14, encoded[0]); // VarInt-encoded length in bytes
     assertArrayEquals("minecraft:test".getBytes(StandardCharsets.US_ASCII), contents);
   }
+
+  @Test
+  void testIdentifierLength() {
+    assertEquals(15, ProtocolUtils.identifierLength(Key.key("test")));
+    assertEquals(ProtocolUtils.encodeIdentifier(Key.key("foo", "bar/baz")).length,
+        ProtocolUtils.identifierLength(Key.key("foo", "bar/baz")));
+  }
+
+  @Test
+  void testWriteAtIndex() {
+    final Key identifier = Key.key("test");
+    final ByteBuffer dest = ByteBuffer.allocateDirect(32);
+    int index = ProtocolUtils.writeVarInt(dest, 3, 300);
+    assertEquals(5, index);
+    index = ProtocolUtils.writeIdentifier(dest, index, identifier);
+    assertEquals(5 + ProtocolUtils.identifierLength(identifier), index);
+    index = ProtocolUtils.writeBoolean(dest, index, true);
+    index = ProtocolUtils.writeFlags(dest, index, 0x3);
+    assertEquals(0, dest.position());
+
+    final byte[] written = new byte[index - 3];
+    for (int i = 0; i < written.length; i++) {
+      written[i] = dest.get(3 + i);
+    }
+    final byte[] expected = new byte[written.length];
+    expected[0] = (byte) 0xAC;
+    expected[1] = 0x2;
+    final byte[] encodedIdentifier = ProtocolUtils.encodeIdentifier(identifier);
+    System.arraycopy(encodedIdentifier, 0, expected, 2, encodedIdentifier.length);
+    expected[expected.length - 2] = 0x1;
+    expected[expected.length - 1] = 0x3;
+    assertArrayEquals(expected, written);
+  }
+
+  @Test
+  void testByteArray() {
+    final byte[] value = { 0x1, 0x2, 0x3 };
+    final ByteBuffer dest = ByteBuffer.allocate(8);
+    assertEquals(1 + ProtocolUtils.byteArrayLength(value),
+        ProtocolUtils.writeByteArray(dest, 1, value));
+    assertEquals(0, dest.position());
+
+    dest.position(1);
+    assertArrayEquals(value, ProtocolUtils.readByteArray(dest));
+    assertEquals(5, dest.position());
+
+    final ByteBuffer truncated = ByteBuffer.wrap(new byte[] { 0x4, 0x1, 0x2 });
+    assertThrows(IllegalArgumentException.class, () -> ProtocolUtils.readByteArray(truncated));
+  }
 }
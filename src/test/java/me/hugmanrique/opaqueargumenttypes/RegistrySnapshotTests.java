@@ -0,0 +1,164 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class RegistrySnapshotTests {
+
+  private static final Key ITEM = Key.key("item");
+  private static final String REPORT = "{\"minecraft:item\": {\"protocol_id\": 7, \"entries\": {"
+      + "\"minecraft:stone\": {\"protocol_id\": 1},"
+      + "\"minecraft:stone_bricks\": {\"protocol_id\": 2},"
+      + "\"minecraft:stick\": {\"protocol_id\": 3},"
+      + "\"minecraft:diamond\": {\"protocol_id\": 4},"
+      + "\"custom:stone\": {\"protocol_id\": 5}}}}";
+
+  private static List<String> range(final RegistryTrie trie, final String prefix) {
+    final long range = trie.range(prefix);
+    final List<String> ids = new ArrayList<>();
+    for (int i = RegistryTrie.rangeStart(range); i < RegistryTrie.rangeEnd(range); i++) {
+      ids.add(trie.get(i));
+    }
+    return ids;
+  }
+
+  private static List<String> suggest(final RegistrySnapshot snapshot, final String input,
+                                      final boolean includeTags) {
+    final SuggestionsBuilder builder = new SuggestionsBuilder("give @s " + input, 8);
+    snapshot.suggest(ITEM, includeTags, builder);
+    return builder.build().getList().stream()
+        .map(Suggestion::getText)
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  void testTrieRanges() {
+    final RegistryTrie trie = RegistryTrie.of(Arrays.asList("a:bc", "a:b", "a:bcd", "a:c",
+        "b:a", "a:b"));
+
+    assertEquals(Arrays.asList("a:b", "a:bc", "a:bcd", "a:c", "b:a"), range(trie, ""));
+    assertEquals(Arrays.asList("a:b", "a:bc", "a:bcd"), range(trie, "a:b"));
+    assertEquals(Arrays.asList("a:bcd"), range(trie, "a:bcd"));
+    assertEquals(Arrays.asList("b:a"), range(trie, "b"));
+    assertTrue(range(trie, "a:bcde").isEmpty());
+    assertTrue(range(trie, "c").isEmpty());
+    assertTrue(range(RegistryTrie.of(Collections.emptyList()), "").isEmpty());
+  }
+
+  @Test
+  void testRegistriesReport() {
+    final RegistrySnapshot snapshot = RegistrySnapshot.builder()
+        .registriesReport(new StringReader(REPORT))
+        .build();
+
+    assertEquals(1, snapshot.registries().size());
+    assertTrue(snapshot.containsEntry(ITEM, Key.key("stick")));
+    assertFalse(snapshot.containsEntry(ITEM, Key.key("custom", "stick")));
+    assertThrows(IllegalArgumentException.class, () -> RegistrySnapshot.builder()
+        .registriesReport(new StringReader("[]")));
+    assertThrows(IllegalArgumentException.class, () -> RegistrySnapshot.builder()
+        .registriesReport(new StringReader("{\"Item\": {\"entries\": {}}}")));
+    assertThrows(IllegalArgumentException.class, () -> RegistrySnapshot.builder()
+        .registriesReport(new StringReader("{\"item\": {\"entries\": {\"a b\": {}}}}")));
+  }
+
+  @Test
+  void testSuggestions() {
+    final RegistrySnapshot snapshot = RegistrySnapshot.builder()
+        .registriesReport(new StringReader(REPORT))
+        .tag(ITEM, Key.key("stone_tool_materials"))
+        .build();
+
+    assertEquals(Arrays.asList("minecraft:stone", "minecraft:stone_bricks"),
+        suggest(snapshot, "sto", false));
+    assertEquals(Arrays.asList("minecraft:stick"), suggest(snapshot, "minecraft:sti", false));
+    // An input without a colon also matches namespaces
+    assertEquals(Arrays.asList("custom:stone"), suggest(snapshot, "cus", false));
+    assertEquals(Arrays.asList("custom:stone"), suggest(snapshot, "custom:", false));
+    assertEquals(4, suggest(snapshot, "minecraft", false).size());
+    assertTrue(suggest(snapshot, "custom:sti", false).isEmpty());
+    assertTrue(suggest(snapshot, "other:", false).isEmpty());
+    assertEquals(5, suggest(snapshot, "", false).size());
+    assertEquals(6, suggest(snapshot, "", true).size());
+    assertEquals(Arrays.asList("#minecraft:stone_tool_materials"),
+        suggest(snapshot, "#st", true));
+    assertTrue(suggest(snapshot, "#st", false).isEmpty());
+  }
+
+  @Test
+  void testDataPackTags(@TempDir final Path data) throws IOException {
+    final Path tags = data.resolve("minecraft/tags/items");
+    Files.createDirectories(tags.resolve("nested"));
+    Files.writeString(tags.resolve("logs.json"), "{\"values\": []}");
+    Files.writeString(tags.resolve("nested/planks.json"), "{\"values\": []}");
+    // Vanilla skips files whose name isn't a valid identifier
+    Files.writeString(tags.resolve("Wool.json"), "{\"values\": []}");
+    Files.writeString(tags.resolve("wool carpets.json"), "{\"values\": []}");
+
+    final RegistrySnapshot snapshot = RegistrySnapshot.builder()
+        .registriesReport(new StringReader(REPORT))
+        .dataPackTags(data)
+        .build();
+
+    assertTrue(snapshot.containsTag(ITEM, Key.key("logs")));
+    assertTrue(snapshot.containsTag(ITEM, Key.key("nested/planks")));
+    assertFalse(snapshot.containsTag(ITEM, Key.key("stone")));
+    assertEquals(2, suggest(snapshot, "#", true).size());
+  }
+
+  @Test
+  void testDispatcherSuggestions() {
+    final RegistrySuggestions suggestions = new RegistrySuggestions(RegistrySnapshot.builder()
+        .registriesReport(new StringReader(REPORT))
+        .build());
+    final CommandDispatcher<Object> dispatcher = new CommandDispatcher<>();
+    dispatcher.register(LiteralArgumentBuilder.literal("give")
+        .then(RequiredArgumentBuilder.argument("item", StringArgumentType.greedyString())
+            .suggests(suggestions.provider(ArgumentParser.RESOURCE, ITEM))));
+
+    final Suggestions completions = dispatcher.getCompletionSuggestions(
+        dispatcher.parse("give minecraft:st", new Object())).join();
+    assertEquals(5, completions.getRange().getStart());
+    assertEquals(Arrays.asList("minecraft:stick", "minecraft:stone", "minecraft:stone_bricks"),
+        completions.getList().stream()
+            .map(Suggestion::getText)
+            .sorted()
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  void testSnapshotSwap() {
+    final RegistrySuggestions suggestions = new RegistrySuggestions();
+    final RegistrySnapshot snapshot = RegistrySnapshot.builder()
+        .entry(ITEM, Key.key("stone"))
+        .build();
+
+    suggestions.update(snapshot);
+    assertEquals(snapshot, suggestions.snapshot());
+    assertThrows(IllegalArgumentException.class,
+        () -> suggestions.provider(ArgumentParser.ENTITY, ITEM));
+  }
+}
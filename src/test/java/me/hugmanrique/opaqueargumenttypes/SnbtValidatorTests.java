@@ -0,0 +1,100 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.NBT_COMPOUND_TAG;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.NBT_PATH;
+import static me.hugmanrique.opaqueargumenttypes.ArgumentParser.NBT_TAG;
+import static me.hugmanrique.opaqueargumenttypes.SnbtValidator.Result.MALFORMED;
+import static me.hugmanrique.opaqueargumenttypes.SnbtValidator.Result.TOO_DEEP;
+import static me.hugmanrique.opaqueargumenttypes.SnbtValidator.Result.TOO_LONG;
+import static me.hugmanrique.opaqueargumenttypes.SnbtValidator.Result.TOO_MANY_ELEMENTS;
+import static me.hugmanrique.opaqueargumenttypes.SnbtValidator.Result.VALID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.mojang.brigadier.StringReader;
+import org.junit.jupiter.api.Test;
+
+final class SnbtValidatorTests {
+
+  private static final SnbtValidator VALIDATOR = SnbtValidator.DEFAULT;
+
+  @Test
+  void testCompounds() {
+    assertEquals(VALID, VALIDATOR.validate(NBT_COMPOUND_TAG, "{}"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_COMPOUND_TAG,
+        "{a:1,b:\"x\\\"y\",c:[1,2,3],d:{e:1.5f}}"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_COMPOUND_TAG, "{ a : 1 , b : [ ] , }"));
+
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_COMPOUND_TAG, "1"));
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_COMPOUND_TAG, "{:1}"));
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_COMPOUND_TAG, "{a 1}"));
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_COMPOUND_TAG, "{a:1"));
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_COMPOUND_TAG, "{a:'x\\q'}"));
+  }
+
+  @Test
+  void testUniformLists() {
+    assertEquals(VALID, VALIDATOR.validate(NBT_TAG, "[1.5,2d]"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_TAG, "[true,1b]"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_TAG, "[\"a\",b,2147483648]"));
+
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_TAG, "[1,2b]"));
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_TAG, "[1.5,2]"));
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_TAG, "[300b,1]")); // 300b is a string
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_TAG, "[,]"));
+  }
+
+  @Test
+  void testArrays() {
+    assertEquals(VALID, VALIDATOR.validate(NBT_TAG, "[B;1b,2B]"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_TAG, "[I;1,-2]"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_TAG, "[L;1l]"));
+
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_TAG, "[I;1b]"));
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_TAG, "[X;1]"));
+  }
+
+  @Test
+  void testPaths() {
+    assertEquals(VALID, VALIDATOR.validate(NBT_PATH, "a.b[0].c"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_PATH, "Inventory[-1]"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_PATH, "a[]"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_PATH, "a[{x:1}]"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_PATH, "{x:1}.a{y:2b}"));
+    assertEquals(VALID, VALIDATOR.validate(NBT_PATH, "\"a b\".c"));
+
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_PATH, "a.{x:1}"));
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_PATH, "a..b"));
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_PATH, "a[x]"));
+  }
+
+  @Test
+  void testLimits() {
+    final StringBuilder deep = new StringBuilder();
+    for (int i = 0; i < 600; i++) {
+      deep.append("{a:");
+    }
+    assertEquals(TOO_DEEP, VALIDATOR.validate(NBT_COMPOUND_TAG, deep.toString()));
+
+    final SnbtValidator validator = new SnbtValidator(2, 8, 3);
+    assertEquals(TOO_DEEP, validator.validate(NBT_TAG, "[[[]]]"));
+    assertEquals(TOO_LONG, validator.validate(NBT_COMPOUND_TAG, "{a:123456789}"));
+    assertEquals(TOO_LONG, validator.validate(NBT_TAG, "abcdefghijk"));
+    assertEquals(TOO_MANY_ELEMENTS, validator.validate(NBT_TAG, "[1,2,3]"));
+    assertEquals(VALID, validator.validate(NBT_TAG, "[1,2]"));
+  }
+
+  @Test
+  void testReaderCursor() {
+    final StringReader reader = new StringReader("data {a:1} rest");
+    reader.setCursor(5);
+    assertEquals(VALID, VALIDATOR.validate(NBT_COMPOUND_TAG, reader));
+    assertEquals(10, reader.getCursor());
+
+    reader.setCursor(5);
+    assertEquals(MALFORMED, VALIDATOR.validate(NBT_PATH, new StringReader("a..b")));
+    assertThrows(IllegalArgumentException.class,
+        () -> VALIDATOR.validate(ArgumentParser.ENTITY, reader));
+    assertEquals(5, reader.getCursor());
+  }
+}
@@ -0,0 +1,129 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import com.velocitypowered.api.command.BrigadierCommand;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.OpaqueArgumentType;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import java.lang.reflect.Proxy;
+import java.util.function.Consumer;
+import net.kyori.adventure.key.Key;
+
+/**
+ * Creates stubs of the Velocity API backed by dynamic proxies, shared by the
+ * tests and benchmarks.
+ *
+ * <p>Stubs are only equal to themselves, and throw an
+ * {@link UnsupportedOperationException} from the methods they don't implement.
+ */
+final class Stubs {
+
+  /**
+   * Implements the methods of a stub, other than those of {@link Object}.
+   */
+  interface Handler {
+
+    Object apply(String name, Object[] args);
+  }
+
+  /**
+   * Creates a command manager whose only working method builds opaque argument
+   * types, which report their identifier and properties.
+   *
+   * @return the command manager.
+   */
+  static CommandManager commandManager() {
+    return commandManager(identifier -> { }, command -> { });
+  }
+
+  /**
+   * Creates a command manager that builds opaque argument types, which report
+   * their identifier and properties, and accepts command registrations.
+   *
+   * @param built receives the identifier of each built type.
+   * @param registered receives each registered command.
+   * @return the command manager.
+   */
+  static CommandManager commandManager(final Consumer<Key> built,
+                                       final Consumer<BrigadierCommand> registered) {
+    return proxy(CommandManager.class, (name, args) -> {
+      switch (name) {
+        case "opaqueArgumentTypeBuilder":
+          return builder((Key) args[0], built);
+        case "register":
+          registered.accept((BrigadierCommand) args[0]);
+          return null;
+        default:
+          throw new UnsupportedOperationException(name);
+      }
+    });
+  }
+
+  private static OpaqueArgumentType.Builder builder(final Key identifier,
+                                                    final Consumer<Key> built) {
+    final byte[][] properties = new byte[1][];
+    final OpaqueArgumentType.Builder[] builder = new OpaqueArgumentType.Builder[1];
+    builder[0] = proxy(OpaqueArgumentType.Builder.class, (name, args) -> {
+      if (name.equals("withProperties")) {
+        properties[0] = (byte[]) args[0];
+        return builder[0];
+      }
+      built.accept(identifier);
+      return type(identifier, properties[0]);
+    });
+    return builder[0];
+  }
+
+  private static OpaqueArgumentType type(final Key identifier, final byte[] properties) {
+    return proxy(OpaqueArgumentType.class, (name, args) -> {
+      switch (name) {
+        case "getIdentifier":
+          return identifier;
+        case "getProperties":
+          return properties;
+        default:
+          throw new UnsupportedOperationException(name);
+      }
+    });
+  }
+
+  /**
+   * Creates a backend server stub without any working methods.
+   *
+   * @return the server.
+   */
+  static RegisteredServer server() {
+    return proxy(RegisteredServer.class, null);
+  }
+
+  /**
+   * Creates a stub of the given interface.
+   *
+   * @param type the interface.
+   * @param handler the handler of the methods, or {@code null} if none work.
+   * @param <T> the type of the interface.
+   * @return the stub.
+   */
+  static <T> T proxy(final Class<T> type, final Handler handler) {
+    return type.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(),
+        new Class<?>[] { type }, (instance, method, args) -> {
+          switch (method.getName()) {
+            case "equals":
+              return instance == args[0];
+            case "hashCode":
+              return System.identityHashCode(instance);
+            case "toString":
+              return type.getSimpleName() + '@'
+                  + Integer.toHexString(System.identityHashCode(instance));
+            default:
+              if (handler == null) {
+                throw new UnsupportedOperationException(method.getName());
+              }
+              return handler.apply(method.getName(), args);
+          }
+        }));
+  }
+
+  private Stubs() {
+    throw new AssertionError();
+  }
+}
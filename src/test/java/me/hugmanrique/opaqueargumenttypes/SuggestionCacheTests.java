@@ -0,0 +1,161 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_19_3;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.context.StringRange;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+final class SuggestionCacheTests {
+
+  // Suggests "overworld" for the last word of the input
+  private static final class DimensionUpstream implements SuggestionCoalescer.Upstream {
+
+    final List<String> inputs = new ArrayList<>();
+
+    @Override
+    public CompletableFuture<Suggestions> request(final RegisteredServer server,
+                                                  final String input) {
+      this.inputs.add(input);
+      final StringRange range = StringRange.between(input.lastIndexOf(' ') + 1, input.length());
+      return CompletableFuture.completedFuture(
+          new Suggestions(range, List.of(new Suggestion(range, "minecraft:overworld"))));
+    }
+  }
+
+  @Test
+  void testHitsAreRebased() {
+    final DimensionUpstream upstream = new DimensionUpstream();
+    final SuggestionCache cache = SuggestionCache.builder(upstream).build();
+    final RegisteredServer lobby = Stubs.server();
+
+    final Suggestions miss = cache.suggest(lobby, MINECRAFT_1_19, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("tp ov", 3)).join();
+    assertEquals(3, miss.getRange().getStart());
+
+    // Another command using the same parser is answered from the cache
+    final Suggestions hit = cache.suggest(lobby, MINECRAFT_1_19, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("execute in ov", 11)).join();
+    assertEquals(List.of("tp ov"), upstream.inputs);
+    assertEquals(11, hit.getRange().getStart());
+    assertEquals(13, hit.getRange().getEnd());
+    final Suggestion suggestion = hit.getList().get(0);
+    assertEquals("minecraft:overworld", suggestion.getText());
+    assertEquals(11, suggestion.getRange().getStart());
+
+    assertEquals(1, cache.hitCount());
+    assertEquals(1, cache.missCount());
+    assertEquals(0.5, cache.hitRate());
+  }
+
+  @Test
+  void testEntriesAreKeyed() {
+    final DimensionUpstream upstream = new DimensionUpstream();
+    final SuggestionCache cache = SuggestionCache.builder(upstream).build();
+    final RegisteredServer lobby = Stubs.server();
+
+    cache.suggest(lobby, MINECRAFT_1_19, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("tp ov", 3)).join();
+    cache.suggest(lobby, MINECRAFT_1_19, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("tp o", 3)).join();
+    cache.suggest(lobby, MINECRAFT_1_19_3, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("tp ov", 3)).join();
+    cache.suggest(lobby, MINECRAFT_1_19, ArgumentParser.PARTICLE,
+        new SuggestionsBuilder("tp ov", 3)).join();
+    cache.suggest(Stubs.server(), MINECRAFT_1_19, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("tp ov", 3)).join();
+    assertEquals(5, upstream.inputs.size());
+    assertEquals(5, cache.size());
+  }
+
+  @Test
+  void testUncachableSuggestions() {
+    // Suggestions replacing input before the argument can't be rebased
+    final SuggestionCache cache = SuggestionCache.builder((server, input) -> {
+      final StringRange range = StringRange.between(0, input.length());
+      return CompletableFuture.completedFuture(
+          new Suggestions(range, List.of(new Suggestion(range, "/tp"))));
+    }).build();
+
+    cache.suggest(Stubs.server(), MINECRAFT_1_19, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("tp ov", 3)).join();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void testInvalidate() {
+    final DimensionUpstream upstream = new DimensionUpstream();
+    final SuggestionCache cache = SuggestionCache.builder(upstream).maximumSize(100).build();
+    final RegisteredServer lobby = Stubs.server();
+    final RegisteredServer survival = Stubs.server();
+
+    cache.suggest(lobby, MINECRAFT_1_19, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("tp ov", 3)).join();
+    cache.suggest(survival, MINECRAFT_1_19, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("tp ov", 3)).join();
+    cache.invalidate(lobby);
+    assertEquals(1, cache.size());
+
+    cache.suggest(lobby, MINECRAFT_1_19, ArgumentParser.DIMENSION,
+        new SuggestionsBuilder("tp ov", 3)).join();
+    assertEquals(3, upstream.inputs.size());
+
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+    assertTrue(cache.missCount() >= 3);
+  }
+
+  @Test
+  void testDispatcherSuggestions() {
+    final DimensionUpstream upstream = new DimensionUpstream();
+    final SuggestionCache cache = SuggestionCache.builder(upstream).build();
+    final RegisteredServer lobby = Stubs.server();
+    final ServerConnection connection = Stubs.proxy(ServerConnection.class,
+        (name, args) -> lobby);
+    final Player player = Stubs.proxy(Player.class, (name, args) -> {
+      switch (name) {
+        case "getCurrentServer":
+          return Optional.of(connection);
+        case "getProtocolVersion":
+          return MINECRAFT_1_19;
+        default:
+          throw new UnsupportedOperationException(name);
+      }
+    });
+
+    final CommandDispatcher<CommandSource> dispatcher = new CommandDispatcher<>();
+    final SuggestionProvider<CommandSource> provider = cache.provider(ArgumentParser.DIMENSION);
+    dispatcher.register(LiteralArgumentBuilder.<CommandSource>literal("visit")
+        .then(RequiredArgumentBuilder.<CommandSource, String>argument("dimension",
+            StringArgumentType.greedyString()).suggests(provider)));
+    dispatcher.register(LiteralArgumentBuilder.<CommandSource>literal("portal")
+        .then(RequiredArgumentBuilder.<CommandSource, String>argument("dimension",
+            StringArgumentType.greedyString()).suggests(provider)));
+
+    dispatcher.getCompletionSuggestions(dispatcher.parse("visit ov", player)).join();
+    final Suggestions hit =
+        dispatcher.getCompletionSuggestions(dispatcher.parse("portal ov", player)).join();
+    assertEquals(List.of("visit ov"), upstream.inputs);
+    assertEquals("minecraft:overworld", hit.getList().get(0).getText());
+    assertEquals(7, hit.getList().get(0).getRange().getStart());
+    assertEquals(1, cache.hitCount());
+  }
+}
@@ -0,0 +1,121 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.context.StringRange;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+
+final class SuggestionCoalescerTests {
+
+  private static final class RecordingUpstream implements SuggestionCoalescer.Upstream {
+
+    final List<String> inputs = new ArrayList<>();
+    final List<CompletableFuture<Suggestions>> responses = new ArrayList<>();
+
+    @Override
+    public CompletableFuture<Suggestions> request(final RegisteredServer server,
+                                                  final String input) {
+      final CompletableFuture<Suggestions> response = new CompletableFuture<>();
+      this.inputs.add(input);
+      this.responses.add(response);
+      return response;
+    }
+  }
+
+  @Test
+  void testCoalescesIdenticalRequests() throws Exception {
+    final RecordingUpstream upstream = new RecordingUpstream();
+    final SuggestionCoalescer coalescer = new SuggestionCoalescer(upstream);
+    final RegisteredServer lobby = Stubs.server();
+
+    final CompletableFuture<Suggestions> first = coalescer.request(lobby, "warp ");
+    final CompletableFuture<Suggestions> second = coalescer.request(lobby, "warp ");
+    assertNotSame(first, second);
+    assertEquals(List.of("warp "), upstream.inputs);
+    assertEquals(1, coalescer.inFlight());
+
+    final Suggestions suggestions = new Suggestions(StringRange.at(5), List.of());
+    upstream.responses.get(0).complete(suggestions);
+    assertSame(suggestions, first.get());
+    assertSame(suggestions, second.get());
+    assertEquals(0, coalescer.inFlight());
+
+    // Completed requests aren't reused
+    coalescer.request(lobby, "warp ");
+    assertEquals(2, upstream.inputs.size());
+  }
+
+  @Test
+  void testDistinctRequests() {
+    final RecordingUpstream upstream = new RecordingUpstream();
+    final SuggestionCoalescer coalescer = new SuggestionCoalescer(upstream);
+    final RegisteredServer lobby = Stubs.server();
+
+    coalescer.request(lobby, "warp ");
+    coalescer.request(lobby, "warp a");
+    coalescer.request(Stubs.server(), "warp ");
+    assertEquals(3, upstream.inputs.size());
+    assertEquals(3, coalescer.inFlight());
+  }
+
+  @Test
+  void testFailures() {
+    final RecordingUpstream upstream = new RecordingUpstream();
+    final SuggestionCoalescer coalescer = new SuggestionCoalescer(upstream);
+    final RegisteredServer lobby = Stubs.server();
+
+    final CompletableFuture<Suggestions> first = coalescer.request(lobby, "warp ");
+    final CompletableFuture<Suggestions> second = coalescer.request(lobby, "warp ");
+    first.cancel(false); // doesn't affect the other requests
+    assertFalse(second.isDone());
+
+    upstream.responses.get(0).completeExceptionally(new IllegalStateException());
+    assertThrows(ExecutionException.class, second::get);
+    assertEquals(0, coalescer.inFlight());
+
+    final SuggestionCoalescer throwing = new SuggestionCoalescer((server, input) -> {
+      throw new IllegalStateException();
+    });
+    assertTrue(throwing.request(lobby, "warp ").isCompletedExceptionally());
+    assertEquals(0, throwing.inFlight());
+  }
+
+  @Test
+  void testDispatcherSuggestions() {
+    final RecordingUpstream upstream = new RecordingUpstream();
+    final SuggestionCoalescer coalescer = new SuggestionCoalescer(upstream);
+    final RegisteredServer lobby = Stubs.server();
+    final CommandDispatcher<Object> dispatcher = new CommandDispatcher<>();
+    dispatcher.register(LiteralArgumentBuilder.literal("warp")
+        .then(RequiredArgumentBuilder.argument("name", StringArgumentType.greedyString())
+            .suggests(coalescer.provider(source -> lobby))));
+
+    final CompletableFuture<Suggestions> first = dispatcher.getCompletionSuggestions(
+        dispatcher.parse("warp sp", new Object()));
+    final CompletableFuture<Suggestions> second = dispatcher.getCompletionSuggestions(
+        dispatcher.parse("warp sp", new Object()));
+    assertEquals(List.of("warp sp"), upstream.inputs);
+
+    final StringRange range = StringRange.between(5, 7);
+    upstream.responses.get(0).complete(
+        new Suggestions(range, List.of(new Suggestion(range, "spawn"))));
+    assertEquals("spawn", first.join().getList().get(0).getText());
+    assertEquals("spawn", second.join().getList().get(0).getText());
+  }
+}
@@ -0,0 +1,190 @@
+package me.hugmanrique.opaqueargumenttypes;
+
+import static com.mojang.brigadier.builder.LiteralArgumentBuilder.literal;
+import static com.mojang.brigadier.builder.RequiredArgumentBuilder.argument;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_16;
+import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_16_2;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import com.velocitypowered.api.command.CommandManager;
+import org.junit.jupiter.api.Test;
+
+final class VersionedCommandTreeTests {
+
+  private static final Command<Object> COMMAND = context -> Command.SINGLE_SUCCESS;
+
+  // The angle parser was added in 1.16.2
+  private final CommandManager manager = Stubs.commandManager();
+
+  private LiteralCommandNode<Object> rotate() {
+    return literal("rotate")
+        .then(argument("angle", OpaqueArgumentTypes.angle(this.manager)).executes(COMMAND))
+        .build();
+  }
+
+  private LiteralCommandNode<Object> teleport() {
+    return literal("tp")
+        .then(argument("pos", OpaqueArgumentTypes.blockPos(this.manager)).executes(COMMAND))
+        .build();
+  }
+
+  @Test
+  void testDropsUnsupportedArguments() {
+    final VersionedCommandTree<Object> tree = new VersionedCommandTree<>();
+    tree.register(rotate());
+    tree.register(teleport());
+
+    final RootCommandNode<Object> legacy = tree.forVersion(MINECRAFT_1_16);
+    // The literal without a command is dropped along with its only child
+    assertNull(legacy.getChild("rotate"));
+    assertNotNull(legacy.getChild("tp").getChild("pos"));
+    assertSame(legacy, tree.forVersion(MINECRAFT_1_16));
+
+    final RootCommandNode<Object> modern = tree.forVersion(MINECRAFT_1_16_2);
+    assertSame(OpaqueArgumentTypes.angle(this.manager),
+        ((ArgumentCommandNode<?, ?>) modern.getChild("rotate").getChild("angle")).getType());
+    assertSame(COMMAND, modern.getChild("rotate").getChild("angle").getCommand());
+  }
+
+  @Test
+  void testFallbackTypes() {
+    final VersionedCommandTree<Object> tree =
+        new VersionedCommandTree<>(parser -> StringArgumentType.word());
+    tree.register(rotate());
+
+    final CommandNode<Object> angle = tree.forVersion(MINECRAFT_1_16)
+        .getChild("rotate").getChild("angle");
+    assertTrue(((ArgumentCommandNode<?, ?>) angle).getType() instanceof StringArgumentType);
+    assertSame(COMMAND, angle.getCommand());
+  }
+
+  @Test
+  void testKeepsExecutableEmptiedLiterals() {
+    final VersionedCommandTree<Object> tree = new VersionedCommandTree<>();
+    tree.register(literal("rotate")
+        .executes(COMMAND)
+        .then(argument("angle", OpaqueArgumentTypes.angle(this.manager)))
+        .build());
+
+    final CommandNode<Object> rotate = tree.forVersion(MINECRAFT_1_16).getChild("rotate");
+    assertSame(COMMAND, rotate.getCommand());
+    assertTrue(rotate.getChildren().isEmpty());
+  }
+
+  @Test
+  void testRedirectsToRoot() {
+    final RootCommandNode<Object> source = new RootCommandNode<>();
+    final VersionedCommandTree<Object> tree = new VersionedCommandTree<>();
+    tree.register(literal("execute")
+        .then(literal("run").redirect(source))
+        .build());
+
+    final RootCommandNode<Object> view = tree.forVersion(MINECRAFT_1_16);
+    assertSame(view, view.getChild("execute").getChild("run").getRedirect());
+
+    // The command is rebuilt for the new view
+    tree.register(teleport());
+    final RootCommandNode<Object> updated = tree.forVersion(MINECRAFT_1_16);
+    assertNotSame(view, updated);
+    assertSame(updated, updated.getChild("execute").getChild("run").getRedirect());
+  }
+
+  @Test
+  void testRedirectsWithinSubtree() {
+    final LiteralCommandNode<Object> execute =
+        literal("execute").build();
+    execute.addChild(literal("as")
+        .then(argument("targets", OpaqueArgumentTypes.entity(this.manager, false, false))
+            .redirect(execute))
+        .build());
+    execute.addChild(literal("rotated")
+        .then(argument("rot", OpaqueArgumentTypes.angle(this.manager)).redirect(execute))
+        .build());
+    final VersionedCommandTree<Object> tree = new VersionedCommandTree<>();
+    tree.register(execute);
+
+    final CommandNode<Object> view = tree.forVersion(MINECRAFT_1_16).getChild("execute");
+    assertSame(view, view.getChild("as").getChild("targets").getRedirect());
+    assertNull(view.getChild("rotated"));
+    final CommandNode<Object> modern = tree.forVersion(MINECRAFT_1_16_2).getChild("execute");
+    assertSame(modern, modern.getChild("rotated").getChild("rot").getRedirect());
+  }
+
+  @Test
+  void testCyclicRedirects() {
+    // "back" is reached through "x" before "y", the target of its redirect
+    final LiteralCommandNode<Object> y = literal("y")
+        .then(literal("go").executes(COMMAND))
+        .build();
+    final LiteralCommandNode<Object> back =
+        literal("back").redirect(y).build();
+    y.addChild(back);
+    final LiteralCommandNode<Object> x = literal("x").build();
+    x.addChild(back);
+    final LiteralCommandNode<Object> nav = literal("nav").build();
+    nav.addChild(x);
+    nav.addChild(y);
+
+    // "menu" redirects into "nav", so it's copied along with the cached view of "nav"
+    final LiteralCommandNode<Object> menu = literal("menu")
+        .redirect(y)
+        .build();
+
+    final VersionedCommandTree<Object> tree = new VersionedCommandTree<>();
+    tree.register(nav);
+    tree.register(menu);
+    final RootCommandNode<Object> view = tree.forVersion(MINECRAFT_1_16);
+    final CommandNode<Object> viewY = view.getChild("nav").getChild("y");
+    assertSame(viewY, view.getChild("nav").getChild("x").getChild("back").getRedirect());
+    assertSame(viewY, viewY.getChild("back").getRedirect());
+    assertSame(viewY, view.getChild("menu").getRedirect());
+    assertNotNull(viewY.getChild("go"));
+  }
+
+  @Test
+  void testInvalidatesViews() {
+    final VersionedCommandTree<Object> tree = new VersionedCommandTree<>();
+    tree.register(rotate());
+    final RootCommandNode<Object> view = tree.forVersion(MINECRAFT_1_16_2);
+    final CommandNode<Object> rotate = view.getChild("rotate");
+
+    tree.register(teleport());
+    final RootCommandNode<Object> registered = tree.forVersion(MINECRAFT_1_16_2);
+    assertNotSame(view, registered);
+    assertNotNull(registered.getChild("tp"));
+    // The view of the unchanged command is reused
+    assertSame(rotate, registered.getChild("rotate"));
+
+    assertTrue(tree.unregister("tp"));
+    assertFalse(tree.unregister("tp"));
+    final RootCommandNode<Object> unregistered = tree.forVersion(MINECRAFT_1_16_2);
+    assertNotSame(registered, unregistered);
+    assertNull(unregistered.getChild("tp"));
+    assertSame(rotate, unregistered.getChild("rotate"));
+
+    // Replacing a command discards its view
+    tree.register(rotate());
+    assertNotSame(rotate, tree.forVersion(MINECRAFT_1_16_2).getChild("rotate"));
+  }
+
+  @Test
+  void testPrune() {
+    final RootCommandNode<Object> root = new RootCommandNode<>();
+    root.addChild(rotate());
+    root.addChild(teleport());
+    final RootCommandNode<Object> pruned = VersionedCommandTree.prune(root, MINECRAFT_1_16);
+    assertNull(pruned.getChild("rotate"));
+    assertNotNull(pruned.getChild("tp"));
+  }
+}